@@ -17,6 +17,8 @@ public enum AGVManagementConfiguration implements IConfiguration {
 	private long chargeDurationMillis = 5000;
 	private long maxWaitForChargingMillis = 10000;
 	private double batteryLowThreshold = 0.20;
+	private double opportunisticChargeThreshold = 0.40;
+	private double chargeAfterRouteFactor = 2.0;
 	private boolean enableAutoCharging = true;
 	private boolean isAutowired = false;
 
@@ -71,6 +73,36 @@ public enum AGVManagementConfiguration implements IConfiguration {
 		return this;
 	}
 
+	/**
+	 * Battery fraction below which an AGV that just became idle charges right
+	 * away, provided a station is free and nobody is waiting.
+	 */
+	public double getOpportunisticChargeThreshold() {
+		return opportunisticChargeThreshold;
+	}
+
+	public AGVManagementConfiguration setOpportunisticChargeThreshold(double t) {
+		this.opportunisticChargeThreshold = t;
+		return this;
+	}
+
+	/**
+	 * Multiple of an AGV's low battery threshold: an AGV whose forecast
+	 * battery level after a newly loaded route is at or below it charges as
+	 * soon as the route is done.
+	 */
+	public double getChargeAfterRouteFactor() {
+		return chargeAfterRouteFactor;
+	}
+
+	public AGVManagementConfiguration setChargeAfterRouteFactor(double factor) {
+		if (factor < 0) {
+			throw new IllegalArgumentException("Charge after route factor cannot be negative");
+		}
+		this.chargeAfterRouteFactor = factor;
+		return this;
+	}
+
 	public boolean isAutoChargingEnabled() {
 		return enableAutoCharging;
 	}
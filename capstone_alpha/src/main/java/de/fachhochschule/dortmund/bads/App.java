@@ -1,10 +1,17 @@
 package de.fachhochschule.dortmund.bads;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,6 +23,12 @@ import de.fachhochschule.dortmund.bads.model.Area.Point;
 import de.fachhochschule.dortmund.bads.resources.AGV;
 import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
 import de.fachhochschule.dortmund.bads.resources.Truck;
+import de.fachhochschule.dortmund.bads.systems.logic.ControlServer;
+import de.fachhochschule.dortmund.bads.systems.logic.EventLog;
+import de.fachhochschule.dortmund.bads.systems.logic.InventoryLedger;
+import de.fachhochschule.dortmund.bads.systems.logic.MetricsStore;
+import de.fachhochschule.dortmund.bads.systems.logic.TaskManagement;
+import de.fachhochschule.dortmund.bads.systems.logic.WarehouseSnapshot;
 
 public class App implements Runnable {
 	private static final Logger LOGGER = LogManager.getLogger();
@@ -26,6 +39,30 @@ public class App implements Runnable {
 	private List<AGV> agvFleet;
 
 	public static void main(String[] args) {
+		// options: --headless runs without GUI, --http=PORT starts the control server,
+		// --history=FILE records the metrics to a file, --events=FILE the events to a binary log
+		List<String> files = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.equals("--headless")) {
+				GUIConfiguration.INSTANCE.setHeadless(true);
+			} else if (arg.startsWith("--http=")) {
+				ObservabilityConfiguration.INSTANCE.setHttpPort(Integer.parseInt(arg.substring("--http=".length())));
+			} else if (arg.startsWith("--history=")) {
+				ObservabilityConfiguration.INSTANCE.setMetricsHistoryFile(Path.of(arg.substring("--history=".length())));
+			} else if (arg.startsWith("--events=")) {
+				ObservabilityConfiguration.INSTANCE.setEventLogFile(Path.of(arg.substring("--events=".length())));
+			} else {
+				files.add(arg);
+			}
+		}
+		// optional snapshot file: restored at startup if present, written at shutdown
+		if (files.size() > 0) {
+			StorageManagementConfiguration.INSTANCE.setSnapshotFile(Path.of(files.get(0)));
+		}
+		// optional inventory ledger file
+		if (files.size() > 1) {
+			StorageManagementConfiguration.INSTANCE.setLedgerFile(Path.of(files.get(1)));
+		}
 		new App().run();
 	}
 
@@ -34,18 +71,33 @@ public class App implements Runnable {
 		LOGGER.info("=== Initializing Warehouse Management System ===");
 		CoreConfiguration.INSTANCE.autowire();
 		
-		setupCity();
-		setupWarehouse();
-		setupTrucks();
-		setupAGVFleet();
-		populateWarehouse();
+		Path snapshot = StorageManagementConfiguration.INSTANCE.getSnapshotFile();
+		if (!restoreSnapshot(snapshot)) {
+			setupCity();
+			setupWarehouse();
+			setupTrucks();
+			setupAGVFleet();
+			populateWarehouse();
+		}
+		CoreConfiguration.INSTANCE.getStorageManagementSystem().registerStorage("warehouse", warehouse);
+		if (snapshot != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> writeSnapshot(snapshot), "SnapshotOnExit-Thread"));
+		}
+		startLedger(StorageManagementConfiguration.INSTANCE.getLedgerFile());
 		
 		LOGGER.info("=== System Ready ===");
 		LOGGER.info("City: {} nodes | Warehouse: {} cells, {} AGVs | Trucks: {}", 
 			cityArea.getAdjacencyMap().size(), warehouse.AREA.getAdjacencyMap().size(),
 			agvFleet.size(), trucks.size());
 		
-		startGUI();
+		startEventLog(ObservabilityConfiguration.INSTANCE.getEventLogFile());
+		MetricsStore history = startMetricsHistory(ObservabilityConfiguration.INSTANCE.getMetricsHistoryFile());
+		startControlServer(history);
+		if (GUIConfiguration.INSTANCE.isHeadless()) {
+			LOGGER.info("Running headless, no GUI");
+		} else {
+			startGUI();
+		}
 		
 		try {
 			Thread.currentThread().join();
@@ -151,7 +203,7 @@ public class App implements Runnable {
 			case "R" -> CoreConfiguration.INSTANCE.newStorageCell(StorageCell.Type.REFRIGERATED, 120, 120, 150);
 			case "B" -> CoreConfiguration.INSTANCE.newStorageCell(StorageCell.Type.BULK, 160, 160, 180);
 			case "C" -> CoreConfiguration.INSTANCE.newChargingStation();
-			case "L" -> CoreConfiguration.INSTANCE.newStorageCell(StorageCell.Type.ANY, 200, 200, 200);
+			case "L" -> CoreConfiguration.INSTANCE.newStorageCell(StorageCell.Type.LOADING_DOCK, 200, 200, 200);
 			case "=" -> CoreConfiguration.INSTANCE.newStorageCell(StorageCell.Type.CORRIDOR, 50, 50, 50);
 			default -> throw new IllegalArgumentException("Unknown cell type: " + type);
 		};
@@ -182,7 +234,10 @@ public class App implements Runnable {
 			agvFleet.add(agv);
 			LOGGER.info("{} assigned to Main Warehouse", agv.getAgvId());
 		}
+		wireAGVFleet();
+	}
 
+	private void wireAGVFleet() {
 		agvFleet.forEach(CoreConfiguration.INSTANCE::registerTickable);
 		LOGGER.info("AGV fleet ready: {} AGVs assigned to warehouse", agvFleet.size());
 
@@ -221,6 +276,151 @@ public class App implements Runnable {
 		return warehouse.addBeverageToStorage(box);
 	}
 	
+	/**
+	 * Rebuild city, warehouse, trucks and AGVs from a snapshot. Queued tasks
+	 * are not restored; the snapshot only records how many were dropped.
+	 * 
+	 * @return false if there is no usable snapshot and the system has to be set up from scratch
+	 */
+	private boolean restoreSnapshot(Path snapshot) {
+		if (snapshot == null || !Files.isRegularFile(snapshot)) {
+			return false;
+		}
+		LOGGER.info("Restoring warehouse from snapshot {}...", snapshot);
+		try {
+			WarehouseSnapshot.Restored restored = WarehouseSnapshot.read(snapshot).restore();
+			cityArea = restored.city();
+			warehouse = restored.warehouse();
+			trucks = new ArrayList<>(restored.trucks());
+			agvFleet = new ArrayList<>(restored.agvFleet());
+			CoreConfiguration.INSTANCE.initializeAGVChargingSystem(warehouse);
+			wireAGVFleet();
+			LOGGER.info("Warehouse restored from tick {} of the previous run ({} queued tasks dropped)",
+					restored.tick(), restored.droppedTasks());
+			return true;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Cannot restore snapshot {}, setting up a new warehouse: {}", snapshot, e.getMessage());
+			return false;
+		}
+	}
+
+	private void writeSnapshot(Path snapshot) {
+		TaskManagement taskManagement = CoreConfiguration.INSTANCE.getTaskManagementSystem();
+		try {
+			WarehouseSnapshot.captureAsync(CoreConfiguration.INSTANCE.getClockingSystem(), snapshot, cityArea, warehouse,
+					agvFleet, trucks, taskManagement != null ? taskManagement.getAllTasks() : List.of())
+				.get(10, TimeUnit.SECONDS);
+		} catch (ExecutionException | TimeoutException e) {
+			LOGGER.error("Writing snapshot {} failed: {}", snapshot, e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Record every inventory change of the warehouse, the AGVs and the trucks.
+	 */
+	private void startLedger(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			InventoryLedger ledger = new InventoryLedger(file,
+					StorageManagementConfiguration.INSTANCE.getLedgerCheckpointInterval(),
+					StorageManagementConfiguration.INSTANCE.getLedgerMaxFileBytes(),
+					CoreConfiguration.INSTANCE.getClockingSystem()::getCurrentTime);
+			ledger.attach(warehouse);
+			for (AGV agv : agvFleet) {
+				ledger.attach(agv.getAgvId(), agv.getInventoryCell());
+			}
+			for (int i = 0; i < trucks.size(); i++) {
+				StorageCell inventory = trucks.get(i).getInventoryCell();
+				if (inventory != null) {
+					ledger.attach("Truck-" + (i + 1), inventory);
+				}
+			}
+			ledger.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				ledger.shutdown();
+				try {
+					ledger.join(5000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, "LedgerOnExit-Thread"));
+			LOGGER.info("Inventory ledger recording to {}", file);
+		} catch (IOException e) {
+			LOGGER.warn("Cannot open inventory ledger {}, running without it: {}", file, e.getMessage());
+		}
+	}
+
+	/**
+	 * Append the events of the observation system to a binary event log.
+	 */
+	private void startEventLog(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			EventLog eventLog = new EventLog(file, ObservabilityConfiguration.INSTANCE.getEventLogMaxFileBytes());
+			eventLog.attach(CoreConfiguration.INSTANCE.getObservationSystem());
+			Runtime.getRuntime().addShutdownHook(new Thread(eventLog::close, "EventLogOnExit-Thread"));
+			LOGGER.info("Event log recording to {}", file);
+		} catch (IOException e) {
+			LOGGER.warn("Cannot open event log {}, running without it: {}", file, e.getMessage());
+		}
+	}
+
+	/**
+	 * Sample the metrics into a store file for their history.
+	 * 
+	 * @return the store, or null if there is none
+	 */
+	private MetricsStore startMetricsHistory(Path file) {
+		if (file == null) {
+			return null;
+		}
+		try {
+			ObservabilityConfiguration config = ObservabilityConfiguration.INSTANCE;
+			MetricsStore store = new MetricsStore(file, config.getMetricsHistoryIntervalMillis(),
+					config.getMetricsRawRetentionMillis(), config.getMetricsMinuteRetentionMillis());
+			store.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				store.shutdown();
+				try {
+					store.join(5000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, "MetricsStoreOnExit-Thread"));
+			LOGGER.info("Metrics history recording to {}", file);
+			return store;
+		} catch (IOException e) {
+			LOGGER.warn("Cannot open metrics store {}, running without history: {}", file, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Serve metrics, state and control over HTTP if a port is configured.
+	 */
+	private void startControlServer(MetricsStore history) {
+		ObservabilityConfiguration config = ObservabilityConfiguration.INSTANCE;
+		if (!config.isHttpEnabled()) {
+			return;
+		}
+		try {
+			ControlServer server = new ControlServer(new InetSocketAddress(config.getHttpBindAddress(), config.getHttpPort()),
+					config.getHttpSnapshotIntervalMillis(), CoreConfiguration.INSTANCE.getClockingSystem(),
+					CoreConfiguration.INSTANCE.getTaskManagementSystem(), warehouse, agvFleet);
+			server.setHistory(history);
+			server.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown, "ControlServerOnExit-Thread"));
+		} catch (IOException e) {
+			LOGGER.warn("Cannot start control server on port {}, running without it: {}", config.getHttpPort(), e.getMessage());
+		}
+	}
+
 	private void startGUI() {
 		LOGGER.info("Starting GUI...");
 		GUIConfiguration.INSTANCE.setWarehouseData(cityArea, warehouse, null, agvFleet, trucks).autowire();
@@ -7,10 +7,12 @@ import javax.swing.SwingUtilities;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.fachhochschule.dortmund.bads.gui.EdtMonitor;
 import de.fachhochschule.dortmund.bads.gui.MainFrame;
 import de.fachhochschule.dortmund.bads.model.Storage;
 import de.fachhochschule.dortmund.bads.resources.AGV;
 import de.fachhochschule.dortmund.bads.resources.Truck;
+import de.fachhochschule.dortmund.bads.systems.logic.AdaptiveController;
 import de.fachhochschule.dortmund.bads.systems.logic.ClockingSimulation;
 import de.fachhochschule.dortmund.bads.systems.logic.Observation;
 import de.fachhochschule.dortmund.bads.systems.logic.StorageManagement;
@@ -26,6 +28,14 @@ public enum GUIConfiguration implements IConfiguration {
 	private static final Logger LOGGER = LogManager.getLogger();
 	private MainFrame mainFrame;
 	private boolean isAutowired = false;
+	private boolean headless = false;
+	
+	// Adaptive control of the tick delay and the panel refresh rate
+	private boolean adaptiveControlEnabled = true;
+	private long edtLagBudgetMillis = 100;
+	private double tickBudgetFraction = 0.5;
+	private volatile int refreshMultiplier = 1;
+	private EdtMonitor edtMonitor;
 	
 	// Domain objects to be set before autowiring
 	private de.fachhochschule.dortmund.bads.model.Area cityArea;
@@ -90,7 +100,7 @@ public enum GUIConfiguration implements IConfiguration {
 			if (primaryWarehouse != null) {
 				mainFrame.getWarehousePanel().setStorage(primaryWarehouse);
 				LOGGER.info("WarehousePanel configured with primary warehouse ({} cells)", 
-						primaryWarehouse.getAllStorages().size());
+						primaryWarehouse.getNodeCount());
 			}
 			
 			if (agvFleet != null) {
@@ -152,6 +162,14 @@ public enum GUIConfiguration implements IConfiguration {
 			LOGGER.info("MainFrame displayed");
 		});
 		
+		if (adaptiveControlEnabled) {
+			edtMonitor = new EdtMonitor();
+			edtMonitor.start();
+			clockingSystem.registerTickable(new AdaptiveController(clockingSystem, observationSystem));
+			LOGGER.info("Adaptive control started (EDT lag budget: {}ms, tick budget: {} of the delay)",
+					edtLagBudgetMillis, tickBudgetFraction);
+		}
+		
 		isAutowired = true;
 		LOGGER.info("=== GUI Configuration Autowiring Complete ===");
 		return this;
@@ -165,6 +183,91 @@ public enum GUIConfiguration implements IConfiguration {
 		return mainFrame;
 	}
 	
+	/**
+	 * Check if the application runs without a GUI, either because it was
+	 * asked to or because there is no display.
+	 */
+	public boolean isHeadless() {
+		return headless || java.awt.GraphicsEnvironment.isHeadless();
+	}
+	
+	public GUIConfiguration setHeadless(boolean headless) {
+		this.headless = headless;
+		return this;
+	}
+	
+	public boolean isAdaptiveControlEnabled() {
+		return adaptiveControlEnabled;
+	}
+	
+	public GUIConfiguration setAdaptiveControlEnabled(boolean adaptiveControlEnabled) {
+		this.adaptiveControlEnabled = adaptiveControlEnabled;
+		return this;
+	}
+	
+	public long getEdtLagBudgetMillis() {
+		return edtLagBudgetMillis;
+	}
+	
+	/**
+	 * Set how long a refresh may wait on the event dispatch thread before the
+	 * adaptive controller slows the panels down.
+	 */
+	public GUIConfiguration setEdtLagBudgetMillis(long edtLagBudgetMillis) {
+		if (edtLagBudgetMillis <= 0) {
+			throw new IllegalArgumentException("EDT lag budget must be positive");
+		}
+		this.edtLagBudgetMillis = edtLagBudgetMillis;
+		return this;
+	}
+	
+	public double getTickBudgetFraction() {
+		return tickBudgetFraction;
+	}
+	
+	/**
+	 * Set the share of the clock delay a tick may take before the adaptive
+	 * controller raises the delay.
+	 */
+	public GUIConfiguration setTickBudgetFraction(double tickBudgetFraction) {
+		if (!(tickBudgetFraction > 0 && tickBudgetFraction <= 1)) {
+			throw new IllegalArgumentException("Tick budget fraction must be in (0, 1]");
+		}
+		this.tickBudgetFraction = tickBudgetFraction;
+		return this;
+	}
+	
+	/**
+	 * @return the factor the panels stretch their refresh intervals by
+	 */
+	public int getRefreshMultiplier() {
+		return refreshMultiplier;
+	}
+	
+	public GUIConfiguration setRefreshMultiplier(int refreshMultiplier) {
+		if (refreshMultiplier < 1) {
+			throw new IllegalArgumentException("Refresh multiplier must be at least 1");
+		}
+		this.refreshMultiplier = refreshMultiplier;
+		return this;
+	}
+	
+	/**
+	 * Check if a panel that normally refreshes every {@code baseInterval}
+	 * ticks should refresh on this tick.
+	 */
+	public boolean isRefreshTick(int tick, int baseInterval) {
+		return tick % (baseInterval * refreshMultiplier) == 0;
+	}
+	
+	/**
+	 * Get the monitor of the event dispatch thread.
+	 * Null unless autowired with adaptive control.
+	 */
+	public EdtMonitor getEdtMonitor() {
+		return edtMonitor;
+	}
+	
 	/**
 	 * Check if GUI has been autowired.
 	 */
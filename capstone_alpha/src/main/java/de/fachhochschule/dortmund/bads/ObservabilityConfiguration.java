@@ -1,8 +1,13 @@
 package de.fachhochschule.dortmund.bads;
 
+import java.nio.file.Path;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.fachhochschule.dortmund.bads.systems.logic.EventLog;
+import de.fachhochschule.dortmund.bads.systems.logic.MetricsStore;
+
 /**
  * Configuration for Observability subsystem. Handles monitoring, metrics
  * collection, and event tracking.
@@ -17,6 +22,25 @@ public enum ObservabilityConfiguration implements IConfiguration {
 	private long metricsCollectionIntervalMillis = 5000;
 	private int eventBufferSize = 1000;
 	private boolean enablePerformanceMonitoring = true;
+	// the control server is off unless a port is set; 0 picks a free port
+	private int httpPort = -1;
+	private String httpBindAddress = "127.0.0.1";
+	private long httpSnapshotIntervalMillis = 500;
+	// per-entity limit for messages logged on every tick, see LogRateLimiter
+	private int logMessagesPerEntityPerSecond = 5;
+	// baselines of the watched series, see AnomalyDetector
+	private boolean enableAnomalyDetection = true;
+	private int anomalyWarmupSamples = 30;
+	private double anomalyThresholdSigmas = 3.0;
+	private int anomalyForecastSamples = 50;
+	// history of the metrics on disk, see MetricsStore; off unless a file is set
+	private Path metricsHistoryFile;
+	private long metricsHistoryIntervalMillis = 1000;
+	private long metricsRawRetentionMillis = MetricsStore.DEFAULT_RAW_RETENTION_MILLIS;
+	private long metricsMinuteRetentionMillis = MetricsStore.DEFAULT_MINUTE_RETENTION_MILLIS;
+	// binary log of the Observation events, see EventLog; off unless a file is set
+	private Path eventLogFile;
+	private long eventLogMaxFileBytes = EventLog.DEFAULT_MAX_FILE_BYTES;
 	private boolean isAutowired = false;
 
 	@Override
@@ -77,4 +101,183 @@ public enum ObservabilityConfiguration implements IConfiguration {
 		this.enablePerformanceMonitoring = e;
 		return this;
 	}
+
+	public int getHttpPort() {
+		return httpPort;
+	}
+
+	public ObservabilityConfiguration setHttpPort(int port) {
+		if (port < -1 || port > 65535) {
+			throw new IllegalArgumentException("HTTP port must be between 0 and 65535, or -1 to disable");
+		}
+		this.httpPort = port;
+		return this;
+	}
+
+	public boolean isHttpEnabled() {
+		return httpPort >= 0;
+	}
+
+	public String getHttpBindAddress() {
+		return httpBindAddress;
+	}
+
+	public ObservabilityConfiguration setHttpBindAddress(String address) {
+		this.httpBindAddress = address;
+		return this;
+	}
+
+	public int getLogMessagesPerEntityPerSecond() {
+		return logMessagesPerEntityPerSecond;
+	}
+
+	/**
+	 * Takes effect for classes loaded afterwards, so set it before the
+	 * simulation is built.
+	 */
+	public ObservabilityConfiguration setLogMessagesPerEntityPerSecond(int messages) {
+		if (messages <= 0) {
+			throw new IllegalArgumentException("Messages per second must be positive");
+		}
+		this.logMessagesPerEntityPerSecond = messages;
+		return this;
+	}
+
+	public long getHttpSnapshotIntervalMillis() {
+		return httpSnapshotIntervalMillis;
+	}
+
+	public ObservabilityConfiguration setHttpSnapshotIntervalMillis(long ms) {
+		if (ms <= 0) {
+			throw new IllegalArgumentException("Snapshot interval must be positive");
+		}
+		this.httpSnapshotIntervalMillis = ms;
+		return this;
+	}
+
+	public boolean isAnomalyDetectionEnabled() {
+		return enableAnomalyDetection;
+	}
+
+	public ObservabilityConfiguration setAnomalyDetectionEnabled(boolean e) {
+		this.enableAnomalyDetection = e;
+		return this;
+	}
+
+	public int getAnomalyWarmupSamples() {
+		return anomalyWarmupSamples;
+	}
+
+	/**
+	 * Samples a series needs before it can raise alerts.
+	 */
+	public ObservabilityConfiguration setAnomalyWarmupSamples(int samples) {
+		if (samples < 1) {
+			throw new IllegalArgumentException("Warmup must be at least one sample");
+		}
+		this.anomalyWarmupSamples = samples;
+		return this;
+	}
+
+	public double getAnomalyThresholdSigmas() {
+		return anomalyThresholdSigmas;
+	}
+
+	public ObservabilityConfiguration setAnomalyThresholdSigmas(double sigmas) {
+		if (sigmas <= 0) {
+			throw new IllegalArgumentException("Threshold must be positive");
+		}
+		this.anomalyThresholdSigmas = sigmas;
+		return this;
+	}
+
+	public int getAnomalyForecastSamples() {
+		return anomalyForecastSamples;
+	}
+
+	/**
+	 * How many samples ahead a saturation alert looks.
+	 */
+	public ObservabilityConfiguration setAnomalyForecastSamples(int samples) {
+		if (samples < 0) {
+			throw new IllegalArgumentException("Forecast horizon cannot be negative");
+		}
+		this.anomalyForecastSamples = samples;
+		return this;
+	}
+
+	public Path getMetricsHistoryFile() {
+		return metricsHistoryFile;
+	}
+
+	public ObservabilityConfiguration setMetricsHistoryFile(Path file) {
+		this.metricsHistoryFile = file;
+		return this;
+	}
+
+	public long getMetricsHistoryIntervalMillis() {
+		return metricsHistoryIntervalMillis;
+	}
+
+	public ObservabilityConfiguration setMetricsHistoryIntervalMillis(long ms) {
+		if (ms <= 0) {
+			throw new IllegalArgumentException("Sampling interval must be positive");
+		}
+		this.metricsHistoryIntervalMillis = ms;
+		return this;
+	}
+
+	public long getMetricsRawRetentionMillis() {
+		return metricsRawRetentionMillis;
+	}
+
+	/**
+	 * How long the metrics history keeps raw samples.
+	 */
+	public ObservabilityConfiguration setMetricsRawRetentionMillis(long ms) {
+		if (ms < 60_000) {
+			throw new IllegalArgumentException("Retention must be at least a minute");
+		}
+		this.metricsRawRetentionMillis = ms;
+		return this;
+	}
+
+	public long getMetricsMinuteRetentionMillis() {
+		return metricsMinuteRetentionMillis;
+	}
+
+	/**
+	 * How long the metrics history keeps minute rollups; hour rollups are kept for good.
+	 */
+	public ObservabilityConfiguration setMetricsMinuteRetentionMillis(long ms) {
+		if (ms < 60_000) {
+			throw new IllegalArgumentException("Retention must be at least a minute");
+		}
+		this.metricsMinuteRetentionMillis = ms;
+		return this;
+	}
+
+	public Path getEventLogFile() {
+		return eventLogFile;
+	}
+
+	public ObservabilityConfiguration setEventLogFile(Path file) {
+		this.eventLogFile = file;
+		return this;
+	}
+
+	public long getEventLogMaxFileBytes() {
+		return eventLogMaxFileBytes;
+	}
+
+	/**
+	 * Set the size at which the event log file is rotated.
+	 */
+	public ObservabilityConfiguration setEventLogMaxFileBytes(long bytes) {
+		if (bytes < 1024) {
+			throw new IllegalArgumentException("Event log file size limit must be at least 1 KB");
+		}
+		this.eventLogMaxFileBytes = bytes;
+		return this;
+	}
 }
\ No newline at end of file
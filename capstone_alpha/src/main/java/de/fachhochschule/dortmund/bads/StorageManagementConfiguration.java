@@ -1,8 +1,13 @@
 package de.fachhochschule.dortmund.bads;
 
+import java.nio.file.Path;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.fachhochschule.dortmund.bads.model.CellPacker;
+import de.fachhochschule.dortmund.bads.systems.logic.InventoryLedger;
+
 /**
  * Configuration for Storage Management. Controls storage capacity, compaction,
  * and utilization thresholds.
@@ -16,6 +21,14 @@ public enum StorageManagementConfiguration implements IConfiguration {
 	private boolean enableAutoCompaction = true;
 	private long compactionIntervalMillis = 60000;
 	private double storageUtilizationThreshold = 0.85;
+	// placement engine of newly created storage cells
+	private CellPacker.Factory placementStrategy = CellPacker.BOUNDING_BOX;
+	// warehouse snapshot restored at startup and written at shutdown; null disables snapshots
+	private Path snapshotFile = null;
+	// inventory ledger appended to while running; null disables the ledger
+	private Path ledgerFile = null;
+	private int ledgerCheckpointInterval = 10000;
+	private long ledgerMaxFileBytes = InventoryLedger.DEFAULT_MAX_FILE_BYTES;
 	private boolean isAutowired = false;
 
 	@Override
@@ -67,4 +80,61 @@ public enum StorageManagementConfiguration implements IConfiguration {
 		this.storageUtilizationThreshold = t;
 		return this;
 	}
-}
+
+	public CellPacker.Factory getPlacementStrategy() {
+		return placementStrategy;
+	}
+
+	public StorageManagementConfiguration setPlacementStrategy(CellPacker.Factory strategy) {
+		if (strategy == null) {
+			throw new IllegalArgumentException("Placement strategy cannot be null");
+		}
+		this.placementStrategy = strategy;
+		return this;
+	}
+
+	public Path getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	public StorageManagementConfiguration setSnapshotFile(Path file) {
+		this.snapshotFile = file;
+		return this;
+	}
+
+	public Path getLedgerFile() {
+		return ledgerFile;
+	}
+
+	public StorageManagementConfiguration setLedgerFile(Path file) {
+		this.ledgerFile = file;
+		return this;
+	}
+
+	public int getLedgerCheckpointInterval() {
+		return ledgerCheckpointInterval;
+	}
+
+	public StorageManagementConfiguration setLedgerCheckpointInterval(int changes) {
+		if (changes <= 0) {
+			throw new IllegalArgumentException("Ledger checkpoint interval must be positive");
+		}
+		this.ledgerCheckpointInterval = changes;
+		return this;
+	}
+
+	public long getLedgerMaxFileBytes() {
+		return ledgerMaxFileBytes;
+	}
+
+	/**
+	 * Set the size at which the ledger file is rotated.
+	 */
+	public StorageManagementConfiguration setLedgerMaxFileBytes(long bytes) {
+		if (bytes < 1024) {
+			throw new IllegalArgumentException("Ledger file size limit must be at least 1 KB");
+		}
+		this.ledgerMaxFileBytes = bytes;
+		return this;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package de.fachhochschule.dortmund.bads.exceptions;
+
+/**
+ * Exception thrown when an AGV statement sequence cannot be compiled into a program.
+ */
+public class ProgramCompilationException extends SystemException {
+
+    private static final long serialVersionUID = -3270946198371208530L;
+	private final int statementIndex;
+
+    public ProgramCompilationException(int statementIndex, String reason) {
+        super(String.format("Invalid AGV program at statement %d: %s", statementIndex, reason));
+        this.statementIndex = statementIndex;
+    }
+
+    public int getStatementIndex() {
+        return statementIndex;
+    }
+}
@@ -11,6 +11,7 @@ import javax.swing.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
 import de.fachhochschule.dortmund.bads.gui.agv.AGVRenderer;
 import de.fachhochschule.dortmund.bads.gui.agv.AGVStateUpdater;
 import de.fachhochschule.dortmund.bads.resources.AGV;
@@ -103,7 +104,7 @@ public class AGVComponent extends JPanel implements ITickable {
 
 	@Override
 	public void onTick(int currentTick) {
-		if (stateUpdater.hasBackend() && currentTick % 5 == 0) {
+		if (stateUpdater.hasBackend() && GUIConfiguration.INSTANCE.isRefreshTick(currentTick, 5)) {
 			stateUpdater.updateFromBackend();
 		}
 	}
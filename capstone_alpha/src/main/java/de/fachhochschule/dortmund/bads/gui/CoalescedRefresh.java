@@ -0,0 +1,35 @@
+package de.fachhochschule.dortmund.bads.gui;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs a refresh on the event dispatch thread, with at most one run queued
+ * at a time. Requests made while a run is queued are dropped, since that run
+ * still shows the latest state, so a busy EDT does not pile up refreshes.
+ */
+public class CoalescedRefresh {
+	private final Runnable refresh;
+	private final AtomicBoolean queued = new AtomicBoolean();
+
+	public CoalescedRefresh(Runnable refresh) {
+		if (refresh == null) {
+			throw new IllegalArgumentException("Refresh cannot be null");
+		}
+		this.refresh = refresh;
+	}
+
+	/**
+	 * Queue the refresh unless it is queued already.
+	 */
+	public void request() {
+		if (queued.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(() -> {
+				// clear first, so state changed during the refresh gets another run
+				queued.set(false);
+				refresh.run();
+			});
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.awt.FlowLayout;
 import java.awt.Font;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Set;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -17,6 +18,7 @@ import javax.swing.JSlider;
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
 
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
 import de.fachhochschule.dortmund.bads.systems.logic.ClockingSimulation;
 import de.fachhochschule.dortmund.bads.systems.logic.Observation;
 import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
@@ -26,6 +28,7 @@ import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
  */
 public class ControlLogPanel extends JPanel implements ITickable {
 	private static final long serialVersionUID = -439577232890959349L;
+	private static final int MAX_LOG_EVENTS_PER_UPDATE = 100;
 	
 	private JButton startButton;
 	private JButton pauseButton;
@@ -37,7 +40,14 @@ public class ControlLogPanel extends JPanel implements ITickable {
 	private ClockingSimulation clockingSystem;
 	private Observation observationSystem;
 	
-	private int lastEventCount = 0;
+	// new Observation events for the log, read on the EDT
+	private Observation.Subscription logSubscription;
+	
+	// At most one refresh queued on the EDT
+	private final transient CoalescedRefresh pendingRefresh = new CoalescedRefresh(() -> {
+		refresh();
+		updateLogFromObservation();
+	});
 
 	/**
 	 * Constructor with system dependencies (used by MainFrame)
@@ -45,6 +55,9 @@ public class ControlLogPanel extends JPanel implements ITickable {
 	public ControlLogPanel(ClockingSimulation clockingSystem, Observation observationSystem) {
 		this.clockingSystem = clockingSystem;
 		this.observationSystem = observationSystem;
+		if (observationSystem != null) {
+			this.logSubscription = observationSystem.subscribe(Set.of());
+		}
 		initializeComponents();
 		
 		// Register this panel as a tickable to receive updates
@@ -63,11 +76,8 @@ public class ControlLogPanel extends JPanel implements ITickable {
 	@Override
 	public void onTick(int currentTick) {
 		// Update UI every 10 ticks to reduce overhead
-		if (currentTick % 10 == 0) {
-			SwingUtilities.invokeLater(() -> {
-				refresh();
-				updateLogFromObservation();
-			});
+		if (GUIConfiguration.INSTANCE.isRefreshTick(currentTick, 10)) {
+			pendingRefresh.request();
 		}
 	}
 
@@ -246,24 +256,10 @@ public class ControlLogPanel extends JPanel implements ITickable {
 	 * Update log area with new events from the Observation system
 	 */
 	private void updateLogFromObservation() {
-		if (observationSystem == null) return;
-		
-		var eventBuffer = observationSystem.getEventBuffer();
-		int currentEventCount = eventBuffer.size();
+		if (logSubscription == null) return;
 		
-		// Only process new events
-		if (currentEventCount > lastEventCount) {
-			// Get the new events (simplified approach - display last few)
-			int eventsToShow = Math.min(3, currentEventCount - lastEventCount);
-			var events = eventBuffer.stream()
-					.skip(Math.max(0, currentEventCount - eventsToShow))
-					.toList();
-			
-			for (var event : events) {
-				appendLog(String.format("[%s] %s", event.eventType(), event.details()));
-			}
-			
-			lastEventCount = currentEventCount;
+		for (Observation.SystemEvent event : logSubscription.poll(MAX_LOG_EVENTS_PER_UPDATE)) {
+			appendLog(String.format("[%s] %s", event.eventType(), event.details()));
 		}
 	}
 
@@ -0,0 +1,73 @@
+package de.fachhochschule.dortmund.bads.gui;
+
+import java.awt.EventQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.systems.logic.MetricsRegistry;
+
+/**
+ * Measures how long work waits on the event dispatch thread.
+ *
+ * The monitor posts a probe to the EDT and times how long it takes to run.
+ * A new probe is posted only once the last one ran, so a stalled EDT gets no
+ * more work from the monitor; while a probe is waiting, its age counts as
+ * the lag. The lag is published as gauge {@code gui.edt.lag.micros}.
+ */
+public class EdtMonitor extends Thread {
+	private static final Logger LOGGER = LogManager.getLogger(EdtMonitor.class.getName());
+
+	static final long PROBE_INTERVAL_MILLIS = 100;
+
+	private volatile boolean running = true;
+	// nano time the waiting probe was posted at, or -1 if none is waiting
+	private volatile long probePostedNanos = -1;
+	private volatile long lastLagNanos;
+
+	public EdtMonitor() {
+		super("EdtMonitor-Thread");
+		setDaemon(true);
+		MetricsRegistry.INSTANCE.gauge("gui.edt.lag.micros", this, EdtMonitor::getLagMicros);
+	}
+
+	@Override
+	public void run() {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("EDT monitor started");
+		}
+		while (running) {
+			if (probePostedNanos < 0) {
+				long posted = System.nanoTime();
+				probePostedNanos = posted;
+				EventQueue.invokeLater(() -> {
+					lastLagNanos = System.nanoTime() - posted;
+					probePostedNanos = -1;
+				});
+			}
+			try {
+				Thread.sleep(PROBE_INTERVAL_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				running = false;
+			}
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("EDT monitor stopped");
+		}
+	}
+
+	/**
+	 * @return the lag of the last probe, or the age of the waiting probe if that is larger
+	 */
+	public long getLagMicros() {
+		long posted = probePostedNanos;
+		long waiting = posted < 0 ? 0 : System.nanoTime() - posted;
+		return Math.max(lastLagNanos, waiting) / 1000;
+	}
+
+	public void shutdown() {
+		running = false;
+		interrupt();
+	}
+}
@@ -12,6 +12,7 @@ import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
 import javax.swing.SwingUtilities;
 
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
 import de.fachhochschule.dortmund.bads.resources.AGV;
 import de.fachhochschule.dortmund.bads.resources.Truck;
 import de.fachhochschule.dortmund.bads.systems.logic.TaskManagement;
@@ -35,6 +36,9 @@ public class LoadingBayPanel extends JPanel implements ITickable {
     private TaskManagement taskManagement;
     private Observation observationSystem;
 
+    // At most one refresh queued on the EDT
+    private final transient CoalescedRefresh pendingRefresh = new CoalescedRefresh(this::refresh);
+
     public LoadingBayPanel() {
         initializeComponents();
     }
@@ -84,8 +88,8 @@ public class LoadingBayPanel extends JPanel implements ITickable {
     @Override
     public void onTick(int currentTick) {
         // Update UI every 3 ticks to reduce overhead
-        if (currentTick % 3 == 0) {
-            SwingUtilities.invokeLater(this::refresh);
+        if (GUIConfiguration.INSTANCE.isRefreshTick(currentTick, 3)) {
+            pendingRefresh.request();
         }
     }
 
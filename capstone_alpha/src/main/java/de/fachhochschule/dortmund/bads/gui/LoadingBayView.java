@@ -252,9 +252,9 @@ public class LoadingBayView extends JPanel {
                     Storage.pointToNotation(agvPosition) : null;
 
                 // AGV should only be visible in loading bay when:
-                // 1. It's at the loading dock position (6D or 7D)
+                // 1. It's at one of the warehouse's loading docks
                 // 2. It's NOT in any charging state
-                boolean isAtLoadingDock = "6D".equals(agvPositionNotation) || "7D".equals(agvPositionNotation);
+                boolean isAtLoadingDock = agv.isAtLoadingDock();
                 boolean isNotCharging = agvState != AGV.AGVState.CHARGING &&
                                        agvState != AGV.AGVState.WAITING_FOR_CHARGE &&
                                        agvState != AGV.AGVState.MOVING_TO_CHARGE;
@@ -265,7 +265,7 @@ public class MainFrame extends JFrame {
             status.append("- Storage Instances: ").append(storages.size()).append("\n");
             if (!storages.isEmpty()) {
                 Storage s = storages.values().iterator().next();
-                status.append("- Total Cells: ").append(s.getAllStorages().size()).append("\n");
+                status.append("- Total Cells: ").append(s.getNodeCount()).append("\n");
                 status.append("- Charging Stations: ").append(s.getChargingStationCount()).append("\n");
             }
         }
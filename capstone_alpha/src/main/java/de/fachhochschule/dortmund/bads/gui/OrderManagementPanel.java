@@ -5,6 +5,7 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
 
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
 import de.fachhochschule.dortmund.bads.model.Task;
 import de.fachhochschule.dortmund.bads.model.Storage;
 import de.fachhochschule.dortmund.bads.systems.logic.TaskManagement;
@@ -31,6 +32,9 @@ public class OrderManagementPanel extends JPanel implements ITickable {
     private TaskManagement taskManagement;
     private Storage warehouse;
 
+    // At most one refresh queued on the EDT
+    private final transient CoalescedRefresh pendingRefresh = new CoalescedRefresh(this::refresh);
+
     public OrderManagementPanel() {
         initializeComponents();
     }
@@ -60,8 +64,8 @@ public class OrderManagementPanel extends JPanel implements ITickable {
     @Override
     public void onTick(int currentTick) {
         // Update UI every 10 ticks to reduce overhead
-        if (currentTick % 10 == 0) {
-            SwingUtilities.invokeLater(this::refresh);
+        if (GUIConfiguration.INSTANCE.isRefreshTick(currentTick, 10)) {
+            pendingRefresh.request();
         }
     }
 
@@ -4,6 +4,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.*;
 
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
 import de.fachhochschule.dortmund.bads.model.StorageCell;
 import de.fachhochschule.dortmund.bads.resources.Truck;
 import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
@@ -207,7 +208,7 @@ public class TruckComponent extends JPanel implements ITickable {
     @Override
     public void onTick(int currentTick) {
         // Update from backend Truck every tick
-        if (currentTick % 5 == 0) { // Update every 5 ticks to reduce overhead
+        if (GUIConfiguration.INSTANCE.isRefreshTick(currentTick, 5)) { // Update every 5 ticks to reduce overhead
             updateFromTruck();
         }
     }
@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
 import de.fachhochschule.dortmund.bads.gui.agv.AGVRenderer;
 import de.fachhochschule.dortmund.bads.model.Area.Point;
 import de.fachhochschule.dortmund.bads.model.Storage;
@@ -37,6 +38,9 @@ public class WarehousePanel extends JPanel implements ITickable {
     // Store original cell colors for restoring after AGV highlights
     private Map<String, Color> cellOriginalColors = new HashMap<>();
 
+    // At most one refresh queued on the EDT
+    private final transient CoalescedRefresh pendingRefresh = new CoalescedRefresh(this::refresh);
+
     public WarehousePanel() {
         initializeComponents();
     }
@@ -59,7 +63,9 @@ public class WarehousePanel extends JPanel implements ITickable {
     public void onTick(int currentTick) {
         // Update UI every tick for smooth AGV movement visualization
         // This is critical for seeing AGV positions update in real-time
-        SwingUtilities.invokeLater(this::refresh);
+        if (GUIConfiguration.INSTANCE.isRefreshTick(currentTick, 1)) {
+            pendingRefresh.request();
+        }
     }
 
     private void initializeComponents() {
@@ -1,9 +1,7 @@
 package de.fachhochschule.dortmund.bads.gui.inventory;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -28,14 +26,13 @@ public class InventoryDataProvider {
         Map<String, BeverageGroup> groups = new HashMap<>();
         if (storage == null) return groups;
 
-        Map<Area.Point, StorageCell> allCells = storage.getAllStorages();
-        LOGGER.debug("Processing {} storage cells for inventory grouping", allCells.size());
+        LOGGER.debug("Processing {} storage cells for inventory grouping", storage.getNodeCount());
         
-        for (Map.Entry<Area.Point, StorageCell> entry : allCells.entrySet()) {
-            if (isStorageCell(entry.getValue())) {
-                processCell(entry, groups);
+        storage.forEachCell((location, cell) -> {
+            if (isStorageCell(cell)) {
+                processCell(location, cell, groups);
             }
-        }
+        });
         
         LOGGER.debug("Grouped beverages into {} types", groups.size());
         return groups;
@@ -44,41 +41,27 @@ public class InventoryDataProvider {
     public InventorySummary calculateSummary() {
         if (storage == null) return new InventorySummary(0, 0, 0, 0.0);
 
-        Map<Area.Point, StorageCell> allCells = storage.getAllStorages();
-        int totalUnits = 0;
-        Set<String> beverageTypes = new HashSet<>();
         long totalCapacity = 0;
         long usedCapacity = 0;
-        Map<String, Integer> beverageQuantities = new HashMap<>();
-
-        for (StorageCell cell : allCells.values()) {
-            if (!isStorageCell(cell)) continue;
-            
-            totalCapacity += (long) cell.MAX_LENGTH * cell.MAX_WIDTH * cell.MAX_HEIGHT;
-            usedCapacity += cell.getActualUsedVolume();
-            
-            for (BeveragesBox box : cell.getStoredBoxes()) {
-                totalUnits += (int) box.getQuantity();
-                String bevName = box.getBeverageName();
-                beverageTypes.add(bevName);
-                beverageQuantities.merge(bevName, (int) box.getQuantity(), Integer::sum);
+        for (StorageCell.Type type : StorageCell.Type.values()) {
+            if (Storage.isInventoryType(type)) {
+                totalCapacity += storage.getMaxVolume(type);
+                usedCapacity += storage.getUsedVolume(type);
             }
         }
 
-        int lowStockCount = (int) beverageQuantities.values().stream().filter(qty -> qty < 20).count();
+        int totalUnits = (int) storage.getTotalUnits();
+        int lowStockCount = storage.getLowStockBeverages().size();
         double capacity = totalCapacity > 0 ? (double) usedCapacity / totalCapacity * 100 : 0;
 
-        return new InventorySummary(totalUnits, beverageTypes.size(), lowStockCount, capacity);
+        return new InventorySummary(totalUnits, storage.getStockedBeverageCount(), lowStockCount, capacity);
     }
 
     private boolean isStorageCell(StorageCell cell) {
-        return cell.TYPE != StorageCell.Type.CORRIDOR && cell.TYPE != StorageCell.Type.CHARGING_STATION;
+        return Storage.isInventoryType(cell.TYPE);
     }
 
-    private void processCell(Map.Entry<Area.Point, StorageCell> entry, Map<String, BeverageGroup> groups) {
-        Area.Point location = entry.getKey();
-        StorageCell cell = entry.getValue();
-        
+    private void processCell(Area.Point location, StorageCell cell, Map<String, BeverageGroup> groups) {
         for (BeveragesBox box : cell.getStoredBoxes()) {
             String key = box.getBeverageName();
             BeverageGroup group = groups.computeIfAbsent(key, 
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -13,20 +14,83 @@ import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.fachhochschule.dortmund.bads.systems.logic.utils.DomainEvents;
+
 public class Area {
 	private static final Logger LOGGER = LogManager.getLogger();
+	public static final int MAX_CACHED_PATH_LENGTHS = 65536;
 	
 	// graph stored as adjacency list: node Point -> set of neighbour Points
 	private Map<Point, Set<Point>> graph;
 	// set of nodes that are marked as points of interest
 	private int startX = 0, startY = 0;
+	// number of moves between two points, -1 if unreachable; cleared whenever the graph changes,
+	// least recently used pairs are dropped beyond MAX_CACHED_PATH_LENGTHS
+	private final Map<PathKey, Integer> pathLengthCache = Collections.synchronizedMap(
+			new LinkedHashMap<>(64, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<PathKey, Integer> eldest) {
+					return size() > MAX_CACHED_PATH_LENGTHS;
+				}
+			});
 
 	public record Point(int x, int y) {
 	}
 
+	private record PathKey(Point from, Point to) {
+	}
+
+	/**
+	 * Get the number of moves on the shortest path between two points. Lengths
+	 * are computed once per pair and cached until the graph changes; the least
+	 * recently used pair is dropped once {@value #MAX_CACHED_PATH_LENGTHS} are cached.
+	 *
+	 * @return the number of moves, 0 if both points are equal, or -1 if the target is unreachable
+	 */
+	public int getPathLength(Point from, Point to) {
+		if (from.equals(to)) {
+			return 0;
+		}
+		PathKey key = new PathKey(from, to);
+		Integer cached = pathLengthCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		// searched outside the cache lock, so concurrent lookups of other pairs do not wait for it
+		List<Point> path = findPath(from, to);
+		int length = path.isEmpty() ? -1 : path.size() - 1;
+		pathLengthCache.put(key, length);
+		return length;
+	}
+
+	/**
+	 * @return the number of point pairs in the path length cache
+	 */
+	public int getCachedPathLengthCount() {
+		return pathLengthCache.size();
+	}
+
 	// Dijkstra on the graph: returns shortest path as list of Points from start -> target
 	// edge weight = Euclidean distance between points
 	public List<Point> findPath(int startXParam, int startYParam, int targetX, int targetY) {
+		DomainEvents.PathSearch event = new DomainEvents.PathSearch();
+		event.begin();
+		List<Point> path = searchPath(startXParam, startYParam, targetX, targetY, event);
+		event.end();
+		if (event.shouldCommit()) {
+			event.from = startXParam + "," + startYParam;
+			event.to = targetX + "," + targetY;
+			event.graphSize = graph == null ? 0 : graph.size();
+			event.pathLength = path.size();
+			event.commit();
+		}
+		return path;
+	}
+
+	private List<Point> searchPath(int startXParam, int startYParam, int targetX, int targetY,
+			DomainEvents.PathSearch event) {
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("Finding path from ({}, {}) to ({}, {})", startXParam, startYParam, targetX, targetY);
 		}
@@ -91,6 +155,8 @@ public class Area {
 			}
 		}
 
+		event.visitedNodes = visitedNodes;
+
 		if (!previous.containsKey(targetPoint) && !startPoint.equals(targetPoint)) {
 			if (LOGGER.isWarnEnabled()) {
 				LOGGER.warn("No path found from {} to {}", startPoint, targetPoint);
@@ -105,8 +171,8 @@ public class Area {
 				break;
 		}
 		
-		if (LOGGER.isInfoEnabled()) {
-			LOGGER.info("Path found from {} to {} with {} steps, total distance: {}", 
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Path found from {} to {} with {} steps, total distance: {}", 
 				startPoint, targetPoint, path.size(), String.format("%.2f", dist.get(targetPoint)));
 		}
 		
@@ -138,6 +204,7 @@ public class Area {
 	public void setGraph(Map<Point, Set<Point>> adjacency) {
 		if (adjacency == null) {
 			this.graph = null;
+			pathLengthCache.clear();
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug("Graph set to null");
 			}
@@ -148,6 +215,7 @@ public class Area {
 			copy.put(entry.getKey(), entry.getValue() == null ? Set.of() : new HashSet<>(entry.getValue()));
 		}
 		this.graph = copy;
+		pathLengthCache.clear();
 		if (LOGGER.isInfoEnabled()) {
 			LOGGER.info("Graph initialized with {} nodes", this.graph.size());
 		}
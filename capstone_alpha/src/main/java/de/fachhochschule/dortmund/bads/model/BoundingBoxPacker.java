@@ -0,0 +1,290 @@
+package de.fachhochschule.dortmund.bads.model;
+
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+/**
+ * The original placement of {@link StorageCell}: the cell tracks only the
+ * bounding dimensions of its boxes and grows them by stacking vertically,
+ * placing side by side or starting a new layer.
+ *
+ * Only the box count, the summed height and the multisets of lengths and
+ * widths are kept, so removing a box costs O(log n) instead of a rescan.
+ */
+class BoundingBoxPacker implements CellPacker {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private final int MAX_LENGTH;
+	private final int MAX_WIDTH;
+	private final int MAX_HEIGHT;
+	
+	// what the dimensions are recalculated from after a removal
+	private final TreeMap<Integer, Integer> lengths = new TreeMap<>();
+	private final TreeMap<Integer, Integer> widths = new TreeMap<>();
+	private int boxCount = 0;
+	private int sumHeight = 0;
+	
+	// Track current occupied dimensions
+	private int currentLength = 0;
+	private int currentWidth = 0;
+	private int currentHeight = 0;
+
+	BoundingBoxPacker(int maxLength, int maxWidth, int maxHeight) {
+		this.MAX_LENGTH = maxLength;
+		this.MAX_WIDTH = maxWidth;
+		this.MAX_HEIGHT = maxHeight;
+	}
+
+	@Override
+	public boolean fits(BeveragesBox box) {
+		return fitsIn3DSpace(box);
+	}
+
+	@Override
+	public boolean place(BeveragesBox box) {
+		lengths.merge(box.getLength(), 1, Integer::sum);
+		widths.merge(box.getWidth(), 1, Integer::sum);
+		boxCount++;
+		sumHeight += box.getHeight();
+		updateDimensionsAfterAdd(box);
+		return true;
+	}
+
+	@Override
+	public void remove(BeveragesBox box) {
+		decrement(lengths, box.getLength());
+		decrement(widths, box.getWidth());
+		boxCount--;
+		sumHeight -= box.getHeight();
+		recalculateDimensions();
+	}
+
+	private static void decrement(TreeMap<Integer, Integer> multiset, int value) {
+		multiset.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+	}
+
+	@Override
+	public int getLength() {
+		return currentLength;
+	}
+
+	@Override
+	public int getWidth() {
+		return currentWidth;
+	}
+
+	@Override
+	public int getHeight() {
+		return currentHeight;
+	}
+	
+	/**
+	 * Checks if a box fits within the remaining 3D space of the storage cell.
+	 * Uses a more sophisticated approach considering actual volume constraints.
+	 */
+	private boolean fitsIn3DSpace(BeveragesBox box) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Evaluating 3D space fit for box {} ({}x{}x{}) in cell with current dimensions {}x{}x{}", 
+						box.getBeverageName(), box.getLength(), box.getWidth(), box.getHeight(),
+						currentLength, currentWidth, currentHeight);
+		}
+		
+		// Strategy 1: Check if stacking vertically still fits
+		if (canStackVertically(box)) {
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("Box {} can be placed using vertical stacking strategy", box.getBeverageName());
+			}
+			return true;
+		}
+		
+		// Strategy 2: Check if we can fit side by side (if current height allows)
+		if (canFitSideBySide(box)) {
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("Box {} can be placed using side-by-side strategy", box.getBeverageName());
+			}
+			return true;
+		}
+		
+		// Strategy 3: Check if the box can fit in a new layer
+		if (canFitInNewLayer(box)) {
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("Box {} can be placed using new layer strategy", box.getBeverageName());
+			}
+			return true;
+		}
+		
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Box {} cannot fit using any placement strategy", box.getBeverageName());
+		}
+		return false;
+	}
+	
+	/**
+	 * Checks if the box can be stacked on top of existing boxes
+	 */
+	private boolean canStackVertically(BeveragesBox box) {
+		// Check if the box fits within the current footprint
+		boolean fitsInCurrentFootprint = box.getLength() <= currentLength && 
+										 box.getWidth() <= currentWidth;
+		
+		// Check if adding the height doesn't exceed the maximum
+		boolean heightFits = (currentHeight + box.getHeight()) <= MAX_HEIGHT;
+		
+		boolean canStack = fitsInCurrentFootprint && heightFits;
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Vertical stacking check for {}: footprint fits={}, height fits={}, result={}", 
+						box.getBeverageName(), fitsInCurrentFootprint, heightFits, canStack);
+		}
+		
+		return canStack;
+	}
+	
+	/**
+	 * Checks if the box can fit side by side with existing boxes
+	 */
+	private boolean canFitSideBySide(BeveragesBox box) {
+		// Calculate if we can expand the footprint while keeping the same height
+		int potentialLength = Math.max(currentLength, box.getLength());
+		int potentialWidth = Math.max(currentWidth, box.getWidth());
+		
+		// Check if the expanded footprint fits and the box height doesn't exceed current stack
+		boolean canFit = potentialLength <= MAX_LENGTH && 
+						 potentialWidth <= MAX_WIDTH && 
+						 box.getHeight() <= currentHeight;
+		
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Side-by-side check for {}: potential dimensions {}x{}x{}, within limits={}, result={}", 
+						box.getBeverageName(), potentialLength, potentialWidth, box.getHeight(), 
+						(potentialLength <= MAX_LENGTH && potentialWidth <= MAX_WIDTH), canFit);
+		}
+		
+		return canFit;
+	}
+	
+	/**
+	 * Checks if the box can start a new layer (if current boxes allow it)
+	 */
+	private boolean canFitInNewLayer(BeveragesBox box) {
+		// Only works if we have some existing boxes to build upon
+		if (boxCount == 0) {
+			// For empty storage, just check basic dimensions
+			boolean fits = box.getLength() <= MAX_LENGTH && 
+						   box.getWidth() <= MAX_WIDTH && 
+						   box.getHeight() <= MAX_HEIGHT;
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("New layer check for {} in empty storage: dimensions fit={}", box.getBeverageName(), fits);
+			}
+			return fits;
+		}
+		
+		// Check if adding this box as a new layer would fit
+		int newLayerHeight = currentHeight + box.getHeight();
+		boolean fits = box.getLength() <= MAX_LENGTH && 
+					   box.getWidth() <= MAX_WIDTH && 
+					   newLayerHeight <= MAX_HEIGHT;
+		
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("New layer check for {}: new total height would be {}, within limit={}, result={}", 
+						box.getBeverageName(), newLayerHeight, (newLayerHeight <= MAX_HEIGHT), fits);
+		}
+		
+		return fits;
+	}
+	
+	/**
+	 * Updates dimensions after adding a box using optimized placement strategy
+	 */
+	private void updateDimensionsAfterAdd(BeveragesBox box) {
+		int oldLength = currentLength;
+		int oldWidth = currentWidth;
+		int oldHeight = currentHeight;
+		
+		if (boxCount == 1) {
+			// First box sets the initial dimensions
+			currentLength = box.getLength();
+			currentWidth = box.getWidth();
+			currentHeight = box.getHeight();
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("First box {} set initial dimensions to {}x{}x{}", 
+							box.getBeverageName(), currentLength, currentWidth, currentHeight);
+			}
+		} else {
+			// Determine placement strategy based on pre-addition state
+			
+			// Check if box fits in current footprint (stacking vertically)
+			boolean canStack = box.getLength() <= oldLength && 
+							   box.getWidth() <= oldWidth &&
+							   (oldHeight + box.getHeight()) <= MAX_HEIGHT;
+			
+			if (canStack) {
+				// Stack vertically - just add height
+				currentHeight += box.getHeight();
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Box {} placed using vertical stacking - dimensions: {}x{}x{} -> {}x{}x{}", 
+								box.getBeverageName(), oldLength, oldWidth, oldHeight, 
+								currentLength, currentWidth, currentHeight);
+				}
+			} else {
+				// Expand footprint
+				currentLength = Math.max(oldLength, box.getLength());
+				currentWidth = Math.max(oldWidth, box.getWidth());
+				
+				// Check if this is side-by-side (same height level) or new layer
+				boolean sideBySide = currentLength <= MAX_LENGTH && 
+									 currentWidth <= MAX_WIDTH && 
+									 box.getHeight() <= oldHeight;
+				
+				if (sideBySide) {
+					// Side-by-side placement
+					currentHeight = Math.max(oldHeight, box.getHeight());
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug("Box {} placed side-by-side - dimensions: {}x{}x{} -> {}x{}x{}", 
+									box.getBeverageName(), oldLength, oldWidth, oldHeight, 
+									currentLength, currentWidth, currentHeight);
+					}
+				} else {
+					// New layer
+					currentHeight = oldHeight + box.getHeight();
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug("Box {} placed in new layer - dimensions: {}x{}x{} -> {}x{}x{}", 
+									box.getBeverageName(), oldLength, oldWidth, oldHeight, 
+									currentLength, currentWidth, currentHeight);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Recalculates dimensions after removing a box
+	 */
+	private void recalculateDimensions() {
+		int oldLength = currentLength;
+		int oldWidth = currentWidth;
+		int oldHeight = currentHeight;
+		
+		if (boxCount == 0) {
+			currentLength = 0;
+			currentWidth = 0;
+			currentHeight = 0;
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Storage cell emptied - dimensions reset to 0x0x0");
+			}
+			return;
+		}
+		
+		// Largest footprint of the remaining boxes, all of them stacked
+		currentLength = lengths.lastKey();
+		currentWidth = widths.lastKey();
+		currentHeight = sumHeight;
+		
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Dimensions recalculated after removal: {}x{}x{} -> {}x{}x{}, {} boxes remaining", 
+						oldLength, oldWidth, oldHeight, currentLength, currentWidth, currentHeight, boxCount);
+		}
+	}
+}
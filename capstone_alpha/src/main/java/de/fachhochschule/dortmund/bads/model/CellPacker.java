@@ -0,0 +1,63 @@
+package de.fachhochschule.dortmund.bads.model;
+
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+/**
+ * Decides where boxes go inside one storage cell. Every cell owns its own
+ * packer; {@link StorageCell} calls it under the cell's write lock, so
+ * implementations need no synchronization of their own.
+ *
+ * Stored and reserved boxes are both placed, so reserved space is taken into
+ * account by every later fit check.
+ */
+public interface CellPacker {
+
+	/**
+	 * Creates the packer of a cell from the cell's maximum dimensions.
+	 */
+	@FunctionalInterface
+	interface Factory {
+		CellPacker create(int maxLength, int maxWidth, int maxHeight);
+	}
+
+	/** Bounding dimensions grown by stacking, side by side or in layers. */
+	Factory BOUNDING_BOX = BoundingBoxPacker::new;
+
+	/** Extreme-point packing over the real free space, with upright rotations. */
+	Factory EXTREME_POINT = ExtremePointPacker::new;
+
+	/**
+	 * @return true if the box can be placed without exceeding the cell
+	 */
+	boolean fits(BeveragesBox box);
+
+	/**
+	 * Place a box. Cells that accept any box call this without checking
+	 * {@link #fits(BeveragesBox)} first, so the packer must keep track of the
+	 * box even if it finds no free space for it.
+	 *
+	 * @return true if the box got a position inside the cell
+	 */
+	boolean place(BeveragesBox box);
+
+	/**
+	 * Remove a placed box and free its space. The caller guarantees that the box
+	 * was placed in this packer and has not been removed since.
+	 */
+	void remove(BeveragesBox box);
+
+	/**
+	 * @return the length of the occupied space
+	 */
+	int getLength();
+
+	/**
+	 * @return the width of the occupied space
+	 */
+	int getWidth();
+
+	/**
+	 * @return the height of the occupied space
+	 */
+	int getHeight();
+}
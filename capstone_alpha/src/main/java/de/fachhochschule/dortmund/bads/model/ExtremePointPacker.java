@@ -0,0 +1,329 @@
+package de.fachhochschule.dortmund.bads.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+/**
+ * Extreme-point packing: every placed box spawns the corner points next to,
+ * behind and on top of it as candidate positions. A new box goes to the lowest
+ * candidate (by height, then width, then length) where it stays inside the
+ * cell, overlaps no other box and rests on the floor or on another box. Boxes
+ * may be turned around the vertical axis; bottles always stay upright.
+ *
+ * Positions and candidates are kept in primitive arrays, so a placement in a
+ * typical cell with a handful of boxes touches only a few hundred ints.
+ * Removing a box swaps the last slot into its place, reopens its origin as a
+ * candidate and only looks again at the points resting on its top face.
+ */
+class ExtremePointPacker implements CellPacker {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private final int maxLength;
+	private final int maxWidth;
+	private final int maxHeight;
+
+	// placed boxes: position (x along the length, y along the width, z up) and extent
+	private BeveragesBox[] boxes = new BeveragesBox[8];
+	private int[] x = new int[8];
+	private int[] y = new int[8];
+	private int[] z = new int[8];
+	private int[] dx = new int[8];
+	private int[] dy = new int[8];
+	private int[] dz = new int[8];
+	private int count;
+	private final Map<BeveragesBox, Integer> slots = new IdentityHashMap<>();
+
+	// boxes without a position, only possible in cells that accept anything
+	private final Set<BeveragesBox> unplaced = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	// candidate points as x, y, z triples, sorted by z, y, x
+	private int[] points = new int[3 * 8];
+	private int pointCount;
+
+	private int length;
+	private int width;
+	private int height;
+
+	// far edges of the placed boxes, so the extents survive a removal
+	private final TreeMap<Integer, Integer> lengthEdges = new TreeMap<>();
+	private final TreeMap<Integer, Integer> widthEdges = new TreeMap<>();
+	private final TreeMap<Integer, Integer> heightEdges = new TreeMap<>();
+
+	// result of the last successful search
+	private int foundX;
+	private int foundY;
+	private int foundZ;
+	private int foundDx;
+	private int foundDy;
+
+	ExtremePointPacker(int maxLength, int maxWidth, int maxHeight) {
+		this.maxLength = maxLength;
+		this.maxWidth = maxWidth;
+		this.maxHeight = maxHeight;
+		addPoint(0, 0, 0);
+	}
+
+	@Override
+	public boolean fits(BeveragesBox box) {
+		return findPosition(box);
+	}
+
+	@Override
+	public boolean place(BeveragesBox box) {
+		if (!findPosition(box)) {
+			unplaced.add(box);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("No free space for box {} - kept without position", box.getBeverageName());
+			}
+			return false;
+		}
+		int px = foundX, py = foundY, pz = foundZ, pdx = foundDx, pdy = foundDy, pdz = box.getHeight();
+		append(box, px, py, pz, pdx, pdy, pdz);
+
+		removePointsInside(px, py, pz, pdx, pdy, pdz);
+		addPoint(px + pdx, py, pz);
+		addPoint(px, py + pdy, pz);
+		addPoint(px, py, pz + pdz);
+
+		lengthEdges.merge(px + pdx, 1, Integer::sum);
+		widthEdges.merge(py + pdy, 1, Integer::sum);
+		heightEdges.merge(pz + pdz, 1, Integer::sum);
+		length = Math.max(length, px + pdx);
+		width = Math.max(width, py + pdy);
+		height = Math.max(height, pz + pdz);
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Placed box {} at ({}, {}, {}) as {}x{}x{}, {} candidate points left",
+					box.getBeverageName(), px, py, pz, pdx, pdy, pdz, pointCount);
+		}
+		return true;
+	}
+
+	@Override
+	public void remove(BeveragesBox box) {
+		if (unplaced.remove(box)) {
+			return;
+		}
+		Integer slot = slots.remove(box);
+		if (slot == null) {
+			return;
+		}
+		int i = slot;
+		int rx = x[i], ry = y[i], rz = z[i], rdx = dx[i], rdy = dy[i], rdz = dz[i];
+		int last = --count;
+		if (i != last) {
+			boxes[i] = boxes[last];
+			x[i] = x[last];
+			y[i] = y[last];
+			z[i] = z[last];
+			dx[i] = dx[last];
+			dy[i] = dy[last];
+			dz[i] = dz[last];
+			slots.put(boxes[i], i);
+		}
+		boxes[last] = null;
+
+		decrement(lengthEdges, rx + rdx);
+		decrement(widthEdges, ry + rdy);
+		decrement(heightEdges, rz + rdz);
+		length = lengthEdges.isEmpty() ? 0 : lengthEdges.lastKey();
+		width = widthEdges.isEmpty() ? 0 : widthEdges.lastKey();
+		height = heightEdges.isEmpty() ? 0 : heightEdges.lastKey();
+
+		removeUnsupportedPointsOn(rx, ry, rz + rdz, rdx, rdy);
+		addPoint(rx, ry, rz);
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Removed box {} from ({}, {}, {}), {} candidate points left",
+					box.getBeverageName(), rx, ry, rz, pointCount);
+		}
+	}
+
+	@Override
+	public int getLength() {
+		return length;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Search the candidate points in order and store the first valid position in the found fields.
+	 */
+	private boolean findPosition(BeveragesBox box) {
+		int bl = box.getLength();
+		int bw = box.getWidth();
+		int bh = box.getHeight();
+		for (int p = 0; p < pointCount; p++) {
+			int px = points[3 * p];
+			int py = points[3 * p + 1];
+			int pz = points[3 * p + 2];
+			if (pz + bh > maxHeight || !isSupported(px, py, pz)) {
+				continue;
+			}
+			if (canPlace(px, py, pz, bl, bw, bh) || (bl != bw && canPlace(px, py, pz, bw, bl, bh))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean canPlace(int px, int py, int pz, int bl, int bw, int bh) {
+		if (px + bl > maxLength || py + bw > maxWidth) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			if (px < x[i] + dx[i] && x[i] < px + bl
+					&& py < y[i] + dy[i] && y[i] < py + bw
+					&& pz < z[i] + dz[i] && z[i] < pz + bh) {
+				return false;
+			}
+		}
+		foundX = px;
+		foundY = py;
+		foundZ = pz;
+		foundDx = bl;
+		foundDy = bw;
+		return true;
+	}
+
+	// the corner under the point must be the floor or the top of another box
+	private boolean isSupported(int px, int py, int pz) {
+		if (pz == 0) {
+			return true;
+		}
+		for (int i = 0; i < count; i++) {
+			if (z[i] + dz[i] == pz && x[i] <= px && px < x[i] + dx[i] && y[i] <= py && py < y[i] + dy[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void append(BeveragesBox box, int px, int py, int pz, int pdx, int pdy, int pdz) {
+		if (count == boxes.length) {
+			int capacity = count * 2;
+			boxes = Arrays.copyOf(boxes, capacity);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			z = Arrays.copyOf(z, capacity);
+			dx = Arrays.copyOf(dx, capacity);
+			dy = Arrays.copyOf(dy, capacity);
+			dz = Arrays.copyOf(dz, capacity);
+		}
+		boxes[count] = box;
+		x[count] = px;
+		y[count] = py;
+		z[count] = pz;
+		dx[count] = pdx;
+		dy[count] = pdy;
+		dz[count] = pdz;
+		slots.put(box, count);
+		count++;
+	}
+
+	private static void decrement(TreeMap<Integer, Integer> multiset, int value) {
+		multiset.computeIfPresent(value, (key, n) -> n == 1 ? null : n - 1);
+	}
+
+	/**
+	 * Insert a candidate point in (z, y, x) order, skipping duplicates, points
+	 * on the cell boundary and points inside a placed box.
+	 */
+	private void addPoint(int px, int py, int pz) {
+		if (px >= maxLength || py >= maxWidth || pz >= maxHeight || isInsideBox(px, py, pz)) {
+			return;
+		}
+		int index = 0;
+		while (index < pointCount) {
+			int cmp = compare(px, py, pz, index);
+			if (cmp == 0) {
+				return;
+			}
+			if (cmp < 0) {
+				break;
+			}
+			index++;
+		}
+		if (3 * (pointCount + 1) > points.length) {
+			points = Arrays.copyOf(points, points.length * 2);
+		}
+		System.arraycopy(points, 3 * index, points, 3 * index + 3, 3 * (pointCount - index));
+		points[3 * index] = px;
+		points[3 * index + 1] = py;
+		points[3 * index + 2] = pz;
+		pointCount++;
+	}
+
+	private int compare(int px, int py, int pz, int index) {
+		int cmp = Integer.compare(pz, points[3 * index + 2]);
+		if (cmp == 0) {
+			cmp = Integer.compare(py, points[3 * index + 1]);
+		}
+		if (cmp == 0) {
+			cmp = Integer.compare(px, points[3 * index]);
+		}
+		return cmp;
+	}
+
+	private boolean isInsideBox(int px, int py, int pz) {
+		for (int i = 0; i < count; i++) {
+			if (x[i] <= px && px < x[i] + dx[i] && y[i] <= py && py < y[i] + dy[i] && z[i] <= pz && pz < z[i] + dz[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void removePointsInside(int bx, int by, int bz, int bdx, int bdy, int bdz) {
+		int kept = 0;
+		for (int p = 0; p < pointCount; p++) {
+			int px = points[3 * p];
+			int py = points[3 * p + 1];
+			int pz = points[3 * p + 2];
+			if (bx <= px && px < bx + bdx && by <= py && py < by + bdy && bz <= pz && pz < bz + bdz) {
+				continue;
+			}
+			points[3 * kept] = px;
+			points[3 * kept + 1] = py;
+			points[3 * kept + 2] = pz;
+			kept++;
+		}
+		pointCount = kept;
+	}
+
+	/**
+	 * Drop the candidate points on the given top face that no remaining box
+	 * carries any more.
+	 */
+	private void removeUnsupportedPointsOn(int bx, int by, int top, int bdx, int bdy) {
+		int kept = 0;
+		for (int p = 0; p < pointCount; p++) {
+			int px = points[3 * p];
+			int py = points[3 * p + 1];
+			int pz = points[3 * p + 2];
+			if (pz == top && bx <= px && px < bx + bdx && by <= py && py < by + bdy && !isSupported(px, py, pz)) {
+				continue;
+			}
+			points[3 * kept] = px;
+			points[3 * kept + 1] = py;
+			points[3 * kept + 2] = pz;
+			kept++;
+		}
+		pointCount = kept;
+	}
+}
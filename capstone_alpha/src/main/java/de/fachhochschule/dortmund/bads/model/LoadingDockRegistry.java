@@ -0,0 +1,142 @@
+package de.fachhochschule.dortmund.bads.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+
+/**
+ * Loading docks of a storage, derived from its {@link StorageCell.Type#LOADING_DOCK} cells.
+ *
+ * Dock membership is a flag per node id, so arrival checks are a single array
+ * lookup. Every dock keeps a FIFO of the AGVs assigned to it; new work goes to
+ * the dock with the shortest queue, which spreads deliveries evenly across all
+ * docks.
+ */
+public class LoadingDockRegistry {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	// docks of layouts that predate LOADING_DOCK cells
+	private static final String[] LEGACY_DOCKS = { "6D", "7D" };
+
+	private final Point[] docks;
+	private final int[] dockNodeIds;
+	private final boolean[] dockByNode;
+	private final List<ArrayDeque<AGV>> queues;
+	private final Map<AGV, Integer> assignments = new IdentityHashMap<>();
+
+	LoadingDockRegistry(Storage storage) {
+		List<Point> found = new ArrayList<>();
+		for (int nodeId = 0; nodeId < storage.getNodeCount(); nodeId++) {
+			if (storage.getCellByNodeId(nodeId).TYPE == StorageCell.Type.LOADING_DOCK) {
+				found.add(storage.getPoint(nodeId));
+			}
+		}
+		if (found.isEmpty()) {
+			for (String notation : LEGACY_DOCKS) {
+				Point point = Storage.notationToPoint(notation);
+				if (storage.getNodeId(point) >= 0) {
+					found.add(point);
+				}
+			}
+		}
+
+		this.docks = found.toArray(Point[]::new);
+		this.dockNodeIds = new int[docks.length];
+		this.dockByNode = new boolean[storage.getNodeCount()];
+		this.queues = new ArrayList<>(docks.length);
+		for (int i = 0; i < docks.length; i++) {
+			dockNodeIds[i] = storage.getNodeId(docks[i]);
+			dockByNode[dockNodeIds[i]] = true;
+			queues.add(new ArrayDeque<>());
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Loading dock registry created with {} docks", docks.length);
+		}
+	}
+
+	/**
+	 * @return true if the node is a loading dock
+	 */
+	public boolean isDock(int nodeId) {
+		return nodeId >= 0 && nodeId < dockByNode.length && dockByNode[nodeId];
+	}
+
+	public int getDockCount() {
+		return docks.length;
+	}
+
+	public Point getDock(int index) {
+		return docks[index];
+	}
+
+	public int getDockNodeId(int index) {
+		return dockNodeIds[index];
+	}
+
+	/**
+	 * @return the index of the dock with the shortest queue, or -1 if there are no docks
+	 */
+	public synchronized int leastLoadedDock() {
+		int best = -1;
+		for (int i = 0; i < queues.size(); i++) {
+			if (best < 0 || queues.get(i).size() < queues.get(best).size()) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Queue an AGV at a dock. An AGV holds at most one dock; assigning it again
+	 * moves it to the new dock.
+	 */
+	public synchronized void assign(int dockIndex, AGV agv) {
+		release(agv);
+		queues.get(dockIndex).add(agv);
+		assignments.put(agv, dockIndex);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} queued at dock {} (queue length {})", agv.getAgvId(), dockIndex, queues.get(dockIndex).size());
+		}
+	}
+
+	/**
+	 * Remove an AGV from its dock queue once its delivery is done or aborted.
+	 *
+	 * @return true if the AGV held a dock
+	 */
+	public synchronized boolean release(AGV agv) {
+		Integer dockIndex = assignments.remove(agv);
+		if (dockIndex == null) {
+			return false;
+		}
+		queues.get(dockIndex).remove(agv);
+		return true;
+	}
+
+	/**
+	 * @return the dock index the AGV is queued at, or -1
+	 */
+	public synchronized int getAssignedDock(AGV agv) {
+		Integer dockIndex = assignments.get(agv);
+		return dockIndex == null ? -1 : dockIndex;
+	}
+
+	public synchronized int getQueueLength(int dockIndex) {
+		return queues.get(dockIndex).size();
+	}
+
+	/**
+	 * @return the AGVs queued at a dock, in arrival order of their assignment
+	 */
+	public synchronized List<AGV> getQueue(int dockIndex) {
+		return List.copyOf(queues.get(dockIndex));
+	}
+}
@@ -0,0 +1,577 @@
+package de.fachhochschule.dortmund.bads.model;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+/**
+ * Storage cells and their boxes kept in off-heap memory, for warehouses with
+ * millions of slots. A cell is a fixed 48-byte record and a box a 32-byte
+ * record in a slab; neither is a Java object, so the heap and the garbage
+ * collector only see a few segments however large the warehouse gets.
+ *
+ * Cells and boxes are addressed by int ids. The boxes of a cell form a list
+ * through the slab, and removed boxes go to a free list that later boxes
+ * reuse. Placement follows {@link CellPacker#BOUNDING_BOX}; the type rules are
+ * those of {@link StorageCell#isNewBoxCouldBeAdded(BeveragesBox)}.
+ *
+ * The table is thread-safe. It owns native memory, so it has to be closed.
+ */
+public final class OffHeapCellTable implements AutoCloseable {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private static final StorageCell.Type[] CELL_TYPES = StorageCell.Type.values();
+	private static final BeveragesBox.Type[] BOX_TYPES = BeveragesBox.Type.values();
+	private static final int NONE = -1;
+
+	// cell record
+	private static final long CELL_SIZE = 48;
+	private static final long CELL_TYPE = 0;
+	private static final long CELL_MAX_LENGTH = 4;
+	private static final long CELL_MAX_WIDTH = 8;
+	private static final long CELL_MAX_HEIGHT = 12;
+	private static final long CELL_LENGTH = 16;
+	private static final long CELL_WIDTH = 20;
+	private static final long CELL_HEIGHT = 24;
+	private static final long CELL_BOX_COUNT = 28;
+	private static final long CELL_FIRST_BOX = 32;
+	private static final long CELL_UNITS = 36;
+	private static final long CELL_USED_VOLUME = 40;
+
+	// box record; a free box has no cell and links the free list instead
+	private static final long BOX_SIZE = 32;
+	private static final long BOX_TYPE = 0;
+	private static final long BOX_NAME = 4;
+	private static final long BOX_WIDTH = 8;
+	private static final long BOX_HEIGHT = 12;
+	private static final long BOX_LENGTH = 16;
+	private static final long BOX_QUANTITY = 20;
+	private static final long BOX_CELL = 24;
+	private static final long BOX_NEXT = 28;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Arena cellArena;
+	private final MemorySegment cells;
+	private final int cellCapacity;
+	private int cellCount;
+
+	// replaced by a larger slab when full; guarded by the write lock
+	private Arena boxArena;
+	private MemorySegment boxes;
+	private int boxCapacity;
+	private int boxHighWater;
+	private int freeBox = NONE;
+	private int boxCount;
+
+	// beverage names are stored as ids; a warehouse has few distinct names
+	private final Map<String, Integer> nameIds = new HashMap<>();
+	private final List<String> names = new ArrayList<>();
+
+	// next-fit cursor per cell type: filling continues where the last box went
+	private final int[][] cellsByType = new int[CELL_TYPES.length][];
+	private final int[] cellsOfType = new int[CELL_TYPES.length];
+	private final int[] cursorByType = new int[CELL_TYPES.length];
+
+	/**
+	 * @param cellCapacity maximum number of cells
+	 * @param initialBoxCapacity number of boxes before the slab has to grow
+	 */
+	public OffHeapCellTable(int cellCapacity, int initialBoxCapacity) {
+		if (cellCapacity <= 0 || initialBoxCapacity <= 0) {
+			throw new IllegalArgumentException("Capacities must be positive");
+		}
+		this.cellCapacity = cellCapacity;
+		this.cellArena = Arena.ofShared();
+		this.cells = cellArena.allocate(cellCapacity * CELL_SIZE, 8);
+		this.boxCapacity = initialBoxCapacity;
+		this.boxArena = Arena.ofShared();
+		this.boxes = boxArena.allocate(initialBoxCapacity * BOX_SIZE, 8);
+		for (int type = 0; type < CELL_TYPES.length; type++) {
+			cellsByType[type] = new int[16];
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Off-heap cell table created for {} cells and {} boxes ({} bytes)",
+					cellCapacity, initialBoxCapacity, cells.byteSize() + boxes.byteSize());
+		}
+	}
+
+	/**
+	 * Copy the cells and boxes of a storage. Cell ids are the node ids of the
+	 * storage, so {@link Storage#getNotation(int)} names the copied cells.
+	 */
+	public static OffHeapCellTable copyOf(Storage storage) {
+		int boxTotal = 0;
+		for (int nodeId = 0; nodeId < storage.getNodeCount(); nodeId++) {
+			boxTotal += storage.getCellByNodeId(nodeId).getBoxCount();
+		}
+		OffHeapCellTable table = new OffHeapCellTable(storage.getNodeCount(), Math.max(boxTotal, 16));
+		table.lock.writeLock().lock();
+		try {
+			for (int nodeId = 0; nodeId < storage.getNodeCount(); nodeId++) {
+				StorageCell cell = storage.getCellByNodeId(nodeId);
+				int cellId = table.addCell(cell.TYPE, cell.MAX_LENGTH, cell.MAX_WIDTH, cell.MAX_HEIGHT);
+				// the boxes are already placed in the storage, so they are copied without a fit check
+				for (BeveragesBox box : cell.getStoredBoxes()) {
+					table.insert(cellId, box.getType(), box.getBeverageName(), box.getWidth(), box.getHeight(),
+							box.getLength(), (int) box.getQuantity(), false);
+				}
+			}
+		} finally {
+			table.lock.writeLock().unlock();
+		}
+		return table;
+	}
+
+	/**
+	 * Add an empty cell.
+	 *
+	 * @return the id of the new cell
+	 */
+	public int addCell(StorageCell.Type type, int maxLength, int maxWidth, int maxHeight) {
+		lock.writeLock().lock();
+		try {
+			if (cellCount == cellCapacity) {
+				throw new IllegalStateException("Cell table is full: " + cellCapacity + " cells");
+			}
+			int cell = cellCount++;
+			long base = cell * CELL_SIZE;
+			cells.asSlice(base, CELL_SIZE).fill((byte) 0);
+			cells.set(ValueLayout.JAVA_INT, base + CELL_TYPE, type.ordinal());
+			cells.set(ValueLayout.JAVA_INT, base + CELL_MAX_LENGTH, maxLength);
+			cells.set(ValueLayout.JAVA_INT, base + CELL_MAX_WIDTH, maxWidth);
+			cells.set(ValueLayout.JAVA_INT, base + CELL_MAX_HEIGHT, maxHeight);
+			cells.set(ValueLayout.JAVA_INT, base + CELL_FIRST_BOX, NONE);
+
+			int t = type.ordinal();
+			if (cellsOfType[t] == cellsByType[t].length) {
+				cellsByType[t] = Arrays.copyOf(cellsByType[t], cellsOfType[t] * 2);
+			}
+			cellsByType[t][cellsOfType[t]++] = cell;
+			return cell;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Store a box in a given cell.
+	 *
+	 * @return the id of the stored box, or -1 if the cell does not take it
+	 */
+	public int addBox(int cell, BeveragesBox box) {
+		return addBox(cell, box.getType(), box.getBeverageName(), box.getWidth(), box.getHeight(), box.getLength(),
+				(int) box.getQuantity());
+	}
+
+	/**
+	 * Store a box in a given cell.
+	 *
+	 * @return the id of the stored box, or -1 if the cell does not take it
+	 */
+	public int addBox(int cell, BeveragesBox.Type type, String name, int width, int height, int length, int quantity) {
+		lock.writeLock().lock();
+		try {
+			checkCell(cell);
+			return insert(cell, type, name, width, height, length, quantity, true);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Store a box in the next cell of the matching type with space for it,
+	 * like {@link Storage#addBeverageToStorage(BeveragesBox)}.
+	 *
+	 * @return the id of the stored box, or -1 if no cell has space
+	 */
+	public int storeBox(BeveragesBox box) {
+		StorageCell.Type cellType = switch (box.getType()) {
+			case AMBIENT -> StorageCell.Type.AMBIENT;
+			case REFRIGERATED -> StorageCell.Type.REFRIGERATED;
+			case BULK -> StorageCell.Type.BULK;
+		};
+		int t = cellType.ordinal();
+		lock.writeLock().lock();
+		try {
+			int count = cellsOfType[t];
+			int start = count == 0 ? 0 : cursorByType[t] % count;
+			for (int i = 0; i < count; i++) {
+				int index = (start + i) % count;
+				int id = insert(cellsByType[t][index], box.getType(), box.getBeverageName(), box.getWidth(),
+						box.getHeight(), box.getLength(), (int) box.getQuantity(), true);
+				if (id != NONE) {
+					cursorByType[t] = index;
+					return id;
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (LOGGER.isWarnEnabled()) {
+			LOGGER.warn("No space available in {} cells for {}", cellType, box.getBeverageName());
+		}
+		return NONE;
+	}
+
+	/**
+	 * Remove a stored box and free its record for later boxes.
+	 *
+	 * @return false if the id is not a stored box
+	 */
+	public boolean removeBox(int box) {
+		lock.writeLock().lock();
+		try {
+			if (box < 0 || box >= boxHighWater) {
+				return false;
+			}
+			long base = box * BOX_SIZE;
+			int cell = boxes.get(ValueLayout.JAVA_INT, base + BOX_CELL);
+			if (cell == NONE) {
+				return false;
+			}
+			long cellBase = cell * CELL_SIZE;
+
+			// unlink the box and measure the remaining boxes in the same walk
+			int length = 0;
+			int width = 0;
+			int height = 0;
+			int previous = NONE;
+			int current = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_FIRST_BOX);
+			while (current != NONE) {
+				long currentBase = current * BOX_SIZE;
+				int next = boxes.get(ValueLayout.JAVA_INT, currentBase + BOX_NEXT);
+				if (current == box) {
+					if (previous == NONE) {
+						cells.set(ValueLayout.JAVA_INT, cellBase + CELL_FIRST_BOX, next);
+					} else {
+						boxes.set(ValueLayout.JAVA_INT, previous * BOX_SIZE + BOX_NEXT, next);
+					}
+				} else {
+					length = Math.max(length, boxes.get(ValueLayout.JAVA_INT, currentBase + BOX_LENGTH));
+					width = Math.max(width, boxes.get(ValueLayout.JAVA_INT, currentBase + BOX_WIDTH));
+					height += boxes.get(ValueLayout.JAVA_INT, currentBase + BOX_HEIGHT);
+					previous = current;
+				}
+				current = next;
+			}
+			// same dimensions as BoundingBoxPacker after a removal: largest footprint, all stacked
+			cells.set(ValueLayout.JAVA_INT, cellBase + CELL_LENGTH, length);
+			cells.set(ValueLayout.JAVA_INT, cellBase + CELL_WIDTH, width);
+			cells.set(ValueLayout.JAVA_INT, cellBase + CELL_HEIGHT, height);
+			addInt(cells, cellBase + CELL_BOX_COUNT, -1);
+			addInt(cells, cellBase + CELL_UNITS, -boxes.get(ValueLayout.JAVA_INT, base + BOX_QUANTITY));
+			cells.set(ValueLayout.JAVA_LONG, cellBase + CELL_USED_VOLUME,
+					cells.get(ValueLayout.JAVA_LONG, cellBase + CELL_USED_VOLUME) - volume(base));
+
+			boxes.set(ValueLayout.JAVA_INT, base + BOX_CELL, NONE);
+			boxes.set(ValueLayout.JAVA_INT, base + BOX_NEXT, freeBox);
+			freeBox = box;
+			boxCount--;
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// caller holds the write lock
+	private int insert(int cell, BeveragesBox.Type type, String name, int width, int height, int length,
+			int quantity, boolean checkFit) {
+		long cellBase = cell * CELL_SIZE;
+		StorageCell.Type cellType = CELL_TYPES[cells.get(ValueLayout.JAVA_INT, cellBase + CELL_TYPE)];
+		boolean acceptsAny = cellType == StorageCell.Type.ANY || cellType == StorageCell.Type.LOADING_DOCK;
+		if (checkFit && !acceptsAny && (!accepts(cellType, type) || !fits(cellBase, width, height, length))) {
+			return NONE;
+		}
+
+		int box = allocateBox();
+		long base = box * BOX_SIZE;
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_TYPE, type.ordinal());
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_NAME, nameId(name));
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_WIDTH, width);
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_HEIGHT, height);
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_LENGTH, length);
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_QUANTITY, quantity);
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_CELL, cell);
+		boxes.set(ValueLayout.JAVA_INT, base + BOX_NEXT, cells.get(ValueLayout.JAVA_INT, cellBase + CELL_FIRST_BOX));
+		cells.set(ValueLayout.JAVA_INT, cellBase + CELL_FIRST_BOX, box);
+
+		place(cellBase, width, height, length);
+		addInt(cells, cellBase + CELL_BOX_COUNT, 1);
+		addInt(cells, cellBase + CELL_UNITS, quantity);
+		cells.set(ValueLayout.JAVA_LONG, cellBase + CELL_USED_VOLUME,
+				cells.get(ValueLayout.JAVA_LONG, cellBase + CELL_USED_VOLUME) + volume(base));
+		boxCount++;
+		return box;
+	}
+
+	private static boolean accepts(StorageCell.Type cellType, BeveragesBox.Type boxType) {
+		return (cellType == StorageCell.Type.AMBIENT && boxType == BeveragesBox.Type.AMBIENT)
+				|| (cellType == StorageCell.Type.BULK && boxType == BeveragesBox.Type.BULK)
+				|| (cellType == StorageCell.Type.REFRIGERATED && boxType == BeveragesBox.Type.REFRIGERATED);
+	}
+
+	/**
+	 * The fit check of {@link BoundingBoxPacker}: stack on top, stand side by
+	 * side below the current height, or start a new layer.
+	 */
+	private boolean fits(long cellBase, int width, int height, int length) {
+		int maxLength = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_MAX_LENGTH);
+		int maxWidth = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_MAX_WIDTH);
+		int maxHeight = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_MAX_HEIGHT);
+		int currentLength = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_LENGTH);
+		int currentWidth = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_WIDTH);
+		int currentHeight = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_HEIGHT);
+		if (length <= currentLength && width <= currentWidth && currentHeight + height <= maxHeight) {
+			return true;
+		}
+		if (Math.max(currentLength, length) <= maxLength && Math.max(currentWidth, width) <= maxWidth
+				&& height <= currentHeight) {
+			return true;
+		}
+		return length <= maxLength && width <= maxWidth && currentHeight + height <= maxHeight;
+	}
+
+	/**
+	 * The dimension update of {@link BoundingBoxPacker} after a box was added.
+	 */
+	private void place(long cellBase, int width, int height, int length) {
+		int maxLength = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_MAX_LENGTH);
+		int maxWidth = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_MAX_WIDTH);
+		int maxHeight = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_MAX_HEIGHT);
+		int oldLength = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_LENGTH);
+		int oldWidth = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_WIDTH);
+		int oldHeight = cells.get(ValueLayout.JAVA_INT, cellBase + CELL_HEIGHT);
+		int newLength;
+		int newWidth;
+		int newHeight;
+		if (cells.get(ValueLayout.JAVA_INT, cellBase + CELL_BOX_COUNT) == 0) {
+			newLength = length;
+			newWidth = width;
+			newHeight = height;
+		} else if (length <= oldLength && width <= oldWidth && oldHeight + height <= maxHeight) {
+			newLength = oldLength;
+			newWidth = oldWidth;
+			newHeight = oldHeight + height;
+		} else {
+			newLength = Math.max(oldLength, length);
+			newWidth = Math.max(oldWidth, width);
+			boolean sideBySide = newLength <= maxLength && newWidth <= maxWidth && height <= oldHeight;
+			newHeight = sideBySide ? Math.max(oldHeight, height) : oldHeight + height;
+		}
+		cells.set(ValueLayout.JAVA_INT, cellBase + CELL_LENGTH, newLength);
+		cells.set(ValueLayout.JAVA_INT, cellBase + CELL_WIDTH, newWidth);
+		cells.set(ValueLayout.JAVA_INT, cellBase + CELL_HEIGHT, newHeight);
+	}
+
+	private int allocateBox() {
+		if (freeBox != NONE) {
+			int box = freeBox;
+			freeBox = boxes.get(ValueLayout.JAVA_INT, box * BOX_SIZE + BOX_NEXT);
+			return box;
+		}
+		if (boxHighWater == boxCapacity) {
+			int capacity = boxCapacity >= Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : boxCapacity * 2;
+			if (capacity == boxCapacity) {
+				throw new IllegalStateException("Box slab is full: " + boxCapacity + " boxes");
+			}
+			Arena arena = Arena.ofShared();
+			MemorySegment slab = arena.allocate(capacity * BOX_SIZE, 8);
+			MemorySegment.copy(boxes, 0, slab, 0, boxHighWater * BOX_SIZE);
+			boxArena.close();
+			boxArena = arena;
+			boxes = slab;
+			boxCapacity = capacity;
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Box slab grown to {} boxes", capacity);
+			}
+		}
+		return boxHighWater++;
+	}
+
+	private int nameId(String name) {
+		Integer id = nameIds.get(name);
+		if (id == null) {
+			id = names.size();
+			names.add(name);
+			nameIds.put(name, id);
+		}
+		return id;
+	}
+
+	private long volume(long boxBase) {
+		return (long) boxes.get(ValueLayout.JAVA_INT, boxBase + BOX_WIDTH)
+				* boxes.get(ValueLayout.JAVA_INT, boxBase + BOX_HEIGHT)
+				* boxes.get(ValueLayout.JAVA_INT, boxBase + BOX_LENGTH);
+	}
+
+	private static void addInt(MemorySegment segment, long offset, int delta) {
+		segment.set(ValueLayout.JAVA_INT, offset, segment.get(ValueLayout.JAVA_INT, offset) + delta);
+	}
+
+	private void checkCell(int cell) {
+		if (cell < 0 || cell >= cellCount) {
+			throw new IndexOutOfBoundsException("No cell " + cell + " in a table of " + cellCount + " cells");
+		}
+	}
+
+	private int cellInt(int cell, long field) {
+		lock.readLock().lock();
+		try {
+			checkCell(cell);
+			return cells.get(ValueLayout.JAVA_INT, cell * CELL_SIZE + field);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private long storedBoxBase(int box) {
+		if (box < 0 || box >= boxHighWater || boxes.get(ValueLayout.JAVA_INT, box * BOX_SIZE + BOX_CELL) == NONE) {
+			throw new IllegalArgumentException("No stored box " + box);
+		}
+		return box * BOX_SIZE;
+	}
+
+	public int getCellCount() {
+		lock.readLock().lock();
+		try {
+			return cellCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of boxes stored in all cells
+	 */
+	public int getBoxCount() {
+		lock.readLock().lock();
+		try {
+			return boxCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public StorageCell.Type getType(int cell) {
+		return CELL_TYPES[cellInt(cell, CELL_TYPE)];
+	}
+
+	public int getBoxCount(int cell) {
+		return cellInt(cell, CELL_BOX_COUNT);
+	}
+
+	public int getUnits(int cell) {
+		return cellInt(cell, CELL_UNITS);
+	}
+
+	public int getLength(int cell) {
+		return cellInt(cell, CELL_LENGTH);
+	}
+
+	public int getWidth(int cell) {
+		return cellInt(cell, CELL_WIDTH);
+	}
+
+	public int getHeight(int cell) {
+		return cellInt(cell, CELL_HEIGHT);
+	}
+
+	public long getUsedVolume(int cell) {
+		lock.readLock().lock();
+		try {
+			checkCell(cell);
+			return cells.get(ValueLayout.JAVA_LONG, cell * CELL_SIZE + CELL_USED_VOLUME);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the cell holding a stored box
+	 */
+	public int getCellOfBox(int box) {
+		lock.readLock().lock();
+		try {
+			return boxes.get(ValueLayout.JAVA_INT, storedBoxBase(box) + BOX_CELL);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Call the action with the id of every box in a cell, newest first. The
+	 * action must not change the table.
+	 */
+	public void forEachBox(int cell, IntConsumer action) {
+		lock.readLock().lock();
+		try {
+			checkCell(cell);
+			int box = cells.get(ValueLayout.JAVA_INT, cell * CELL_SIZE + CELL_FIRST_BOX);
+			while (box != NONE) {
+				action.accept(box);
+				box = boxes.get(ValueLayout.JAVA_INT, box * BOX_SIZE + BOX_NEXT);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return a heap copy of a stored box
+	 */
+	public BeveragesBox toBox(int box) {
+		lock.readLock().lock();
+		try {
+			long base = storedBoxBase(box);
+			return new BeveragesBox(BOX_TYPES[boxes.get(ValueLayout.JAVA_INT, base + BOX_TYPE)],
+					names.get(boxes.get(ValueLayout.JAVA_INT, base + BOX_NAME)),
+					boxes.get(ValueLayout.JAVA_INT, base + BOX_WIDTH),
+					boxes.get(ValueLayout.JAVA_INT, base + BOX_HEIGHT),
+					boxes.get(ValueLayout.JAVA_INT, base + BOX_LENGTH),
+					boxes.get(ValueLayout.JAVA_INT, base + BOX_QUANTITY));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the native memory held by the cell table and the box slab
+	 */
+	public long getOffHeapBytes() {
+		lock.readLock().lock();
+		try {
+			return cells.byteSize() + boxes.byteSize();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Free the native memory. The table cannot be used afterwards.
+	 */
+	@Override
+	public void close() {
+		lock.writeLock().lock();
+		try {
+			if (cellArena.scope().isAlive()) {
+				cellArena.close();
+				boxArena.close();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
@@ -1,9 +1,23 @@
 package de.fachhochschule.dortmund.bads.model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -13,15 +27,62 @@ import de.fachhochschule.dortmund.bads.exceptions.InvalidCoordinatesException;
 import de.fachhochschule.dortmund.bads.exceptions.InvalidNotationException;
 import de.fachhochschule.dortmund.bads.exceptions.StorageCellMismatchException;
 import de.fachhochschule.dortmund.bads.model.Area.Point;
-import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.logic.ChargingScheduler;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.IChargeable;
 
 public class Storage {
 	private static final Logger LOGGER = LogManager.getLogger();
 
+	/** Beverages with fewer bottles than this in stock count as low stock. */
+	public static final int LOW_STOCK_THRESHOLD = 20;
+
+	// put-away tries the emptiest cell first; node id keeps equal volumes apart
+	private static final Comparator<FreeSlot> MOST_FREE_FIRST = Comparator.comparingInt(FreeSlot::freeVolume)
+			.reversed().thenComparingInt(FreeSlot::nodeId);
+
+	// notations and points of the coordinates every layout uses, filled on first use
+	private static final int CACHED_COORDINATES = 64;
+	private static final String[] NOTATION_CACHE = new String[CACHED_COORDINATES * CACHED_COORDINATES];
+	private static final Point[] POINT_CACHE = new Point[CACHED_COORDINATES * CACHED_COORDINATES];
+
 	public final Area AREA;
 	private final Map<Point, StorageCell> CELLS;
+	private final Map<Point, StorageCell> CELLS_VIEW;
+	// dense node ids in row-major order: NODES[id] is the point, NODE_IDS maps it back
+	private final Point[] NODES;
+	private final Map<Point, Integer> NODE_IDS;
+	private final StorageCell[] CELLS_BY_NODE;
+	private final Map<StorageCell, Integer> NODE_IDS_BY_CELL;
+	// interned notation per node and the way back
+	private final String[] NOTATIONS;
+	private final Map<String, Integer> NODE_IDS_BY_NOTATION;
+	private final LoadingDockRegistry loadingDocks;
+	private final ChargingScheduler chargingScheduler;
 	private Point cityPosition; // Position of warehouse in the city grid
 
+	// secondary indexes: the type index is fixed, the others follow the cell content listeners
+	private final Map<StorageCell.Type, int[]> NODES_BY_TYPE = new EnumMap<>(StorageCell.Type.class);
+	private final Object indexLock = new Object();
+	private final Map<StorageCell.Type, NavigableSet<FreeSlot>> freeSlotsByType = new EnumMap<>(StorageCell.Type.class);
+	private final int[] indexedFreeVolume;
+	private final Map<String, Map<Integer, Integer>> boxesByBeverage = new HashMap<>();
+	private final Map<String, Integer> storedBeverageTypes = new TreeMap<>();
+
+	// running aggregates over inventory cells; written under indexLock, read without locking
+	private final long[] maxVolumeByType = new long[StorageCell.Type.values().length];
+	private final AtomicLongArray usedVolumeByType = new AtomicLongArray(StorageCell.Type.values().length);
+	private final AtomicLong totalUnits = new AtomicLong();
+	private final Map<String, Stock> stockByBeverage = new ConcurrentHashMap<>();
+	private final Set<String> lowStockBeverages = ConcurrentHashMap.newKeySet();
+	private final Set<String> lowStockView = Collections.unmodifiableSet(lowStockBeverages);
+
+	private record FreeSlot(int freeVolume, int nodeId) {
+	}
+
+	private record Stock(int boxes, int units) {
+	}
+
 	public Storage(Area area, StorageCell[] cells) {
 		this.AREA = area;
 		this.CELLS = new HashMap<>();
@@ -37,6 +98,29 @@ public class Storage {
 		for (Point place : places) {
 			this.CELLS.put(place, cells[i++]);
 		}
+		this.CELLS_VIEW = Collections.unmodifiableMap(this.CELLS);
+
+		this.NODES = places.toArray(Point[]::new);
+		Arrays.sort(this.NODES, Comparator.comparingInt(Point::y).thenComparingInt(Point::x));
+		this.NODE_IDS = new HashMap<>();
+		this.CELLS_BY_NODE = new StorageCell[NODES.length];
+		this.NODE_IDS_BY_CELL = new IdentityHashMap<>();
+		this.NOTATIONS = new String[NODES.length];
+		this.NODE_IDS_BY_NOTATION = new HashMap<>();
+		for (int nodeId = 0; nodeId < NODES.length; nodeId++) {
+			Point node = NODES[nodeId];
+			NODE_IDS.put(node, nodeId);
+			CELLS_BY_NODE[nodeId] = CELLS.get(node);
+			NODE_IDS_BY_CELL.put(CELLS_BY_NODE[nodeId], nodeId);
+			if (node.x() >= 0 && node.y() >= 0) {
+				NOTATIONS[nodeId] = pointToNotation(node).intern();
+				NODE_IDS_BY_NOTATION.put(NOTATIONS[nodeId], nodeId);
+			}
+		}
+		this.indexedFreeVolume = new int[NODES.length];
+		buildIndexes();
+		this.loadingDocks = new LoadingDockRegistry(this);
+		this.chargingScheduler = new ChargingScheduler(this);
 		
 		// Log charging station locations
 		List<Point> chargingStations = getChargingStationLocations();
@@ -47,30 +131,220 @@ public class Storage {
 		}
 	}
 	
+	private void buildIndexes() {
+		Map<StorageCell.Type, List<Integer>> byType = new EnumMap<>(StorageCell.Type.class);
+		for (StorageCell.Type type : StorageCell.Type.values()) {
+			byType.put(type, new ArrayList<>());
+			freeSlotsByType.put(type, new TreeSet<>(MOST_FREE_FIRST));
+		}
+		for (int nodeId = 0; nodeId < NODES.length; nodeId++) {
+			StorageCell cell = CELLS_BY_NODE[nodeId];
+			byType.get(cell.TYPE).add(nodeId);
+			maxVolumeByType[cell.TYPE.ordinal()] += (long) cell.MAX_LENGTH * cell.MAX_WIDTH * cell.MAX_HEIGHT;
+			indexedFreeVolume[nodeId] = cell.getFreeVolume();
+			freeSlotsByType.get(cell.TYPE).add(new FreeSlot(indexedFreeVolume[nodeId], nodeId));
+			for (BeveragesBox box : cell.getStoredBoxes()) {
+				indexBox(nodeId, box, 1);
+			}
+			cell.addContentListener(new NodeListener(nodeId));
+		}
+		byType.forEach((type, ids) -> NODES_BY_TYPE.put(type, ids.stream().mapToInt(Integer::intValue).toArray()));
+	}
+
 	/**
-	 * Get all storage cells in the storage.
+	 * Keeps the indexes of one node current while boxes move in and out of its cell.
+	 */
+	private final class NodeListener implements StorageCell.ContentListener {
+		private final int nodeId;
+
+		NodeListener(int nodeId) {
+			this.nodeId = nodeId;
+		}
+
+		@Override
+		public void boxAdded(StorageCell cell, BeveragesBox box) {
+			synchronized (indexLock) {
+				indexBox(nodeId, box, 1);
+				updateFreeSlot(nodeId, cell);
+			}
+		}
+
+		@Override
+		public void boxRemoved(StorageCell cell, BeveragesBox box) {
+			synchronized (indexLock) {
+				indexBox(nodeId, box, -1);
+				updateFreeSlot(nodeId, cell);
+			}
+		}
+
+		@Override
+		public void capacityChanged(StorageCell cell) {
+			synchronized (indexLock) {
+				updateFreeSlot(nodeId, cell);
+			}
+		}
+	}
+
+	private void updateFreeSlot(int nodeId, StorageCell cell) {
+		NavigableSet<FreeSlot> slots = freeSlotsByType.get(cell.TYPE);
+		slots.remove(new FreeSlot(indexedFreeVolume[nodeId], nodeId));
+		indexedFreeVolume[nodeId] = cell.getFreeVolume();
+		slots.add(new FreeSlot(indexedFreeVolume[nodeId], nodeId));
+	}
+
+	private void indexBox(int nodeId, BeveragesBox box, int delta) {
+		Map<Integer, Integer> nodes = boxesByBeverage.computeIfAbsent(box.getBeverageName(), name -> new TreeMap<>());
+		if (nodes.merge(nodeId, delta, Integer::sum) <= 0) {
+			nodes.remove(nodeId);
+			if (nodes.isEmpty()) {
+				boxesByBeverage.remove(box.getBeverageName());
+			}
+		}
+
+		StorageCell.Type type = CELLS_BY_NODE[nodeId].TYPE;
+		usedVolumeByType.addAndGet(type.ordinal(), (long) delta * StorageCell.volumeOf(box));
+		if (isInventoryType(type)) {
+			int units = delta * (int) box.getQuantity();
+			totalUnits.addAndGet(units);
+			Stock stock = stockByBeverage.merge(box.getBeverageName(), new Stock(delta, units),
+					(a, b) -> new Stock(a.boxes() + b.boxes(), a.units() + b.units()));
+			if (stock.boxes() <= 0) {
+				stockByBeverage.remove(box.getBeverageName());
+				lowStockBeverages.remove(box.getBeverageName());
+			} else if (stock.units() < LOW_STOCK_THRESHOLD) {
+				lowStockBeverages.add(box.getBeverageName());
+			} else {
+				lowStockBeverages.remove(box.getBeverageName());
+			}
+		}
+
+		// only real storage cells count towards the beverages on offer
+		if (type == StorageCell.Type.AMBIENT || type == StorageCell.Type.REFRIGERATED || type == StorageCell.Type.BULK) {
+			String displayName = box.getBeverageName() + " - " + switch (box.getType()) {
+				case AMBIENT -> "Ambient";
+				case REFRIGERATED -> "Refrigerated";
+				case BULK -> "Bulk";
+			};
+			if (storedBeverageTypes.merge(displayName, delta, Integer::sum) <= 0) {
+				storedBeverageTypes.remove(displayName);
+			}
+		}
+	}
+
+	/**
+	 * Inventory cells hold stock: everything but corridors, charging stations and loading docks.
+	 */
+	public static boolean isInventoryType(StorageCell.Type type) {
+		return type != StorageCell.Type.CORRIDOR && type != StorageCell.Type.CHARGING_STATION
+				&& type != StorageCell.Type.LOADING_DOCK;
+	}
+
+	/**
+	 * @return the summed maximum volume of all cells of a type
+	 */
+	public long getMaxVolume(StorageCell.Type type) {
+		return maxVolumeByType[type.ordinal()];
+	}
+
+	/**
+	 * @return the summed volume of all boxes in cells of a type
+	 */
+	public long getUsedVolume(StorageCell.Type type) {
+		return usedVolumeByType.get(type.ordinal());
+	}
+
+	/**
+	 * @return the number of bottles in all inventory cells
+	 */
+	public long getTotalUnits() {
+		return totalUnits.get();
+	}
+
+	/**
+	 * @return the number of bottles of a beverage in inventory cells
+	 */
+	public int getUnits(String beverageName) {
+		Stock stock = stockByBeverage.get(beverageName);
+		return stock == null ? 0 : stock.units();
+	}
+
+	/**
+	 * @return the number of distinct beverages in inventory cells
+	 */
+	public int getStockedBeverageCount() {
+		return stockByBeverage.size();
+	}
+
+	/**
+	 * Get a live read-only view of the beverages stocked below {@link #LOW_STOCK_THRESHOLD}.
+	 */
+	public Set<String> getLowStockBeverages() {
+		return lowStockView;
+	}
+
+	/**
+	 * Get all storage cells in the storage as a modifiable copy.
+	 * Readers should prefer {@link #getCellsView()} or {@link #forEachCell(BiConsumer)}.
 	 */
 	public Map<Point, StorageCell> getAllStorages() {
 		return new HashMap<>(CELLS);
 	}
+
+	/**
+	 * Get a read-only view of all storage cells. The layout is fixed when the
+	 * storage is built, so the view is shared and never copied.
+	 */
+	public Map<Point, StorageCell> getCellsView() {
+		return CELLS_VIEW;
+	}
+
+	/**
+	 * Visit every cell in node id order without allocating a copy.
+	 */
+	public void forEachCell(BiConsumer<Point, StorageCell> action) {
+		for (int nodeId = 0; nodeId < NODES.length; nodeId++) {
+			action.accept(NODES[nodeId], CELLS_BY_NODE[nodeId]);
+		}
+	}
+
+	/**
+	 * Visit every cell of a type in node id order without allocating a copy.
+	 */
+	public void forEachCell(StorageCell.Type type, Consumer<StorageCell> action) {
+		for (int nodeId : NODES_BY_TYPE.get(type)) {
+			action.accept(CELLS_BY_NODE[nodeId]);
+		}
+	}
 	
 	/**
-	 * Get all charging station locations in the storage.
+	 * Get all charging station locations in the storage, in node id order.
 	 */
 	public List<Point> getChargingStationLocations() {
-		return CELLS.entrySet().stream()
-				.filter(entry -> entry.getValue().TYPE == StorageCell.Type.CHARGING_STATION)
-				.map(Map.Entry::getKey)
-				.collect(Collectors.toList());
+		int[] stations = NODES_BY_TYPE.get(StorageCell.Type.CHARGING_STATION);
+		List<Point> locations = new ArrayList<>(stations.length);
+		for (int nodeId : stations) {
+			locations.add(NODES[nodeId]);
+		}
+		return locations;
 	}
 	
 	/**
 	 * Get all charging stations (cells).
 	 */
 	public List<StorageCell> getChargingStations() {
-		return CELLS.values().stream()
-				.filter(cell -> cell.TYPE == StorageCell.Type.CHARGING_STATION)
-				.collect(Collectors.toList());
+		return getCellsOfType(StorageCell.Type.CHARGING_STATION);
+	}
+
+	/**
+	 * Get all cells of a type, in node id order.
+	 */
+	public List<StorageCell> getCellsOfType(StorageCell.Type type) {
+		int[] nodeIds = NODES_BY_TYPE.get(type);
+		List<StorageCell> cells = new ArrayList<>(nodeIds.length);
+		for (int nodeId : nodeIds) {
+			cells.add(CELLS_BY_NODE[nodeId]);
+		}
+		return cells;
 	}
 	
 	/**
@@ -78,10 +352,9 @@ public class Storage {
 	 * @return Point location of available charging station, or null if none available
 	 */
 	public Point findAvailableChargingStation() {
-		for (Map.Entry<Point, StorageCell> entry : CELLS.entrySet()) {
-			StorageCell cell = entry.getValue();
-			if (cell.TYPE == StorageCell.Type.CHARGING_STATION && !cell.isOccupiedByAGV()) {
-				Point location = entry.getKey();
+		for (int nodeId : NODES_BY_TYPE.get(StorageCell.Type.CHARGING_STATION)) {
+			if (!CELLS_BY_NODE[nodeId].isOccupiedByAGV()) {
+				Point location = NODES[nodeId];
 				if (LOGGER.isDebugEnabled()) {
 					LOGGER.debug("Found available charging station at {}", pointToNotation(location));
 				}
@@ -97,7 +370,7 @@ public class Storage {
 	/**
 	 * Occupy a charging station with an AGV.
 	 */
-	public boolean occupyChargingStation(Point location, AGV agv) {
+	public boolean occupyChargingStation(Point location, IChargeable agv) {
 		StorageCell cell = CELLS.get(location);
 		if (cell == null) {
 			LOGGER.warn("No cell found at location {}", pointToNotation(location));
@@ -130,24 +403,28 @@ public class Storage {
 	 * Get the total number of charging stations.
 	 */
 	public int getChargingStationCount() {
-		return (int) CELLS.values().stream()
-				.filter(cell -> cell.TYPE == StorageCell.Type.CHARGING_STATION)
-				.count();
+		return NODES_BY_TYPE.get(StorageCell.Type.CHARGING_STATION).length;
 	}
 	
 	/**
 	 * Get the number of available (unoccupied) charging stations.
 	 */
 	public int getAvailableChargingStationCount() {
-		return (int) CELLS.values().stream()
-				.filter(cell -> cell.TYPE == StorageCell.Type.CHARGING_STATION && !cell.isOccupiedByAGV())
-				.count();
+		int available = 0;
+		for (int nodeId : NODES_BY_TYPE.get(StorageCell.Type.CHARGING_STATION)) {
+			if (!CELLS_BY_NODE[nodeId].isOccupiedByAGV()) {
+				available++;
+			}
+		}
+		return available;
 	}
 
 	public StorageCell getCellByNotation(String notation) {
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Getting cell by notation: {}", notation);
+		Integer nodeId = notation == null ? null : NODE_IDS_BY_NOTATION.get(notation);
+		if (nodeId != null) {
+			return CELLS_BY_NODE[nodeId];
 		}
+		// unknown label: parse it so malformed notations are still reported as such
 		Point point = notationToPoint(notation);
 		StorageCell cell = CELLS.get(point);
 		if (cell == null && LOGGER.isWarnEnabled()) {
@@ -160,39 +437,112 @@ public class Storage {
 		return CELLS.get(point);
 	}
 
+	/**
+	 * @return the number of nodes (cells) in this storage
+	 */
+	public int getNodeCount() {
+		return NODES.length;
+	}
+
+	/**
+	 * Get the dense node id of a point. Ids run from 0 to {@link #getNodeCount()} - 1
+	 * in row-major order.
+	 *
+	 * @return the node id, or -1 if the point is not part of this storage
+	 */
+	public int getNodeId(Point point) {
+		Integer nodeId = point == null ? null : NODE_IDS.get(point);
+		return nodeId == null ? -1 : nodeId;
+	}
+
+	/**
+	 * Get the node id of a cell label without parsing it.
+	 *
+	 * @return the node id, or -1 if no node of this storage has that label
+	 */
+	public int getNodeIdByNotation(String notation) {
+		Integer nodeId = notation == null ? null : NODE_IDS_BY_NOTATION.get(notation);
+		return nodeId == null ? -1 : nodeId;
+	}
+
+	/**
+	 * Get the node id of one of this storage's cells.
+	 *
+	 * @return the node id, or -1 if the cell belongs to another storage
+	 */
+	public int getNodeIdOfCell(StorageCell cell) {
+		Integer nodeId = cell == null ? null : NODE_IDS_BY_CELL.get(cell);
+		return nodeId == null ? -1 : nodeId;
+	}
+
+	/**
+	 * Get the canonical point of a node. The same instance is returned on every
+	 * call, so callers may compare it by identity.
+	 */
+	public Point getPoint(int nodeId) {
+		return NODES[nodeId];
+	}
+
+	/**
+	 * Get the interned chess-like label of a node, e.g. "3B".
+	 */
+	public String getNotation(int nodeId) {
+		return NOTATIONS[nodeId];
+	}
+
+	public StorageCell getCellByNodeId(int nodeId) {
+		return CELLS_BY_NODE[nodeId];
+	}
+
+	/**
+	 * Get the loading docks of this storage: all LOADING_DOCK cells, or 6D/7D
+	 * for layouts without dedicated dock cells.
+	 */
+	public LoadingDockRegistry getLoadingDocks() {
+		return loadingDocks;
+	}
+
+	/**
+	 * Get the scheduler that hands out the charging stations of this storage.
+	 */
+	public ChargingScheduler getChargingScheduler() {
+		return chargingScheduler;
+	}
+
 	/**
 	 * Converts a Point with (x, y) coordinates to chess-like notation.
 	 * x-coordinate becomes the number (1-based), y-coordinate becomes the letter(s).
 	 * Examples: (1, 0) -> "1A", (10, 25) -> "10Z", (5, 26) -> "5AA"
+	 * Labels of small coordinates are built once and shared afterwards.
 	 * 
 	 * @param point the Point to convert
 	 * @return the chess-like notation string
 	 * @throws IllegalArgumentException if point is null or coordinates are negative
 	 */
 	public static String pointToNotation(Point point) {
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Converting point to notation: {}", point);
-		}
-		
 		if (point == null) {
 			if (LOGGER.isErrorEnabled()) {
 				LOGGER.error("Point cannot be null");
 			}
 			throw new InvalidNotationException("null", "Point cannot be null");
 		}
-		if (point.x() < 0 || point.y() < 0) {
+		int x = point.x();
+		int y = point.y();
+		if (x < 0 || y < 0) {
 			if (LOGGER.isErrorEnabled()) {
-				LOGGER.error("Coordinates must be non-negative: x={}, y={}", point.x(), point.y());
+				LOGGER.error("Coordinates must be non-negative: x={}, y={}", x, y);
 			}
-			throw new InvalidCoordinatesException(point.x(), point.y(), "Coordinates must be non-negative");
+			throw new InvalidCoordinatesException(x, y, "Coordinates must be non-negative");
 		}
-		
-		int number = point.x() + 1; // Convert to 1-based
-		String letters = convertToLetters(point.y());
-		String notation = number + letters;
-		
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Point {} converted to notation: {}", point, notation);
+		if (x >= CACHED_COORDINATES || y >= CACHED_COORDINATES) {
+			return buildNotation(x, y);
+		}
+		// racy but safe: a concurrent miss just builds an equal string
+		int slot = y * CACHED_COORDINATES + x;
+		String notation = NOTATION_CACHE[slot];
+		if (notation == null) {
+			notation = buildNotation(x, y).intern();
+			NOTATION_CACHE[slot] = notation;
 		}
 		return notation;
 	}
@@ -201,16 +551,13 @@ public class Storage {
 	 * Converts chess-like notation to a Point with (x, y) coordinates.
 	 * Number part becomes x-coordinate (0-based), letter part becomes y-coordinate.
 	 * Examples: "1A" -> (0, 0), "10Z" -> (9, 25), "5AA" -> (4, 26)
+	 * The label is parsed in place; points of small coordinates are shared instances.
 	 * 
 	 * @param notation the chess-like notation string
 	 * @return the Point with corresponding coordinates
 	 * @throws IllegalArgumentException if notation is null, empty, or invalid format
 	 */
 	public static Point notationToPoint(String notation) {
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Converting notation to point: {}", notation);
-		}
-		
 		if (notation == null || notation.isEmpty()) {
 			if (LOGGER.isErrorEnabled()) {
 				LOGGER.error("Notation cannot be null or empty");
@@ -219,103 +566,82 @@ public class Storage {
 		}
 		
 		// Find where letters start
+		int length = notation.length();
 		int letterStart = 0;
-		while (letterStart < notation.length() && Character.isDigit(notation.charAt(letterStart))) {
+		while (letterStart < length && Character.isDigit(notation.charAt(letterStart))) {
 			letterStart++;
 		}
 		
-		if (letterStart == 0 || letterStart == notation.length()) {
+		if (letterStart == 0 || letterStart == length) {
 			if (LOGGER.isErrorEnabled()) {
 				LOGGER.error("Invalid notation format: must contain both numbers and letters: {}", notation);
 			}
 			throw new InvalidNotationException(notation, "Must contain both numbers and letters");
 		}
 		
-		String numberPart = notation.substring(0, letterStart);
-		String letterPart = notation.substring(letterStart);
-		
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Parsed notation '{}' into number part '{}' and letter part '{}'", notation, numberPart, letterPart);
-		}
-		
+		int number;
 		try {
-			int number = Integer.parseInt(numberPart);
-			if (number <= 0) {
-				if (LOGGER.isErrorEnabled()) {
-					LOGGER.error("Number part must be positive: {}", number);
-				}
-				throw new InvalidNotationException(notation, "Number part must be positive");
-			}
-			
-			int x = number - 1; // Convert to 0-based
-			int y = convertFromLetters(letterPart);
-			Point point = new Point(x, y);
-			
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("Notation '{}' converted to point: {}", notation, point);
-			}
-			return point;
+			number = Integer.parseInt(notation, 0, letterStart, 10);
 		} catch (NumberFormatException e) {
 			if (LOGGER.isErrorEnabled()) {
 				LOGGER.error("Invalid number format in notation '{}': {}", notation, e.getMessage());
 			}
 			throw new InvalidNotationException(notation, "Invalid number format: " + e.getMessage());
 		}
-	}
-
-	private static String convertToLetters(int number) {
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Converting number to letters: {}", number);
-		}
-		
-		if (number < 0) {
-			if (LOGGER.isErrorEnabled()) {
-				LOGGER.error("Number must be non-negative: {}", number);
-			}
-			throw new IllegalArgumentException("Number must be non-negative");
-		}
-		
-		StringBuilder result = new StringBuilder();
-		int originalNumber = number;
-		do {
-			result.insert(0, (char) ('A' + (number % 26)));
-			number = number / 26;
-		} while (number > 0);
-		
-		String letters = result.toString();
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Number {} converted to letters: {}", originalNumber, letters);
-		}
-		return letters;
-	}
-
-	private static int convertFromLetters(String letters) {
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Converting letters to number: {}", letters);
-		}
-		
-		if (letters == null || letters.isEmpty()) {
+		if (number <= 0) {
 			if (LOGGER.isErrorEnabled()) {
-				LOGGER.error("Letters cannot be null or empty");
+				LOGGER.error("Number part must be positive: {}", number);
 			}
-			throw new IllegalArgumentException("Letters cannot be null or empty");
+			throw new InvalidNotationException(notation, "Number part must be positive");
 		}
 		
-		int result = 0;
-		for (char c : letters.toCharArray()) {
+		int x = number - 1; // Convert to 0-based
+		int y = 0;
+		for (int i = letterStart; i < length; i++) {
+			char c = notation.charAt(i);
 			if (c < 'A' || c > 'Z') {
 				if (LOGGER.isErrorEnabled()) {
 					LOGGER.error("Invalid character in letter part: {}", c);
 				}
 				throw new IllegalArgumentException("Invalid character in letter part: " + c);
 			}
-			result = result * 26 + (c - 'A');
+			y = y * 26 + (c - 'A');
 		}
-		
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Letters '{}' converted to number: {}", letters, result);
+		return point(x, y);
+	}
+
+	/**
+	 * Get a point for the given coordinates, reusing one shared instance per
+	 * coordinate pair for the sizes warehouse layouts use.
+	 */
+	public static Point point(int x, int y) {
+		if (x < 0 || y < 0 || x >= CACHED_COORDINATES || y >= CACHED_COORDINATES) {
+			return new Point(x, y);
 		}
-		return result;
+		int slot = y * CACHED_COORDINATES + x;
+		Point point = POINT_CACHE[slot];
+		if (point == null) {
+			point = new Point(x, y);
+			POINT_CACHE[slot] = point;
+		}
+		return point;
+	}
+
+	private static String buildNotation(int x, int y) {
+		// letters are written backwards and reversed once, like counting in base 26 from 'A'
+		StringBuilder notation = new StringBuilder(8).append(x + 1);
+		int start = notation.length();
+		int number = y;
+		do {
+			notation.append((char) ('A' + (number % 26)));
+			number = number / 26;
+		} while (number > 0);
+		for (int i = start, j = notation.length() - 1; i < j; i++, j--) {
+			char c = notation.charAt(i);
+			notation.setCharAt(i, notation.charAt(j));
+			notation.setCharAt(j, c);
+		}
+		return notation.toString();
 	}
 	
 	/**
@@ -349,33 +675,31 @@ public class Storage {
 
 	/**
 	 * Add a beverage box to an appropriate storage cell in the warehouse.
-	 * Finds cells matching the box type and attempts to store the box.
+	 * Cells of the matching type are tried in order of their free volume, so
+	 * the emptiest cell that accepts the box takes it.
 	 *
 	 * @param box the beverage box to store
 	 * @return true if successfully stored, false if no space available
 	 */
-	public boolean addBeverageToStorage(de.fachhochschule.dortmund.bads.resources.BeveragesBox box) {
+	public boolean addBeverageToStorage(BeveragesBox box) {
 		if (box == null) {
 			LOGGER.warn("Cannot add null beverage box to storage");
 			return false;
 		}
 
-		// Determine which cell type to use based on box type
-		StorageCell.Type targetCellType = switch (box.getType()) {
-			case AMBIENT -> StorageCell.Type.AMBIENT;
-			case REFRIGERATED -> StorageCell.Type.REFRIGERATED;
-			case BULK -> StorageCell.Type.BULK;
-		};
-
-		// Try to add to matching cells
-		for (Map.Entry<Point, StorageCell> entry : CELLS.entrySet()) {
-			StorageCell cell = entry.getValue();
-
-			if (cell.TYPE == targetCellType) {
-				if (cell.add(box)) {
+		StorageCell.Type targetCellType = targetCellType(box);
+		int boxVolume = StorageCell.volumeOf(box);
+		synchronized (indexLock) {
+			// the first accepting cell ends the loop, so the listener's index update is safe
+			for (FreeSlot slot : freeSlotsByType.get(targetCellType)) {
+				if (slot.freeVolume() < boxVolume) {
+					break; // the remaining cells are fuller still
+				}
+				StorageCell cell = CELLS_BY_NODE[slot.nodeId()];
+				if (cell.isNewBoxCouldBeAdded(box) && cell.add(box)) {
 					if (LOGGER.isInfoEnabled()) {
 						LOGGER.info("Added {} ({}) to storage cell at {}",
-							box.getBeverageName(), box.getType(), pointToNotation(entry.getKey()));
+							box.getBeverageName(), box.getType(), pointToNotation(NODES[slot.nodeId()]));
 					}
 					return true;
 				}
@@ -390,40 +714,90 @@ public class Storage {
 	}
 
 	/**
-	 * Get all available beverage types currently stored in the warehouse.
-	 * Scans all storage cells and returns a list of unique beverage names with their types.
+	 * Reserve space for a beverage box in the emptiest matching cell, without
+	 * storing it yet. The reservation is committed when the box is added to
+	 * that cell, or cancelled if the delivery falls through.
 	 *
-	 * @return list of beverage descriptions in format "BeverageName - Type" (e.g., "Coca Cola - Ambient")
+	 * @param box the beverage box to make room for
+	 * @return the pending reservation, or null if no cell has space
 	 */
-	public List<String> getAvailableBeverageTypes() {
-		Map<String, String> beverageMap = new java.util.TreeMap<>(); // TreeMap for sorted results
-
-		// Scan all storage cells
-		for (Map.Entry<Point, StorageCell> entry : CELLS.entrySet()) {
-			StorageCell cell = entry.getValue();
-
-			// Only check actual storage cells (not corridors or charging stations)
-			if (cell.TYPE == StorageCell.Type.AMBIENT ||
-				cell.TYPE == StorageCell.Type.REFRIGERATED ||
-				cell.TYPE == StorageCell.Type.BULK) {
-
-				// Get all beverage boxes in this cell
-				for (de.fachhochschule.dortmund.bads.resources.BeveragesBox box : cell.getStoredBoxes()) {
-					String beverageName = box.getBeverageName();
-					String typeStr = switch (box.getType()) {
-						case AMBIENT -> "Ambient";
-						case REFRIGERATED -> "Refrigerated";
-						case BULK -> "Bulk";
-					};
-
-					// Store as "BeverageName - Type"
-					String displayName = beverageName + " - " + typeStr;
-					beverageMap.put(displayName, displayName);
+	public StorageCell.Reservation reserveBeverageSpace(BeveragesBox box) {
+		if (box == null) {
+			LOGGER.warn("Cannot reserve space for null beverage box");
+			return null;
+		}
+
+		StorageCell.Type targetCellType = targetCellType(box);
+		int boxVolume = StorageCell.volumeOf(box);
+		synchronized (indexLock) {
+			for (FreeSlot slot : freeSlotsByType.get(targetCellType)) {
+				if (slot.freeVolume() < boxVolume) {
+					break;
+				}
+				StorageCell.Reservation reservation = CELLS_BY_NODE[slot.nodeId()].reserve(box);
+				if (reservation != null) {
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug("Reserved space for {} at {}", box.getBeverageName(), pointToNotation(NODES[slot.nodeId()]));
+					}
+					return reservation;
 				}
 			}
 		}
 
-		List<String> result = new java.util.ArrayList<>(beverageMap.values());
+		if (LOGGER.isWarnEnabled()) {
+			LOGGER.warn("No space to reserve in {} storage cells for {}", targetCellType, box.getBeverageName());
+		}
+		return null;
+	}
+
+	/**
+	 * Get the location of a cell of this storage.
+	 *
+	 * @return the location, or null if the cell belongs to another storage
+	 */
+	public Point getLocation(StorageCell cell) {
+		int nodeId = getNodeIdOfCell(cell);
+		return nodeId < 0 ? null : NODES[nodeId];
+	}
+
+	private static StorageCell.Type targetCellType(BeveragesBox box) {
+		return switch (box.getType()) {
+			case AMBIENT -> StorageCell.Type.AMBIENT;
+			case REFRIGERATED -> StorageCell.Type.REFRIGERATED;
+			case BULK -> StorageCell.Type.BULK;
+		};
+	}
+
+	/**
+	 * Get the locations of all cells holding at least one box of a beverage.
+	 *
+	 * @return the locations in node id order, empty if the beverage is not stored
+	 */
+	public List<Point> getBeverageLocations(String beverageName) {
+		synchronized (indexLock) {
+			Map<Integer, Integer> nodes = boxesByBeverage.get(beverageName);
+			if (nodes == null) {
+				return new ArrayList<>();
+			}
+			List<Point> locations = new ArrayList<>(nodes.size());
+			for (int nodeId : nodes.keySet()) {
+				locations.add(NODES[nodeId]);
+			}
+			return locations;
+		}
+	}
+
+	/**
+	 * Get all available beverage types currently stored in the warehouse.
+	 * Only boxes in ambient, refrigerated and bulk cells count.
+	 *
+	 * @return list of beverage descriptions in format "BeverageName - Type" (e.g., "Coca Cola - Ambient")
+	 */
+	public List<String> getAvailableBeverageTypes() {
+		List<String> result;
+		synchronized (indexLock) {
+			result = new ArrayList<>(storedBeverageTypes.keySet());
+		}
 
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("Found {} unique beverage types in warehouse", result.size());
@@ -1,19 +1,87 @@
 package de.fachhochschule.dortmund.bads.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.StorageManagementConfiguration;
 import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.DomainEvents;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.IChargeable;
 
 public class StorageCell {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
 	public enum Type {
-		AMBIENT, REFRIGERATED, BULK, CHARGING_STATION, CORRIDOR, ANY
+		AMBIENT, REFRIGERATED, BULK, CHARGING_STATION, CORRIDOR, ANY, LOADING_DOCK
+	}
+
+	/**
+	 * Notified after a box was added to or removed from a cell, so owners can
+	 * keep indexes over the cell contents up to date.
+	 */
+	public interface ContentListener {
+		void boxAdded(StorageCell cell, BeveragesBox box);
+
+		void boxRemoved(StorageCell cell, BeveragesBox box);
+
+		/** Reserved space changed without a box being stored or removed. */
+		default void capacityChanged(StorageCell cell) {
+		}
+	}
+
+	/**
+	 * A content listener that is called while the cell lock is held, so the
+	 * calls for one cell arrive in the order of the changes. It must return
+	 * quickly and must neither take other locks nor call back into the cell.
+	 */
+	public interface OrderedContentListener extends ContentListener {
+	}
+
+	/**
+	 * Space held in a cell for a box that has not arrived yet. Created by
+	 * {@link StorageCell#reserve(BeveragesBox)}; ends either committed or cancelled.
+	 */
+	public static final class Reservation {
+		public enum State {
+			PENDING, COMMITTED, CANCELLED
+		}
+
+		private final StorageCell cell;
+		private final BeveragesBox box;
+		private volatile State state = State.PENDING;
+
+		private Reservation(StorageCell cell, BeveragesBox box) {
+			this.cell = cell;
+			this.box = box;
+		}
+
+		public boolean commit() {
+			return cell.commit(this);
+		}
+
+		public boolean cancel() {
+			return cell.cancel(this);
+		}
+
+		public StorageCell getCell() {
+			return cell;
+		}
+
+		public BeveragesBox getBox() {
+			return box;
+		}
+
+		public State getState() {
+			return state;
+		}
 	}
 
 	public final Type TYPE;
@@ -21,46 +89,96 @@ public class StorageCell {
 	public final int MAX_WIDTH;
 	public final int MAX_HEIGHT;
 
-	private List<BeveragesBox> storedBoxes = new ArrayList<>();
-	private AGV chargingAGV;
+	// guards the boxes, reservations and dimensions; the charging fields use the monitor
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	// boxes by slot; removal moves the last box into the freed slot, so it is O(1)
+	private final List<BeveragesBox> storedBoxes = new ArrayList<>();
+	private final Map<BeveragesBox, Integer> slots = new IdentityHashMap<>();
+	private final Map<String, Integer> boxesByBeverage = new HashMap<>();
+	private final List<Reservation> reservations = new ArrayList<>();
+	private final List<ContentListener> listeners = new CopyOnWriteArrayList<>();
+	private final List<ContentListener> orderedListeners = new CopyOnWriteArrayList<>();
+	private IChargeable chargingAGV;
 	private volatile boolean isOccupied = false; // For charging stations
 	
-	// Track current occupied dimensions
-	private int currentLength = 0;
-	private int currentWidth = 0;
-	private int currentHeight = 0;
+	// decides where stored and reserved boxes go; guarded by the cell lock
+	private final CellPacker packer;
+	
+	// running totals, so volume and unit queries do not visit the boxes
+	private volatile int usedVolume = 0;
+	private volatile int unitCount = 0;
+	private volatile int reservedVolume = 0;
 
 	public StorageCell(Type type, int maxLength, int maxWidth, int maxHeight) {
+		this(type, maxLength, maxWidth, maxHeight, StorageManagementConfiguration.INSTANCE.getPlacementStrategy());
+	}
+
+	public StorageCell(Type type, int maxLength, int maxWidth, int maxHeight, CellPacker.Factory placement) {
 		this.TYPE = type;
 		this.MAX_LENGTH = maxLength;
 		this.MAX_WIDTH = maxWidth;
 		this.MAX_HEIGHT = maxHeight;
+		this.packer = placement.create(maxLength, maxWidth, maxHeight);
 		if (LOGGER.isInfoEnabled()) {
 			LOGGER.info("Created StorageCell - Type: {}, Max dimensions: {}x{}x{}, Max volume: {}", 
 					   type, maxLength, maxWidth, maxHeight, maxLength * maxWidth * maxHeight);
 		}
 	}
 
+	/**
+	 * Add a box to the cell. If the box holds a pending reservation in this
+	 * cell, the reservation is committed instead of checking the fit again.
+	 */
 	public boolean add(BeveragesBox box) {
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("Attempting to add box: {} ({}x{}x{}) to {} storage cell", 
 						box.getBeverageName(), box.getLength(), box.getWidth(), box.getHeight(), this.TYPE);
 		}
 		
-		if (!isNewBoxCouldBeAdded(box)) {
-			if (LOGGER.isWarnEnabled()) {
-				LOGGER.warn("Cannot add box {} to storage cell - validation failed", box.getBeverageName());
+		DomainEvents.StorageMutation event = new DomainEvents.StorageMutation();
+		event.begin();
+		lock.writeLock().lock();
+		try {
+			Reservation pending = findReservation(box);
+			if (pending != null) {
+				commitLocked(pending);
+			} else {
+				if (slots.containsKey(box)) {
+					if (LOGGER.isWarnEnabled()) {
+						LOGGER.warn("Cannot add box {} to storage cell - box is already stored here", box.getBeverageName());
+					}
+					commitEvent(event, "ADD", box, false);
+					return false;
+				}
+				if (!isNewBoxCouldBeAdded(box)) {
+					if (LOGGER.isWarnEnabled()) {
+						LOGGER.warn("Cannot add box {} to storage cell - validation failed", box.getBeverageName());
+					}
+					commitEvent(event, "ADD", box, false);
+					return false;
+				}
+				
+				storeLocked(box);
+				packer.place(box);
+				usedVolume += volumeOf(box);
+				unitCount += (int) box.getQuantity();
 			}
-			return false;
+			for (ContentListener listener : orderedListeners) {
+				listener.boxAdded(this, box);
+			}
+			
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Successfully added box {} - Current dimensions: {}x{}x{}, Space efficiency: {}%, Boxes: {}", 
+						   box.getBeverageName(), packer.getLength(), packer.getWidth(), packer.getHeight(), 
+						   String.format("%.1f", getSpaceEfficiency()), storedBoxes.size());
+			}
+		} finally {
+			lock.writeLock().unlock();
 		}
-		
-		this.storedBoxes.add(box);
-		updateDimensionsAfterAdd(box);
-		
-		if (LOGGER.isInfoEnabled()) {
-			LOGGER.info("Successfully added box {} - Current dimensions: {}x{}x{}, Space efficiency: {}%, Boxes: {}", 
-					   box.getBeverageName(), currentLength, currentWidth, currentHeight, 
-					   String.format("%.1f", getSpaceEfficiency()), storedBoxes.size());
+		commitEvent(event, "ADD", box, true);
+		// other listeners run outside the cell lock, so they may take their own locks
+		for (ContentListener listener : listeners) {
+			listener.boxAdded(this, box);
 		}
 		
 		return true;
@@ -71,12 +189,31 @@ public class StorageCell {
 			LOGGER.debug("Attempting to remove box: {} from storage cell", box.getBeverageName());
 		}
 		
-		boolean removed = this.storedBoxes.remove(box);
+		boolean removed;
+		DomainEvents.StorageMutation event = new DomainEvents.StorageMutation();
+		event.begin();
+		lock.writeLock().lock();
+		try {
+			removed = unstoreLocked(box);
+			if (removed) {
+				packer.remove(box);
+				usedVolume -= volumeOf(box);
+				unitCount -= (int) box.getQuantity();
+				for (ContentListener listener : orderedListeners) {
+					listener.boxRemoved(this, box);
+				}
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Successfully removed box {} - Current dimensions: {}x{}x{}, Remaining boxes: {}", 
+							   box.getBeverageName(), packer.getLength(), packer.getWidth(), packer.getHeight(), storedBoxes.size());
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		commitEvent(event, "REMOVE", box, removed);
 		if (removed) {
-			recalculateDimensions();
-			if (LOGGER.isInfoEnabled()) {
-				LOGGER.info("Successfully removed box {} - Current dimensions: {}x{}x{}, Remaining boxes: {}", 
-						   box.getBeverageName(), currentLength, currentWidth, currentHeight, storedBoxes.size());
+			for (ContentListener listener : listeners) {
+				listener.boxRemoved(this, box);
 			}
 		} else {
 			if (LOGGER.isWarnEnabled()) {
@@ -86,283 +223,277 @@ public class StorageCell {
 		return removed;
 	}
 	
-	public boolean isNewBoxCouldBeAdded(BeveragesBox box) {
-		if (this.TYPE == Type.ANY) {
-			return true;
-		} 
-		if (this.TYPE == Type.CHARGING_STATION || this.TYPE == Type.CORRIDOR) {
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("Cannot add box to {} type storage cell", this.TYPE);
+	/**
+	 * Reserve space for a box that is still on its way. The reserved box counts
+	 * towards the cell dimensions in every later fit check, but is not stored
+	 * until the reservation is committed, e.g. by {@link #add(BeveragesBox)}
+	 * when the AGV releases it here.
+	 * 
+	 * @return the pending reservation, or null if the box does not fit
+	 */
+	public Reservation reserve(BeveragesBox box) {
+		Reservation reservation;
+		lock.writeLock().lock();
+		try {
+			if (findReservation(box) != null || slots.containsKey(box) || !isNewBoxCouldBeAdded(box)) {
+				return null;
 			}
-			return false; // Cannot store boxes in a charging station or corridor
-		}
-		
-		if (!((this.TYPE == Type.AMBIENT && box.getType() == BeveragesBox.Type.AMBIENT)
-				|| (this.TYPE == Type.BULK && box.getType() == BeveragesBox.Type.BULK)
-				|| (this.TYPE == Type.REFRIGERATED && box.getType() == BeveragesBox.Type.REFRIGERATED))) {
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("Box type {} incompatible with storage cell type {}", box.getType(), this.TYPE);
+			reservation = new Reservation(this, box);
+			reservations.add(reservation);
+			packer.place(box);
+			reservedVolume += volumeOf(box);
+			for (ContentListener listener : orderedListeners) {
+				listener.capacityChanged(this);
 			}
-			return false;
+		} finally {
+			lock.writeLock().unlock();
 		}
-
-		// Check if the box fits in the remaining 3D space
-		boolean fits = fitsIn3DSpace(box);
-		if (!fits && LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Box {} ({}x{}x{}) does not fit in remaining 3D space - Current: {}x{}x{}, Max: {}x{}x{}", 
-						box.getBeverageName(), box.getLength(), box.getWidth(), box.getHeight(),
-						currentLength, currentWidth, currentHeight, MAX_LENGTH, MAX_WIDTH, MAX_HEIGHT);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Reserved space for box {} in {} storage cell", box.getBeverageName(), TYPE);
 		}
-		return fits;
+		for (ContentListener listener : listeners) {
+			listener.capacityChanged(this);
+		}
+		return reservation;
 	}
 	
 	/**
-	 * Checks if a box fits within the remaining 3D space of the storage cell.
-	 * Uses a more sophisticated approach considering actual volume constraints.
+	 * Store the box of a pending reservation.
+	 * 
+	 * @return false if the reservation is not pending in this cell
 	 */
-	private boolean fitsIn3DSpace(BeveragesBox box) {
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Evaluating 3D space fit for box {} ({}x{}x{}) in cell with current dimensions {}x{}x{}", 
-						box.getBeverageName(), box.getLength(), box.getWidth(), box.getHeight(),
-						currentLength, currentWidth, currentHeight);
-		}
-		
-		// Strategy 1: Check if stacking vertically still fits
-		if (canStackVertically(box)) {
-			if (LOGGER.isTraceEnabled()) {
-				LOGGER.trace("Box {} can be placed using vertical stacking strategy", box.getBeverageName());
-			}
-			return true;
-		}
-		
-		// Strategy 2: Check if we can fit side by side (if current height allows)
-		if (canFitSideBySide(box)) {
-			if (LOGGER.isTraceEnabled()) {
-				LOGGER.trace("Box {} can be placed using side-by-side strategy", box.getBeverageName());
+	public boolean commit(Reservation reservation) {
+		DomainEvents.StorageMutation event = new DomainEvents.StorageMutation();
+		event.begin();
+		lock.writeLock().lock();
+		try {
+			if (reservation.cell != this || !reservations.contains(reservation)) {
+				return false;
 			}
-			return true;
-		}
-		
-		// Strategy 3: Check if the box can fit in a new layer
-		if (canFitInNewLayer(box)) {
-			if (LOGGER.isTraceEnabled()) {
-				LOGGER.trace("Box {} can be placed using new layer strategy", box.getBeverageName());
+			commitLocked(reservation);
+			for (ContentListener listener : orderedListeners) {
+				listener.boxAdded(this, reservation.box);
 			}
-			return true;
+		} finally {
+			lock.writeLock().unlock();
 		}
-		
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Box {} cannot fit using any placement strategy", box.getBeverageName());
+		commitEvent(event, "COMMIT", reservation.box, true);
+		for (ContentListener listener : listeners) {
+			listener.boxAdded(this, reservation.box);
 		}
-		return false;
+		return true;
 	}
 	
 	/**
-	 * Checks if the box can be stacked on top of existing boxes
+	 * Give back the space of a pending reservation.
+	 * 
+	 * @return false if the reservation is not pending in this cell
 	 */
-	private boolean canStackVertically(BeveragesBox box) {
-		// Check if the box fits within the current footprint
-		boolean fitsInCurrentFootprint = box.getLength() <= currentLength && 
-										 box.getWidth() <= currentWidth;
-		
-		// Check if adding the height doesn't exceed the maximum
-		boolean heightFits = (currentHeight + box.getHeight()) <= MAX_HEIGHT;
-		
-		boolean canStack = fitsInCurrentFootprint && heightFits;
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Vertical stacking check for {}: footprint fits={}, height fits={}, result={}", 
-						box.getBeverageName(), fitsInCurrentFootprint, heightFits, canStack);
+	public boolean cancel(Reservation reservation) {
+		lock.writeLock().lock();
+		try {
+			if (reservation.cell != this || !reservations.remove(reservation)) {
+				return false;
+			}
+			reservation.state = Reservation.State.CANCELLED;
+			reservedVolume -= volumeOf(reservation.box);
+			packer.remove(reservation.box);
+			for (ContentListener listener : orderedListeners) {
+				listener.capacityChanged(this);
+			}
+		} finally {
+			lock.writeLock().unlock();
 		}
-		
-		return canStack;
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Cancelled reservation for box {}", reservation.box.getBeverageName());
+		}
+		for (ContentListener listener : listeners) {
+			listener.capacityChanged(this);
+		}
+		return true;
 	}
 	
 	/**
-	 * Checks if the box can fit side by side with existing boxes
+	 * @return the number of reservations that were neither committed nor cancelled
 	 */
-	private boolean canFitSideBySide(BeveragesBox box) {
-		// Calculate if we can expand the footprint while keeping the same height
-		int potentialLength = Math.max(currentLength, box.getLength());
-		int potentialWidth = Math.max(currentWidth, box.getWidth());
-		
-		// Check if the expanded footprint fits and the box height doesn't exceed current stack
-		boolean canFit = potentialLength <= MAX_LENGTH && 
-						 potentialWidth <= MAX_WIDTH && 
-						 box.getHeight() <= currentHeight;
-		
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Side-by-side check for {}: potential dimensions {}x{}x{}, within limits={}, result={}", 
-						box.getBeverageName(), potentialLength, potentialWidth, box.getHeight(), 
-						(potentialLength <= MAX_LENGTH && potentialWidth <= MAX_WIDTH), canFit);
+	public int getReservationCount() {
+		lock.readLock().lock();
+		try {
+			return reservations.size();
+		} finally {
+			lock.readLock().unlock();
 		}
-		
-		return canFit;
 	}
 	
-	/**
-	 * Checks if the box can start a new layer (if current boxes allow it)
-	 */
-	private boolean canFitInNewLayer(BeveragesBox box) {
-		// Only works if we have some existing boxes to build upon
-		if (storedBoxes.isEmpty()) {
-			// For empty storage, just check basic dimensions
-			boolean fits = box.getLength() <= MAX_LENGTH && 
-						   box.getWidth() <= MAX_WIDTH && 
-						   box.getHeight() <= MAX_HEIGHT;
-			if (LOGGER.isTraceEnabled()) {
-				LOGGER.trace("New layer check for {} in empty storage: dimensions fit={}", box.getBeverageName(), fits);
-			}
-			return fits;
+	private void commitEvent(DomainEvents.StorageMutation event, String operation, BeveragesBox box, boolean succeeded) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.cellType = TYPE.name();
+			event.beverage = box.getBeverageName();
+			event.units = (int) box.getQuantity();
+			event.succeeded = succeeded;
+			event.commit();
 		}
-		
-		// Check if adding this box as a new layer would fit
-		int newLayerHeight = currentHeight + box.getHeight();
-		boolean fits = box.getLength() <= MAX_LENGTH && 
-					   box.getWidth() <= MAX_WIDTH && 
-					   newLayerHeight <= MAX_HEIGHT;
-		
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("New layer check for {}: new total height would be {}, within limit={}, result={}", 
-						box.getBeverageName(), newLayerHeight, (newLayerHeight <= MAX_HEIGHT), fits);
+	}
+	
+	private void storeLocked(BeveragesBox box) {
+		slots.put(box, storedBoxes.size());
+		storedBoxes.add(box);
+		boxesByBeverage.merge(box.getBeverageName(), 1, Integer::sum);
+	}
+	
+	private boolean unstoreLocked(BeveragesBox box) {
+		Integer slot = slots.remove(box);
+		if (slot == null) {
+			return false;
 		}
-		
-		return fits;
+		BeveragesBox last = storedBoxes.remove(storedBoxes.size() - 1);
+		if (last != box) {
+			storedBoxes.set(slot, last);
+			slots.put(last, slot);
+		}
+		if (boxesByBeverage.merge(box.getBeverageName(), -1, Integer::sum) == 0) {
+			boxesByBeverage.remove(box.getBeverageName());
+		}
+		return true;
 	}
 	
-	/**
-	 * Updates dimensions after adding a box using optimized placement strategy
-	 */
-	private void updateDimensionsAfterAdd(BeveragesBox box) {
-		int oldLength = currentLength;
-		int oldWidth = currentWidth;
-		int oldHeight = currentHeight;
-		
-		if (storedBoxes.size() == 1) {
-			// First box sets the initial dimensions
-			currentLength = box.getLength();
-			currentWidth = box.getWidth();
-			currentHeight = box.getHeight();
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("First box {} set initial dimensions to {}x{}x{}", 
-							box.getBeverageName(), currentLength, currentWidth, currentHeight);
+	private Reservation findReservation(BeveragesBox box) {
+		for (Reservation reservation : reservations) {
+			if (reservation.box == box) {
+				return reservation;
 			}
+		}
+		return null;
+	}
+	
+	// the reserved box already shaped the dimensions, so only the totals change
+	private void commitLocked(Reservation reservation) {
+		reservations.remove(reservation);
+		storeLocked(reservation.box);
+		reservation.state = Reservation.State.COMMITTED;
+		int volume = volumeOf(reservation.box);
+		reservedVolume -= volume;
+		usedVolume += volume;
+		unitCount += (int) reservation.box.getQuantity();
+	}
+	
+	public void addContentListener(ContentListener listener) {
+		if (listener instanceof OrderedContentListener) {
+			orderedListeners.add(listener);
 		} else {
-			// Determine placement strategy based on pre-addition state
-			
-			// Check if box fits in current footprint (stacking vertically)
-			boolean canStack = box.getLength() <= oldLength && 
-							   box.getWidth() <= oldWidth &&
-							   (oldHeight + box.getHeight()) <= MAX_HEIGHT;
-			
-			if (canStack) {
-				// Stack vertically - just add height
-				currentHeight += box.getHeight();
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug("Box {} placed using vertical stacking - dimensions: {}x{}x{} -> {}x{}x{}", 
-								box.getBeverageName(), oldLength, oldWidth, oldHeight, 
-								currentLength, currentWidth, currentHeight);
-				}
-			} else {
-				// Expand footprint
-				currentLength = Math.max(oldLength, box.getLength());
-				currentWidth = Math.max(oldWidth, box.getWidth());
-				
-				// Check if this is side-by-side (same height level) or new layer
-				boolean sideBySide = currentLength <= MAX_LENGTH && 
-									 currentWidth <= MAX_WIDTH && 
-									 box.getHeight() <= oldHeight;
-				
-				if (sideBySide) {
-					// Side-by-side placement
-					currentHeight = Math.max(oldHeight, box.getHeight());
-					if (LOGGER.isDebugEnabled()) {
-						LOGGER.debug("Box {} placed side-by-side - dimensions: {}x{}x{} -> {}x{}x{}", 
-									box.getBeverageName(), oldLength, oldWidth, oldHeight, 
-									currentLength, currentWidth, currentHeight);
-					}
-				} else {
-					// New layer
-					currentHeight = oldHeight + box.getHeight();
-					if (LOGGER.isDebugEnabled()) {
-						LOGGER.debug("Box {} placed in new layer - dimensions: {}x{}x{} -> {}x{}x{}", 
-									box.getBeverageName(), oldLength, oldWidth, oldHeight, 
-									currentLength, currentWidth, currentHeight);
-					}
-				}
-			}
+			listeners.add(listener);
 		}
 	}
+
+	public void removeContentListener(ContentListener listener) {
+		listeners.remove(listener);
+		orderedListeners.remove(listener);
+	}
 	
-	/**
-	 * Recalculates dimensions after removing a box
-	 */
-	private void recalculateDimensions() {
-		int oldLength = currentLength;
-		int oldWidth = currentWidth;
-		int oldHeight = currentHeight;
-		
-		if (storedBoxes.isEmpty()) {
-			currentLength = 0;
-			currentWidth = 0;
-			currentHeight = 0;
+	public boolean isNewBoxCouldBeAdded(BeveragesBox box) {
+		if (this.TYPE == Type.ANY || this.TYPE == Type.LOADING_DOCK) {
+			return true; // docks stage boxes of any type for the trucks
+		} 
+		if (this.TYPE == Type.CHARGING_STATION || this.TYPE == Type.CORRIDOR) {
 			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("Storage cell emptied - dimensions reset to 0x0x0");
+				LOGGER.debug("Cannot add box to {} type storage cell", this.TYPE);
 			}
-			return;
+			return false; // Cannot store boxes in a charging station or corridor
 		}
 		
-		// Recalculate from scratch
-		currentLength = 0;
-		currentWidth = 0;
-		currentHeight = 0;
-		
-		for (BeveragesBox box : storedBoxes) {
-			currentLength = Math.max(currentLength, box.getLength());
-			currentWidth = Math.max(currentWidth, box.getWidth());
-			currentHeight += box.getHeight();
+		if (!((this.TYPE == Type.AMBIENT && box.getType() == BeveragesBox.Type.AMBIENT)
+				|| (this.TYPE == Type.BULK && box.getType() == BeveragesBox.Type.BULK)
+				|| (this.TYPE == Type.REFRIGERATED && box.getType() == BeveragesBox.Type.REFRIGERATED))) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Box type {} incompatible with storage cell type {}", box.getType(), this.TYPE);
+			}
+			return false;
 		}
-		
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Dimensions recalculated after removal: {}x{}x{} -> {}x{}x{}, {} boxes remaining", 
-						oldLength, oldWidth, oldHeight, currentLength, currentWidth, currentHeight, storedBoxes.size());
+
+		// Check if the box fits in the remaining 3D space
+		boolean fits;
+		lock.readLock().lock();
+		try {
+			fits = packer.fits(box);
+		} finally {
+			lock.readLock().unlock();
+		}
+		if (!fits && LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Box {} ({}x{}x{}) does not fit in remaining 3D space - Current: {}x{}x{}, Max: {}x{}x{}", 
+						box.getBeverageName(), box.getLength(), box.getWidth(), box.getHeight(),
+						packer.getLength(), packer.getWidth(), packer.getHeight(), MAX_LENGTH, MAX_WIDTH, MAX_HEIGHT);
 		}
+		return fits;
 	}
 	
+	
 	/**
 	 * Gets the remaining available volume in the storage cell
 	 */
 	public int getRemainingVolume() {
 		int maxVolume = MAX_LENGTH * MAX_WIDTH * MAX_HEIGHT;
-		int usedVolume = currentLength * currentWidth * currentHeight;
-		return maxVolume - usedVolume;
+		lock.readLock().lock();
+		try {
+			return maxVolume - packer.getLength() * packer.getWidth() * packer.getHeight();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Gets the volume neither taken by boxes nor reserved for boxes on their way
+	 */
+	public int getFreeVolume() {
+		return MAX_LENGTH * MAX_WIDTH * MAX_HEIGHT - usedVolume - reservedVolume;
 	}
 	
 	/**
 	 * Gets the actual used volume (sum of all box volumes)
 	 */
 	public int getActualUsedVolume() {
-		return storedBoxes.stream()
-			.mapToInt(box -> box.getLength() * box.getWidth() * box.getHeight())
-			.sum();
+		return usedVolume;
+	}
+	
+	/**
+	 * Gets the number of bottles in all stored boxes
+	 */
+	public int getUnitCount() {
+		return unitCount;
+	}
+	
+	static int volumeOf(BeveragesBox box) {
+		return box.getLength() * box.getWidth() * box.getHeight();
 	}
 	
 	/**
 	 * Gets the space efficiency percentage (actual used volume / occupied space)
 	 */
 	public double getSpaceEfficiency() {
-		if (currentLength == 0 || currentWidth == 0 || currentHeight == 0) {
-			return 0.0;
+		lock.readLock().lock();
+		try {
+			int occupiedSpace = packer.getLength() * packer.getWidth() * packer.getHeight();
+			if (occupiedSpace == 0) {
+				return 0.0;
+			}
+			int actualUsedVolume = getActualUsedVolume();
+			return (double) actualUsedVolume / occupiedSpace * 100.0;
+		} finally {
+			lock.readLock().unlock();
 		}
-		int occupiedSpace = currentLength * currentWidth * currentHeight;
-		int actualUsedVolume = getActualUsedVolume();
-		return (double) actualUsedVolume / occupiedSpace * 100.0;
 	}
 	
 	/**
 	 * Checks if the storage cell is empty
 	 */
 	public boolean isEmpty() {
-		return storedBoxes.isEmpty();
+		lock.readLock().lock();
+		try {
+			return storedBoxes.isEmpty();
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	/**
@@ -370,45 +501,100 @@ public class StorageCell {
 	 */
 	public boolean isFull() {
 		// A cell is considered full if we've reached maximum dimensions in all axes
-		return currentLength >= MAX_LENGTH || 
-			   currentWidth >= MAX_WIDTH || 
-			   currentHeight >= MAX_HEIGHT;
+		lock.readLock().lock();
+		try {
+			return packer.getLength() >= MAX_LENGTH || 
+				   packer.getWidth() >= MAX_WIDTH || 
+				   packer.getHeight() >= MAX_HEIGHT;
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	/**
 	 * Gets the number of boxes stored
 	 */
 	public int getBoxCount() {
-		return storedBoxes.size();
+		lock.readLock().lock();
+		try {
+			return storedBoxes.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Gets the number of stored boxes of one beverage
+	 */
+	public int getBoxCount(String beverageName) {
+		lock.readLock().lock();
+		try {
+			return boxesByBeverage.getOrDefault(beverageName, 0);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Checks if this exact box is stored in the cell
+	 */
+	public boolean contains(BeveragesBox box) {
+		lock.readLock().lock();
+		try {
+			return slots.containsKey(box);
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	/**
-	 * Get a copy of all stored beverage boxes in this cell.
+	 * Get a copy of all stored beverage boxes in this cell. Removing a box
+	 * moves the last box into its slot, so the order is not the insertion order.
 	 */
 	public List<BeveragesBox> getStoredBoxes() {
-		return new ArrayList<>(storedBoxes);
+		lock.readLock().lock();
+		try {
+			return new ArrayList<>(storedBoxes);
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	/**
 	 * Gets the current occupied dimensions
 	 */
 	public int getCurrentLength() {
-		return currentLength;
+		lock.readLock().lock();
+		try {
+			return packer.getLength();
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	public int getCurrentWidth() {
-		return currentWidth;
+		lock.readLock().lock();
+		try {
+			return packer.getWidth();
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	public int getCurrentHeight() {
-		return currentHeight;
+		lock.readLock().lock();
+		try {
+			return packer.getHeight();
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 	
 	/**
 	 * Occupy this charging station with an AGV.
 	 * Only works for CHARGING_STATION type cells.
 	 */
-	public synchronized boolean occupyWithAGV(AGV agv) {
+	public synchronized boolean occupyWithAGV(IChargeable agv) {
 		if (TYPE != Type.CHARGING_STATION) {
 			LOGGER.warn("Cannot occupy non-charging-station cell with AGV");
 			return false;
@@ -435,7 +621,7 @@ public class StorageCell {
 			LOGGER.warn("Charging station is not occupied");
 			return false;
 		}
-		AGV releasedAGV = this.chargingAGV;
+		IChargeable releasedAGV = this.chargingAGV;
 		this.chargingAGV = null;
 		this.isOccupied = false;
 		LOGGER.info("Charging station released from {}", releasedAGV);
@@ -452,7 +638,7 @@ public class StorageCell {
 	/**
 	 * Get the AGV currently occupying this charging station.
 	 */
-	public synchronized AGV getChargingAGV() {
+	public synchronized IChargeable getChargingAGV() {
 		return chargingAGV;
 	}
 }
\ No newline at end of file
@@ -3,24 +3,31 @@ package de.fachhochschule.dortmund.bads.resources;
 import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Queue;
-import java.util.Stack;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 
+import de.fachhochschule.dortmund.bads.AGVManagementConfiguration;
+import de.fachhochschule.dortmund.bads.ObservabilityConfiguration;
 import de.fachhochschule.dortmund.bads.model.Storage;
 import de.fachhochschule.dortmund.bads.model.StorageCell;
 import de.fachhochschule.dortmund.bads.model.Area.Point;
 import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram.Action;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram.PlannedOperation;
+import de.fachhochschule.dortmund.bads.systems.logic.ChargingScheduler;
+import de.fachhochschule.dortmund.bads.systems.logic.EnergyEstimator;
+import de.fachhochschule.dortmund.bads.systems.logic.MetricsRegistry;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.DomainEvents;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.LogRateLimiter;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.IChargeable;
 import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
 
-public class AGV extends Resource implements ITickable {
+public class AGV extends Resource implements ITickable, IChargeable {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
-	// Shared charging queue across all AGV instances
-	private static final ConcurrentLinkedQueue<AGV> CHARGING_QUEUE = new ConcurrentLinkedQueue<>();
 	private static final AtomicInteger AVAILABLE_CHARGING_STATIONS = new AtomicInteger(0);
 	
 	public enum AGVState {
@@ -42,20 +49,7 @@ public class AGV extends Resource implements ITickable {
 		}
 	}
 
-	private abstract class BeveragesBoxOperation {
-		protected String cellLabel;
-		protected BeveragesBox box;
-		protected StorageCell inventoryCell = AGV.this.inventoryCell;
-		protected Point currentPosition = AGV.this.currentPosition;
-		protected Storage storage = AGV.this.storage;
-
-		public BeveragesBoxOperation(String cellLabel, BeveragesBox box) {
-			this.cellLabel = cellLabel;
-			this.box = box;
-		}
-
-		public abstract void execute();
-	}
+	private static final MetricsRegistry.Counter MOVES = MetricsRegistry.INSTANCE.counter("agv.moves");
 
 	private StorageCell inventoryCell = new StorageCell(Type.ANY, Integer.MAX_VALUE, Integer.MAX_VALUE,
 			Integer.MAX_VALUE);
@@ -68,8 +62,11 @@ public class AGV extends Resource implements ITickable {
 	private AGVState state = AGVState.IDLE;
 	private Point assignedChargingStation;
 	private boolean needsCharging = false;
+	private boolean chargeAfterRoute = false;
 	private String agvId;
 	private static AtomicInteger idCounter = new AtomicInteger(0);
+	private static final LogRateLimiter LOG_LIMITER = new LogRateLimiter(
+		ObservabilityConfiguration.INSTANCE.getLogMessagesPerEntityPerSecond());
 
 	// Track current task being executed for abortion/reassignment
 	private de.fachhochschule.dortmund.bads.model.Task currentTask = null;
@@ -78,17 +75,18 @@ public class AGV extends Resource implements ITickable {
 	private int movementTickCounter = 0;
 
 	private Queue<Point> endPoints = new ArrayDeque<>();
-	private Queue<BeveragesBoxOperation> operationsForEndPoints = new ArrayDeque<>();
-	private Stack<Object> memory = new Stack<>();
+	private Queue<PlannedOperation> operationsForEndPoints = new ArrayDeque<>();
 
 	private List<Point> optimalPath;
 	private Point currentPosition;
+	private int currentNodeId = -1;
 	private Storage storage;
 
-	private Statement<?>[] cachedProgram;
+	private AGVProgram cachedProgram;
 	
 	public AGV() {
 		this.agvId = "AGV-" + idCounter.incrementAndGet();
+		MetricsRegistry.INSTANCE.gauge(MetricsRegistry.labeled("agv.battery", "agv", agvId), this, AGV::getBatteryLevel);
 		if (LOGGER.isInfoEnabled()) {
 			LOGGER.info("Created new AGV with ID: {}", agvId);
 		}
@@ -100,17 +98,17 @@ public class AGV extends Resource implements ITickable {
 	 */
 	public static void initializeChargingSystem(int numberOfChargingStations) {
 		AVAILABLE_CHARGING_STATIONS.set(numberOfChargingStations);
-		CHARGING_QUEUE.clear();
+		ChargingScheduler.resetAll();
 		if (LOGGER.isInfoEnabled()) {
 			LOGGER.info("AGV Charging System initialized with {} charging stations", numberOfChargingStations);
 		}
 	}
 	
 	/**
-	 * Get the current charging queue size.
+	 * Get the current charging queue size across all storages.
 	 */
 	public static int getChargingQueueSize() {
-		return CHARGING_QUEUE.size();
+		return ChargingScheduler.getTotalQueueSize();
 	}
 	
 	/**
@@ -121,7 +119,9 @@ public class AGV extends Resource implements ITickable {
 	}
 	
 	/**
-	 * Request charging for this AGV. Adds to queue if no stations available.
+	 * Request charging for this AGV. The storage's {@link ChargingScheduler}
+	 * assigns the nearest free station right away or queues the AGV until one
+	 * is released.
 	 */
 	public synchronized void requestCharging() {
 		if (state == AGVState.WAITING_FOR_CHARGE || state == AGVState.CHARGING || state == AGVState.MOVING_TO_CHARGE) {
@@ -132,63 +132,33 @@ public class AGV extends Resource implements ITickable {
 		}
 		
 		needsCharging = true;
-		state = AGVState.WAITING_FOR_CHARGE;
+		changeState(AGVState.WAITING_FOR_CHARGE);
 		
-		if (!CHARGING_QUEUE.contains(this)) {
-			CHARGING_QUEUE.add(this);
-			if (LOGGER.isInfoEnabled()) {
-				LOGGER.info("{} added to charging queue (position: {}, queue size: {})", 
-					agvId, CHARGING_QUEUE.size(), CHARGING_QUEUE.size());
-			}
+		if (storage != null) {
+			ChargingScheduler.forStorage(storage).request(this);
 		}
 	}
 	
 	/**
-	 * Process the charging queue - attempt to assign charging stations to waiting AGVs.
+	 * Called by the {@link ChargingScheduler} once a station has been occupied
+	 * for this AGV: drop pending work and drive to the station.
 	 */
-	private void processChargingQueue() {
-		if (storage == null) {
-			return;
-		}
+	public synchronized void assignChargingStation(Point chargingStationPoint) {
+		assignedChargingStation = chargingStationPoint;
+		changeState(AGVState.MOVING_TO_CHARGE);
 		
-		// Only process if we're at the front of the queue and waiting
-		if (state != AGVState.WAITING_FOR_CHARGE) {
-			return;
-		}
-		
-		AGV firstInQueue = CHARGING_QUEUE.peek();
-		if (firstInQueue != this) {
-			return; // Not our turn yet
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("{} assigned charging station at {}, moving to charge", 
+				agvId, Storage.pointToNotation(chargingStationPoint));
 		}
 		
-		// Try to find an available charging station
-		Point chargingStationPoint = storage.findAvailableChargingStation();
-		
-		if (chargingStationPoint != null) {
-			// Occupy the station
-			if (storage.occupyChargingStation(chargingStationPoint, this)) {
-				assignedChargingStation = chargingStationPoint;
-				CHARGING_QUEUE.poll(); // Remove from queue
-				state = AGVState.MOVING_TO_CHARGE;
-				
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("{} assigned charging station at {}, moving to charge", 
-						agvId, Storage.pointToNotation(chargingStationPoint));
-				}
-				
-				// Set up movement to charging station
-				endPoints.clear();
-				operationsForEndPoints.clear();
-				endPoints.add(chargingStationPoint);
-				operationsForEndPoints.add(new BeveragesBoxOperation(
-					Storage.pointToNotation(chargingStationPoint), null) {
-					@Override
-					public void execute() {
-						startCharging();
-					}
-				});
-			}
-		}
+		// Set up movement to charging station
+		endPoints.clear();
+		operationsForEndPoints.clear();
+		optimalPath = null;
+		endPoints.add(chargingStationPoint);
+		operationsForEndPoints.add(new PlannedOperation(Action.CHARGE,
+			Storage.pointToNotation(chargingStationPoint), chargingStationPoint, null));
 	}
 	
 	/**
@@ -197,7 +167,7 @@ public class AGV extends Resource implements ITickable {
 	private synchronized void startCharging() {
 		if (state == AGVState.MOVING_TO_CHARGE) {
 			charging = true;
-			state = AGVState.CHARGING;
+			changeState(AGVState.CHARGING);
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("{} started charging at station {}, battery: {}%", 
 					agvId, Storage.pointToNotation(assignedChargingStation), batteryLevel);
@@ -207,35 +177,42 @@ public class AGV extends Resource implements ITickable {
 	
 	/**
 	 * Complete charging and release the station.
-	 * After charging, AGV automatically returns to loading bay (6D) as its home position.
+	 * After charging, AGV automatically returns to the least busy loading dock as its home position.
+	 *
+	 * @return the handover of the released station to a waiting AGV, to be
+	 *         assigned once this AGV's monitor is released; null if none
 	 */
-	private synchronized void completeCharging() {
+	private synchronized ChargingScheduler.Handover completeCharging() {
+		ChargingScheduler.Handover handover = null;
 		if (assignedChargingStation != null && storage != null) {
-			storage.releaseChargingStation(assignedChargingStation);
+			Point station = assignedChargingStation;
+			assignedChargingStation = null;
 			if (LOGGER.isInfoEnabled()) {
-				LOGGER.info("{} completed charging, released station {}, battery: {}%",
-					agvId, Storage.pointToNotation(assignedChargingStation), batteryLevel);
+				LOGGER.info("{} completed charging, releasing station {}, battery: {}%",
+					agvId, Storage.pointToNotation(station), batteryLevel);
 			}
-			assignedChargingStation = null;
+			handover = storage.getChargingScheduler().release(station);
 		}
 
 		charging = false;
 		needsCharging = false;
 
-		// Return to loading bay (6D) after charging - this is the AGV's home position
-		if (storage != null) {
-			Point loadingDock = Storage.notationToPoint("6D");
+		// Return to a loading dock after charging - this is the AGV's home position
+		int homeDock = storage != null ? storage.getLoadingDocks().leastLoadedDock() : -1;
+		if (homeDock >= 0) {
+			Point loadingDock = storage.getLoadingDocks().getDock(homeDock);
 			endPoints.add(loadingDock);
-			state = AGVState.BUSY;  // Set to BUSY for the return journey to loading bay
+			changeState(AGVState.BUSY);  // Set to BUSY for the return journey to loading bay
 			if (LOGGER.isInfoEnabled()) {
-				LOGGER.info("{} charging complete, returning to loading bay 6D", agvId);
+				LOGGER.info("{} charging complete, returning to loading bay {}", agvId, Storage.pointToNotation(loadingDock));
 			}
 		} else {
-			state = AGVState.IDLE;
+			changeState(AGVState.IDLE);
 			if (LOGGER.isInfoEnabled()) {
-				LOGGER.info("{} charging complete, returning to IDLE state (no storage reference)", agvId);
+				LOGGER.info("{} charging complete, returning to IDLE state (no loading dock)", agvId);
 			}
 		}
+		return handover;
 	}
 
 	/**
@@ -252,7 +229,6 @@ public class AGV extends Resource implements ITickable {
 		}
 
 		// Clear all pending operations and path
-		memory.clear();
 		endPoints.clear();
 		operationsForEndPoints.clear();
 		optimalPath = null;
@@ -265,7 +241,29 @@ public class AGV extends Resource implements ITickable {
 		}
 
 		currentTask = null;
-		state = AGVState.IDLE;  // Set to IDLE so charging can proceed
+		releaseLoadingDock();
+		changeState(AGVState.IDLE);  // Set to IDLE so charging can proceed
+	}
+
+	/**
+	 * Give up the dock queue slot the dispatcher reserved for this AGV's delivery.
+	 */
+	private void releaseLoadingDock() {
+		if (storage != null) {
+			storage.getLoadingDocks().release(this);
+		}
+	}
+
+	/**
+	 * Check whether the AGV stands on one of its storage's loading docks.
+	 */
+	public boolean isAtLoadingDock() {
+		return storage != null && storage.getLoadingDocks().isDock(currentNodeId);
+	}
+
+	private void moveTo(Point position) {
+		currentPosition = position;
+		currentNodeId = storage != null ? storage.getNodeId(position) : -1;
 	}
 
 	/**
@@ -302,6 +300,21 @@ public class AGV extends Resource implements ITickable {
 		return state;
 	}
 	
+	private void changeState(AGVState next) {
+		AGVState previous = state;
+		state = next;
+		if (previous != next) {
+			DomainEvents.AGVStateChange event = new DomainEvents.AGVStateChange();
+			if (event.shouldCommit()) {
+				event.agv = agvId;
+				event.from = previous.name();
+				event.to = next.name();
+				event.batteryLevel = batteryLevel;
+				event.commit();
+			}
+		}
+	}
+	
 	/**
 	 * Get the AGV ID.
 	 */
@@ -316,6 +329,16 @@ public class AGV extends Resource implements ITickable {
 		return batteryLevel;
 	}
 
+	/**
+	 * Set the battery level, e.g. when an AGV is restored from a snapshot.
+	 */
+	public void setBatteryLevel(int batteryLevel) {
+		if (batteryLevel < 0 || batteryLevel > 100) {
+			throw new IllegalArgumentException("Battery level must be between 0 and 100");
+		}
+		this.batteryLevel = batteryLevel;
+	}
+
 	/**
 	 * Get the current task being executed by this AGV.
 	 */
@@ -330,6 +353,27 @@ public class AGV extends Resource implements ITickable {
 		this.currentTask = task;
 	}
 
+	/**
+	 * Get the battery low threshold percentage.
+	 */
+	public double getBatteryLowThreshold() {
+		return batteryLowThreshold;
+	}
+
+	/**
+	 * Get the charge rate per tick.
+	 */
+	public int getChargePerTick() {
+		return chargePerTick;
+	}
+
+	/**
+	 * Get the battery drain per action per tick.
+	 */
+	public int getLoseChargePerActionPerTick() {
+		return loseChargePerActionPerTick;
+	}
+
 	/**
 	 * Set the battery low threshold percentage.
 	 */
@@ -382,110 +426,153 @@ public class AGV extends Resource implements ITickable {
 	 * inventory cell 
 	 * RELEASE label of point -> inventory cell releases resource
 	 * instance
+	 * 
+	 * The statements are compiled once by {@link AGVProgramCompiler}; prefer
+	 * {@link #executeProgram(AGVProgram)} with a cached program for repeated routes.
 	 */
-
 	public void executeProgram(Statement<?>[] program) {
-		for (Statement<?> statement : program) {
-			switch (statement.operand) {
-			case STOP -> {
-				memory.clear();
-				endPoints.clear();
-				operationsForEndPoints.clear();
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("AGV stopping execution and clearing memory.");
+		executeProgram(AGVProgramCompiler.compile(program));
+	}
+
+	/**
+	 * Load a compiled program: apply its setup and queue its precomputed
+	 * destinations and operations.
+	 * 
+	 * @param program the compiled program
+	 */
+	public void executeProgram(AGVProgram program) {
+		if (program.hasSetup()) {
+			storage = program.getSetupStorage();
+			moveTo(program.getSetupPosition());
+		}
+		if (program.isStop()) {
+			endPoints.clear();
+			operationsForEndPoints.clear();
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("{} stopping execution and clearing pending work", agvId);
+			}
+			return;
+		}
+		for (int i = 0; i < program.getDestinationCount(); i++) {
+			endPoints.add(program.getDestination(i));
+		}
+		for (int i = 0; i < program.getOperationCount(); i++) {
+			PlannedOperation operation = program.getOperation(i);
+			if (operation.action() == Action.CHARGE && !isChargingStation(operation.cell())) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("{} ignoring CHARGE at {} - not a charging station", agvId, operation.cellLabel());
 				}
-				return;
+				continue;
 			}
-			case SETUP -> {
-				storage = (Storage) statement.args[0];
-				currentPosition = (Point) statement.args[1];
+			operationsForEndPoints.add(operation);
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} loaded program with {} destinations and {} operations",
+				agvId, program.getDestinationCount(), program.getOperationCount());
+		}
+		double chargeBelow = batteryLowThreshold * AGVManagementConfiguration.INSTANCE.getChargeAfterRouteFactor();
+		if (program.getDestinationCount() > 0 && forecastBatteryLevel() <= chargeBelow) {
+			// plan the top-up now so the AGV queues for a station as soon as the route is done
+			chargeAfterRoute = true;
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("{} forecast {}% after queued route, charging afterwards", agvId, forecastBatteryLevel());
 			}
-			case PUSH -> {
-				memory.push(statement.args[0]);
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("AGV pushed to memory: " + statement.args[0]);
-				}
+		}
+	}
+
+	/**
+	 * Estimate the battery level once the queued work is done: one drain step
+	 * per remaining path point, the cached shortest path length between queued
+	 * destinations (the dispatcher's {@link EnergyEstimator} uses the same),
+	 * and one step per operation. Without a storage, or for an unreachable
+	 * destination, the Manhattan distance serves as a lower bound.
+	 */
+	public int forecastBatteryLevel() {
+		int steps = operationsForEndPoints.size();
+		Point from = currentPosition;
+		if (optimalPath != null && !optimalPath.isEmpty()) {
+			steps += optimalPath.size();
+			from = optimalPath.get(optimalPath.size() - 1);
+		}
+		for (Point destination : endPoints) {
+			if (from != null) {
+				int length = storage != null ? storage.AREA.getPathLength(from, destination) : -1;
+				steps += length >= 0 ? length
+						: Math.abs(destination.x() - from.x()) + Math.abs(destination.y() - from.y());
 			}
-			case MOVE -> {
-				String pointLabel = (String) memory.pop();
-				Point destination = Storage.notationToPoint(pointLabel);
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("AGV set to moving to point: " + destination);
-				}
-				endPoints.add(destination);
+			from = destination;
+		}
+		return Math.max(0, batteryLevel - steps * loseChargePerActionPerTick);
+	}
+
+	/**
+	 * Top up right after becoming idle when the route forecast asked for it or
+	 * the scheduler sees a free station and a low enough battery.
+	 */
+	private void chargeOpportunistically() {
+		if (storage == null || batteryLevel >= 100) {
+			return;
+		}
+		boolean planned = chargeAfterRoute;
+		chargeAfterRoute = false;
+		if (planned || ChargingScheduler.forStorage(storage).shouldChargeOpportunistically(this)) {
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("{} charging opportunistically at {}% ({})", agvId, batteryLevel,
+					planned ? "planned from route forecast" : "free station");
 			}
-			case CHARGE -> {
-				String pointLabel = (String) memory.pop();
+			requestCharging();
+		}
+	}
+
+	private boolean isChargingStation(Point point) {
+		if (storage == null) {
+			return false;
+		}
+		StorageCell cell = storage.getCellByPoint(point);
+		return cell != null && cell.TYPE == Type.CHARGING_STATION;
+	}
+
+	/**
+	 * Execute a planned operation at the AGV's current position.
+	 */
+	private void performOperation(PlannedOperation operation) {
+		switch (operation.action()) {
+		case CHARGE -> {
+			if (state == AGVState.MOVING_TO_CHARGE) {
+				startCharging();
+			} else {
 				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("AGV will be charged at: " + pointLabel);
-				}
-				if (storage.getCellByNotation(pointLabel).TYPE == Type.CHARGING_STATION) {
-					operationsForEndPoints.add(new BeveragesBoxOperation(pointLabel, null) {
-						@Override
-						public void execute() {
-							if (LOGGER.isInfoEnabled()) {
-								LOGGER.info("AGV charging at station: " + this.cellLabel);
-							}
-							AGV.this.charging = true;
-						}
-					});
+					LOGGER.info("{} charging at station: {}", agvId, operation.cellLabel());
 				}
+				charging = true;
 			}
-			case RELEASE -> {
-				String cellLabel = (String) memory.pop();
-				BeveragesBox box = (BeveragesBox) memory.pop();
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("AGV releasing resource to cell: " + cellLabel);
-				}
-				this.operationsForEndPoints.add(new BeveragesBoxOperation(cellLabel, box) {
-					@Override
-					public void execute() {
-						if (LOGGER.isInfoEnabled()) {
-							LOGGER.info("AGV taking resource from cell: " + cellLabel);
-						}
-						if (cellLabel.equals(Storage.pointToNotation(currentPosition))) {
-							if (!storage.getCellByNotation(cellLabel).add(box)) {
-								throw new IllegalStateException(
-										"Failed to take resource: insufficient space in inventory cell.");
-							} else {
-								this.inventoryCell.remove(box);
-							}
-						} else {
-							throw new IllegalStateException("AGV not at the specified cell to take resource.");
-						}
-					}
-				});
+		}
+		case TAKE -> {
+			if (!operation.cell().equals(currentPosition)) {
+				throw new IllegalStateException("AGV not at the specified cell to take resource.");
 			}
-			case TAKE -> {
-				String cellLabel = (String) memory.pop();
-				BeveragesBox box = (BeveragesBox) memory.pop();
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("AGV taking resource from cell: " + cellLabel);
-				}
-				this.operationsForEndPoints.add(new BeveragesBoxOperation(cellLabel, box) {
-					@Override
-					public void execute() {
-						if (LOGGER.isInfoEnabled()) {
-							LOGGER.info("AGV taking resource from cell: " + this.cellLabel);
-						}
-						if (this.cellLabel.equals(Storage.pointToNotation(this.currentPosition))) {
-							if (!this.storage.getCellByNotation(this.cellLabel).remove(this.box)) {
-								throw new IllegalStateException(
-										"Failed to take resource: resource not found in storage cell.");
-							} else {
-								this.inventoryCell.add(this.box);
-							}
-						} else {
-							throw new IllegalStateException("AGV not at the specified cell to take resource.");
-						}
-					}
-				});
+			if (!storage.getCellByPoint(operation.cell()).remove(operation.box())) {
+				throw new IllegalStateException("Failed to take resource: resource not found in storage cell.");
 			}
+			inventoryCell.add(operation.box());
+		}
+		case RELEASE -> {
+			if (!operation.cell().equals(currentPosition)) {
+				throw new IllegalStateException("AGV not at the specified cell to release resource.");
+			}
+			if (!storage.getCellByPoint(operation.cell()).add(operation.box())) {
+				throw new IllegalStateException("Failed to release resource: insufficient space in storage cell.");
 			}
+			inventoryCell.remove(operation.box());
+		}
 		}
 	}
 
 	public void cacheProgram(Statement<?>[] program) {
+		this.cachedProgram = program != null ? AGVProgramCompiler.compile(program) : null;
+	}
+
+	public void cacheCompiledProgram(AGVProgram program) {
 		this.cachedProgram = program;
 	}
 
@@ -527,29 +614,51 @@ public class AGV extends Resource implements ITickable {
 		return 1.0;
 	}
 
+	/**
+	 * Finish the current path and execute any pending operation at this destination.
+	 */
+	private void arriveAtPathEnd() {
+		optimalPath = null;
+
+		if (!operationsForEndPoints.isEmpty()) {
+			PlannedOperation operation = operationsForEndPoints.poll();
+			try {
+				performOperation(operation);
+
+				// Don't drain battery for startCharging operation
+				if (state != AGVState.CHARGING) {
+					batteryLevel = Math.max(0, batteryLevel - loseChargePerActionPerTick);
+				}
+
+				if (LOGGER.isInfoEnabled()) {
+					long suppressed = LOG_LIMITER.acquire(this);
+					if (suppressed >= 0) {
+						LOGGER.info("{} executed operation at position: {}, battery: {}%{}",
+							agvId, currentPosition, Unbox.box(batteryLevel), LogRateLimiter.suppressedNote(suppressed));
+					}
+				}
+			} catch (Exception e) {
+				LOGGER.error("{} failed to execute operation: {}", agvId, e.getMessage(), e);
+			}
+		}
+	}
+
 	@Override
 	public void onTick(int currentTick) {
 		// Check if task was externally cleared while BUSY at loading dock (by LoadingBayView after animation)
-		if (state == AGVState.BUSY && endPoints.isEmpty() && currentTask == null) {
-			Point currentPos = getCurrentPosition();
-			String posNotation = currentPos != null ? Storage.pointToNotation(currentPos) : null;
-			boolean atLoadingDock = "6D".equals(posNotation) || "7D".equals(posNotation);
-
-			if (atLoadingDock) {
-				// Loading animation completed, task was cleared - transition to IDLE
-				state = AGVState.IDLE;
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("{} loading complete at {}, transitioning to IDLE", agvId, posNotation);
-				}
+		if (state == AGVState.BUSY && endPoints.isEmpty() && currentTask == null && isAtLoadingDock()) {
+			// Loading animation completed, task was cleared - transition to IDLE
+			changeState(AGVState.IDLE);
+			releaseLoadingDock();
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("{} loading complete at {}, transitioning to IDLE", agvId, Storage.pointToNotation(currentPosition));
 			}
+			chargeOpportunistically();
 		}
 
 		// Check battery level and request charging if needed
 		checkBatteryLevel();
 
-		// Process charging queue
-		processChargingQueue();
-
 		// Handle battery management
 		if (charging) {
 			batteryLevel = Math.min(100, batteryLevel + chargePerTick);
@@ -559,7 +668,10 @@ public class AGV extends Resource implements ITickable {
 
 			// Stop charging when fully charged
 			if (batteryLevel >= 100) {
-				completeCharging();
+				ChargingScheduler.Handover handover = completeCharging();
+				if (handover != null) {
+					handover.assign();
+				}
 			}
 			return; // Don't do anything else while charging
 		}
@@ -591,7 +703,8 @@ public class AGV extends Resource implements ITickable {
 			if (movementTickCounter >= ticksPerMovement) {
 				// Reset counter and move to next point in path
 				movementTickCounter = 0;
-				currentPosition = optimalPath.remove(0);
+				moveTo(optimalPath.remove(0));
+				MOVES.increment();
 
 				// Don't drain battery when moving to charging station with emergency reserve
 				if (state != AGVState.MOVING_TO_CHARGE || batteryLevel > 0) {
@@ -604,34 +717,14 @@ public class AGV extends Resource implements ITickable {
 
 				// If we've reached the end of the current path
 				if (optimalPath.isEmpty()) {
-					optimalPath = null;
-
-					// Execute any pending operation at this destination
-					if (!operationsForEndPoints.isEmpty()) {
-						BeveragesBoxOperation operation = operationsForEndPoints.poll();
-						try {
-							operation.execute();
-
-							// Don't drain battery for startCharging operation
-							if (state != AGVState.CHARGING) {
-								batteryLevel = Math.max(0, batteryLevel - loseChargePerActionPerTick);
-							}
-
-							if (LOGGER.isInfoEnabled()) {
-								LOGGER.info("{} executed operation at position: {}, battery: {}%",
-									agvId, currentPosition, batteryLevel);
-							}
-						} catch (Exception e) {
-							LOGGER.error("{} failed to execute operation: {}", agvId, e.getMessage(), e);
-						}
-					}
+					arriveAtPathEnd();
 				}
 			}
 		} else if (!endPoints.isEmpty() && storage != null) {
 			// If we don't have a current path but have destinations to visit
 			// Don't change state if already MOVING_TO_CHARGE (for charging flow)
 			if (state != AGVState.MOVING_TO_CHARGE) {
-				state = AGVState.BUSY;  // Mark as BUSY when starting new movement
+				changeState(AGVState.BUSY);  // Mark as BUSY when starting new movement
 			}
 
 			Point destination = endPoints.poll();
@@ -647,8 +740,15 @@ public class AGV extends Resource implements ITickable {
 				// Reset movement counter when starting a new path
 				movementTickCounter = 0;
 				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("{} calculated path to destination: {}, path length: {}",
-						agvId, destination, (optimalPath != null ? optimalPath.size() : 0));
+					long suppressed = LOG_LIMITER.acquire(this);
+					if (suppressed >= 0) {
+						LOGGER.info("{} calculated path to destination: {}, path length: {}{}",
+							agvId, destination, Unbox.box(optimalPath.size()), LogRateLimiter.suppressedNote(suppressed));
+					}
+				}
+				// Already standing on the destination (e.g. assigned the station it is parked at)
+				if (optimalPath.isEmpty()) {
+					arriveAtPathEnd();
 				}
 			} else {
 				if (LOGGER.isWarnEnabled()) {
@@ -661,30 +761,33 @@ public class AGV extends Resource implements ITickable {
 			}
 		} else if (endPoints.isEmpty() && state == AGVState.BUSY) {
 			// All destinations reached
-			Point currentPos = getCurrentPosition();
-			String posNotation = currentPos != null ? Storage.pointToNotation(currentPos) : null;
-
 			// Determine if AGV should stay BUSY or transition to IDLE
-			// Stay BUSY if: at loading dock (6D/7D) with an assigned task (for loading animation)
+			// Stay BUSY if: at a loading dock with an assigned task (for loading animation)
 			// Become IDLE if: returning from charging (no task) OR at other locations
-			boolean atLoadingDock = "6D".equals(posNotation) || "7D".equals(posNotation);
 			boolean hasTask = currentTask != null;
 
-			if (atLoadingDock && hasTask) {
+			if (hasTask && isAtLoadingDock()) {
 				// At loading dock with task - stay BUSY for loading animation
 				// Task will be cleared by LoadingBayView when animation completes
+				// repeated on every tick until the loading is done
 				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("{} arrived at loading dock {} with task T-{}, staying BUSY for loading",
-						agvId, posNotation, currentTask.getTaskId());
+					long suppressed = LOG_LIMITER.acquire(this);
+					if (suppressed >= 0) {
+						LOGGER.info("{} arrived at loading dock {} with task T-{}, staying BUSY for loading{}",
+							agvId, storage.getNotation(currentNodeId), Unbox.box(currentTask.getTaskId()),
+							LogRateLimiter.suppressedNote(suppressed));
+					}
 				}
 			} else {
 				// Either no task (returning from charging) or not at loading dock - become IDLE
-				state = AGVState.IDLE;
+				changeState(AGVState.IDLE);
 				currentTask = null;  // Clear current task on completion
+				releaseLoadingDock();
 				if (LOGGER.isInfoEnabled()) {
 					LOGGER.info("{} completed all movements at {}, returning to IDLE state",
-						agvId, posNotation != null ? posNotation : "unknown");
+						agvId, currentPosition != null ? Storage.pointToNotation(currentPosition) : "unknown");
 				}
+				chargeOpportunistically();
 			}
 		}
 	}
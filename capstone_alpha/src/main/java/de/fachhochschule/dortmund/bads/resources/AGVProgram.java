@@ -0,0 +1,95 @@
+package de.fachhochschule.dortmund.bads.resources;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+
+/**
+ * Immutable, validated form of an AGV statement sequence.
+ * Produced once by {@link AGVProgramCompiler} and safe to share between AGVs:
+ * destinations are already resolved to points and every box operation is a
+ * precomputed handle, so loading the program neither parses notations nor casts.
+ */
+public final class AGVProgram {
+
+	public enum Action {
+		TAKE, RELEASE, CHARGE
+	}
+
+	/**
+	 * A box or charging operation executed when the AGV reaches the end of a path.
+	 */
+	public record PlannedOperation(Action action, String cellLabel, Point cell, BeveragesBox box) {
+	}
+
+	public static final AGVProgram EMPTY = new AGVProgram(null, null, false, new Point[0], new PlannedOperation[0]);
+
+	private final Storage setupStorage;
+	private final Point setupPosition;
+	private final boolean stop;
+	private final Point[] destinations;
+	private final PlannedOperation[] operations;
+
+	AGVProgram(Storage setupStorage, Point setupPosition, boolean stop, Point[] destinations,
+			PlannedOperation[] operations) {
+		this.setupStorage = setupStorage;
+		this.setupPosition = setupPosition;
+		this.stop = stop;
+		this.destinations = destinations;
+		this.operations = operations;
+	}
+
+	/**
+	 * @return true if the program contains a SETUP statement
+	 */
+	public boolean hasSetup() {
+		return setupStorage != null || setupPosition != null;
+	}
+
+	public Storage getSetupStorage() {
+		return setupStorage;
+	}
+
+	public Point getSetupPosition() {
+		return setupPosition;
+	}
+
+	/**
+	 * @return true if the program ends with STOP, i.e. loading it clears the AGV's pending work
+	 */
+	public boolean isStop() {
+		return stop;
+	}
+
+	public int getDestinationCount() {
+		return destinations.length;
+	}
+
+	public Point getDestination(int index) {
+		return destinations[index];
+	}
+
+	public int getOperationCount() {
+		return operations.length;
+	}
+
+	public PlannedOperation getOperation(int index) {
+		return operations[index];
+	}
+
+	public List<Point> getDestinations() {
+		return List.of(destinations);
+	}
+
+	public List<PlannedOperation> getOperations() {
+		return List.of(operations);
+	}
+
+	@Override
+	public String toString() {
+		return "AGVProgram{setup=" + hasSetup() + ", stop=" + stop + ", destinations="
+				+ Arrays.toString(destinations) + ", operations=" + operations.length + "}";
+	}
+}
@@ -0,0 +1,170 @@
+package de.fachhochschule.dortmund.bads.resources;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.exceptions.InvalidNotationException;
+import de.fachhochschule.dortmund.bads.exceptions.ProgramCompilationException;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.resources.AGV.Statement;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram.Action;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram.PlannedOperation;
+
+/**
+ * Compiles AGV statement sequences into immutable {@link AGVProgram} plans.
+ * The stack discipline of the statement language is checked at compile time,
+ * so an AGV only has to walk precomputed destinations and operation handles.
+ * Standard pickup/delivery routes are cached by (source, destination); the
+ * least recently used route is dropped once {@value #MAX_CACHED_ROUTES} are cached.
+ */
+public final class AGVProgramCompiler {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	public static final int MAX_CACHED_ROUTES = 1024;
+
+	private static final Map<RouteKey, AGVProgram> ROUTE_CACHE = Collections.synchronizedMap(
+			new LinkedHashMap<>(64, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<RouteKey, AGVProgram> eldest) {
+					return size() > MAX_CACHED_ROUTES;
+				}
+			});
+
+	private record RouteKey(String source, String destination) {
+	}
+
+	private AGVProgramCompiler() {
+	}
+
+	/**
+	 * Validate a statement sequence and compile it into a reusable program.
+	 *
+	 * @param program the statements to compile
+	 * @return the compiled program
+	 * @throws ProgramCompilationException if the sequence is malformed
+	 */
+	public static AGVProgram compile(Statement<?>[] program) {
+		if (program == null) {
+			throw new ProgramCompilationException(-1, "Program cannot be null");
+		}
+
+		Deque<Object> stack = new ArrayDeque<>();
+		List<Point> destinations = new ArrayList<>();
+		List<PlannedOperation> operations = new ArrayList<>();
+		Storage setupStorage = null;
+		Point setupPosition = null;
+		boolean stop = false;
+
+		for (int i = 0; i < program.length && !stop; i++) {
+			Statement<?> statement = program[i];
+			if (statement == null || statement.operand == null) {
+				throw new ProgramCompilationException(i, "Statement and operand cannot be null");
+			}
+			switch (statement.operand) {
+			case STOP -> stop = true;
+			case SETUP -> {
+				if (statement.args == null || statement.args.length < 2
+						|| !(statement.args[0] instanceof Storage storage)
+						|| !(statement.args[1] instanceof Point position)) {
+					throw new ProgramCompilationException(i, "SETUP requires a Storage and a Point");
+				}
+				setupStorage = storage;
+				setupPosition = position;
+			}
+			case PUSH -> {
+				if (statement.args == null || statement.args.length == 0 || statement.args[0] == null) {
+					throw new ProgramCompilationException(i, "PUSH requires a non-null argument");
+				}
+				stack.push(statement.args[0]);
+			}
+			case MOVE -> {
+				String label = popLabel(stack, i, statement);
+				destinations.add(resolve(label, i));
+			}
+			case CHARGE -> {
+				String label = popLabel(stack, i, statement);
+				operations.add(new PlannedOperation(Action.CHARGE, label, resolve(label, i), null));
+			}
+			case TAKE, RELEASE -> {
+				String label = popLabel(stack, i, statement);
+				if (!(stack.poll() instanceof BeveragesBox box)) {
+					throw new ProgramCompilationException(i, statement.operand + " requires a BeveragesBox below the cell label");
+				}
+				Action action = statement.operand == AGV.Operand.TAKE ? Action.TAKE : Action.RELEASE;
+				operations.add(new PlannedOperation(action, label, resolve(label, i), box));
+			}
+			}
+		}
+
+		if (stop) {
+			// STOP discards everything the program queued before it
+			destinations.clear();
+			operations.clear();
+		}
+
+		AGVProgram compiled = new AGVProgram(setupStorage, setupPosition, stop,
+				destinations.toArray(Point[]::new), operations.toArray(PlannedOperation[]::new));
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Compiled {} statements into {}", program.length, compiled);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Get the compiled pickup/delivery route from source to destination.
+	 * Routes are compiled once and shared while they stay in the cache.
+	 *
+	 * @param sourceCell the pickup cell notation
+	 * @param destinationCell the delivery cell notation
+	 * @return the cached compiled route
+	 */
+	public static AGVProgram compileRoute(String sourceCell, String destinationCell) {
+		return ROUTE_CACHE.computeIfAbsent(new RouteKey(sourceCell, destinationCell),
+				key -> compile(new Statement<?>[] {
+					new Statement<>(AGV.Operand.PUSH, key.source()),
+					new Statement<>(AGV.Operand.MOVE),
+					new Statement<>(AGV.Operand.PUSH, key.destination()),
+					new Statement<>(AGV.Operand.MOVE)
+				}));
+	}
+
+	/**
+	 * @return the number of cached routes
+	 */
+	public static int getCachedRouteCount() {
+		return ROUTE_CACHE.size();
+	}
+
+	/**
+	 * Drop all cached routes.
+	 */
+	public static void clearRouteCache() {
+		ROUTE_CACHE.clear();
+	}
+
+	private static String popLabel(Deque<Object> stack, int index, Statement<?> statement) {
+		if (!(stack.poll() instanceof String label)) {
+			throw new ProgramCompilationException(index, statement.operand + " requires a cell label on top of the stack");
+		}
+		return label;
+	}
+
+	private static Point resolve(String label, int index) {
+		try {
+			return Storage.notationToPoint(label);
+		} catch (InvalidNotationException | IllegalArgumentException e) {
+			throw new ProgramCompilationException(index, e.getMessage());
+		}
+	}
+}
@@ -5,14 +5,19 @@ import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 
+import de.fachhochschule.dortmund.bads.ObservabilityConfiguration;
 import de.fachhochschule.dortmund.bads.model.Area;
 import de.fachhochschule.dortmund.bads.model.StorageCell;
 import de.fachhochschule.dortmund.bads.model.Area.Point;
 import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.LogRateLimiter;
 
 public class Truck extends Resource implements ITickable {
 	private static final Logger LOGGER = LogManager.getLogger();
+	private static final LogRateLimiter LOG_LIMITER = new LogRateLimiter(
+			ObservabilityConfiguration.INSTANCE.getLogMessagesPerEntityPerSecond());
 	
 	private int currentLocationIdx = 0;
 	private int ticksPerPointInRoute = 1;
@@ -101,7 +106,12 @@ public class Truck extends Resource implements ITickable {
 				if (currentLocationIdx <= this.route.size()) {
 					Point currentPoint = this.route.get(currentLocationIdx - 1);
 					if (LOGGER.isInfoEnabled()) {
-						LOGGER.info("Truck moved to point: {} (Route progress: {}/{})", currentPoint, currentLocationIdx, this.route.size());
+						long suppressed = LOG_LIMITER.acquire(this);
+						if (suppressed >= 0) {
+							LOGGER.info("Truck moved to point: {} (Route progress: {}/{}){}", currentPoint,
+									Unbox.box(currentLocationIdx), Unbox.box(this.route.size()),
+									LogRateLimiter.suppressedNote(suppressed));
+						}
 					}
 					if (currentLocationIdx >= this.route.size()) {
 						if (LOGGER.isInfoEnabled()) {
@@ -188,6 +198,20 @@ public class Truck extends Resource implements ITickable {
 		return currentLocationIdx;
 	}
 
+	/**
+	 * Continues the current route from the given index, e.g. after restoring a
+	 * snapshot. Call {@link #call()} first to calculate the route.
+	 * 
+	 * @param currentLocationIdx the route index to continue from (must be non-negative)
+	 */
+	public void setCurrentLocationIdx(int currentLocationIdx) {
+		if (currentLocationIdx < 0) {
+			throw new IllegalArgumentException("Location index must be non-negative");
+		}
+		this.currentLocationIdx = currentLocationIdx;
+		this.ticksSinceLastMove = 0;
+	}
+
 	/**
 	 * Gets the current route.
 	 * 
@@ -0,0 +1,590 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.AGVState;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.IChargeable;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
+
+/**
+ * Struct-of-arrays simulation engine for large AGV fleets.
+ *
+ * Position, battery, state and path cursor of every AGV are kept in primitive
+ * arrays and advanced in one loop per tick, split across cores once the fleet
+ * exceeds the parallel threshold. Paths are stored as packed coordinates and
+ * shared between AGVs travelling the same leg; the least recently used leg is
+ * dropped once {@value #MAX_CACHED_LEGS} are cached. The engine is registered with
+ * the clock as a single tickable, which makes what-if studies with thousands of
+ * AGVs feasible; individual AGVs are exposed as index-based {@link View}s.
+ *
+ * Charging follows the same rules as {@link AGV}: an AGV at or below its low
+ * threshold drops its route, queues at the {@link ChargingScheduler} of the
+ * storage, drives to the station it is handed and charges to 100%. Stations
+ * are shared with the single AGVs and other engines on the same storage.
+ */
+public class AGVFleetEngine implements ITickable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int LOG_INTERVAL_TICKS = 100;
+	private static final int INITIAL_CAPACITY = 64;
+	private static final int CHUNK_SIZE = 1024;
+	public static final int MAX_CACHED_LEGS = 4096;
+	private static final AGVState[] STATES = AGVState.values();
+
+	private static final byte IDLE = (byte) AGVState.IDLE.ordinal();
+	private static final byte BUSY = (byte) AGVState.BUSY.ordinal();
+	private static final byte WAITING_FOR_CHARGE = (byte) AGVState.WAITING_FOR_CHARGE.ordinal();
+	private static final byte CHARGING = (byte) AGVState.CHARGING.ordinal();
+	private static final byte MOVING_TO_CHARGE = (byte) AGVState.MOVING_TO_CHARGE.ordinal();
+
+	private final Storage storage;
+	private final ChargingScheduler scheduler;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// per-AGV columns
+	private int size;
+	private int[] posX = new int[INITIAL_CAPACITY];
+	private int[] posY = new int[INITIAL_CAPACITY];
+	private int[] battery = new int[INITIAL_CAPACITY];
+	private int[] chargePerTick = new int[INITIAL_CAPACITY];
+	private int[] drainPerMove = new int[INITIAL_CAPACITY];
+	private int[] lowThreshold = new int[INITIAL_CAPACITY];
+	private int[] ticksPerMovement = new int[INITIAL_CAPACITY];
+	private int[] movementCounter = new int[INITIAL_CAPACITY];
+	private byte[] state = new byte[INITIAL_CAPACITY];
+	private int[][] path = new int[INITIAL_CAPACITY][];
+	private int[] pathCursor = new int[INITIAL_CAPACITY];
+	private Point[] station = new Point[INITIAL_CAPACITY];
+	private boolean[] queued = new boolean[INITIAL_CAPACITY];
+	private int queuedCount;
+
+	// stations released under the lock, handed to the next waiting AGV once it is released
+	private final List<ChargingScheduler.Handover> handovers = new ArrayList<>();
+
+	// legs are immutable once computed, so AGVs on the same leg share one array; guarded by the write lock
+	private final Map<Long, int[]> legCache = new LinkedHashMap<>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+			return size() > MAX_CACHED_LEGS;
+		}
+	};
+
+	private int parallelThreshold = 4 * CHUNK_SIZE;
+	private long ticks;
+
+	public AGVFleetEngine(Storage storage) {
+		if (storage == null) {
+			throw new IllegalArgumentException("Storage cannot be null");
+		}
+		this.storage = storage;
+		this.scheduler = storage.getChargingScheduler();
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("AGVFleetEngine created with {} charging stations", scheduler.getStationCount());
+		}
+	}
+
+	/**
+	 * Add an AGV with default parameters (full battery, 10% charge per tick,
+	 * 5% drain per move, 20% threshold, one tick per movement).
+	 *
+	 * @param start the starting position
+	 * @return the index of the new AGV
+	 */
+	public int addAGV(Point start) {
+		return add(start, 100, 10, 5, 20, 1);
+	}
+
+	/**
+	 * Import the position, battery and tuning parameters of an existing AGV.
+	 * The AGV instance itself is not ticked by the engine.
+	 *
+	 * @param agv the AGV to import; it must already be positioned
+	 * @return the index of the imported AGV
+	 */
+	public int register(AGV agv) {
+		if (agv.getCurrentPosition() == null) {
+			throw new IllegalArgumentException(agv.getAgvId() + " has no position");
+		}
+		return add(agv.getCurrentPosition(), agv.getBatteryLevel(), agv.getChargePerTick(),
+				agv.getLoseChargePerActionPerTick(), (int) agv.getBatteryLowThreshold(), agv.getTicksPerMovement());
+	}
+
+	private int add(Point start, int batteryLevel, int charge, int drain, int threshold, int movementTicks) {
+		lock.writeLock().lock();
+		try {
+			if (size == posX.length) {
+				grow(size * 2);
+			}
+			int i = size++;
+			posX[i] = start.x();
+			posY[i] = start.y();
+			battery[i] = batteryLevel;
+			chargePerTick[i] = charge;
+			drainPerMove[i] = drain;
+			lowThreshold[i] = threshold;
+			ticksPerMovement[i] = movementTicks;
+			movementCounter[i] = 0;
+			state[i] = IDLE;
+			path[i] = null;
+			pathCursor[i] = 0;
+			station[i] = null;
+			queued[i] = false;
+			return i;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void grow(int capacity) {
+		posX = Arrays.copyOf(posX, capacity);
+		posY = Arrays.copyOf(posY, capacity);
+		battery = Arrays.copyOf(battery, capacity);
+		chargePerTick = Arrays.copyOf(chargePerTick, capacity);
+		drainPerMove = Arrays.copyOf(drainPerMove, capacity);
+		lowThreshold = Arrays.copyOf(lowThreshold, capacity);
+		ticksPerMovement = Arrays.copyOf(ticksPerMovement, capacity);
+		movementCounter = Arrays.copyOf(movementCounter, capacity);
+		state = Arrays.copyOf(state, capacity);
+		path = Arrays.copyOf(path, capacity);
+		pathCursor = Arrays.copyOf(pathCursor, capacity);
+		station = Arrays.copyOf(station, capacity);
+		queued = Arrays.copyOf(queued, capacity);
+	}
+
+	/**
+	 * Send an idle or busy AGV along the given destinations, replacing its current route.
+	 *
+	 * @param index the AGV index
+	 * @param destinations the points to visit in order
+	 * @return false if the AGV is in the charging cycle or a destination is unreachable
+	 */
+	public boolean assignRoute(int index, Point... destinations) {
+		lock.writeLock().lock();
+		try {
+			checkIndex(index);
+			if (state[index] != IDLE && state[index] != BUSY) {
+				return false;
+			}
+			int fromX = posX[index];
+			int fromY = posY[index];
+			int[][] legs = new int[destinations.length][];
+			int length = 0;
+			for (int d = 0; d < destinations.length; d++) {
+				legs[d] = leg(fromX, fromY, destinations[d].x(), destinations[d].y());
+				if (legs[d] == null) {
+					return false;
+				}
+				length += legs[d].length;
+				fromX = destinations[d].x();
+				fromY = destinations[d].y();
+			}
+			int[] route = legs.length == 1 ? legs[0] : new int[length];
+			if (legs.length != 1) {
+				int offset = 0;
+				for (int[] leg : legs) {
+					System.arraycopy(leg, 0, route, offset, leg.length);
+					offset += leg.length;
+				}
+			}
+			path[index] = route.length == 0 ? null : route;
+			pathCursor[index] = 0;
+			movementCounter[index] = 0;
+			state[index] = route.length == 0 ? IDLE : BUSY;
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the packed points after the start, or null if the target is unreachable
+	 */
+	private int[] leg(int fromX, int fromY, int toX, int toY) {
+		if (fromX == toX && fromY == toY) {
+			return new int[0];
+		}
+		long key = ((long) pack(fromX, fromY) << 32) | (pack(toX, toY) & 0xFFFFFFFFL);
+		int[] cached = legCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		List<Point> points = storage.AREA.findPath(fromX, fromY, toX, toY);
+		if (points.isEmpty()) {
+			return null;
+		}
+		int[] packed = new int[points.size() - 1];
+		for (int k = 1; k < points.size(); k++) {
+			packed[k - 1] = pack(points.get(k).x(), points.get(k).y());
+		}
+		legCache.put(key, packed);
+		return packed;
+	}
+
+	private static int pack(int x, int y) {
+		return (x << 16) | (y & 0xFFFF);
+	}
+
+	@Override
+	public void onTick(int currentTick) {
+		lock.writeLock().lock();
+		try {
+			int n = size;
+			if (n >= parallelThreshold) {
+				int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+				IntStream.range(0, chunks).parallel()
+						.forEach(c -> advance(c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE)));
+			} else {
+				advance(0, n);
+			}
+			settleCharging(n);
+			ticks++;
+
+			if (currentTick % LOG_INTERVAL_TICKS == 0 && LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Fleet tick {}: {} AGVs, {} waiting for charge, {} free stations",
+						currentTick, n, queuedCount, scheduler.getFreeStationCount());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		assignHandovers();
+	}
+
+	/**
+	 * Advance AGVs [from, to). Touches only the columns of its own indices, so
+	 * disjoint ranges can run concurrently.
+	 */
+	private void advance(int from, int to) {
+		for (int i = from; i < to; i++) {
+			byte s = state[i];
+			if (s == CHARGING) {
+				int level = battery[i] + chargePerTick[i];
+				if (level >= 100) {
+					battery[i] = 100;
+					state[i] = IDLE;
+				} else {
+					battery[i] = level;
+				}
+				continue;
+			}
+			if (s == BUSY || s == MOVING_TO_CHARGE) {
+				if (s == BUSY && battery[i] <= lowThreshold[i]) {
+					// drop the route; the dispatcher has to re-plan this work
+					path[i] = null;
+					state[i] = WAITING_FOR_CHARGE;
+					continue;
+				}
+				int[] route = path[i];
+				if (++movementCounter[i] < ticksPerMovement[i]) {
+					continue;
+				}
+				movementCounter[i] = 0;
+				int p = route[pathCursor[i]++];
+				posX[i] = p >>> 16;
+				posY[i] = p & 0xFFFF;
+				if (battery[i] > 0) {
+					battery[i] = Math.max(0, battery[i] - drainPerMove[i]);
+				}
+				if (pathCursor[i] == route.length) {
+					path[i] = null;
+					state[i] = s == MOVING_TO_CHARGE ? CHARGING : IDLE;
+				}
+			} else if (s == IDLE && battery[i] <= lowThreshold[i]) {
+				state[i] = WAITING_FOR_CHARGE;
+			}
+		}
+	}
+
+	/**
+	 * Serial phase: release stations of AGVs that finished charging and queue
+	 * new waiters at the scheduler. Released stations are handed over after
+	 * the tick, see {@link #assignHandovers()}.
+	 */
+	private void settleCharging(int n) {
+		for (int i = 0; i < n; i++) {
+			byte s = state[i];
+			if (station[i] != null && s != CHARGING && s != MOVING_TO_CHARGE) {
+				release(i);
+			} else if (s == WAITING_FOR_CHARGE && !queued[i]) {
+				queued[i] = true;
+				queuedCount++;
+				// a waiting AGV does not move, so the claimant keeps its position
+				scheduler.request(new FleetAGV(i, new Point(posX[i], posY[i])));
+			}
+		}
+	}
+
+	private void release(int index) {
+		ChargingScheduler.Handover handover = scheduler.release(station[index]);
+		station[index] = null;
+		if (handover != null) {
+			handovers.add(handover);
+		}
+	}
+
+	/**
+	 * Send a queued AGV to the station the scheduler occupied for it.
+	 */
+	private void driveToStation(int index, Point target) {
+		lock.writeLock().lock();
+		try {
+			queued[index] = false;
+			queuedCount--;
+			station[index] = target;
+			int[] route = leg(posX[index], posY[index], target.x(), target.y());
+			if (route == null) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("Fleet AGV {} cannot reach charging station ({}, {})", index, target.x(), target.y());
+				}
+				// still waiting; it queues again on the next tick
+				release(index);
+				return;
+			}
+			movementCounter[index] = 0;
+			pathCursor[index] = 0;
+			if (route.length == 0) {
+				path[index] = null;
+				state[index] = CHARGING;
+			} else {
+				path[index] = route;
+				state[index] = MOVING_TO_CHARGE;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		assignHandovers();
+	}
+
+	/**
+	 * Hand released stations to their waiting AGVs. Runs without the engine
+	 * lock, since the waiting AGV may be a single AGV taking its own monitor.
+	 */
+	private void assignHandovers() {
+		if (lock.isWriteLockedByCurrentThread()) {
+			return; // assigned within a tick, which hands them over when it ends
+		}
+		List<ChargingScheduler.Handover> pending;
+		lock.writeLock().lock();
+		try {
+			if (handovers.isEmpty()) {
+				return;
+			}
+			pending = new ArrayList<>(handovers);
+			handovers.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		for (ChargingScheduler.Handover handover : pending) {
+			handover.assign();
+		}
+	}
+
+	/**
+	 * An AGV of this engine in the queue of the charging scheduler.
+	 */
+	private final class FleetAGV implements IChargeable {
+		private final int index;
+		private final Point position;
+
+		FleetAGV(int index, Point position) {
+			this.index = index;
+			this.position = position;
+		}
+
+		@Override
+		public String getAgvId() {
+			return "FleetAGV-" + index;
+		}
+
+		@Override
+		public Point getCurrentPosition() {
+			return position;
+		}
+
+		@Override
+		public void assignChargingStation(Point target) {
+			driveToStation(index, target);
+		}
+
+		@Override
+		public String toString() {
+			return getAgvId();
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("No AGV at index " + index + ", fleet size " + size);
+		}
+	}
+
+	/**
+	 * @return the number of AGVs in the fleet
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of ticks processed by this engine
+	 */
+	public long getTickCount() {
+		lock.readLock().lock();
+		try {
+			return ticks;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Count the AGVs currently in the given state.
+	 */
+	public int countInState(AGVState agvState) {
+		lock.readLock().lock();
+		try {
+			byte wanted = (byte) agvState.ordinal();
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				if (state[i] == wanted) {
+					count++;
+				}
+			}
+			return count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of AGVs waiting for a charging station
+	 */
+	public int getChargingQueueSize() {
+		lock.readLock().lock();
+		try {
+			return queuedCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of legs in the path cache
+	 */
+	public int getCachedLegCount() {
+		lock.readLock().lock();
+		try {
+			return legCache.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Set the fleet size from which a tick is split across the common fork-join pool.
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		if (parallelThreshold <= 0) {
+			throw new IllegalArgumentException("Parallel threshold must be positive");
+		}
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Get a lightweight view on the AGV at the given index.
+	 */
+	public View view(int index) {
+		lock.readLock().lock();
+		try {
+			checkIndex(index);
+			return new View(index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Thin handle on one AGV of the fleet. Holds no state besides its index;
+	 * every getter reads the engine's columns.
+	 */
+	public final class View {
+		private final int index;
+
+		private View(int index) {
+			this.index = index;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public Point getCurrentPosition() {
+			lock.readLock().lock();
+			try {
+				return new Point(posX[index], posY[index]);
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		public int getBatteryLevel() {
+			lock.readLock().lock();
+			try {
+				return battery[index];
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		public AGVState getState() {
+			lock.readLock().lock();
+			try {
+				return STATES[state[index]];
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * @return the number of path points left on the current route
+		 */
+		public int getRemainingPathLength() {
+			lock.readLock().lock();
+			try {
+				return path[index] == null ? 0 : path[index].length - pathCursor[index];
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		public boolean assignRoute(Point... destinations) {
+			return AGVFleetEngine.this.assignRoute(index, destinations);
+		}
+
+		@Override
+		public String toString() {
+			return "FleetAGV-" + index;
+		}
+	}
+}
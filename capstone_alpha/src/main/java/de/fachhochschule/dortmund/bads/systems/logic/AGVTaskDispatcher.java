@@ -1,7 +1,9 @@
 package de.fachhochschule.dortmund.bads.systems.logic;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -9,12 +11,20 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.fachhochschule.dortmund.bads.model.LoadingDockRegistry;
 import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Reservation;
 import de.fachhochschule.dortmund.bads.model.Task;
 import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.Operand;
+import de.fachhochschule.dortmund.bads.resources.AGV.Statement;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram;
+import de.fachhochschule.dortmund.bads.resources.AGVProgramCompiler;
 import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
 import de.fachhochschule.dortmund.bads.resources.Resource;
 import de.fachhochschule.dortmund.bads.systems.Operation;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.DomainEvents;
 
 /**
  * AGV Task Dispatcher - Assigns tasks to available AGVs and creates execution programs.
@@ -31,6 +41,21 @@ public class AGVTaskDispatcher {
 	// Queue for tasks that were aborted due to low battery, waiting for reassignment
 	private final Queue<Task> abortedTasks;
 
+	// Put-away tasks and the storage space reserved for them at dispatch time
+	private final Map<Task, PutAway> putAways = new ConcurrentHashMap<>();
+
+	private record PutAway(BeveragesBox box, String stagingCell, Reservation reservation) {
+	}
+
+	private static final MetricsRegistry.Counter DELIVERY_ASSIGNMENTS = MetricsRegistry.INSTANCE
+			.counter(MetricsRegistry.labeled("dispatcher.assignments", "kind", "delivery"));
+	private static final MetricsRegistry.Counter PUT_AWAY_ASSIGNMENTS = MetricsRegistry.INSTANCE
+			.counter(MetricsRegistry.labeled("dispatcher.assignments", "kind", "putaway"));
+	private static final MetricsRegistry.Counter NO_AGV_AVAILABLE = MetricsRegistry.INSTANCE
+			.counter("dispatcher.assignments.unavailable");
+	private static final MetricsRegistry.Counter ABORTS = MetricsRegistry.INSTANCE.counter("dispatcher.aborts");
+	private static final MetricsRegistry.Counter REASSIGNMENTS = MetricsRegistry.INSTANCE.counter("dispatcher.reassignments");
+
 	/**
 	 * Create a new AGV Task Dispatcher
 	 *
@@ -50,6 +75,9 @@ public class AGVTaskDispatcher {
 		this.lock = new ReentrantReadWriteLock();
 		this.abortedTasks = new ConcurrentLinkedQueue<>();
 
+		MetricsRegistry.INSTANCE.gauge("dispatcher.aborted.waiting", this, dispatcher -> dispatcher.abortedTasks.size());
+		MetricsRegistry.INSTANCE.gauge("fleet.utilization", this, AGVTaskDispatcher::getFleetUtilization);
+
 		if (LOGGER.isInfoEnabled()) {
 			LOGGER.info("AGVTaskDispatcher initialized with {} AGVs", agvFleet.size());
 		}
@@ -64,46 +92,76 @@ public class AGVTaskDispatcher {
 	 * @return true if task was successfully assigned, false otherwise
 	 */
 	public boolean assignTaskToAGV(Task task, BeveragesBox box) {
+		DomainEvents.Dispatch event = new DomainEvents.Dispatch();
+		event.begin();
+		AGV agv = dispatch(task, box);
+		event.end();
+		if (event.shouldCommit()) {
+			event.taskId = task != null ? task.getTaskId() : -1;
+			event.beverage = box != null ? box.getBeverageName() : null;
+			event.agv = agv != null ? agv.getAgvId() : null;
+			event.assigned = agv != null;
+			event.commit();
+		}
+		return agv != null;
+	}
+
+	/**
+	 * @return the AGV the task was assigned to, or null if it could not be assigned
+	 */
+	private AGV dispatch(Task task, BeveragesBox box) {
 		if (task == null) {
 			if (LOGGER.isWarnEnabled()) {
 				LOGGER.warn("Cannot assign null task");
 			}
-			return false;
+			return null;
 		}
 
 		if (box == null) {
 			if (LOGGER.isWarnEnabled()) {
 				LOGGER.warn("Cannot assign task {} with null beverage box", task.getTaskId());
 			}
-			return false;
+			return null;
 		}
 
 		lock.writeLock().lock();
 		try {
-			// Find an available AGV
-			AGV availableAGV = findIdleAGV();
+			// Determine source cell based on beverage type
+			String sourceCell = determineSourceCell(box.getType());
 
-			if (availableAGV == null) {
+			// Determine destination cell: the loading dock with the shortest queue
+			LoadingDockRegistry docks = warehouse.getLoadingDocks();
+			int dock = docks.leastLoadedDock();
+			if (dock < 0) {
 				if (LOGGER.isWarnEnabled()) {
-					LOGGER.warn("No available AGV for task {} - all AGVs busy", task.getTaskId());
+					LOGGER.warn("Cannot assign task {} - warehouse has no loading dock", task.getTaskId());
 				}
-				return false;
+				return null;
 			}
+			String destinationCell = warehouse.getNotation(docks.getDockNodeId(dock));
 
-			// Determine source cell based on beverage type
-			String sourceCell = determineSourceCell(box.getType());
+			// Create AGV program to fulfill the task
+			AGVProgram program = createTaskProgram(box, sourceCell, destinationCell);
 
-			// Determine destination cell (loading dock)
-			String destinationCell = "6D"; // Loading dock position
+			// Find an available AGV that can finish the route without hitting its battery threshold
+			AGV availableAGV = findFeasibleAGV(program);
 
-			// Create AGV program to fulfill the task
-			AGV.Statement<?>[] program = createTaskProgram(box, sourceCell, destinationCell);
+			if (availableAGV == null) {
+				NO_AGV_AVAILABLE.increment();
+				chargeForRoute(program);
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("No available AGV for task {} - all AGVs busy or short on battery", task.getTaskId());
+				}
+				return null;
+			}
 
 			// Link task to AGV before execution (for abortion/reassignment tracking)
 			availableAGV.setCurrentTask(task);
+			docks.assign(dock, availableAGV);
 
 			// Execute the program on the selected AGV
 			availableAGV.executeProgram(program);
+			DELIVERY_ASSIGNMENTS.increment();
 
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("Assigned task {} to {} - Moving {} from {} to {}",
@@ -111,18 +169,167 @@ public class AGVTaskDispatcher {
 					box.getBeverageName(), sourceCell, destinationCell);
 			}
 
-			return true;
+			return availableAGV;
 
 		} catch (Exception e) {
 			if (LOGGER.isErrorEnabled()) {
 				LOGGER.error("Failed to assign task {} to AGV: {}", task.getTaskId(), e.getMessage(), e);
 			}
+			return null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Assign a put-away task: an AGV takes a box staged at a cell (usually a
+	 * loading dock) and releases it into a storage cell. The space is reserved
+	 * when the task is dispatched, so boxes dispatched in parallel never compete
+	 * for the same space; releasing the box commits the reservation.
+	 *
+	 * @param task the task to be executed
+	 * @param box the beverage box to store
+	 * @param stagingCell the cell notation where the box waits
+	 * @return true if space was reserved and the task assigned, false otherwise
+	 */
+	public boolean assignPutAwayTask(Task task, BeveragesBox box, String stagingCell) {
+		if (task == null || box == null || stagingCell == null) {
+			if (LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Cannot assign put-away task without task, box and staging cell");
+			}
+			return false;
+		}
+
+		lock.writeLock().lock();
+		Reservation reservation = null;
+		try {
+			StorageCell staging = warehouse.getCellByNotation(stagingCell);
+			if (staging == null || !staging.contains(box)) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("Cannot assign put-away task {} - {} is not staged at {}",
+						task.getTaskId(), box.getBeverageName(), stagingCell);
+				}
+				return false;
+			}
+			putAways.values().removeIf(putAway -> putAway.reservation().getState() == Reservation.State.COMMITTED);
+
+			reservation = warehouse.reserveBeverageSpace(box);
+			if (reservation == null) {
+				return false;
+			}
+			String targetCell = warehouse.getNotation(warehouse.getNodeIdOfCell(reservation.getCell()));
+
+			AGVProgram program = AGVProgramCompiler.compile(new Statement<?>[] {
+				new Statement<>(Operand.PUSH, stagingCell),
+				new Statement<>(Operand.MOVE),
+				new Statement<>(Operand.PUSH, box),
+				new Statement<>(Operand.PUSH, stagingCell),
+				new Statement<>(Operand.TAKE),
+				new Statement<>(Operand.PUSH, targetCell),
+				new Statement<>(Operand.MOVE),
+				new Statement<>(Operand.PUSH, box),
+				new Statement<>(Operand.PUSH, targetCell),
+				new Statement<>(Operand.RELEASE)
+			});
+
+			AGV availableAGV = findFeasibleAGV(program);
+			if (availableAGV == null) {
+				NO_AGV_AVAILABLE.increment();
+				chargeForRoute(program);
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("No available AGV for put-away task {} - all AGVs busy or short on battery", task.getTaskId());
+				}
+				reservation.cancel();
+				return false;
+			}
+
+			putAways.put(task, new PutAway(box, stagingCell, reservation));
+			availableAGV.setCurrentTask(task);
+			availableAGV.executeProgram(program);
+			PUT_AWAY_ASSIGNMENTS.increment();
+
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("Assigned put-away task {} to {} - Moving {} from {} to {}",
+					task.getTaskId(), availableAGV.getAgvId(), box.getBeverageName(), stagingCell, targetCell);
+			}
+			return true;
+
+		} catch (Exception e) {
+			if (reservation != null) {
+				reservation.cancel();
+			}
+			if (LOGGER.isErrorEnabled()) {
+				LOGGER.error("Failed to assign put-away task {} to AGV: {}", task.getTaskId(), e.getMessage(), e);
+			}
 			return false;
 		} finally {
 			lock.writeLock().unlock();
 		}
 	}
 
+	/**
+	 * Find the idle AGV that completes the program with the least energy.
+	 * Selection has no side effects; see {@link #chargeForRoute(AGVProgram)}
+	 * for the case that no idle AGV can complete the program.
+	 *
+	 * @param program the compiled task program
+	 * @return a feasible idle AGV, or null if none available
+	 */
+	private AGV findFeasibleAGV(AGVProgram program) {
+		AGV best = null;
+		int bestEnergy = EnergyEstimator.UNREACHABLE;
+		for (AGV agv : agvFleet) {
+			if (!isAvailable(agv)) {
+				continue;
+			}
+			int energy = EnergyEstimator.estimateEnergy(agv, warehouse.AREA, program);
+			if (EnergyEstimator.canComplete(agv, energy) && energy < bestEnergy) {
+				bestEnergy = energy;
+				best = agv;
+			}
+		}
+
+		if (best != null && LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Selected {} (battery: {}%, route energy: {}%)",
+				best.getAgvId(), best.getBatteryLevel(), bestEnergy);
+		}
+		return best;
+	}
+
+	/**
+	 * Called when no idle AGV can complete the program: send the idle AGV
+	 * with the most battery left to charge, since it is the first to become
+	 * feasible again. One AGV per unassigned task, so a single task cannot
+	 * send the whole idle fleet to the chargers.
+	 */
+	private void chargeForRoute(AGVProgram program) {
+		AGV candidate = null;
+		int candidateEnergy = 0;
+		for (AGV agv : agvFleet) {
+			if (!isAvailable(agv) || agv.getBatteryLevel() >= 100
+					|| (candidate != null && agv.getBatteryLevel() <= candidate.getBatteryLevel())) {
+				continue;
+			}
+			int energy = EnergyEstimator.estimateEnergy(agv, warehouse.AREA, program);
+			if (energy != EnergyEstimator.UNREACHABLE) {
+				candidate = agv;
+				candidateEnergy = energy;
+			}
+		}
+		if (candidate != null) {
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("{} cannot complete route ({}% needed, {}% left), sending to charge",
+					candidate.getAgvId(), candidateEnergy, candidate.getBatteryLevel());
+			}
+			candidate.requestCharging();
+		}
+	}
+
+	private static boolean isAvailable(AGV agv) {
+		// an AGV stays IDLE until its next tick, so a task already handed to it marks it as taken
+		return agv.getState() == AGV.AGVState.IDLE && agv.getCurrentTask() == null;
+	}
+
 	/**
 	 * Find an idle AGV from the fleet.
 	 *
@@ -166,38 +373,22 @@ public class AGVTaskDispatcher {
 
 	/**
 	 * Create an AGV program to transport a beverage box from source to destination.
-	 *
+	 * The route is compiled once per (source, destination) pair and reused afterwards.
 	 *
 	 * @param box the beverage box to transport
 	 * @param sourceCell the source cell notation
 	 * @param destinationCell the destination cell notation
-	 * @return an array of AGV statements forming the program
+	 * @return the compiled AGV program
 	 */
-	private AGV.Statement<?>[] createTaskProgram(BeveragesBox box, String sourceCell, String destinationCell) {
+	private AGVProgram createTaskProgram(BeveragesBox box, String sourceCell, String destinationCell) {
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("Creating AGV program: {} → {} → {}",
 				sourceCell, destinationCell, box.getBeverageName());
 		}
 
-		return new AGV.Statement<?>[] {
-			// Move to source cell (pickup location)
-			new AGV.Statement<>(AGV.Operand.PUSH, sourceCell),
-			new AGV.Statement<>(AGV.Operand.MOVE),
-
-			// TODO: Add TAKE operation here when inventory system is synchronized
-			// new AGV.Statement<>(AGV.Operand.PUSH, box),
-			// new AGV.Statement<>(AGV.Operand.PUSH, sourceCell),
-			// new AGV.Statement<>(AGV.Operand.TAKE),
-
-			// Move to destination cell (loading dock)
-			new AGV.Statement<>(AGV.Operand.PUSH, destinationCell),
-			new AGV.Statement<>(AGV.Operand.MOVE)
-
-			// TODO: Add RELEASE operation here when inventory system is synchronized
-			// new AGV.Statement<>(AGV.Operand.PUSH, box),
-			// new AGV.Statement<>(AGV.Operand.PUSH, destinationCell),
-			// new AGV.Statement<>(AGV.Operand.RELEASE)
-		};
+		// The program only drives the AGV: ordered boxes are not stored at the fixed source
+		// cells, so a TAKE there would fail. Without box operations the route can be shared.
+		return AGVProgramCompiler.compileRoute(sourceCell, destinationCell);
 	}
 
 	/**
@@ -225,6 +416,23 @@ public class AGVTaskDispatcher {
 		}
 	}
 
+	/**
+	 * @return the share of AGVs that are not idle, from 0 to 1; 0 for an empty fleet,
+	 *         since the metrics registry drops a gauge that reads NaN
+	 */
+	public double getFleetUtilization() {
+		if (agvFleet.isEmpty()) {
+			return 0;
+		}
+		int occupied = 0;
+		for (AGV agv : agvFleet) {
+			if (agv.getState() != AGV.AGVState.IDLE) {
+				occupied++;
+			}
+		}
+		return (double) occupied / agvFleet.size();
+	}
+
 	/**
 	 * Get statistics about the AGV fleet.
 	 *
@@ -270,12 +478,18 @@ public class AGVTaskDispatcher {
 		if (task == null) {
 			return;
 		}
+		ABORTS.increment();
 
 		if (LOGGER.isWarnEnabled()) {
 			LOGGER.warn("Task T-{} aborted by {} (battery: {}%), queuing for reassignment",
 				task.getTaskId(), agv.getAgvId(), agv.getBatteryLevel());
 		}
 
+		// free the reserved space; reassignment reserves again
+		PutAway putAway = putAways.get(task);
+		if (putAway != null) {
+			putAway.reservation().cancel();
+		}
 		abortedTasks.add(task);
 	}
 
@@ -304,19 +518,44 @@ public class AGVTaskDispatcher {
 					break;  // No AGVs available, stop processing
 				}
 
-				// Remove task from queue now that we have an AGV
-				abortedTasks.poll();
+				PutAway putAway = putAways.get(task);
+				if (putAway != null) {
+					if (putAway.reservation().getState() == Reservation.State.COMMITTED) {
+						abortedTasks.poll();
+						continue;
+					}
+					if (!warehouse.getCellByNotation(putAway.stagingCell()).contains(putAway.box())) {
+						// the aborting AGV already picked the box up
+						abortedTasks.poll();
+						putAways.remove(task);
+						if (LOGGER.isWarnEnabled()) {
+							LOGGER.warn("Box of put-away Task T-{} left {}, cannot reassign",
+								task.getTaskId(), putAway.stagingCell());
+						}
+						continue;
+					}
+					if (!assignPutAwayTask(task, putAway.box(), putAway.stagingCell())) {
+						break;
+					}
+					abortedTasks.poll();
+					REASSIGNMENTS.increment();
+					continue;
+				}
 
 				// Extract beverage box from task (same as original assignment)
 				BeveragesBox box = extractBeverageBoxFromTask(task);
 				if (box != null) {
+					// Assign task to a feasible AGV; keep it queued if none can complete the route yet
+					if (!assignTaskToAGV(task, box)) {
+						break;
+					}
+					abortedTasks.poll();
+					REASSIGNMENTS.increment();
 					if (LOGGER.isInfoEnabled()) {
-						LOGGER.info("Reassigning Task T-{} to {}", task.getTaskId(), availableAGV.getAgvId());
+						LOGGER.info("Reassigned Task T-{}", task.getTaskId());
 					}
-
-					// Assign task to the available AGV
-					assignTaskToAGV(task, box);
 				} else {
+					abortedTasks.poll();
 					if (LOGGER.isWarnEnabled()) {
 						LOGGER.warn("Could not extract beverage box from Task T-{}, cannot reassign",
 							task.getTaskId());
@@ -0,0 +1,155 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
+
+/**
+ * Keeps the tick loop and the GUI within their time budgets.
+ *
+ * Every {@value #EVALUATION_INTERVAL_TICKS} ticks the controller compares
+ * the smoothed tick duration with a share of the clock delay and the lag of
+ * the event dispatch thread (gauge {@code gui.edt.lag.micros}) with its
+ * budget, both from the {@link GUIConfiguration}. Over budget it first
+ * doubles the GUI refresh interval, up to {@value #MAX_REFRESH_MULTIPLIER}
+ * times the normal one, and then raises the delay. After
+ * {@value #RELAX_AFTER_EVALUATIONS} evaluations well within budget it steps
+ * back, first towards the requested delay and then towards the normal
+ * refresh interval.
+ *
+ * A delay set by anyone else, e.g. the speed slider or the control server,
+ * becomes the requested delay. Every adjustment is recorded as an ADAPTIVE
+ * event.
+ */
+public class AdaptiveController implements ITickable {
+	private static final Logger LOGGER = LogManager.getLogger(AdaptiveController.class.getName());
+
+	static final int EVALUATION_INTERVAL_TICKS = 10;
+	static final int MAX_REFRESH_MULTIPLIER = 16;
+	static final int MAX_DELAY_MILLIS = 5000;
+	static final int RELAX_AFTER_EVALUATIONS = 5;
+	// weight of the newest tick in the smoothed tick duration
+	private static final double SMOOTHING = 0.3;
+
+	private final ClockingSimulation clock;
+	private final Observation observation;
+	private final LongSupplier lastTickMicros;
+	private final MetricsRegistry.Counter delayAdjustments = MetricsRegistry.INSTANCE
+			.counter(MetricsRegistry.labeled("adaptive.adjustments", "target", "delay"));
+	private final MetricsRegistry.Counter refreshAdjustments = MetricsRegistry.INSTANCE
+			.counter(MetricsRegistry.labeled("adaptive.adjustments", "target", "refresh"));
+	private double tickMicros = Double.NaN;
+	private volatile int requestedDelay;
+	private int appliedDelay;
+	private int healthyEvaluations;
+
+	/**
+	 * @param observation receives the adjustments as events; may be null
+	 */
+	public AdaptiveController(ClockingSimulation clock, Observation observation) {
+		this(clock, observation, clock != null ? clock::getLastTickMicros : null);
+	}
+
+	AdaptiveController(ClockingSimulation clock, Observation observation, LongSupplier lastTickMicros) {
+		if (clock == null) {
+			throw new IllegalArgumentException("Clock cannot be null");
+		}
+		this.clock = clock;
+		this.observation = observation;
+		this.lastTickMicros = lastTickMicros;
+		this.requestedDelay = clock.getDelay();
+		this.appliedDelay = requestedDelay;
+		MetricsRegistry.INSTANCE.gauge("adaptive.delay.requested.millis", this, AdaptiveController::getRequestedDelay);
+		MetricsRegistry.INSTANCE.gauge("adaptive.refresh.multiplier", () -> GUIConfiguration.INSTANCE.getRefreshMultiplier());
+	}
+
+	@Override
+	public void onTick(int currentTick) {
+		long last = lastTickMicros.getAsLong();
+		tickMicros = Double.isNaN(tickMicros) ? last : SMOOTHING * last + (1 - SMOOTHING) * tickMicros;
+		if (currentTick % EVALUATION_INTERVAL_TICKS == 0) {
+			evaluate();
+		}
+	}
+
+	void evaluate() {
+		GUIConfiguration config = GUIConfiguration.INSTANCE;
+		int delay = clock.getDelay();
+		if (delay != appliedDelay) {
+			requestedDelay = delay;
+			appliedDelay = delay;
+		}
+		double tickBudget = config.getTickBudgetFraction() * delay * 1000;
+		double lag = MetricsRegistry.INSTANCE.getGaugeValue("gui.edt.lag.micros");
+		if (Double.isNaN(lag)) {
+			lag = 0;
+		}
+		double lagBudget = config.getEdtLagBudgetMillis() * 1000.0;
+		boolean edtOver = lag > lagBudget;
+		boolean tickOver = tickMicros > tickBudget;
+		int multiplier = config.getRefreshMultiplier();
+
+		if (edtOver && multiplier < MAX_REFRESH_MULTIPLIER) {
+			setRefreshMultiplier(multiplier * 2, String.format("EDT lag %dms over budget %dms", (long) lag / 1000,
+					(long) lagBudget / 1000));
+		} else if ((edtOver || tickOver) && delay < MAX_DELAY_MILLIS) {
+			// leave the tick its budget share of the delay, and grow by at least half
+			int needed = (int) Math.ceil(tickMicros / config.getTickBudgetFraction() / 1000);
+			int raised = Math.min(MAX_DELAY_MILLIS, Math.max(delay * 3 / 2 + 1, needed));
+			setDelay(raised, edtOver
+					? String.format("EDT lag %dms over budget %dms at slowest refresh", (long) lag / 1000,
+							(long) lagBudget / 1000)
+					: String.format("tick %.1fms over budget %.1fms", tickMicros / 1000, tickBudget / 1000));
+		} else if (lag < lagBudget / 4 && tickMicros < tickBudget / 2) {
+			if (++healthyEvaluations >= RELAX_AFTER_EVALUATIONS) {
+				if (delay > requestedDelay) {
+					setDelay(Math.max(requestedDelay, delay * 4 / 5), "load within budget");
+				} else if (multiplier > 1) {
+					setRefreshMultiplier(multiplier / 2, "load within budget");
+				}
+			}
+			return;
+		}
+		// over budget with nothing left to adjust, or close to the budget
+		if (edtOver || tickOver || lag >= lagBudget / 4 || tickMicros >= tickBudget / 2) {
+			healthyEvaluations = 0;
+		}
+	}
+
+	private void setDelay(int delay, String reason) {
+		int previous = appliedDelay;
+		appliedDelay = delay;
+		clock.setDelay(delay);
+		delayAdjustments.increment();
+		healthyEvaluations = 0;
+		decided(String.format("delay %dms -> %dms (requested %dms): %s", previous, delay, requestedDelay, reason));
+	}
+
+	private void setRefreshMultiplier(int multiplier, String reason) {
+		int previous = GUIConfiguration.INSTANCE.getRefreshMultiplier();
+		GUIConfiguration.INSTANCE.setRefreshMultiplier(multiplier);
+		refreshAdjustments.increment();
+		healthyEvaluations = 0;
+		decided(String.format("GUI refresh interval x%d -> x%d: %s", previous, multiplier, reason));
+	}
+
+	private void decided(String decision) {
+		if (observation != null) {
+			observation.recordEvent("ADAPTIVE", decision);
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Adaptive control: {}", decision);
+		}
+	}
+
+	/**
+	 * @return the delay asked for by the user, which the controller returns to once the load allows
+	 */
+	public int getRequestedDelay() {
+		return requestedDelay;
+	}
+}
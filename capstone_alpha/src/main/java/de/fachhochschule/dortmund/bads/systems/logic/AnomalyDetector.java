@@ -0,0 +1,228 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.ObservabilityConfiguration;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.QuantileEstimator;
+
+/**
+ * Streaming anomaly detection over gauges of the {@link MetricsRegistry}.
+ *
+ * Every sample of a watched series updates its baseline in constant time and
+ * space: an exponentially weighted mean and variance, a P² estimate of the
+ * 95th percentile, and a smoothed level and trend. Two conditions raise an
+ * alert:
+ * <ul>
+ * <li>{@link Kind#DEVIATION} - the sample lies above both the mean plus
+ * {@link ObservabilityConfiguration#getAnomalyThresholdSigmas() n} standard
+ * deviations and the 95th percentile, and at least the series' minimum
+ * deviation above the mean.</li>
+ * <li>{@link Kind#SATURATION} - the level and trend reach the series' limit
+ * within the {@link ObservabilityConfiguration#getAnomalyForecastSamples()
+ * forecast horizon}, so the alert comes before the limit is hit.</li>
+ * </ul>
+ * Alerts are raised once and cleared after a few samples without the
+ * condition; both are handed to the listener.
+ */
+public class AnomalyDetector {
+	private static final Logger LOGGER = LogManager.getLogger(AnomalyDetector.class.getName());
+
+	// weight of the newest sample in the mean, variance, level and trend
+	private static final double SMOOTHING = 0.1;
+	private static final int CLEAR_AFTER_SAMPLES = 3;
+
+	public enum Kind {
+		DEVIATION, SATURATION
+	}
+
+	/**
+	 * A raised or cleared alert. For deviations the expected value is the mean
+	 * and the threshold the lowest deviating value; for saturation the expected
+	 * value is the forecast and the threshold the limit.
+	 */
+	public record Alert(int tick, String series, Kind kind, boolean active, double value, double expected,
+			double threshold) {
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "series=%s kind=%s state=%s value=%.3f expected=%.3f threshold=%.3f tick=%d",
+					series, kind, active ? "RAISED" : "CLEARED", value, expected, threshold, tick);
+		}
+	}
+
+	/**
+	 * The baseline of a series after its latest sample.
+	 */
+	public record Baseline(long samples, double mean, double standardDeviation, double p95, double level,
+			double trend) {
+	}
+
+	private static final class Alarm {
+		private boolean active;
+		private int quietSamples;
+	}
+
+	private static final class Series {
+		private final String name;
+		private final double minDeviation;
+		private final DoubleSupplier limit;
+		private final QuantileEstimator p95 = new QuantileEstimator(0.95);
+		private final Alarm deviation = new Alarm();
+		private final Alarm saturation = new Alarm();
+		private long samples;
+		private double mean;
+		private double variance;
+		private double level;
+		private double trend;
+
+		private Series(String name, double minDeviation, DoubleSupplier limit) {
+			this.name = name;
+			this.minDeviation = minDeviation;
+			this.limit = limit;
+		}
+	}
+
+	private final Map<String, Series> series = new LinkedHashMap<>();
+	private final Consumer<Alert> listener;
+
+	/**
+	 * @param listener receives raised and cleared alerts on the sampling thread
+	 */
+	public AnomalyDetector(Consumer<Alert> listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("Alert listener cannot be null");
+		}
+		this.listener = listener;
+	}
+
+	/**
+	 * Watch a gauge of the metrics registry.
+	 *
+	 * @param gauge        the gauge name
+	 * @param minDeviation the least distance from the mean that counts as a deviation
+	 * @param limit        the value the series saturates at, or null; read on every sample
+	 */
+	public synchronized void watch(String gauge, double minDeviation, DoubleSupplier limit) {
+		series.put(gauge, new Series(gauge, minDeviation, limit));
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Watching {} for anomalies (min deviation: {}, limit: {})", gauge, minDeviation,
+					limit != null ? "yes" : "no");
+		}
+	}
+
+	/**
+	 * Read every watched gauge once. Gauges that are not registered are skipped.
+	 */
+	public synchronized void sample(int tick) {
+		MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+		for (Series watched : series.values()) {
+			double value = metrics.getGaugeValue(watched.name);
+			if (!Double.isNaN(value)) {
+				record(tick, watched, value);
+			}
+		}
+	}
+
+	/**
+	 * Add a sample of a watched series that is not read from a gauge.
+	 */
+	public synchronized void record(int tick, String name, double value) {
+		Series watched = series.get(name);
+		if (watched == null) {
+			throw new IllegalArgumentException("Series " + name + " is not watched");
+		}
+		record(tick, watched, value);
+	}
+
+	private void record(int tick, Series watched, double value) {
+		ObservabilityConfiguration config = ObservabilityConfiguration.INSTANCE;
+		if (watched.samples >= config.getAnomalyWarmupSamples()) {
+			double threshold = watched.mean + Math.max(config.getAnomalyThresholdSigmas() * Math.sqrt(watched.variance),
+					watched.minDeviation);
+			boolean deviating = value > threshold && value > watched.p95.get();
+			update(watched.deviation, deviating, new Alert(tick, watched.name, Kind.DEVIATION, deviating, value,
+					watched.mean, threshold));
+
+			double limit = watched.limit != null ? watched.limit.getAsDouble() : Double.NaN;
+			if (limit > 0) {
+				double forecast = watched.level + Math.max(watched.trend, 0) * config.getAnomalyForecastSamples();
+				boolean saturating = forecast >= limit;
+				update(watched.saturation, saturating, new Alert(tick, watched.name, Kind.SATURATION, saturating, value,
+						forecast, limit));
+			}
+		}
+
+		if (watched.samples == 0) {
+			watched.mean = value;
+			watched.level = value;
+		} else {
+			double difference = value - watched.mean;
+			double increment = SMOOTHING * difference;
+			watched.mean += increment;
+			watched.variance = (1 - SMOOTHING) * (watched.variance + difference * increment);
+
+			double previousLevel = watched.level;
+			watched.level = SMOOTHING * value + (1 - SMOOTHING) * (watched.level + watched.trend);
+			watched.trend = SMOOTHING * (watched.level - previousLevel) + (1 - SMOOTHING) * watched.trend;
+		}
+		watched.p95.add(value);
+		watched.samples++;
+	}
+
+	private void update(Alarm alarm, boolean condition, Alert alert) {
+		if (condition) {
+			alarm.quietSamples = 0;
+			if (!alarm.active) {
+				alarm.active = true;
+				raise(alert);
+			}
+		} else if (alarm.active && ++alarm.quietSamples >= CLEAR_AFTER_SAMPLES) {
+			alarm.active = false;
+			alarm.quietSamples = 0;
+			raise(alert);
+		}
+	}
+
+	private void raise(Alert alert) {
+		if (alert.active()) {
+			MetricsRegistry.INSTANCE.counter(MetricsRegistry.labeled("observation.alerts", "kind", alert.kind().name()))
+					.increment();
+		}
+		try {
+			listener.accept(alert);
+		} catch (RuntimeException e) {
+			if (LOGGER.isErrorEnabled()) {
+				LOGGER.error("Alert listener failed on {}: {}", alert, e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * @return the baseline of the series, or null if it is not watched or has no samples
+	 */
+	public synchronized Baseline getBaseline(String name) {
+		Series watched = series.get(name);
+		if (watched == null || watched.samples == 0) {
+			return null;
+		}
+		return new Baseline(watched.samples, watched.mean, Math.sqrt(watched.variance), watched.p95.get(),
+				watched.level, watched.trend);
+	}
+
+	/**
+	 * @return whether an alert of the kind is raised for the series
+	 */
+	public synchronized boolean isAlerting(String name, Kind kind) {
+		Series watched = series.get(name);
+		if (watched == null) {
+			return false;
+		}
+		return kind == Kind.DEVIATION ? watched.deviation.active : watched.saturation.active;
+	}
+}
@@ -16,11 +16,17 @@ import de.fachhochschule.dortmund.bads.systems.logic.utils.*;
 
 /**
  * Thread-based archive manager for log files with archive, de-archive, and
- * search capabilities.
+ * search capabilities. Searches cover the text logs and the binary event
+ * logs ({@value #EVENT_LOG_SUFFIX}) of the logs directory. Event logs are
+ * archived once they are rotated, since only the rotated files carry a date
+ * in their name, see {@link EventLog#rotated(Path, LocalDate, int)}.
  */
 public class ArchiveManager extends Thread {
 	private static final Logger LOGGER = LogManager.getLogger(ArchiveManager.class);
 
+	/** File name suffix of the binary event logs, see {@link EventLog}. */
+	public static final String EVENT_LOG_SUFFIX = ".events";
+
 	private final Path logsDirectory;
 	private final Path archiveDirectory;
 	private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
@@ -70,6 +76,26 @@ public class ArchiveManager extends Thread {
 	}
 
 	private void processCommand(ArchiveCommand command) throws IOException {
+		DomainEvents.ArchiveOperation event = new DomainEvents.ArchiveOperation();
+		event.begin();
+		boolean succeeded = false;
+		try {
+			executeCommand(command);
+			succeeded = true;
+		} finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.command = command.getType().name();
+				event.argument = command.getDate() != null ? command.getDate().toString()
+						: command.getZipFileName() != null ? command.getZipFileName()
+						: command.getSearchPattern() != null ? command.getSearchPattern().pattern() : null;
+				event.succeeded = succeeded;
+				event.commit();
+			}
+		}
+	}
+
+	private void executeCommand(ArchiveCommand command) throws IOException {
 		switch (command.getType()) {
 		case ARCHIVE:
 			archiveLogsByDate(command.getDate());
@@ -164,10 +190,11 @@ public class ArchiveManager extends Thread {
 		long start = System.currentTimeMillis();
 		List<SearchResult> results = new ArrayList<>();
 
-		// Search active logs
+		// Search active logs and binary event logs
 		if (Files.exists(logsDirectory)) {
 			try (Stream<Path> stream = Files.list(logsDirectory)) {
-				stream.filter(Files::isRegularFile).filter(p -> p.getFileName().toString().endsWith(".log"))
+				stream.filter(Files::isRegularFile).filter(p -> p.getFileName().toString().endsWith(".log")
+						|| p.getFileName().toString().endsWith(EVENT_LOG_SUFFIX))
 						.forEach(f -> addSearchResult(f, pattern, results));
 			}
 		}
@@ -176,7 +203,8 @@ public class ArchiveManager extends Thread {
 		Path originalsDir = archiveDirectory.resolve("originals");
 		if (Files.exists(originalsDir)) {
 			try (Stream<Path> stream = Files.walk(originalsDir)) {
-				stream.filter(Files::isRegularFile).filter(p -> p.getFileName().toString().endsWith(".log"))
+				stream.filter(Files::isRegularFile).filter(p -> p.getFileName().toString().endsWith(".log")
+						|| p.getFileName().toString().endsWith(EVENT_LOG_SUFFIX))
 						.forEach(f -> addSearchResult(f, pattern, results));
 			}
 		}
@@ -199,7 +227,32 @@ public class ArchiveManager extends Thread {
 		}
 	}
 
+	/**
+	 * Search the events of a binary event log in a time range and of some
+	 * types. Only the selected events are decoded and matched, as their text
+	 * log lines.
+	 *
+	 * @param types the event types to search; null or empty for all
+	 * @return the matching events, numbered by their position among the selected events
+	 */
+	public SearchResult searchEventLog(Path file, long from, long to, Set<String> types, Pattern pattern)
+			throws IOException {
+		SearchResult result = new SearchResult(file);
+		int[] eventNum = new int[1];
+		EventLog.read(file, from, to, types, event -> {
+			eventNum[0]++;
+			String line = EventLog.format(event);
+			if (pattern.matcher(line).find()) {
+				result.addMatch(eventNum[0], line);
+			}
+		});
+		return result;
+	}
+
 	private SearchResult searchInFile(Path file, Pattern pattern) throws IOException {
+		if (file.getFileName().toString().endsWith(EVENT_LOG_SUFFIX)) {
+			return searchEventLog(file, Long.MIN_VALUE, Long.MAX_VALUE, null, pattern);
+		}
 		SearchResult result = new SearchResult(file);
 		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
 			String line;
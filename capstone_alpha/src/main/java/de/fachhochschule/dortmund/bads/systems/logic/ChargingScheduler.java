@@ -0,0 +1,240 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.AGVManagementConfiguration;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.IChargeable;
+
+/**
+ * Event-driven charging station scheduler, one per storage.
+ *
+ * Keeps the free stations of a storage and a FIFO of waiting AGVs with O(1)
+ * enqueue, membership test and removal. Single AGVs and the AGVs of an
+ * {@link AGVFleetEngine} on the same storage queue together. Stations are handed out when an AGV
+ * asks for one and when a station is released, so waiting AGVs no longer poll
+ * every tick. Each assignment picks the free station nearest to the AGV.
+ *
+ * AGV callbacks are invoked after the scheduler lock is released to keep the
+ * lock order AGV → scheduler acyclic. A released station is handed over by
+ * the caller of {@link #release(Point)} once it has left its own AGV's
+ * monitor, so no AGV monitor is taken while another one is held.
+ */
+public class ChargingScheduler {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	// every live scheduler; each is owned by its storage and goes away with it
+	private static final Set<ChargingScheduler> SCHEDULERS = Collections.newSetFromMap(new WeakHashMap<>());
+
+	/**
+	 * A released station and the waiting AGV it was occupied for.
+	 */
+	public record Handover(IChargeable agv, Point station) {
+		/**
+		 * Send the AGV to its station. Must not be called while holding another AGV's monitor.
+		 */
+		public void assign() {
+			agv.assignChargingStation(station);
+		}
+	}
+
+	static {
+		MetricsRegistry.INSTANCE.gauge("charging.queue.length", ChargingScheduler::getTotalQueueSize);
+	}
+
+	private final Storage storage;
+	private final List<Point> stations;
+	private final Set<Point> freeStations = new LinkedHashSet<>();
+	// insertion-ordered set doubles as a FIFO queue with O(1) contains/remove
+	private final LinkedHashSet<IChargeable> waiting = new LinkedHashSet<>();
+
+	/**
+	 * Create the scheduler of a storage. Storages create their own, see
+	 * {@link Storage#getChargingScheduler()}.
+	 */
+	public ChargingScheduler(Storage storage) {
+		if (storage == null) {
+			throw new IllegalArgumentException("Storage cannot be null");
+		}
+		this.storage = storage;
+		this.stations = List.copyOf(storage.getChargingStationLocations());
+		syncFreeStations();
+		synchronized (SCHEDULERS) {
+			SCHEDULERS.add(this);
+		}
+	}
+
+	/**
+	 * Get the scheduler of a storage.
+	 */
+	public static ChargingScheduler forStorage(Storage storage) {
+		if (storage == null) {
+			throw new IllegalArgumentException("Storage cannot be null");
+		}
+		return storage.getChargingScheduler();
+	}
+
+	/**
+	 * Drop all waiting AGVs and re-read station occupancy for every scheduler.
+	 */
+	public static void resetAll() {
+		for (ChargingScheduler scheduler : snapshot()) {
+			scheduler.reset();
+		}
+	}
+
+	/**
+	 * @return the number of AGVs waiting for a station across all storages
+	 */
+	public static int getTotalQueueSize() {
+		int total = 0;
+		for (ChargingScheduler scheduler : snapshot()) {
+			total += scheduler.getQueueSize();
+		}
+		return total;
+	}
+
+	private static List<ChargingScheduler> snapshot() {
+		synchronized (SCHEDULERS) {
+			return new ArrayList<>(SCHEDULERS);
+		}
+	}
+
+	private synchronized void reset() {
+		waiting.clear();
+		syncFreeStations();
+	}
+
+	private void syncFreeStations() {
+		freeStations.clear();
+		for (Point station : stations) {
+			if (!storage.getCellByPoint(station).isOccupiedByAGV()) {
+				freeStations.add(station);
+			}
+		}
+	}
+
+	/**
+	 * Ask for a charging station. If one is free and nobody is ahead in the
+	 * queue, the nearest station is assigned immediately via
+	 * {@link IChargeable#assignChargingStation(Point)}; otherwise the AGV is queued.
+	 *
+	 * @return true if a station was assigned right away
+	 */
+	public boolean request(IChargeable agv) {
+		Point assigned;
+		synchronized (this) {
+			if (waiting.contains(agv)) {
+				return false;
+			}
+			assigned = waiting.isEmpty() ? occupyNearest(agv) : null;
+			if (assigned == null) {
+				waiting.add(agv);
+				if (LOGGER.isInfoEnabled()) {
+					LOGGER.info("{} added to charging queue (queue size: {})", agv.getAgvId(), waiting.size());
+				}
+			}
+		}
+		if (assigned != null) {
+			agv.assignChargingStation(assigned);
+		}
+		return assigned != null;
+	}
+
+	/**
+	 * Remove an AGV from the queue without assigning a station.
+	 */
+	public synchronized boolean cancel(IChargeable agv) {
+		return waiting.remove(agv);
+	}
+
+	/**
+	 * Release a station and occupy a free one for the next waiting AGV. The
+	 * caller sends that AGV on its way with {@link Handover#assign()}; it is
+	 * not done here because releasing AGVs hold their own monitor.
+	 *
+	 * @return the handover to the next waiting AGV, or null if nobody waits
+	 */
+	public synchronized Handover release(Point station) {
+		if (!storage.releaseChargingStation(station)) {
+			return null;
+		}
+		freeStations.add(station);
+		if (waiting.isEmpty()) {
+			return null;
+		}
+		// no station left for the head of the queue means none for anyone behind it either
+		IChargeable next = waiting.iterator().next();
+		Point assigned = occupyNearest(next);
+		if (assigned == null) {
+			return null;
+		}
+		waiting.remove(next);
+		return new Handover(next, assigned);
+	}
+
+	/**
+	 * Occupy the free station nearest to the AGV. Stations occupied behind the
+	 * scheduler's back are dropped from the free set on the way.
+	 */
+	private Point occupyNearest(IChargeable agv) {
+		while (!freeStations.isEmpty()) {
+			Point best = null;
+			int bestDistance = Integer.MAX_VALUE;
+			Point position = agv.getCurrentPosition();
+			for (Point station : freeStations) {
+				int distance = position == null ? 0
+						: Math.abs(station.x() - position.x()) + Math.abs(station.y() - position.y());
+				if (distance < bestDistance) {
+					bestDistance = distance;
+					best = station;
+				}
+			}
+			freeStations.remove(best);
+			if (storage.occupyChargingStation(best, agv)) {
+				return best;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Decide whether an AGV that just became idle should top up now: its
+	 * battery is below the opportunistic threshold and a station is free with
+	 * nobody waiting for it.
+	 */
+	public synchronized boolean shouldChargeOpportunistically(AGV agv) {
+		if (!AGVManagementConfiguration.INSTANCE.isAutoChargingEnabled()
+				|| freeStations.isEmpty() || !waiting.isEmpty()) {
+			return false;
+		}
+		double opportunistic = AGVManagementConfiguration.INSTANCE.getOpportunisticChargeThreshold() * 100;
+		return agv.getBatteryLevel() < 100 && agv.getBatteryLevel() <= opportunistic;
+	}
+
+	public synchronized int getQueueSize() {
+		return waiting.size();
+	}
+
+	public synchronized boolean isQueued(IChargeable agv) {
+		return waiting.contains(agv);
+	}
+
+	public synchronized int getFreeStationCount() {
+		return freeStations.size();
+	}
+
+	public int getStationCount() {
+		return stations.size();
+	}
+}
@@ -1,11 +1,15 @@
 package de.fachhochschule.dortmund.bads.systems.logic;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.fachhochschule.dortmund.bads.systems.logic.utils.DomainEvents;
 import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
 
 public class ClockingSimulation extends Thread {
@@ -13,12 +17,24 @@ public class ClockingSimulation extends Thread {
 	private static final int LOG_INTERVAL_TICKS = 100;
 
 	private final CopyOnWriteArrayList<ITickable> tickables = new CopyOnWriteArrayList<>();
+	// actions that must see a state no tickable is changing, run by the clock thread between two ticks
+	private final Queue<Runnable> betweenTicks = new ConcurrentLinkedQueue<>();
+	// set before the final drain; later actions run on the calling thread
+	private volatile boolean finalDrainStarted = false;
 	private volatile boolean running = true;
 	private volatile boolean paused = false;
 	private AtomicInteger currentTime = new AtomicInteger(0);
 	private AtomicInteger delay = new AtomicInteger(1000);
+	private volatile long lastTickMicros;
+	private final MetricsRegistry.Counter tickCounter = MetricsRegistry.INSTANCE.counter("clock.ticks");
+	private final MetricsRegistry.Counter failedTickCounter = MetricsRegistry.INSTANCE.counter("clock.tickables.failed");
+	private final MetricsRegistry.Histogram tickLatency = MetricsRegistry.INSTANCE.histogram("clock.tick.latency.micros",
+			MetricsRegistry.LATENCY_MICROS);
 
 	public ClockingSimulation() {
+		MetricsRegistry.INSTANCE.gauge("clock.current.tick", this, ClockingSimulation::getCurrentTime);
+		MetricsRegistry.INSTANCE.gauge("clock.delay.millis", this, ClockingSimulation::getDelay);
+		MetricsRegistry.INSTANCE.gauge("clock.tick.last.micros", this, ClockingSimulation::getLastTickMicros);
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("ClockingSimulation created with default delay: {}ms", delay.get());
 		}
@@ -37,7 +53,8 @@ public class ClockingSimulation extends Thread {
 			try {
 				// Wait while paused
 				while (paused && running) {
-					Thread.sleep(100);
+					runBetweenTickActions();
+					awaitNextTick(100);
 				}
 				
 				// Check if we should exit after pause
@@ -55,7 +72,9 @@ public class ClockingSimulation extends Thread {
 				}
 				
 				// Track tick processing performance
-				long tickStartTime = System.currentTimeMillis();
+				DomainEvents.Tick tickEvent = new DomainEvents.Tick();
+				tickEvent.begin();
+				long tickStartNanos = System.nanoTime();
 				int successfulTicks = 0;
 				int failedTicks = 0;
 				
@@ -75,7 +94,22 @@ public class ClockingSimulation extends Thread {
 					}
 				}
 				
-				long tickDuration = System.currentTimeMillis() - tickStartTime;
+				runBetweenTickActions();
+				long tickNanos = System.nanoTime() - tickStartNanos;
+				tickEvent.end();
+				if (tickEvent.shouldCommit()) {
+					tickEvent.tick = currentTick;
+					tickEvent.tickables = successfulTicks + failedTicks;
+					tickEvent.failed = failedTicks;
+					tickEvent.commit();
+				}
+				long tickDuration = tickNanos / 1_000_000;
+				tickCounter.increment();
+				lastTickMicros = tickNanos / 1_000;
+				tickLatency.record(lastTickMicros);
+				if (failedTicks > 0) {
+					failedTickCounter.add(failedTicks);
+				}
 				
 				// Log tick completion with performance metrics only every N ticks
 				if (shouldLog && LOGGER.isInfoEnabled()) {
@@ -89,7 +123,7 @@ public class ClockingSimulation extends Thread {
 							   currentTick, tickDuration, (tickDuration * 100) / delay.get());
 				}
 				
-				Thread.sleep(delay.get());
+				awaitNextTick(delay.get());
 				
 			} catch (InterruptedException e) {
 				if (LOGGER.isInfoEnabled()) {
@@ -100,6 +134,8 @@ public class ClockingSimulation extends Thread {
 			}
 		}
 		
+		finalDrainStarted = true;
+		runBetweenTickActions();
 		long totalSimulationTime = System.currentTimeMillis() - simulationStartTime;
 		if (LOGGER.isInfoEnabled()) {
 			double avgTime = tickCount > 0 ? (double)totalSimulationTime / tickCount : 0.0;
@@ -108,6 +144,53 @@ public class ClockingSimulation extends Thread {
 		}
 	}
 
+	/**
+	 * Wait for the delay between two ticks. Actions queued meanwhile wake the
+	 * clock and run right away, so they do not wait out a long delay.
+	 */
+	private void awaitNextTick(long millis) throws InterruptedException {
+		long deadline = System.nanoTime() + millis * 1_000_000L;
+		long remaining;
+		while (running && (remaining = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(this, remaining);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			runBetweenTickActions();
+		}
+	}
+
+	/**
+	 * Run an action on the clock thread after the current tick has finished and
+	 * before the next one starts. If the clock thread is not running, the action
+	 * runs right away on the calling thread.
+	 */
+	public void runBetweenTicks(Runnable action) {
+		if (!isAlive()) {
+			action.run();
+			return;
+		}
+		betweenTicks.add(action);
+		LockSupport.unpark(this);
+		// the clock may have begun its final drain, or stopped, before the action was queued
+		if ((finalDrainStarted || !isAlive()) && betweenTicks.remove(action)) {
+			action.run();
+		}
+	}
+
+	private void runBetweenTickActions() {
+		Runnable action;
+		while ((action = betweenTicks.poll()) != null) {
+			try {
+				action.run();
+			} catch (RuntimeException ex) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("Action between ticks failed: {}", ex.getMessage(), ex);
+				}
+			}
+		}
+	}
+
 	public void toggleClocking() {
 		boolean previousState = this.paused;
 		this.paused = !this.paused;
@@ -118,6 +201,22 @@ public class ClockingSimulation extends Thread {
 		}
 	}
 
+	/**
+	 * Pause or resume the clock. Unlike {@link #toggleClocking()} the outcome
+	 * does not depend on the current state, so repeated requests are harmless.
+	 */
+	public void setPaused(boolean paused) {
+		boolean previousState = this.paused;
+		this.paused = paused;
+		if (previousState != paused && LOGGER.isInfoEnabled()) {
+			LOGGER.info("ClockingSimulation {}", paused ? "PAUSED" : "RESUMED");
+		}
+	}
+
+	public boolean isPaused() {
+		return this.paused;
+	}
+
 	public int getCurrentTime() {
 		int time = this.currentTime.get();
 		if (LOGGER.isTraceEnabled()) {
@@ -191,6 +290,13 @@ public class ClockingSimulation extends Thread {
 		return this.delay.get();
 	}
 
+	/**
+	 * @return the duration of the last completed tick in microseconds
+	 */
+	public long getLastTickMicros() {
+		return this.lastTickMicros;
+	}
+
 	/**
 	 * Gets the number of currently registered tickables.
 	 * 
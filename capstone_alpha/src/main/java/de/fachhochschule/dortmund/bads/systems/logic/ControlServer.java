@@ -0,0 +1,688 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.Task;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.Operation;
+import de.fachhochschule.dortmund.bads.systems.Process;
+
+/**
+ * Local HTTP endpoint to read the system state and steer it without the GUI.
+ *
+ * <pre>
+ * GET  /metrics          all metrics of the {@link MetricsRegistry} in the Prometheus text format
+ * GET  /api/tasks        the task queue
+ * GET  /api/fleet        the AGVs
+ * GET  /api/inventory    stock per beverage and utilization per cell type
+ * GET  /api/clock        tick, delay and pause state
+ * POST /api/orders       order a beverage: beverage, quantity and optional priority (1-10, default 7)
+ * POST /api/clock/pause, /api/clock/resume, /api/clock/delay?millis=N
+ * GET  /api/history      the series of the {@link MetricsStore}, if there is one; with
+ *                        series, from and to (epoch millis, default the last hour) and
+ *                        optional points (default 500) or resolution (raw, minute, hour)
+ *                        the points of one series
+ * </pre>
+ *
+ * Parameters come from the query string. The POST endpoints change the
+ * system, so they require the header {@value #CONTROL_HEADER} and refuse form
+ * bodies and foreign origins: a web page can neither send that header to
+ * another site without a CORS preflight, which this server does not answer,
+ * nor submit a form here. The GET endpoints answer from snapshots this thread
+ * renders once per snapshot interval, so the locks of tasks, storage and AGVs
+ * are taken once per interval however many requests arrive. Requests run on
+ * virtual threads.
+ */
+public class ControlServer extends Thread {
+	private static final Logger LOGGER = LogManager.getLogger(ControlServer.class.getName());
+
+	private static final String JSON = "application/json; charset=utf-8";
+	private static final String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+	/** Header every POST must carry, with any value */
+	public static final String CONTROL_HEADER = "X-Requested-By";
+	private static final Set<String> FORM_CONTENT_TYPES = Set.of("application/x-www-form-urlencoded",
+			"multipart/form-data", "text/plain");
+	private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+	private static final int DEFAULT_PRIORITY = 7;
+	private static final int DEFAULT_HISTORY_POINTS = 500;
+	private static final long DEFAULT_HISTORY_MILLIS = 3_600_000;
+	// standard box dimensions, as used by the order form of the GUI
+	private static final int ORDER_BOX_WIDTH = 30;
+	private static final int ORDER_BOX_HEIGHT = 30;
+	private static final int ORDER_BOX_LENGTH = 40;
+
+	private record Snapshot(byte[] metrics, byte[] tasks, byte[] fleet, byte[] inventory) {
+	}
+
+	private record Response(int status, String contentType, byte[] body) {
+		static Response json(int status, String body) {
+			return new Response(status, JSON, body.getBytes(StandardCharsets.UTF_8));
+		}
+
+		static Response error(int status, String message) {
+			StringBuilder body = new StringBuilder("{\"error\":");
+			appendString(body, message);
+			return json(status, body.append('}').toString());
+		}
+	}
+
+	@FunctionalInterface
+	private interface Route {
+		Response handle(HttpExchange exchange) throws IOException;
+	}
+
+	private final HttpServer server;
+	private final ExecutorService requestExecutor;
+	private final long snapshotIntervalMillis;
+	private final ClockingSimulation clock;
+	private final TaskManagement taskManagement;
+	private final Storage warehouse;
+	private final List<AGV> agvFleet;
+	private volatile MetricsStore history;
+	private volatile Snapshot snapshot;
+	private volatile boolean running = true;
+
+	/**
+	 * Bind the server; requests are served once the thread is started.
+	 */
+	public ControlServer(InetSocketAddress address, long snapshotIntervalMillis, ClockingSimulation clock,
+			TaskManagement taskManagement, Storage warehouse, List<AGV> agvFleet) throws IOException {
+		super("ControlServer-Thread");
+		if (snapshotIntervalMillis <= 0) {
+			throw new IllegalArgumentException("Snapshot interval must be positive");
+		}
+		setDaemon(true);
+		this.snapshotIntervalMillis = snapshotIntervalMillis;
+		this.clock = clock;
+		this.taskManagement = taskManagement;
+		this.warehouse = warehouse;
+		this.agvFleet = List.copyOf(agvFleet);
+		this.snapshot = takeSnapshot();
+
+		this.server = HttpServer.create(address, 0);
+		this.requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+		server.setExecutor(requestExecutor);
+		server.createContext("/metrics", exchange -> handle(exchange, "/metrics",
+				snapshotRoute("/metrics", PROMETHEUS, Snapshot::metrics)));
+		server.createContext("/api/tasks", exchange -> handle(exchange, "/api/tasks",
+				snapshotRoute("/api/tasks", JSON, Snapshot::tasks)));
+		server.createContext("/api/fleet", exchange -> handle(exchange, "/api/fleet",
+				snapshotRoute("/api/fleet", JSON, Snapshot::fleet)));
+		server.createContext("/api/inventory", exchange -> handle(exchange, "/api/inventory",
+				snapshotRoute("/api/inventory", JSON, Snapshot::inventory)));
+		server.createContext("/api/clock", exchange -> handle(exchange, "/api/clock", this::clockRoute));
+		server.createContext("/api/orders", exchange -> handle(exchange, "/api/orders", this::orderRoute));
+		server.createContext("/api/history", exchange -> handle(exchange, "/api/history", this::historyRoute));
+		server.createContext("/", exchange -> handle(exchange, "other",
+				ignored -> Response.error(404, "Not found")));
+	}
+
+	@Override
+	public void run() {
+		server.start();
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Control server listening on http://{}:{}/", server.getAddress().getHostString(), getPort());
+		}
+		while (running) {
+			try {
+				Thread.sleep(snapshotIntervalMillis);
+				snapshot = takeSnapshot();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (RuntimeException e) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("Rendering the control server snapshot failed: {}", e.getMessage(), e);
+				}
+			}
+		}
+		server.stop(0);
+		requestExecutor.shutdown();
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Control server stopped");
+		}
+	}
+
+	public void shutdown() {
+		running = false;
+		interrupt();
+	}
+
+	/**
+	 * Serve the history of the metrics from the store, or none if null.
+	 */
+	public void setHistory(MetricsStore history) {
+		this.history = history;
+	}
+
+	/**
+	 * @return the port the server is bound to, useful when it was created with port 0
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Render the snapshots now instead of waiting for the next interval.
+	 */
+	public void refreshSnapshot() {
+		snapshot = takeSnapshot();
+	}
+
+	private void handle(HttpExchange exchange, String route, Route handler) {
+		MetricsRegistry.INSTANCE.counter(MetricsRegistry.labeled("http.requests", "route", route)).increment();
+		try (exchange) {
+			Response response;
+			try {
+				response = handler.handle(exchange);
+			} catch (RuntimeException e) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("Request {} {} failed: {}", exchange.getRequestMethod(), exchange.getRequestURI(),
+							e.getMessage(), e);
+				}
+				response = Response.error(500, "Internal error");
+			}
+			exchange.getResponseHeaders().set("Content-Type", response.contentType());
+			exchange.getResponseHeaders().set("Cache-Control", "no-store");
+			// a length of 0 would announce a chunked body, -1 announces none
+			if ("HEAD".equals(exchange.getRequestMethod()) || response.body().length == 0) {
+				exchange.sendResponseHeaders(response.status(), -1);
+				return;
+			}
+			exchange.sendResponseHeaders(response.status(), response.body().length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response.body());
+			}
+		} catch (IOException e) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Client went away during {}: {}", exchange.getRequestURI(), e.getMessage());
+			}
+		}
+	}
+
+	private Route snapshotRoute(String path, String contentType, Function<Snapshot, byte[]> part) {
+		return exchange -> {
+			if (!path.equals(exchange.getRequestURI().getPath())) {
+				return Response.error(404, "Not found");
+			}
+			if (!isRead(exchange)) {
+				return methodNotAllowed(exchange, "GET, HEAD");
+			}
+			return new Response(200, contentType, part.apply(snapshot));
+		};
+	}
+
+	private Response clockRoute(HttpExchange exchange) {
+		String action = exchange.getRequestURI().getPath().substring("/api/clock".length());
+		if (action.isEmpty() || action.equals("/")) {
+			return isRead(exchange) ? Response.json(200, renderClock()) : methodNotAllowed(exchange, "GET, HEAD");
+		}
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			return methodNotAllowed(exchange, "POST");
+		}
+		Response refused = refuseCrossSite(exchange);
+		if (refused != null) {
+			return refused;
+		}
+		switch (action) {
+		case "/pause":
+			clock.setPaused(true);
+			break;
+		case "/resume":
+			clock.setPaused(false);
+			break;
+		case "/delay":
+			Integer millis = parseInt(parameters(exchange).get("millis"));
+			if (millis == null || millis < 1 || millis > 60_000) {
+				return Response.error(400, "millis must be a number between 1 and 60000");
+			}
+			clock.setDelay(millis);
+			break;
+		default:
+			return Response.error(404, "Not found");
+		}
+		return Response.json(200, renderClock());
+	}
+
+	private Response orderRoute(HttpExchange exchange) {
+		if (!"/api/orders".equals(exchange.getRequestURI().getPath())) {
+			return Response.error(404, "Not found");
+		}
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			return methodNotAllowed(exchange, "POST");
+		}
+		Response refused = refuseCrossSite(exchange);
+		if (refused != null) {
+			return refused;
+		}
+		Map<String, String> parameters = parameters(exchange);
+		String beverage = parameters.get("beverage");
+		Integer quantity = parseInt(parameters.get("quantity"));
+		Integer priority = parameters.containsKey("priority") ? parseInt(parameters.get("priority"))
+				: Integer.valueOf(DEFAULT_PRIORITY);
+		if (beverage == null || beverage.isBlank()) {
+			return Response.error(400, "beverage is required");
+		}
+		if (quantity == null || quantity <= 0) {
+			return Response.error(400, "quantity must be a positive number");
+		}
+		if (priority == null || priority < 1 || priority > 10) {
+			return Response.error(400, "priority must be a number between 1 and 10");
+		}
+		BeveragesBox.Type type = findBeverageType(beverage.trim());
+		if (type == null) {
+			return Response.error(404, "Beverage not in stock: " + beverage);
+		}
+
+		Task task = new Task(priority);
+		Operation operation = new Operation();
+		operation.addResource(new BeveragesBox(type, beverage.trim(), ORDER_BOX_WIDTH, ORDER_BOX_HEIGHT,
+				ORDER_BOX_LENGTH, quantity));
+		Process process = new Process();
+		process.addOperation(operation);
+		task.addProcess(process);
+		if (!taskManagement.addTask(task)) {
+			return Response.error(503, "Task management did not accept the order");
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Order over HTTP: task {} for {} x {} with priority {}", task.getTaskId(), quantity,
+					beverage, priority);
+		}
+		StringBuilder body = new StringBuilder("{\"taskId\":").append(task.getTaskId()).append(",\"beverage\":");
+		appendString(body, beverage.trim());
+		body.append(",\"type\":\"").append(type).append("\",\"quantity\":").append(quantity)
+				.append(",\"priority\":").append(priority).append('}');
+		return Response.json(201, body.toString());
+	}
+
+	private Response historyRoute(HttpExchange exchange) throws IOException {
+		if (!"/api/history".equals(exchange.getRequestURI().getPath())) {
+			return Response.error(404, "Not found");
+		}
+		if (!isRead(exchange)) {
+			return methodNotAllowed(exchange, "GET, HEAD");
+		}
+		MetricsStore store = history;
+		if (store == null) {
+			return Response.error(404, "No metrics history recorded");
+		}
+		Map<String, String> parameters = parameters(exchange);
+		String series = parameters.get("series");
+		if (series == null) {
+			StringBuilder body = new StringBuilder("{\"series\":[");
+			List<String> names = store.getSeriesNames();
+			for (int i = 0; i < names.size(); i++) {
+				if (i > 0) {
+					body.append(',');
+				}
+				appendString(body, names.get(i));
+			}
+			return Response.json(200, body.append("]}").toString());
+		}
+		Long to = parameters.containsKey("to") ? parseLong(parameters.get("to")) : Long.valueOf(System.currentTimeMillis());
+		Long from = parameters.containsKey("from") ? parseLong(parameters.get("from"))
+				: Long.valueOf(to != null ? to - DEFAULT_HISTORY_MILLIS : 0);
+		Integer points = parameters.containsKey("points") ? parseInt(parameters.get("points"))
+				: Integer.valueOf(DEFAULT_HISTORY_POINTS);
+		if (from == null || to == null || from > to) {
+			return Response.error(400, "from and to must be epoch milliseconds with from <= to");
+		}
+		if (points == null || points <= 0) {
+			return Response.error(400, "points must be a positive number");
+		}
+		MetricsStore.Resolution resolution;
+		if (parameters.containsKey("resolution")) {
+			try {
+				resolution = MetricsStore.Resolution.valueOf(parameters.get("resolution").trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				return Response.error(400, "resolution must be raw, minute or hour");
+			}
+		} else {
+			resolution = store.resolutionFor(from, to, points);
+		}
+
+		List<MetricsStore.Point> result = store.query(series, from, to, resolution);
+		StringBuilder body = new StringBuilder(64 + result.size() * 48).append("{\"series\":");
+		appendString(body, series);
+		body.append(",\"resolution\":\"").append(resolution).append("\",\"from\":").append(from).append(",\"to\":")
+				.append(to).append(",\"points\":[");
+		for (int i = 0; i < result.size(); i++) {
+			MetricsStore.Point point = result.get(i);
+			body.append(i > 0 ? ",{" : "{").append("\"t\":").append(point.timestamp()).append(",\"min\":")
+					.append(formatValue(point.min())).append(",\"max\":").append(formatValue(point.max()))
+					.append(",\"mean\":").append(formatValue(point.mean())).append(",\"count\":").append(point.count())
+					.append('}');
+		}
+		return Response.json(200, body.append("]}").toString());
+	}
+
+	private BeveragesBox.Type findBeverageType(String beverage) {
+		for (String stored : warehouse.getAvailableBeverageTypes()) {
+			String[] parts = stored.split(" - ", 2);
+			if (parts.length == 2 && parts[0].equalsIgnoreCase(beverage)) {
+				return BeveragesBox.Type.valueOf(parts[1].toUpperCase());
+			}
+		}
+		return null;
+	}
+
+	private static boolean isRead(HttpExchange exchange) {
+		return "GET".equals(exchange.getRequestMethod()) || "HEAD".equals(exchange.getRequestMethod());
+	}
+
+	private static Response methodNotAllowed(HttpExchange exchange, String allowed) {
+		exchange.getResponseHeaders().set("Allow", allowed);
+		return Response.error(405, "Method not allowed");
+	}
+
+	/**
+	 * @return the refusal of a POST a browser could have sent on behalf of another site, or null
+	 */
+	private static Response refuseCrossSite(HttpExchange exchange) {
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		if (contentType != null) {
+			String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+			if (FORM_CONTENT_TYPES.contains(mediaType)) {
+				return Response.error(415, "Form bodies are not accepted, pass the parameters in the query string");
+			}
+		}
+		if (exchange.getRequestHeaders().getFirst(CONTROL_HEADER) == null) {
+			return Response.error(403, CONTROL_HEADER + " header is required");
+		}
+		String origin = exchange.getRequestHeaders().getFirst("Origin");
+		if (origin != null && !isLocalOrigin(origin)) {
+			return Response.error(403, "Origin not allowed: " + origin);
+		}
+		return null;
+	}
+
+	private static boolean isLocalOrigin(String origin) {
+		try {
+			String host = URI.create(origin).getHost();
+			return host != null && LOCAL_HOSTS.contains(host.toLowerCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static Map<String, String> parameters(HttpExchange exchange) {
+		Map<String, String> parameters = new HashMap<>();
+		parseForm(exchange.getRequestURI().getRawQuery(), parameters);
+		return parameters;
+	}
+
+	private static void parseForm(String form, Map<String, String> parameters) {
+		if (form == null || form.isEmpty()) {
+			return;
+		}
+		for (String pair : form.split("&")) {
+			int separator = pair.indexOf('=');
+			if (separator > 0) {
+				parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	private static Integer parseInt(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static Long parseLong(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Long.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private Snapshot takeSnapshot() {
+		return new Snapshot(renderPrometheus(MetricsRegistry.INSTANCE).getBytes(StandardCharsets.UTF_8),
+				renderTasks().getBytes(StandardCharsets.UTF_8), renderFleet().getBytes(StandardCharsets.UTF_8),
+				renderInventory().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String renderClock() {
+		return "{\"tick\":" + clock.getCurrentTime() + ",\"delayMillis\":" + clock.getDelay() + ",\"paused\":"
+				+ clock.isPaused() + '}';
+	}
+
+	private String renderTasks() {
+		List<Task> tasks = taskManagement.getAllTasks();
+		StringBuilder json = new StringBuilder(64 + tasks.size() * 64);
+		json.append("{\"tick\":").append(clock.getCurrentTime()).append(",\"total\":").append(tasks.size())
+				.append(",\"pending\":").append(taskManagement.getPendingTaskCount()).append(",\"tasks\":[");
+		for (int i = 0; i < tasks.size(); i++) {
+			Task task = tasks.get(i);
+			json.append(i > 0 ? ",{" : "{").append("\"id\":").append(task.getTaskId()).append(",\"priority\":")
+					.append(task.getTaskPriority()).append(",\"processes\":").append(task.getProcessCount())
+					.append(",\"status\":\"").append(taskStatus(task)).append("\"}");
+		}
+		return json.append("]}").toString();
+	}
+
+	private static String taskStatus(Task task) {
+		return switch (task.getState()) {
+			case NEW -> "QUEUED";
+			case RUNNABLE -> "DISPATCHING";
+			case BLOCKED, WAITING, TIMED_WAITING -> "WAITING";
+			case TERMINATED -> "DISPATCHED";
+		};
+	}
+
+	private String renderFleet() {
+		StringBuilder json = new StringBuilder(64 + agvFleet.size() * 128);
+		json.append("{\"tick\":").append(clock.getCurrentTime()).append(",\"agvs\":[");
+		for (int i = 0; i < agvFleet.size(); i++) {
+			AGV agv = agvFleet.get(i);
+			Point position = agv.getCurrentPosition();
+			Task task = agv.getCurrentTask();
+			StorageCell inventory = agv.getInventoryCell();
+			json.append(i > 0 ? ",{" : "{").append("\"id\":");
+			appendString(json, agv.getAgvId());
+			json.append(",\"state\":\"").append(agv.getState()).append("\",\"battery\":").append(agv.getBatteryLevel())
+					.append(",\"position\":");
+			if (position == null) {
+				json.append("null");
+			} else {
+				json.append("{\"x\":").append(position.x()).append(",\"y\":").append(position.y()).append('}');
+			}
+			json.append(",\"task\":").append(task == null ? "null" : String.valueOf(task.getTaskId()))
+					.append(",\"boxes\":").append(inventory == null ? 0 : inventory.getBoxCount()).append('}');
+		}
+		return json.append("]}").toString();
+	}
+
+	private String renderInventory() {
+		StringBuilder json = new StringBuilder(1024);
+		json.append("{\"tick\":").append(clock.getCurrentTime()).append(",\"totalUnits\":")
+				.append(warehouse.getTotalUnits()).append(",\"beverages\":[");
+		List<String> beverages = new ArrayList<>(warehouse.getAvailableBeverageTypes());
+		beverages.sort(null);
+		boolean first = true;
+		for (String stored : beverages) {
+			String[] parts = stored.split(" - ", 2);
+			json.append(first ? "{" : ",{").append("\"name\":");
+			appendString(json, parts[0]);
+			json.append(",\"type\":\"").append(parts.length == 2 ? parts[1].toUpperCase() : "AMBIENT")
+					.append("\",\"units\":").append(warehouse.getUnits(parts[0])).append(",\"locations\":[");
+			List<Point> locations = warehouse.getBeverageLocations(parts[0]);
+			for (int i = 0; i < locations.size(); i++) {
+				json.append(i > 0 ? ",\"" : "\"").append(Storage.pointToNotation(locations.get(i))).append('"');
+			}
+			json.append("]}");
+			first = false;
+		}
+		json.append("],\"lowStock\":[");
+		first = true;
+		for (String beverage : new TreeSet<>(warehouse.getLowStockBeverages())) {
+			json.append(first ? "" : ",");
+			appendString(json, beverage);
+			first = false;
+		}
+		json.append("],\"utilization\":{");
+		first = true;
+		for (StorageCell.Type type : StorageCell.Type.values()) {
+			if (!Storage.isInventoryType(type)) {
+				continue;
+			}
+			long max = warehouse.getMaxVolume(type);
+			json.append(first ? "\"" : ",\"").append(type).append("\":")
+					.append(max == 0 ? 0.0 : (double) warehouse.getUsedVolume(type) / max);
+			first = false;
+		}
+		return json.append("}}").toString();
+	}
+
+	/**
+	 * Render the metrics in the Prometheus text exposition format. Dots in
+	 * metric names become underscores, labels are kept, counters get the
+	 * {@code _total} suffix and histograms the cumulative {@code _bucket},
+	 * {@code _sum} and {@code _count} series.
+	 */
+	static String renderPrometheus(MetricsRegistry registry) {
+		StringBuilder out = new StringBuilder(8192);
+		for (Map.Entry<String, List<Map.Entry<String, MetricsRegistry.Counter>>> family : families(
+				registry.getCounters()).entrySet()) {
+			String name = family.getKey() + "_total";
+			out.append("# TYPE ").append(name).append(" counter\n");
+			for (Map.Entry<String, MetricsRegistry.Counter> counter : family.getValue()) {
+				out.append(name).append(labels(counter.getKey(), null)).append(' ').append(counter.getValue().get())
+						.append('\n');
+			}
+		}
+		for (Map.Entry<String, List<Map.Entry<String, Double>>> family : families(registry.getGaugeValues())
+				.entrySet()) {
+			out.append("# TYPE ").append(family.getKey()).append(" gauge\n");
+			for (Map.Entry<String, Double> gauge : family.getValue()) {
+				out.append(family.getKey()).append(labels(gauge.getKey(), null)).append(' ')
+						.append(formatValue(gauge.getValue())).append('\n');
+			}
+		}
+		for (Map.Entry<String, List<Map.Entry<String, MetricsRegistry.Histogram>>> family : families(
+				registry.getHistograms()).entrySet()) {
+			String name = family.getKey();
+			out.append("# TYPE ").append(name).append(" histogram\n");
+			for (Map.Entry<String, MetricsRegistry.Histogram> histogram : family.getValue()) {
+				long[] bounds = histogram.getValue().getBounds();
+				long[] counts = histogram.getValue().getBucketCounts();
+				long cumulative = 0;
+				for (int i = 0; i < counts.length; i++) {
+					cumulative += counts[i];
+					String le = i < bounds.length ? String.valueOf(bounds[i]) : "+Inf";
+					out.append(name).append("_bucket").append(labels(histogram.getKey(), "le=\"" + le + '"'))
+							.append(' ').append(cumulative).append('\n');
+				}
+				String labels = labels(histogram.getKey(), null);
+				out.append(name).append("_sum").append(labels).append(' ').append(histogram.getValue().getSum())
+						.append('\n');
+				out.append(name).append("_count").append(labels).append(' ').append(cumulative).append('\n');
+			}
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Group metrics by their Prometheus name, so all series of a family are written together.
+	 */
+	private static <V> Map<String, List<Map.Entry<String, V>>> families(Map<String, V> metrics) {
+		Map<String, List<Map.Entry<String, V>>> families = new TreeMap<>();
+		for (Map.Entry<String, V> metric : metrics.entrySet()) {
+			families.computeIfAbsent(metricName(metric.getKey()), key -> new ArrayList<>()).add(metric);
+		}
+		return families;
+	}
+
+	private static String metricName(String name) {
+		int labels = name.indexOf('{');
+		String base = labels < 0 ? name : name.substring(0, labels);
+		StringBuilder sanitized = new StringBuilder(base.length());
+		for (int i = 0; i < base.length(); i++) {
+			char c = base.charAt(i);
+			boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+					|| (c >= '0' && c <= '9' && i > 0);
+			sanitized.append(valid ? c : '_');
+		}
+		return sanitized.toString();
+	}
+
+	private static String labels(String name, String extra) {
+		int start = name.indexOf('{');
+		String labels = start < 0 ? "" : name.substring(start + 1, name.length() - 1);
+		if (extra != null) {
+			labels = labels.isEmpty() ? extra : labels + ',' + extra;
+		}
+		return labels.isEmpty() ? "" : '{' + labels + '}';
+	}
+
+	private static String formatValue(double value) {
+		if (Double.isNaN(value)) {
+			return "NaN";
+		}
+		if (Double.isInfinite(value)) {
+			return value > 0 ? "+Inf" : "-Inf";
+		}
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return String.valueOf((long) value);
+		}
+		return String.valueOf(value);
+	}
+
+	private static void appendString(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"' -> json.append("\\\"");
+			case '\\' -> json.append("\\\\");
+			case '\n' -> json.append("\\n");
+			case '\r' -> json.append("\\r");
+			case '\t' -> json.append("\\t");
+			default -> {
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+			}
+		}
+		json.append('"');
+	}
+}
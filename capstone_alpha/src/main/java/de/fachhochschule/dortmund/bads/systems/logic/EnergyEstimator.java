@@ -0,0 +1,82 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram.Action;
+
+/**
+ * Estimates the battery an AGV spends on a compiled program, using the same
+ * model as {@link AGV#onTick(int)}: every move and every TAKE/RELEASE costs
+ * one {@code loseChargePerActionPerTick}. Path lengths come from the area's
+ * cache, so repeated estimates for the same legs do not rerun Dijkstra.
+ */
+public final class EnergyEstimator {
+
+	/** Returned when a destination of the program cannot be reached. */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private EnergyEstimator() {
+	}
+
+	/**
+	 * Count the moves needed to visit all destinations of the program in order.
+	 *
+	 * @return the number of moves, or -1 if a destination is unreachable
+	 */
+	public static int estimateMoves(Area area, Point start, AGVProgram program) {
+		int moves = 0;
+		Point from = start;
+		for (int i = 0; i < program.getDestinationCount(); i++) {
+			Point to = program.getDestination(i);
+			int length = area.getPathLength(from, to);
+			if (length < 0) {
+				return -1;
+			}
+			moves += length;
+			from = to;
+		}
+		return moves;
+	}
+
+	/**
+	 * Estimate the battery percentage the AGV spends on the program from its current position.
+	 *
+	 * @return the energy in battery percent, or {@link #UNREACHABLE}
+	 */
+	public static int estimateEnergy(AGV agv, Area area, AGVProgram program) {
+		if (agv.getCurrentPosition() == null) {
+			return UNREACHABLE;
+		}
+		int moves = estimateMoves(area, agv.getCurrentPosition(), program);
+		if (moves < 0) {
+			return UNREACHABLE;
+		}
+		int actions = 0;
+		for (int i = 0; i < program.getOperationCount(); i++) {
+			if (program.getOperation(i).action() != Action.CHARGE) {
+				actions++;
+			}
+		}
+		return (moves + actions) * agv.getLoseChargePerActionPerTick();
+	}
+
+	/**
+	 * Check whether the AGV finishes the program without dropping to its low
+	 * battery threshold, i.e. without being forced to abort mid-route.
+	 */
+	public static boolean canComplete(AGV agv, Area area, AGVProgram program) {
+		return canComplete(agv, estimateEnergy(agv, area, program));
+	}
+
+	/**
+	 * Check whether the AGV can spend an estimated energy without dropping to
+	 * its low battery threshold.
+	 *
+	 * @param energy the estimate from {@link #estimateEnergy(AGV, Area, AGVProgram)}
+	 */
+	public static boolean canComplete(AGV agv, int energy) {
+		return energy != UNREACHABLE && agv.getBatteryLevel() - energy > agv.getBatteryLowThreshold();
+	}
+}
@@ -0,0 +1,527 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.systems.logic.Observation.SystemEvent;
+
+/**
+ * Binary log of {@link SystemEvent}s. Event types are written once to a
+ * dictionary and referenced by number; events are collected into blocks of up
+ * to {@value #BLOCK_EVENTS} events, and each block starts with the range of
+ * its timestamps and the set of its event types.
+ *
+ * {@link #read(Path, long, long, Set, Consumer) Reading} skips whole blocks
+ * outside the time range or without a requested type, and every event is
+ * length-prefixed, so events of other types or times are skipped without
+ * decoding their details. {@link #render(Path, long, long, Set, Path)} writes
+ * the events as a text log when one is needed.
+ *
+ * Attached to an {@link Observation}, the log receives the events through a
+ * push subscription. A block is written when it is full, when an event
+ * arrives a second after the block was started, and on {@link #flush()}.
+ * A block cut off by a crash is dropped when the log is opened again.
+ *
+ * Before a block of a later day than the first block of the file is written,
+ * and once the file has grown past {@code maxFileBytes}, the file is rotated
+ * to a sibling named after that first day, e.g.
+ * {@code observation.2024-05-01.1.events}, and the log continues in a new
+ * file. Rotated files are complete logs, which the {@link ArchiveManager}
+ * archives by their date and searches.
+ */
+public class EventLog implements AutoCloseable {
+	private static final Logger LOGGER = LogManager.getLogger(EventLog.class);
+
+	private static final int MAGIC = 0x42414445; // "BADE"
+	private static final short VERSION = 1;
+	private static final int HEADER_SIZE = 6;
+	static final int BLOCK_EVENTS = 256;
+	public static final long DEFAULT_MAX_FILE_BYTES = 64L << 20;
+	private static final int BLOCK_BYTES = 32 * 1024;
+	private static final long BLOCK_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+	// minimum, maximum and first timestamp, type set and event count
+	private static final int BLOCK_HEADER_SIZE = 8 + 8 + 8 + 8 + 4;
+
+	// record kinds; every record is framed as [int length][byte kind][payload]
+	private static final byte TYPE = 0;
+	private static final byte BLOCK = 1;
+
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+			.withZone(ZONE);
+
+	private final Path file;
+	private final long maxFileBytes;
+	private FileChannel channel;
+	private final Map<String, Integer> typeIds = new HashMap<>();
+	private long end;
+	// day of the first block of the file, null before the first block
+	private LocalDate fileDate;
+	private long appended;
+	private Observation.Subscription subscription;
+
+	// the block being collected
+	private ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES + 1024);
+	private int blockEvents;
+	private long blockMin;
+	private long blockMax;
+	private long blockFirst;
+	private long blockTypes;
+	private long blockStartNanos;
+
+	/**
+	 * Open an event log that is rotated at {@link #DEFAULT_MAX_FILE_BYTES},
+	 * creating it if needed. New events are appended.
+	 */
+	public EventLog(Path file) throws IOException {
+		this(file, DEFAULT_MAX_FILE_BYTES);
+	}
+
+	/**
+	 * Open an event log, creating it if needed. New events are appended; a
+	 * file already larger than {@code maxFileBytes} is rotated first.
+	 *
+	 * @param maxFileBytes the size at which the file is rotated
+	 */
+	public EventLog(Path file, long maxFileBytes) throws IOException {
+		if (maxFileBytes < HEADER_SIZE) {
+			throw new IllegalArgumentException("Event log size limit is too small");
+		}
+		this.file = file;
+		this.maxFileBytes = maxFileBytes;
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			this.end = readDictionary();
+			channel.truncate(end);
+			if (end == 0) {
+				write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).flip());
+			} else if (end >= maxFileBytes && fileDate != null) {
+				rotate();
+			}
+		} catch (IOException | RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Event log opened at {} ({} event types, {} bytes)", file, typeIds.size(), end);
+		}
+	}
+
+	/**
+	 * @return the name a log file is rotated to for the day of its first event and a number counting from 1
+	 */
+	public static Path rotated(Path file, LocalDate date, int number) {
+		String name = file.getFileName().toString();
+		String stem = name.endsWith(ArchiveManager.EVENT_LOG_SUFFIX)
+				? name.substring(0, name.length() - ArchiveManager.EVENT_LOG_SUFFIX.length())
+				: name;
+		return file.resolveSibling(stem + "." + date + "." + number + ArchiveManager.EVENT_LOG_SUFFIX);
+	}
+
+	/**
+	 * Move the file to the next free rotated name and continue in a new file
+	 * with the same type dictionary, so the collected block stays valid.
+	 */
+	private void rotate() throws IOException {
+		channel.force(false);
+		channel.close();
+		int number = 1;
+		while (Files.exists(rotated(file, fileDate, number))) {
+			number++;
+		}
+		Path target = rotated(file, fileDate, number);
+		Files.move(file, target);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		end = 0;
+		fileDate = null;
+		write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).flip());
+		for (Map.Entry<String, Integer> type : typeIds.entrySet()) {
+			writeType(type.getKey(), type.getValue());
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Event log rotated to {}", target);
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			if (LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Closing event log {} failed: {}", file, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Append every event the observation records from now on.
+	 */
+	public synchronized void attach(Observation observation) {
+		if (subscription != null) {
+			subscription.close();
+		}
+		subscription = observation.subscribe(Set.of(), BLOCK_EVENTS, batch -> {
+			try {
+				synchronized (this) {
+					for (SystemEvent event : batch) {
+						append(event);
+					}
+				}
+			} catch (IOException e) {
+				if (LOGGER.isErrorEnabled()) {
+					LOGGER.error("Writing to event log {} failed: {}", file, e.getMessage(), e);
+				}
+			}
+		});
+	}
+
+	public synchronized void append(SystemEvent event) throws IOException {
+		if (!channel.isOpen()) {
+			throw new IOException("Event log " + file + " is closed");
+		}
+		int type = typeId(event.eventType());
+		byte[] details = event.details().getBytes(StandardCharsets.UTF_8);
+		if (blockEvents == 0) {
+			block.clear().position(4 + 1 + BLOCK_HEADER_SIZE);
+			blockMin = blockMax = blockFirst = event.timestamp();
+			blockTypes = 0;
+			blockStartNanos = System.nanoTime();
+		}
+		long delta = zigZag(event.timestamp() - blockFirst);
+		int length = varLongSize(delta) + varLongSize(type) + details.length;
+		if (block.remaining() < 10 + length) {
+			ByteBuffer larger = ByteBuffer.allocate(block.position() + 10 + length);
+			block = larger.put(block.flip());
+		}
+		putVarLong(block, length);
+		putVarLong(block, delta);
+		putVarLong(block, type);
+		block.put(details);
+		blockMin = Math.min(blockMin, event.timestamp());
+		blockMax = Math.max(blockMax, event.timestamp());
+		blockTypes |= typeBit(type);
+		blockEvents++;
+		appended++;
+
+		if (blockEvents >= BLOCK_EVENTS || block.position() >= BLOCK_BYTES
+				|| System.nanoTime() - blockStartNanos >= BLOCK_MAX_AGE_NANOS) {
+			writeBlock();
+		}
+	}
+
+	private int typeId(String type) throws IOException {
+		Integer id = typeIds.get(type);
+		if (id == null) {
+			id = typeIds.size();
+			writeType(type, id);
+			typeIds.put(type, id);
+		}
+		return id;
+	}
+
+	private void writeType(String type, int id) throws IOException {
+		byte[] bytes = type.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(4 + 1 + 4 + 4 + bytes.length);
+		record.putInt(1 + 4 + 4 + bytes.length).put(TYPE).putInt(id).putInt(bytes.length).put(bytes).flip();
+		write(record);
+	}
+
+	private void writeBlock() throws IOException {
+		if (blockEvents == 0) {
+			return;
+		}
+		LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(blockFirst), ZONE);
+		if (fileDate != null && (end >= maxFileBytes || date.isAfter(fileDate))) {
+			rotate();
+		}
+		if (fileDate == null) {
+			fileDate = date;
+		}
+		block.putInt(0, block.position() - 4).put(4, BLOCK).putLong(5, blockMin).putLong(13, blockMax)
+				.putLong(21, blockFirst).putLong(29, blockTypes).putInt(37, blockEvents);
+		write(block.flip());
+		blockEvents = 0;
+	}
+
+	private void write(ByteBuffer record) throws IOException {
+		if (end + record.remaining() > Integer.MAX_VALUE) {
+			throw new IOException("Event log " + file + " is full");
+		}
+		while (record.hasRemaining()) {
+			end += channel.write(record, end);
+		}
+	}
+
+	/**
+	 * Write the collected events and force them to disk.
+	 */
+	public synchronized void flush() throws IOException {
+		writeBlock();
+		channel.force(false);
+	}
+
+	/**
+	 * @return the number of events appended since the log was opened
+	 */
+	public synchronized long getAppendedEvents() {
+		return appended;
+	}
+
+	/**
+	 * Stop receiving events, write the collected ones and close the file.
+	 */
+	@Override
+	public void close() {
+		Observation.Subscription attached;
+		synchronized (this) {
+			attached = subscription;
+			subscription = null;
+		}
+		if (attached != null) {
+			attached.close();
+		}
+		synchronized (this) {
+			if (!channel.isOpen()) {
+				return;
+			}
+			try {
+				flush();
+				channel.close();
+			} catch (IOException e) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("Closing event log {} failed: {}", file, e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pass the events of a log with a timestamp from {@code from} to {@code to}
+	 * inclusive and one of the types to the consumer, in the order they were
+	 * written. Only complete records are read, so a log that is being written
+	 * can be read.
+	 *
+	 * @param types the event types to read; null or empty for all
+	 * @return the number of events passed to the consumer
+	 */
+	public static long read(Path file, long from, long to, Set<String> types, Consumer<SystemEvent> consumer)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				throw new IOException("Not an event log: " + file);
+			}
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+				throw new IOException("Not an event log: " + file);
+			}
+
+			boolean allTypes = types == null || types.isEmpty();
+			Map<Integer, String> names = new HashMap<>();
+			// requested type ids and their bits, filled in as the dictionary is read
+			Set<Integer> wanted = new HashSet<>();
+			long wantedBits = allTypes ? -1L : 0;
+			long count = 0;
+			int position = HEADER_SIZE;
+			while (position + 5 <= size) {
+				int length = in.getInt(position);
+				if (length < 1 || position + 4L + length > size) {
+					break;
+				}
+				int payload = position + 5;
+				byte kind = in.get(position + 4);
+				if (kind == TYPE) {
+					int id = in.getInt(payload);
+					byte[] bytes = new byte[in.getInt(payload + 4)];
+					in.get(payload + 8, bytes);
+					String name = new String(bytes, StandardCharsets.UTF_8);
+					names.put(id, name);
+					if (!allTypes && types.contains(name)) {
+						wanted.add(id);
+						wantedBits |= typeBit(id);
+					}
+				} else if (kind == BLOCK && in.getLong(payload) <= to && in.getLong(payload + 8) >= from
+						&& (in.getLong(payload + 24) & wantedBits) != 0) {
+					long first = in.getLong(payload + 16);
+					int events = in.getInt(payload + 32);
+					in.position(payload + BLOCK_HEADER_SIZE);
+					for (int i = 0; i < events; i++) {
+						int eventLength = (int) getVarLong(in);
+						int next = in.position() + eventLength;
+						long timestamp = first + unZigZag(getVarLong(in));
+						int type = (int) getVarLong(in);
+						if (timestamp >= from && timestamp <= to && (allTypes || wanted.contains(type))) {
+							byte[] details = new byte[next - in.position()];
+							in.get(details);
+							consumer.accept(new SystemEvent(timestamp, names.get(type), new String(details,
+									StandardCharsets.UTF_8)));
+							count++;
+						}
+						in.position(next);
+					}
+				}
+				position += 4 + length;
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Write the selected events of a log as text, one line per event.
+	 *
+	 * @return the number of lines written
+	 * @see #read(Path, long, long, Set, Consumer)
+	 */
+	public static long render(Path file, long from, long to, Set<String> types, Path textFile) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(textFile, StandardCharsets.UTF_8)) {
+			IOException[] failure = new IOException[1];
+			long lines = read(file, from, to, types, event -> {
+				if (failure[0] == null) {
+					try {
+						writer.write(format(event));
+						writer.newLine();
+					} catch (IOException e) {
+						failure[0] = e;
+					}
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			return lines;
+		}
+	}
+
+	/**
+	 * @return the event as a text log line, e.g. {@code 2024-05-01 12:00:00.000 ALERT series=...}
+	 */
+	public static String format(SystemEvent event) {
+		return TIME_FORMAT.format(Instant.ofEpochMilli(event.timestamp())) + ' ' + event.eventType() + ' '
+				+ event.details();
+	}
+
+	/**
+	 * Rebuild the type dictionary of an existing log. Only the record headers
+	 * and the type records are read, so the blocks stay on disk.
+	 *
+	 * @return the length of the intact part of the file
+	 */
+	private long readDictionary() throws IOException {
+		long size = channel.size();
+		if (size == 0) {
+			return 0;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if (size < HEADER_SIZE || !readFully(header, 0) || header.getInt(0) != MAGIC
+				|| header.getShort(4) != VERSION) {
+			throw new IOException("Not an event log: " + file);
+		}
+		// the frame of a record and the start of its payload: a type id and name length, or a block header
+		ByteBuffer frame = ByteBuffer.allocate(4 + 1 + BLOCK_HEADER_SIZE);
+		long position = HEADER_SIZE;
+		while (position + 5 <= size) {
+			frame.clear().limit(4 + 1 + 8);
+			if (!readFully(frame, position)) {
+				break;
+			}
+			int length = frame.getInt(0);
+			if (length < 1 || position + 4L + length > size) {
+				break;
+			}
+			byte kind = frame.get(4);
+			if (kind == TYPE) {
+				byte[] bytes = new byte[frame.getInt(9)];
+				if (bytes.length > length - 9 || !readFully(ByteBuffer.wrap(bytes), position + 13)) {
+					break;
+				}
+				typeIds.put(new String(bytes, StandardCharsets.UTF_8), frame.getInt(5));
+			} else if (kind == BLOCK && fileDate == null) {
+				frame.clear().limit(4 + 1 + 24);
+				if (length < 1 + BLOCK_HEADER_SIZE || !readFully(frame, position)) {
+					break;
+				}
+				fileDate = LocalDate.ofInstant(Instant.ofEpochMilli(frame.getLong(5 + 16)), ZONE);
+			}
+			position += 4 + length;
+		}
+		return position;
+	}
+
+	/**
+	 * @return whether the buffer was filled from the position on before the end of the file
+	 */
+	private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				return false;
+			}
+			position += read;
+		}
+		return true;
+	}
+
+	/**
+	 * Types from 63 on share the highest bit of the type set.
+	 */
+	private static long typeBit(int type) {
+		return 1L << Math.min(type, 63);
+	}
+
+	private static void putVarLong(ByteBuffer out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	private static long getVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	private static int varLongSize(long value) {
+		return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
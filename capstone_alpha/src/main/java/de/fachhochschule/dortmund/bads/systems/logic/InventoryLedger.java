@@ -0,0 +1,730 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+/**
+ * Append-only ledger of inventory changes. Attached cells report every box
+ * that enters or leaves them; the cell listener only stamps the change with
+ * the current tick and queues it. This thread encodes the queued changes,
+ * appends them to the ledger file and forces the file once per batch, so
+ * concurrent writers share one fsync.
+ *
+ * Every {@code checkpointInterval} changes a checkpoint with the full
+ * inventory is appended. {@link #reconstruct(int)} starts from the last
+ * checkpoint at or before the requested tick and replays the changes after it.
+ *
+ * Each start of the ledger opens a new session in the file. Cells attached
+ * to a session are recorded with their current boxes, so a session alone
+ * describes the inventory; reconstruction reads the latest session.
+ *
+ * Once the file grows past {@code maxFileBytes} it is rotated to a sibling
+ * file with the suffix {@value #ROTATED_SUFFIX}, replacing the previous one.
+ * A file rotated while running continues the session with a checkpoint of
+ * the full inventory; ticks before that checkpoint are read from the rotated
+ * file. Files are read record by record, so reading costs no more memory for
+ * large files than for small ones.
+ *
+ * If writing fails the ledger stops and later changes are dropped and
+ * counted in {@code ledger.changes.dropped}.
+ */
+public class InventoryLedger extends Thread {
+	private static final Logger LOGGER = LogManager.getLogger(InventoryLedger.class);
+
+	private static final int MAGIC = 0x4241444C; // "BADL"
+	private static final short VERSION = 1;
+	private static final int HEADER_SIZE = 6;
+	private static final int MAX_BATCH = 4096;
+	public static final long DEFAULT_MAX_FILE_BYTES = 64L * 1024 * 1024;
+	public static final String ROTATED_SUFFIX = ".1";
+
+	// record kinds; every record is framed as [int length][byte kind][payload]
+	private static final byte SESSION = 0;
+	private static final byte LOCATION = 1;
+	private static final byte NAME = 2;
+	private static final byte ADD = 3;
+	private static final byte REMOVE = 4;
+	private static final byte CHECKPOINT = 5;
+	// the session continues from a rotated file, from the checkpoint at this tick on
+	private static final byte CONTINUED = 6;
+	private static final Entry SHUTDOWN = new Entry(0, (byte) -1, -1, null, null);
+
+	private static final MetricsRegistry.Counter DROPPED = MetricsRegistry.INSTANCE.counter("ledger.changes.dropped");
+
+	private final Path file;
+	private final int checkpointInterval;
+	private final long maxFileBytes;
+	private final IntSupplier tickSource;
+	private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+	private final AtomicInteger nextLocation = new AtomicInteger();
+	private final AtomicLong appended = new AtomicLong();
+	private final Object durableLock = new Object();
+	private volatile long durable;
+	private volatile boolean running = true;
+	// set once the ledger thread stopped writing, e.g. after an I/O error
+	private volatile boolean stopped;
+
+	// owned by the ledger thread
+	private FileChannel channel;
+	private final Map<Integer, String> labels = new HashMap<>();
+	private final Map<String, Integer> nameIds = new HashMap<>();
+	private final Map<Integer, Map<BoxKey, Integer>> inventory = new HashMap<>();
+	private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+	private int recordStart = -1;
+	private long sinceCheckpoint;
+	private int latestTick;
+
+	/**
+	 * A queued change, or a location definition when {@code label} is set.
+	 */
+	private record Entry(int tick, byte kind, int location, BeveragesBox box, String label) {
+	}
+
+	private record BoxKey(BeveragesBox.Type type, String name, int width, int height, int length, int quantity) {
+		static BoxKey of(BeveragesBox box) {
+			return new BoxKey(box.getType(), box.getBeverageName(), box.getWidth(), box.getHeight(), box.getLength(),
+					(int) box.getQuantity());
+		}
+
+		BeveragesBox toBox() {
+			return new BeveragesBox(type, name, width, height, length, quantity);
+		}
+	}
+
+	/**
+	 * Open a ledger file that is rotated at {@link #DEFAULT_MAX_FILE_BYTES}.
+	 *
+	 * @see #InventoryLedger(Path, int, long, IntSupplier)
+	 */
+	public InventoryLedger(Path file, int checkpointInterval, IntSupplier tickSource) throws IOException {
+		this(file, checkpointInterval, DEFAULT_MAX_FILE_BYTES, tickSource);
+	}
+
+	/**
+	 * Open a ledger file, creating it if needed, and start a new session in it.
+	 * A file already larger than {@code maxFileBytes} is rotated first.
+	 *
+	 * @param file the ledger file
+	 * @param checkpointInterval number of changes between two checkpoints
+	 * @param maxFileBytes the size at which the file is rotated
+	 * @param tickSource the current simulation tick, e.g. {@code clock::getCurrentTime}
+	 */
+	public InventoryLedger(Path file, int checkpointInterval, long maxFileBytes, IntSupplier tickSource)
+			throws IOException {
+		super("InventoryLedger-Thread");
+		if (checkpointInterval <= 0) {
+			throw new IllegalArgumentException("Checkpoint interval must be positive");
+		}
+		if (maxFileBytes <= HEADER_SIZE) {
+			throw new IllegalArgumentException("Maximum ledger file size is too small");
+		}
+		this.file = file;
+		this.checkpointInterval = checkpointInterval;
+		this.maxFileBytes = maxFileBytes;
+		this.tickSource = tickSource;
+		setDaemon(true);
+
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		long end = open();
+		try {
+			if (end > maxFileBytes) {
+				channel.close();
+				Files.move(file, rotated(file), StandardCopyOption.REPLACE_EXISTING);
+				end = open();
+			}
+			if (end == 0) {
+				buffer.putInt(MAGIC).putShort(VERSION);
+			}
+			beginRecord(SESSION).putLong(System.currentTimeMillis());
+			endRecord();
+			writeBuffer();
+			channel.force(false);
+		} catch (IOException | RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Inventory ledger opened at {} ({} bytes of earlier sessions)", file, end);
+		}
+	}
+
+	/**
+	 * Open the ledger file and position it after its last complete record.
+	 *
+	 * @return the length of the intact part of the file
+	 */
+	private long open() throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long end = validEnd(channel, file);
+			channel.truncate(end);
+			channel.position(end);
+			return end;
+		} catch (IOException | RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			if (LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Closing inventory ledger {} failed: {}", file, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * @return the file a ledger file is rotated to
+	 */
+	public static Path rotated(Path file) {
+		return file.resolveSibling(file.getFileName() + ROTATED_SUFFIX);
+	}
+
+	/**
+	 * Record every cell of a storage under its cell label, e.g. "3B". Attach
+	 * cells before the simulation changes them; their current boxes are
+	 * recorded as the starting inventory.
+	 */
+	public void attach(Storage storage) {
+		for (int nodeId = 0; nodeId < storage.getNodeCount(); nodeId++) {
+			attach(storage.getNotation(nodeId), storage.getCellByNodeId(nodeId));
+		}
+	}
+
+	/**
+	 * Record a single cell, e.g. the inventory of an AGV or a truck, under the
+	 * given label.
+	 */
+	public void attach(String label, StorageCell cell) {
+		int location = nextLocation.getAndIncrement();
+		queue.add(new Entry(0, LOCATION, location, null, label));
+		// ordered, so the changes of a cell are queued in the order they happened
+		cell.addContentListener(new StorageCell.OrderedContentListener() {
+			@Override
+			public void boxAdded(StorageCell changed, BeveragesBox box) {
+				record(ADD, location, box);
+			}
+
+			@Override
+			public void boxRemoved(StorageCell changed, BeveragesBox box) {
+				record(REMOVE, location, box);
+			}
+		});
+		for (BeveragesBox box : cell.getStoredBoxes()) {
+			record(ADD, location, box);
+		}
+	}
+
+	// hot path: runs on the thread that changed the cell, under the cell lock
+	private void record(byte kind, int location, BeveragesBox box) {
+		if (stopped) {
+			DROPPED.increment();
+			return;
+		}
+		appended.incrementAndGet();
+		queue.add(new Entry(tickSource.getAsInt(), kind, location, box, null));
+	}
+
+	@Override
+	public void run() {
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Thread started");
+		}
+		List<Entry> batch = new ArrayList<>(MAX_BATCH);
+		while (running || !queue.isEmpty()) {
+			try {
+				batch.add(queue.take());
+				queue.drainTo(batch, MAX_BATCH - 1);
+				long changes = 0;
+				for (Entry entry : batch) {
+					if (entry == SHUTDOWN) {
+						running = false;
+					} else {
+						changes += append(entry);
+					}
+				}
+				batch.clear();
+				writeBuffer();
+				channel.force(false);
+				markDurable(changes);
+				if (channel.position() >= maxFileBytes) {
+					roll();
+				}
+			} catch (InterruptedException e) {
+				if (LOGGER.isWarnEnabled()) {
+					LOGGER.warn("Interrupted with {} changes pending", queue.size());
+				}
+				Thread.currentThread().interrupt();
+				break;
+			} catch (IOException e) {
+				if (LOGGER.isErrorEnabled()) {
+					LOGGER.error("Writing to inventory ledger {} failed: {}", file, e.getMessage(), e);
+				}
+				break;
+			}
+		}
+		stopped = true;
+		// changes queued before the flag was seen are lost as well
+		long lost = queue.stream().filter(entry -> entry.kind() == ADD || entry.kind() == REMOVE).count();
+		queue.clear();
+		if (lost > 0) {
+			DROPPED.add(lost);
+			if (LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Inventory ledger {} stopped, dropped {} pending changes", file, lost);
+			}
+		}
+		closeQuietly();
+		synchronized (durableLock) {
+			durableLock.notifyAll();
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Thread stopped");
+		}
+	}
+
+	private long append(Entry entry) throws IOException {
+		if (entry.kind() == LOCATION) {
+			labels.put(entry.location(), entry.label());
+			writeLocation(entry.location(), entry.label());
+			return 0;
+		}
+		BoxKey key = BoxKey.of(entry.box());
+		Integer name = nameIds.get(key.name());
+		if (name == null) {
+			name = nameIds.size();
+			nameIds.put(key.name(), name);
+			writeName(name, key.name());
+		}
+		beginRecord(entry.kind()).putInt(entry.tick()).putInt(entry.location());
+		writeBox(key, name);
+		endRecord();
+
+		Map<BoxKey, Integer> boxes = inventory.computeIfAbsent(entry.location(), location -> new HashMap<>());
+		if (entry.kind() == ADD) {
+			boxes.merge(key, 1, Integer::sum);
+		} else {
+			boxes.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+		}
+		// changes may reach the queue slightly out of tick order; a checkpoint is
+		// only used for ticks at or after every change it contains
+		latestTick = Math.max(latestTick, entry.tick());
+		if (++sinceCheckpoint >= checkpointInterval) {
+			writeCheckpoint(latestTick);
+		}
+		return 1;
+	}
+
+	private void writeLocation(int location, String label) throws IOException {
+		beginRecord(LOCATION).putInt(location);
+		writeString(label);
+		endRecord();
+	}
+
+	private void writeName(int name, String value) throws IOException {
+		beginRecord(NAME).putInt(name);
+		writeString(value);
+		endRecord();
+	}
+
+	/**
+	 * Rotate the file and continue the session in a new one, which starts with
+	 * the dictionaries and a checkpoint of the full inventory.
+	 */
+	private void roll() throws IOException {
+		long size = channel.position();
+		channel.close();
+		Files.move(file, rotated(file), StandardCopyOption.REPLACE_EXISTING);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		buffer.putInt(MAGIC).putShort(VERSION);
+		beginRecord(SESSION).putLong(System.currentTimeMillis());
+		endRecord();
+		beginRecord(CONTINUED).putInt(latestTick);
+		endRecord();
+		for (Map.Entry<Integer, String> location : labels.entrySet()) {
+			writeLocation(location.getKey(), location.getValue());
+		}
+		for (Map.Entry<String, Integer> name : nameIds.entrySet()) {
+			writeName(name.getValue(), name.getKey());
+		}
+		writeCheckpoint(latestTick);
+		writeBuffer();
+		channel.force(false);
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Rotated inventory ledger {} at {} bytes, continuing from tick {}", file, size, latestTick);
+		}
+	}
+
+	private void writeCheckpoint(int tick) throws IOException {
+		beginRecord(CHECKPOINT).putInt(tick).putInt(inventory.size());
+		for (Map.Entry<Integer, Map<BoxKey, Integer>> location : inventory.entrySet()) {
+			reserve(8);
+			buffer.putInt(location.getKey()).putInt(location.getValue().size());
+			for (Map.Entry<BoxKey, Integer> box : location.getValue().entrySet()) {
+				writeBox(box.getKey(), nameIds.get(box.getKey().name()));
+				reserve(4);
+				buffer.putInt(box.getValue());
+			}
+		}
+		endRecord();
+		sinceCheckpoint = 0;
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Checkpoint at tick {} with {} locations", tick, inventory.size());
+		}
+	}
+
+	private ByteBuffer beginRecord(byte kind) throws IOException {
+		reserve(5);
+		recordStart = buffer.position();
+		buffer.putInt(0).put(kind);
+		return buffer;
+	}
+
+	private void endRecord() {
+		buffer.putInt(recordStart, buffer.position() - recordStart - 4);
+		recordStart = -1;
+	}
+
+	private void writeBox(BoxKey key, int name) throws IOException {
+		reserve(21);
+		buffer.put((byte) key.type().ordinal()).putInt(name).putInt(key.width()).putInt(key.height())
+				.putInt(key.length()).putInt(key.quantity());
+	}
+
+	private void writeString(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		reserve(4 + bytes.length);
+		buffer.putInt(bytes.length).put(bytes);
+	}
+
+	/**
+	 * Make room in the buffer by writing the complete records. A record that is
+	 * still open is moved to the front of the buffer instead of being written half.
+	 */
+	private void reserve(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		int end = buffer.position();
+		buffer.flip();
+		if (recordStart >= 0) {
+			buffer.limit(recordStart);
+		}
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.limit(end);
+		buffer.compact();
+		if (recordStart >= 0) {
+			recordStart = 0;
+		}
+		if (buffer.remaining() < bytes) {
+			// a checkpoint of a large inventory
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + bytes));
+			buffer.flip();
+			buffer = larger.put(buffer);
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void markDurable(long changes) {
+		synchronized (durableLock) {
+			durable += changes;
+			durableLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Wait until every change recorded so far is on disk.
+	 *
+	 * @return false if the ledger stopped before the changes were written
+	 */
+	public boolean flush() throws InterruptedException {
+		long target = appended.get();
+		synchronized (durableLock) {
+			while (durable < target) {
+				if (!isAlive()) {
+					return false;
+				}
+				durableLock.wait(100);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of changes recorded since the ledger was opened
+	 */
+	public long getRecordedChanges() {
+		return appended.get();
+	}
+
+	/**
+	 * Write the pending changes and stop the ledger thread.
+	 */
+	public void shutdown() {
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Shutdown requested");
+		}
+		queue.add(SHUTDOWN);
+	}
+
+	/**
+	 * Rebuild the inventory as it was at the end of the given tick, after
+	 * writing everything recorded so far.
+	 *
+	 * @return the boxes per location label; locations without boxes are left out
+	 */
+	public Map<String, List<BeveragesBox>> reconstruct(int tick) throws IOException, InterruptedException {
+		flush();
+		return reconstruct(file, tick);
+	}
+
+	/**
+	 * Rebuild the inventory of the latest session of a ledger file as it was at
+	 * the end of the given tick. A record cut off by a crash ends the ledger.
+	 * Ticks before a rotation are read from the rotated file.
+	 *
+	 * @throws IOException if the file is no ledger, or the tick is older than the kept history
+	 * @return the boxes per location label; locations without boxes are left out
+	 */
+	public static Map<String, List<BeveragesBox>> reconstruct(Path file, int tick) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				return Map.of();
+			}
+			readHeader(channel, file);
+
+			// first pass: find the latest session, its dictionaries and the checkpoint to start from
+			Map<Integer, String> locations = new HashMap<>();
+			Map<Integer, String> names = new HashMap<>();
+			long start = HEADER_SIZE;
+			long checkpoint = -1;
+			int continuedFrom = -1;
+			RecordReader records = new RecordReader(channel, HEADER_SIZE);
+			ByteBuffer record;
+			while ((record = records.next()) != null) {
+				switch (record.get(0)) {
+				case SESSION -> {
+					start = records.recordPosition();
+					checkpoint = -1;
+					continuedFrom = -1;
+					locations.clear();
+					names.clear();
+				}
+				case CONTINUED -> continuedFrom = record.getInt(1);
+				case LOCATION -> locations.put(record.getInt(1), readString(record, 5));
+				case NAME -> names.put(record.getInt(1), readString(record, 5));
+				case CHECKPOINT -> {
+					if (record.getInt(1) <= tick) {
+						checkpoint = records.recordPosition();
+					}
+				}
+				default -> {
+				}
+				}
+			}
+			long end = records.position();
+			if (tick < continuedFrom) {
+				if (!Files.isRegularFile(rotated(file))) {
+					throw new IOException("Tick " + tick + " is older than the history kept in " + file);
+				}
+				return reconstruct(rotated(file), tick);
+			}
+
+			// second pass: load the checkpoint, then replay the changes up to the tick
+			Map<Integer, Map<BoxKey, Integer>> inventory = new HashMap<>();
+			records = new RecordReader(channel, checkpoint >= 0 ? checkpoint : start);
+			while (records.position() < end && (record = records.next()) != null) {
+				byte kind = record.get(0);
+				record.position(1);
+				if (records.recordPosition() == checkpoint) {
+					record.getInt();
+					int locationCount = record.getInt();
+					for (int i = 0; i < locationCount; i++) {
+						Map<BoxKey, Integer> boxes = inventory.computeIfAbsent(record.getInt(), location -> new HashMap<>());
+						int boxCount = record.getInt();
+						for (int j = 0; j < boxCount; j++) {
+							boxes.put(readBox(record, names), record.getInt());
+						}
+					}
+				} else if (kind == ADD || kind == REMOVE) {
+					int recordTick = record.getInt();
+					int location = record.getInt();
+					BoxKey key = readBox(record, names);
+					if (recordTick <= tick) {
+						Map<BoxKey, Integer> boxes = inventory.computeIfAbsent(location, l -> new HashMap<>());
+						if (kind == ADD) {
+							boxes.merge(key, 1, Integer::sum);
+						} else {
+							boxes.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+						}
+					}
+				}
+			}
+
+			Map<String, List<BeveragesBox>> result = new TreeMap<>();
+			for (Map.Entry<Integer, Map<BoxKey, Integer>> location : inventory.entrySet()) {
+				List<BeveragesBox> boxes = new ArrayList<>();
+				for (Map.Entry<BoxKey, Integer> box : location.getValue().entrySet()) {
+					for (int i = 0; i < box.getValue(); i++) {
+						boxes.add(box.getKey().toBox());
+					}
+				}
+				if (!boxes.isEmpty()) {
+					result.put(locations.getOrDefault(location.getKey(), "#" + location.getKey()), boxes);
+				}
+			}
+			return result;
+		}
+	}
+
+	private static BoxKey readBox(ByteBuffer in, Map<Integer, String> names) {
+		BeveragesBox.Type type = BeveragesBox.Type.values()[in.get()];
+		return new BoxKey(type, names.get(in.getInt()), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+	}
+
+	private static String readString(ByteBuffer in, int position) {
+		byte[] bytes = new byte[in.getInt(position)];
+		in.get(position + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void readHeader(FileChannel channel, Path file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(header, 0);
+		header.flip();
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getShort() != VERSION) {
+			throw new IOException("Not an inventory ledger: " + file);
+		}
+	}
+
+	/**
+	 * Length of the intact part of an existing ledger: the header and every
+	 * complete record. A torn record at the end is cut off before appending.
+	 */
+	private static long validEnd(FileChannel channel, Path file) throws IOException {
+		long size = channel.size();
+		if (size == 0) {
+			return 0;
+		}
+		if (size < HEADER_SIZE) {
+			throw new IOException("Not an inventory ledger: " + file);
+		}
+		readHeader(channel, file);
+		RecordReader records = new RecordReader(channel, HEADER_SIZE);
+		while (records.next() != null) {
+			// only the end of the intact part is needed
+		}
+		return records.position();
+	}
+
+	/**
+	 * Reads the complete records of a ledger file in order through a window of
+	 * positional reads. A record is valid until the next call to {@link #next()}.
+	 */
+	private static final class RecordReader {
+		private final FileChannel channel;
+		private final long size;
+		private ByteBuffer window = ByteBuffer.allocate(64 * 1024);
+		// file position of the first byte in the window
+		private long windowStart;
+		private long position;
+		private long recordPosition = -1;
+
+		RecordReader(FileChannel channel, long position) throws IOException {
+			this.channel = channel;
+			this.size = channel.size();
+			this.position = position;
+			window.limit(0);
+		}
+
+		/**
+		 * @return the next record starting with its kind byte, or null at the end or at a torn record
+		 */
+		ByteBuffer next() throws IOException {
+			if (position + 5 > size || !load(4)) {
+				return null;
+			}
+			int length = window.getInt((int) (position - windowStart));
+			if (length < 1 || position + 4 + length > size || !load(4 + length)) {
+				return null;
+			}
+			int offset = (int) (position - windowStart) + 4;
+			recordPosition = position;
+			position += 4 + length;
+			return window.slice(offset, length);
+		}
+
+		/**
+		 * Make the window hold the given number of bytes from the current position.
+		 */
+		private boolean load(int bytes) throws IOException {
+			if (position >= windowStart && position + bytes <= windowStart + window.limit()) {
+				return true;
+			}
+			if (bytes > window.capacity()) {
+				window = ByteBuffer.allocate(bytes);
+			}
+			window.clear();
+			windowStart = position;
+			while (window.hasRemaining()) {
+				if (channel.read(window, windowStart + window.position()) < 0) {
+					break;
+				}
+			}
+			window.flip();
+			return window.limit() >= bytes;
+		}
+
+		/**
+		 * @return the position after the last record read
+		 */
+		long position() {
+			return position;
+		}
+
+		/**
+		 * @return the position of the last record read
+		 */
+		long recordPosition() {
+			return recordPosition;
+		}
+	}
+}
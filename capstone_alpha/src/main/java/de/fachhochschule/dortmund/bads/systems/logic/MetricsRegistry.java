@@ -0,0 +1,294 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Process-wide metrics: counters, gauges and fixed-bucket histograms.
+ * Counters and histogram buckets are {@link LongAdder}s, so recording from
+ * many threads costs an uncontended add and never takes a lock; gauges are
+ * only evaluated when the metrics are read.
+ *
+ * Metric names are dotted, e.g. {@code clock.tick.latency.micros}. Metrics of
+ * one of several objects carry a label, see {@link #labeled(String, String, String)}.
+ * JVM statistics are registered as {@code jvm.*} gauges backed by the
+ * platform MXBeans.
+ */
+public enum MetricsRegistry {
+	INSTANCE;
+
+	/** Bucket bounds for latencies in microseconds, from 50us to 1s. */
+	public static final long[] LATENCY_MICROS = { 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+			100_000, 250_000, 1_000_000 };
+
+	/** Bucket bounds for waiting times in milliseconds, from 10ms to 1min. */
+	public static final long[] WAIT_MILLIS = { 10, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000 };
+
+	/**
+	 * A monotonically increasing count.
+	 */
+	public static final class Counter {
+		private final LongAdder value = new LongAdder();
+
+		public void increment() {
+			value.increment();
+		}
+
+		public void add(long amount) {
+			value.add(amount);
+		}
+
+		public long get() {
+			return value.sum();
+		}
+	}
+
+	/**
+	 * Distribution of recorded values over fixed buckets. A value goes to the
+	 * first bucket whose upper bound is at least the value; larger values go
+	 * to an overflow bucket.
+	 */
+	public static final class Histogram {
+		private final long[] bounds;
+		private final LongAdder[] buckets;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+
+		private Histogram(long[] bounds) {
+			for (int i = 1; i < bounds.length; i++) {
+				if (bounds[i] <= bounds[i - 1]) {
+					throw new IllegalArgumentException("Bucket bounds must be ascending");
+				}
+			}
+			this.bounds = bounds.clone();
+			this.buckets = new LongAdder[bounds.length + 1];
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		public void record(long value) {
+			int index = Arrays.binarySearch(bounds, value);
+			buckets[index >= 0 ? index : -index - 1].increment();
+			count.increment();
+			sum.add(value);
+		}
+
+		/**
+		 * @return the upper bounds of the buckets, without the overflow bucket
+		 */
+		public long[] getBounds() {
+			return bounds.clone();
+		}
+
+		/**
+		 * @return the number of values per bucket; the last entry is the overflow bucket
+		 */
+		public long[] getBucketCounts() {
+			long[] counts = new long[buckets.length];
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = buckets[i].sum();
+			}
+			return counts;
+		}
+
+		public long getCount() {
+			return count.sum();
+		}
+
+		public long getSum() {
+			return sum.sum();
+		}
+
+		public double getMean() {
+			long n = count.sum();
+			return n == 0 ? 0.0 : (double) sum.sum() / n;
+		}
+
+		/**
+		 * @param percentile between 0 and 100
+		 * @return the upper bound of the bucket holding the percentile, or
+		 *         {@link Long#MAX_VALUE} if it falls into the overflow bucket
+		 */
+		public long getPercentile(double percentile) {
+			long[] counts = getBucketCounts();
+			long total = 0;
+			for (long c : counts) {
+				total += c;
+			}
+			if (total == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(total * percentile / 100.0);
+			long seen = 0;
+			for (int i = 0; i < bounds.length; i++) {
+				seen += counts[i];
+				if (seen >= Math.max(rank, 1)) {
+					return bounds[i];
+				}
+			}
+			return Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * A gauge of an object it does not keep alive; reads NaN once the object is gone.
+	 */
+	private static final class WeakGauge<T> implements DoubleSupplier {
+		private final WeakReference<T> owner;
+		private final ToDoubleFunction<T> value;
+
+		WeakGauge(T owner, ToDoubleFunction<T> value) {
+			this.owner = new WeakReference<>(owner);
+			this.value = value;
+		}
+
+		boolean isCleared() {
+			return owner.get() == null;
+		}
+
+		@Override
+		public double getAsDouble() {
+			T current = owner.get();
+			return current == null ? Double.NaN : value.applyAsDouble(current);
+		}
+	}
+
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+	MetricsRegistry() {
+		registerJvmGauges();
+	}
+
+	private void registerJvmGauges() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+		gauges.put("jvm.threads.live", threads::getThreadCount);
+		gauges.put("jvm.threads.daemon", threads::getDaemonThreadCount);
+		gauges.put("jvm.threads.peak", threads::getPeakThreadCount);
+		gauges.put("jvm.memory.heap.used.bytes", () -> memory.getHeapMemoryUsage().getUsed());
+		gauges.put("jvm.memory.heap.committed.bytes", () -> memory.getHeapMemoryUsage().getCommitted());
+		gauges.put("jvm.memory.heap.max.bytes", () -> memory.getHeapMemoryUsage().getMax());
+		gauges.put("jvm.memory.nonheap.used.bytes", () -> memory.getNonHeapMemoryUsage().getUsed());
+		gauges.put("jvm.gc.collections", () -> collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount)
+				.filter(count -> count > 0).sum());
+		gauges.put("jvm.gc.time.millis", () -> collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime)
+				.filter(time -> time > 0).sum());
+		gauges.put("jvm.uptime.millis", () -> ManagementFactory.getRuntimeMXBean().getUptime());
+		gauges.put("system.cpu.count", os::getAvailableProcessors);
+		gauges.put("system.load.average", os::getSystemLoadAverage);
+	}
+
+	/**
+	 * @return the counter of the name, created on first use
+	 */
+	public Counter counter(String name) {
+		return counters.computeIfAbsent(name, key -> new Counter());
+	}
+
+	/**
+	 * @param bounds the ascending upper bounds of the buckets; ignored if the histogram exists
+	 * @return the histogram of the name, created on first use
+	 */
+	public Histogram histogram(String name, long... bounds) {
+		return histograms.computeIfAbsent(name, key -> new Histogram(bounds));
+	}
+
+	/**
+	 * Register a gauge, replacing an earlier gauge of the same name.
+	 */
+	public void gauge(String name, DoubleSupplier value) {
+		gauges.put(name, value);
+	}
+
+	/**
+	 * Register a gauge that reads an object without keeping it alive. Once the
+	 * object is garbage collected the gauge disappears.
+	 */
+	public <T> void gauge(String name, T owner, ToDoubleFunction<T> value) {
+		gauges.put(name, new WeakGauge<>(owner, value));
+	}
+
+	public void removeGauge(String name) {
+		gauges.remove(name);
+	}
+
+	/**
+	 * @return the name with a label in the Prometheus notation, e.g. {@code agv.battery{agv="AGV-1"}}
+	 */
+	public static String labeled(String name, String label, String value) {
+		return name + "{" + label + "=\"" + escape(value) + "\"}";
+	}
+
+	/**
+	 * @return the name with two labels in the Prometheus notation,
+	 *         e.g. {@code storage.utilization{storage="main",type="AMBIENT"}}
+	 */
+	public static String labeled(String name, String label, String value, String secondLabel, String secondValue) {
+		return name + "{" + label + "=\"" + escape(value) + "\"," + secondLabel + "=\"" + escape(secondValue) + "\"}";
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * @return the counters by name, sorted
+	 */
+	public Map<String, Counter> getCounters() {
+		return Collections.unmodifiableMap(new TreeMap<>(counters));
+	}
+
+	/**
+	 * @return the histograms by name, sorted
+	 */
+	public Map<String, Histogram> getHistograms() {
+		return Collections.unmodifiableMap(new TreeMap<>(histograms));
+	}
+
+	/**
+	 * Evaluate every gauge. Gauges of collected objects are removed; a gauge
+	 * that has no defined value right now, such as a ratio of zero to zero,
+	 * is reported as NaN.
+	 *
+	 * @return the current gauge values by name, sorted
+	 */
+	public Map<String, Double> getGaugeValues() {
+		Map<String, Double> values = new TreeMap<>();
+		for (Map.Entry<String, DoubleSupplier> gauge : gauges.entrySet()) {
+			if (gauge.getValue() instanceof WeakGauge<?> weak && weak.isCleared()) {
+				gauges.remove(gauge.getKey(), gauge.getValue());
+			} else {
+				values.put(gauge.getKey(), gauge.getValue().getAsDouble());
+			}
+		}
+		return Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * @return the current value of one gauge, or NaN if there is none
+	 */
+	public double getGaugeValue(String name) {
+		DoubleSupplier gauge = gauges.get(name);
+		return gauge == null ? Double.NaN : gauge.getAsDouble();
+	}
+}
@@ -0,0 +1,803 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Embedded time-series store for metric samples. This thread samples every
+ * gauge and counter of the {@link MetricsRegistry} once per interval; the
+ * samples are kept as raw points and rolled up into one-minute and one-hour
+ * points with minimum, maximum, sum and count.
+ *
+ * Points are buffered per series and resolution and appended to the store
+ * file as chunks of up to {@value #CHUNK_POINTS} points. A chunk is columnar:
+ * the timestamps are stored as varint deltas of deltas, so regular samples
+ * take one byte each, and every value column as the XOR with the previous
+ * value, which is a single byte for an unchanged value. Queries read the
+ * chunks through a memory mapping of the file and only decode the chunks
+ * that overlap the range, so a week of history stays off the heap.
+ *
+ * The store file holds the series dictionary and the hourly rollups, which
+ * are kept for good. Raw and minute chunks go to segment files next to it,
+ * e.g. {@code metrics.tsdb.raw.3}; a new segment is started once the current
+ * one spans a quarter of the retention of its resolution, and a segment whose
+ * newest point is older than the retention, counted back from the newest
+ * point of the store, is deleted.
+ *
+ * On open, the chunk index is rebuilt from the files and a chunk cut off by a
+ * crash is dropped, as is everything after a record that does not fit the
+ * dictionary. Points not yet written are lost on a crash; call
+ * {@link #flush()} to write them.
+ */
+public class MetricsStore extends Thread {
+	private static final Logger LOGGER = LogManager.getLogger(MetricsStore.class);
+
+	private static final int MAGIC = 0x42414454; // "BADT"
+	private static final short VERSION = 1;
+	private static final int HEADER_SIZE = 6;
+	static final int CHUNK_POINTS = 256;
+	// a segment holds at most this many bytes, whatever its time span
+	static final long MAX_SEGMENT_BYTES = 256L << 20;
+	private static final int SEGMENTS_PER_RETENTION = 4;
+	public static final long DEFAULT_RAW_RETENTION_MILLIS = 7 * 86_400_000L;
+	public static final long DEFAULT_MINUTE_RETENTION_MILLIS = 90 * 86_400_000L;
+
+	// record kinds; every record is framed as [int length][byte kind][payload]
+	private static final byte SERIES = 0;
+	private static final byte CHUNK = 1;
+
+	public enum Resolution {
+		RAW(0), MINUTE(60_000), HOUR(3_600_000);
+
+		private final long millis;
+
+		Resolution(long millis) {
+			this.millis = millis;
+		}
+
+		/**
+		 * @return the length of a rollup bucket, 0 for raw samples
+		 */
+		public long getMillis() {
+			return millis;
+		}
+	}
+
+	/**
+	 * A sample or a rollup of samples; a sample has a count of one and its
+	 * value as minimum, maximum and sum.
+	 */
+	public record Point(long timestamp, double min, double max, double sum, long count) {
+		public double mean() {
+			return sum / count;
+		}
+
+		private Point merge(Point other) {
+			return new Point(timestamp, Math.min(min, other.min), Math.max(max, other.max), sum + other.sum,
+					count + other.count);
+		}
+	}
+
+	private record ChunkRef(long first, long last, Segment segment, int offset) {
+	}
+
+	/**
+	 * The store file or one of its segment files.
+	 */
+	private static final class Segment {
+		private final Path path;
+		private final FileChannel channel;
+		// 0 for the store file
+		private final long sequence;
+		private long end;
+		// oldest and newest timestamp of the chunks in the file
+		private long first = Long.MAX_VALUE;
+		private long last = Long.MIN_VALUE;
+		private MappedByteBuffer mapped;
+
+		private Segment(Path path, FileChannel channel, long sequence) {
+			this.path = path;
+			this.channel = channel;
+			this.sequence = sequence;
+		}
+
+		private void add(ChunkRef chunk) {
+			first = Math.min(first, chunk.first());
+			last = Math.max(last, chunk.last());
+		}
+
+		private ByteBuffer map() throws IOException {
+			if (mapped == null || mapped.capacity() < end) {
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+			}
+			return mapped.duplicate();
+		}
+	}
+
+	/**
+	 * Points of one series and resolution that are not yet written.
+	 */
+	private static final class Buffer {
+		private final long[] timestamps = new long[CHUNK_POINTS];
+		private final double[] min = new double[CHUNK_POINTS];
+		private final double[] max = new double[CHUNK_POINTS];
+		private final double[] sum = new double[CHUNK_POINTS];
+		private final long[] count = new long[CHUNK_POINTS];
+		private int size;
+
+		private void add(Point point) {
+			timestamps[size] = point.timestamp();
+			min[size] = point.min();
+			max[size] = point.max();
+			sum[size] = point.sum();
+			count[size] = point.count();
+			size++;
+		}
+
+		private Point get(int index) {
+			return new Point(timestamps[index], min[index], max[index], sum[index], count[index]);
+		}
+	}
+
+	private static final class Series {
+		private final int id;
+		private final String name;
+		private final Buffer[] buffers = { new Buffer(), new Buffer(), new Buffer() };
+		private final List<List<ChunkRef>> chunks = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+		// rollups of the current minute and hour, null before the first sample
+		private Point minute;
+		private Point hour;
+
+		private Series(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
+
+	private final Path file;
+	private final long intervalMillis;
+	private final long rawRetentionMillis;
+	private final long minuteRetentionMillis;
+	private final LongSupplier clock;
+	private final Map<String, Series> series = new TreeMap<>();
+	private final List<Series> seriesById = new ArrayList<>();
+	// segment files of the raw and minute chunks, oldest first
+	private final Map<Resolution, ArrayDeque<Segment>> segments = new EnumMap<>(Resolution.class);
+	private Segment main;
+	// newest timestamp of any written chunk
+	private long latest = Long.MIN_VALUE;
+	private volatile boolean running = true;
+
+	/**
+	 * Open a store file with the default retention, creating it if needed.
+	 *
+	 * @param file the store file
+	 * @param intervalMillis time between two samples of the registry
+	 */
+	public MetricsStore(Path file, long intervalMillis) throws IOException {
+		this(file, intervalMillis, DEFAULT_RAW_RETENTION_MILLIS, DEFAULT_MINUTE_RETENTION_MILLIS);
+	}
+
+	/**
+	 * Open a store file, creating it if needed.
+	 *
+	 * @param file the store file
+	 * @param intervalMillis time between two samples of the registry
+	 * @param rawRetentionMillis how long raw samples are kept
+	 * @param minuteRetentionMillis how long minute rollups are kept; hour rollups are kept for good
+	 */
+	public MetricsStore(Path file, long intervalMillis, long rawRetentionMillis, long minuteRetentionMillis)
+			throws IOException {
+		this(file, intervalMillis, rawRetentionMillis, minuteRetentionMillis, System::currentTimeMillis);
+	}
+
+	MetricsStore(Path file, long intervalMillis, long rawRetentionMillis, long minuteRetentionMillis,
+			LongSupplier clock) throws IOException {
+		super("MetricsStore-Thread");
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("Sampling interval must be positive");
+		}
+		if (rawRetentionMillis < SEGMENTS_PER_RETENTION || minuteRetentionMillis < SEGMENTS_PER_RETENTION) {
+			throw new IllegalArgumentException("Retention must be positive");
+		}
+		this.file = file;
+		this.intervalMillis = intervalMillis;
+		this.rawRetentionMillis = rawRetentionMillis;
+		this.minuteRetentionMillis = minuteRetentionMillis;
+		this.clock = clock;
+		setDaemon(true);
+
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		segments.put(Resolution.RAW, new ArrayDeque<>());
+		segments.put(Resolution.MINUTE, new ArrayDeque<>());
+		try {
+			main = openSegment(file, 0, null);
+			for (Resolution resolution : segments.keySet()) {
+				for (long sequence : segmentSequences(resolution)) {
+					segments.get(resolution).addLast(openSegment(segmentPath(resolution, sequence), sequence, resolution));
+				}
+			}
+			for (Resolution resolution : segments.keySet()) {
+				expire(resolution);
+			}
+		} catch (IOException | RuntimeException e) {
+			closeFiles();
+			throw e;
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Metrics store opened at {} ({} series, {} raw and {} minute segments)", file, series.size(),
+					segments.get(Resolution.RAW).size(), segments.get(Resolution.MINUTE).size());
+		}
+	}
+
+	/**
+	 * @return the segment file of the resolution with the sequence number
+	 */
+	Path segmentPath(Resolution resolution, long sequence) {
+		return file.resolveSibling(file.getFileName() + "." + resolution.name().toLowerCase() + "." + sequence);
+	}
+
+	/**
+	 * @return the sequence numbers of the existing segment files of the resolution, ascending
+	 */
+	private List<Long> segmentSequences(Resolution resolution) throws IOException {
+		String prefix = file.getFileName() + "." + resolution.name().toLowerCase() + ".";
+		List<Long> sequences = new ArrayList<>();
+		try (Stream<Path> siblings = Files.list(file.toAbsolutePath().getParent())) {
+			siblings.map(sibling -> sibling.getFileName().toString())
+					.filter(name -> name.startsWith(prefix) && name.length() > prefix.length()
+							&& name.substring(prefix.length()).chars().allMatch(Character::isDigit))
+					.forEach(name -> sequences.add(Long.valueOf(name.substring(prefix.length()))));
+		}
+		sequences.sort(null);
+		return sequences;
+	}
+
+	/**
+	 * Open the store file or a segment file, index its chunks and cut off
+	 * what is not intact.
+	 *
+	 * @param resolution the resolution of a segment file, null for the store file
+	 */
+	private Segment openSegment(Path path, long sequence, Resolution resolution) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		Segment segment = new Segment(path, channel, sequence);
+		try {
+			segment.end = readIndex(segment, resolution);
+			channel.truncate(segment.end);
+			if (segment.end == 0) {
+				write(segment, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).flip());
+			}
+			return segment;
+		} catch (IOException | RuntimeException e) {
+			closeQuietly(segment);
+			throw e;
+		}
+	}
+
+	@Override
+	public void run() {
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Thread started, sampling every {}ms", intervalMillis);
+		}
+		while (running) {
+			try {
+				Thread.sleep(intervalMillis);
+				sample();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (IOException e) {
+				if (LOGGER.isErrorEnabled()) {
+					LOGGER.error("Writing to metrics store {} failed: {}", file, e.getMessage(), e);
+				}
+				break;
+			}
+		}
+		close();
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Thread stopped");
+		}
+	}
+
+	/**
+	 * Record the current value of every gauge and counter. Gauges reading NaN are skipped.
+	 */
+	public void sample() throws IOException {
+		MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+		long now = clock.getAsLong();
+		for (Map.Entry<String, Double> gauge : metrics.getGaugeValues().entrySet()) {
+			// an undefined reading is a gap, not a sample; it would spoil the rollups
+			if (!Double.isNaN(gauge.getValue())) {
+				record(gauge.getKey(), now, gauge.getValue());
+			}
+		}
+		for (Map.Entry<String, MetricsRegistry.Counter> counter : metrics.getCounters().entrySet()) {
+			record(counter.getKey(), now, counter.getValue().get());
+		}
+	}
+
+	/**
+	 * Add a sample. Samples of a series must come in time order.
+	 */
+	public synchronized void record(String name, long timestamp, double value) throws IOException {
+		Series target = series.get(name);
+		if (target == null) {
+			target = define(name);
+		}
+		Point sample = new Point(timestamp, value, value, value, 1);
+		append(target, Resolution.RAW, sample);
+
+		long minute = timestamp - Math.floorMod(timestamp, Resolution.MINUTE.getMillis());
+		if (target.minute != null && target.minute.timestamp() != minute) {
+			append(target, Resolution.MINUTE, target.minute);
+			rollUpHour(target, target.minute);
+			target.minute = null;
+		}
+		target.minute = target.minute == null ? new Point(minute, value, value, value, 1) : target.minute.merge(sample);
+	}
+
+	private void rollUpHour(Series target, Point minute) throws IOException {
+		long hour = minute.timestamp() - Math.floorMod(minute.timestamp(), Resolution.HOUR.getMillis());
+		if (target.hour != null && target.hour.timestamp() != hour) {
+			append(target, Resolution.HOUR, target.hour);
+			target.hour = null;
+		}
+		Point rebased = new Point(hour, minute.min(), minute.max(), minute.sum(), minute.count());
+		target.hour = target.hour == null ? rebased : target.hour.merge(rebased);
+	}
+
+	private void append(Series target, Resolution resolution, Point point) throws IOException {
+		Buffer buffer = target.buffers[resolution.ordinal()];
+		buffer.add(point);
+		if (buffer.size == CHUNK_POINTS) {
+			writeChunk(target, resolution);
+		}
+	}
+
+	private Series define(String name) throws IOException {
+		Series defined = new Series(seriesById.size(), name);
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(4 + 1 + 4 + 4 + bytes.length);
+		record.putInt(1 + 4 + 4 + bytes.length).put(SERIES).putInt(defined.id).putInt(bytes.length).put(bytes).flip();
+		write(main, record);
+		series.put(name, defined);
+		seriesById.add(defined);
+		return defined;
+	}
+
+	/**
+	 * Chunk payload: [int series][byte resolution][int count][long first][long last],
+	 * then the timestamp column and the value columns; rollups add the maximum,
+	 * sum and count columns to the minimum. Hour chunks go to the store file,
+	 * the others to the current segment of their resolution.
+	 */
+	private void writeChunk(Series target, Resolution resolution) throws IOException {
+		Buffer buffer = target.buffers[resolution.ordinal()];
+		if (buffer.size == 0) {
+			return;
+		}
+		int size = buffer.size;
+		// a varint takes at most 10 bytes, an XOR value 11
+		ByteBuffer record = ByteBuffer.allocate(4 + 1 + 25 + size * (10 + 4 * 11));
+		record.position(4);
+		record.put(CHUNK).putInt(target.id).put((byte) resolution.ordinal()).putInt(size)
+				.putLong(buffer.timestamps[0]).putLong(buffer.timestamps[size - 1]);
+		long previous = 0;
+		long previousDelta = 0;
+		for (int i = 0; i < size; i++) {
+			long delta = buffer.timestamps[i] - previous;
+			putVarLong(record, zigZag(delta - previousDelta));
+			previous = buffer.timestamps[i];
+			previousDelta = delta;
+		}
+		putColumn(record, buffer.min, size);
+		if (resolution != Resolution.RAW) {
+			putColumn(record, buffer.max, size);
+			putColumn(record, buffer.sum, size);
+			long previousCount = 0;
+			for (int i = 0; i < size; i++) {
+				putVarLong(record, zigZag(buffer.count[i] - previousCount));
+				previousCount = buffer.count[i];
+			}
+		}
+		record.putInt(0, record.position() - 4).flip();
+		long first = buffer.timestamps[0];
+		long last = buffer.timestamps[size - 1];
+		Segment segment = segmentFor(resolution, last);
+		ChunkRef chunk = new ChunkRef(first, last, segment, write(segment, record));
+		target.chunks.get(resolution.ordinal()).add(chunk);
+		segment.add(chunk);
+		latest = Math.max(latest, last);
+		buffer.size = 0;
+		if (resolution != Resolution.HOUR) {
+			expire(resolution);
+		}
+	}
+
+	/**
+	 * @return the file for a chunk ending at {@code last}, after starting a new segment if the current one is full
+	 */
+	private Segment segmentFor(Resolution resolution, long last) throws IOException {
+		if (resolution == Resolution.HOUR) {
+			return main;
+		}
+		ArrayDeque<Segment> chain = segments.get(resolution);
+		Segment current = chain.peekLast();
+		if (current == null || current.end >= MAX_SEGMENT_BYTES
+				|| current.first != Long.MAX_VALUE && last - current.first >= retention(resolution) / SEGMENTS_PER_RETENTION) {
+			long sequence = current == null ? 1 : current.sequence + 1;
+			current = openSegment(segmentPath(resolution, sequence), sequence, resolution);
+			chain.addLast(current);
+		}
+		return current;
+	}
+
+	private long retention(Resolution resolution) {
+		return resolution == Resolution.RAW ? rawRetentionMillis : minuteRetentionMillis;
+	}
+
+	/**
+	 * Delete the segments of the resolution whose newest point is past the
+	 * retention; the current segment is kept.
+	 */
+	private void expire(Resolution resolution) throws IOException {
+		if (latest == Long.MIN_VALUE) {
+			return;
+		}
+		ArrayDeque<Segment> chain = segments.get(resolution);
+		while (chain.size() > 1 && chain.peekFirst().last < latest - retention(resolution)) {
+			Segment expired = chain.removeFirst();
+			for (Series target : seriesById) {
+				target.chunks.get(resolution.ordinal()).removeIf(chunk -> chunk.segment() == expired);
+			}
+			expired.channel.close();
+			Files.deleteIfExists(expired.path);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Metrics store segment {} expired", expired.path);
+			}
+		}
+	}
+
+	/**
+	 * Append a record to the file.
+	 *
+	 * @return the offset of the record
+	 */
+	private static int write(Segment segment, ByteBuffer record) throws IOException {
+		long position = segment.end;
+		if (position + record.remaining() > Integer.MAX_VALUE) {
+			throw new IOException("Metrics store " + segment.path + " is full");
+		}
+		while (record.hasRemaining()) {
+			position += segment.channel.write(record, position);
+		}
+		int offset = (int) segment.end;
+		segment.end = position;
+		return offset;
+	}
+
+	/**
+	 * Write every buffered point, so the store file holds everything recorded
+	 * so far except the rollups of the current minute and hour.
+	 */
+	public synchronized void flush() throws IOException {
+		for (Series target : seriesById) {
+			for (Resolution resolution : Resolution.values()) {
+				writeChunk(target, resolution);
+			}
+		}
+		main.channel.force(false);
+		for (ArrayDeque<Segment> chain : segments.values()) {
+			if (!chain.isEmpty()) {
+				chain.peekLast().channel.force(false);
+			}
+		}
+	}
+
+	/**
+	 * @return the names of the recorded series, sorted
+	 */
+	public synchronized List<String> getSeriesNames() {
+		return List.copyOf(series.keySet());
+	}
+
+	/**
+	 * @return the finest resolution that returns at most {@code maxPoints} points for the range
+	 */
+	public Resolution resolutionFor(long from, long to, int maxPoints) {
+		long span = Math.max(0, to - from);
+		if (span / intervalMillis <= maxPoints) {
+			return Resolution.RAW;
+		}
+		return span / Resolution.MINUTE.getMillis() <= maxPoints ? Resolution.MINUTE : Resolution.HOUR;
+	}
+
+	/**
+	 * Points of a series with a timestamp from {@code from} to {@code to}
+	 * inclusive. Rollups include the current, unfinished minute or hour.
+	 *
+	 * @return the points in time order; empty for an unknown series
+	 */
+	public synchronized List<Point> query(String name, long from, long to, Resolution resolution) throws IOException {
+		Series target = series.get(name);
+		List<Point> points = new ArrayList<>();
+		if (target == null || from > to) {
+			return points;
+		}
+		for (ChunkRef chunk : target.chunks.get(resolution.ordinal())) {
+			if (chunk.last() >= from && chunk.first() <= to) {
+				readChunk(chunk.segment().map(), chunk.offset(), from, to, points);
+			}
+		}
+		Buffer buffer = target.buffers[resolution.ordinal()];
+		for (int i = 0; i < buffer.size; i++) {
+			addInRange(points, buffer.get(i), from, to);
+		}
+		if (resolution == Resolution.MINUTE && target.minute != null) {
+			addInRange(points, target.minute, from, to);
+		} else if (resolution == Resolution.HOUR && target.minute != null) {
+			long hour = target.minute.timestamp() - Math.floorMod(target.minute.timestamp(), Resolution.HOUR.getMillis());
+			Point current = new Point(hour, target.minute.min(), target.minute.max(), target.minute.sum(),
+					target.minute.count());
+			if (target.hour != null && target.hour.timestamp() == hour) {
+				current = target.hour.merge(current);
+			} else if (target.hour != null) {
+				addInRange(points, target.hour, from, to);
+			}
+			addInRange(points, current, from, to);
+		}
+
+		// a restart may write a second rollup for the same minute or hour
+		points.sort(Comparator.comparingLong(Point::timestamp));
+		List<Point> merged = new ArrayList<>(points.size());
+		for (Point point : points) {
+			int last = merged.size() - 1;
+			if (resolution != Resolution.RAW && last >= 0 && merged.get(last).timestamp() == point.timestamp()) {
+				merged.set(last, merged.get(last).merge(point));
+			} else {
+				merged.add(point);
+			}
+		}
+		return merged;
+	}
+
+	private static void addInRange(List<Point> points, Point point, long from, long to) {
+		if (point.timestamp() >= from && point.timestamp() <= to) {
+			points.add(point);
+		}
+	}
+
+	private static void readChunk(ByteBuffer in, int offset, long from, long to, List<Point> points) {
+		in.position(offset + 5 + 4);
+		Resolution resolution = Resolution.values()[in.get()];
+		int size = in.getInt();
+		in.position(in.position() + 16);
+
+		long[] timestamps = new long[size];
+		long previous = 0;
+		long previousDelta = 0;
+		for (int i = 0; i < size; i++) {
+			long delta = previousDelta + unZigZag(getVarLong(in));
+			timestamps[i] = previous + delta;
+			previous = timestamps[i];
+			previousDelta = delta;
+		}
+		double[] min = getColumn(in, size);
+		double[] max = min;
+		double[] sum = min;
+		long[] count = null;
+		if (resolution != Resolution.RAW) {
+			max = getColumn(in, size);
+			sum = getColumn(in, size);
+			count = new long[size];
+			long previousCount = 0;
+			for (int i = 0; i < size; i++) {
+				count[i] = previousCount + unZigZag(getVarLong(in));
+				previousCount = count[i];
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			if (timestamps[i] >= from && timestamps[i] <= to) {
+				points.add(new Point(timestamps[i], min[i], max[i], sum[i], count != null ? count[i] : 1));
+			}
+		}
+	}
+
+	/**
+	 * Each value as the XOR of its bits with the previous value: the number of
+	 * trailing zero bits, then the remaining bits as a varint unless all are zero.
+	 */
+	private static void putColumn(ByteBuffer out, double[] values, int size) {
+		long previous = 0;
+		for (int i = 0; i < size; i++) {
+			long bits = Double.doubleToRawLongBits(values[i]);
+			long xor = bits ^ previous;
+			int zeros = Long.numberOfTrailingZeros(xor);
+			out.put((byte) zeros);
+			if (xor != 0) {
+				putVarLong(out, xor >>> zeros);
+			}
+			previous = bits;
+		}
+	}
+
+	private static double[] getColumn(ByteBuffer in, int size) {
+		double[] values = new double[size];
+		long previous = 0;
+		for (int i = 0; i < size; i++) {
+			int zeros = in.get();
+			long bits = zeros == 64 ? previous : previous ^ (getVarLong(in) << zeros);
+			values[i] = Double.longBitsToDouble(bits);
+			previous = bits;
+		}
+		return values;
+	}
+
+	private static void putVarLong(ByteBuffer out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	private static long getVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Rebuild the series dictionary and the chunk index from an existing
+	 * file. A record that is cut off, defines a series out of order or
+	 * refers to an unknown series or resolution ends the intact part.
+	 *
+	 * @param resolution the resolution of a segment file, which holds only chunks of it;
+	 *                   null for the store file
+	 * @return the length of the intact part of the file
+	 */
+	private long readIndex(Segment segment, Resolution resolution) throws IOException {
+		long size = segment.channel.size();
+		if (size == 0) {
+			return 0;
+		}
+		if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+			throw new IOException("Not a metrics store: " + segment.path);
+		}
+		MappedByteBuffer in = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+			throw new IOException("Not a metrics store: " + segment.path);
+		}
+		Resolution[] resolutions = Resolution.values();
+		int position = HEADER_SIZE;
+		while (position + 5 <= size) {
+			int length = in.getInt(position);
+			if (length < 1 || position + 4L + length > size) {
+				break;
+			}
+			int payload = position + 5;
+			byte kind = in.get(position + 4);
+			if (kind == SERIES && resolution == null && length >= 1 + 8) {
+				int id = in.getInt(payload);
+				int nameLength = in.getInt(payload + 4);
+				if (id != seriesById.size() || nameLength < 0 || nameLength > length - 1 - 8) {
+					break;
+				}
+				byte[] bytes = new byte[nameLength];
+				in.get(payload + 8, bytes);
+				Series defined = new Series(id, new String(bytes, StandardCharsets.UTF_8));
+				series.put(defined.name, defined);
+				seriesById.add(defined);
+			} else if (kind == CHUNK && length >= 1 + 25) {
+				int id = in.getInt(payload);
+				int index = in.get(payload + 4);
+				int count = in.getInt(payload + 5);
+				if (id < 0 || id >= seriesById.size() || index < 0 || index >= resolutions.length
+						|| resolution != null && index != resolution.ordinal() || count < 1 || count > CHUNK_POINTS) {
+					break;
+				}
+				ChunkRef chunk = new ChunkRef(in.getLong(payload + 9), in.getLong(payload + 17), segment, position);
+				seriesById.get(id).chunks.get(index).add(chunk);
+				segment.add(chunk);
+				latest = Math.max(latest, chunk.last());
+			} else {
+				break;
+			}
+			position += 4 + length;
+		}
+		return position;
+	}
+
+	public void shutdown() {
+		running = false;
+		interrupt();
+	}
+
+	/**
+	 * Write the buffered points and close the file. The rollups of the current
+	 * minute and hour are written as well, so they may be completed by a later
+	 * run.
+	 */
+	public synchronized void close() {
+		if (!main.channel.isOpen()) {
+			return;
+		}
+		try {
+			for (Series target : seriesById) {
+				if (target.minute != null) {
+					append(target, Resolution.MINUTE, target.minute);
+					rollUpHour(target, target.minute);
+					target.minute = null;
+				}
+				if (target.hour != null) {
+					append(target, Resolution.HOUR, target.hour);
+					target.hour = null;
+				}
+			}
+			flush();
+		} catch (IOException e) {
+			if (LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Closing metrics store {} failed: {}", file, e.getMessage());
+			}
+		}
+		closeFiles();
+	}
+
+	private void closeFiles() {
+		if (main != null) {
+			closeQuietly(main);
+		}
+		for (ArrayDeque<Segment> chain : segments.values()) {
+			for (Segment segment : chain) {
+				closeQuietly(segment);
+			}
+		}
+	}
+
+	private static void closeQuietly(Segment segment) {
+		segment.mapped = null;
+		try {
+			segment.channel.close();
+		} catch (IOException e) {
+			if (LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Closing metrics store {} failed: {}", segment.path, e.getMessage());
+			}
+		}
+	}
+}
@@ -1,32 +1,61 @@
 package de.fachhochschule.dortmund.bads.systems.logic;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import de.fachhochschule.dortmund.bads.ObservabilityConfiguration;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.EventRing;
 import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
 
 /**
  * Observation System - Monitors system metrics and events.
  * Integrated with ClockingSimulation for timing.
+ * 
+ * Events go to a ring of {@link ObservabilityConfiguration#getEventBufferSize()}
+ * slots that overwrites the oldest event, so recording is cheap enough for
+ * every tick. Readers follow the event sequence with their own cursor, or
+ * {@link #subscribe(Set) subscribe} to the event types they need.
+ * 
+ * Each tick also samples tick duration, task queue depth, charging queue
+ * length and fleet utilization into an {@link AnomalyDetector}; its alerts
+ * are recorded as ALERT and ALERT_CLEARED events.
  */
 public class Observation extends Thread implements ITickable {
 	private static final Logger LOGGER = LogManager.getLogger(Observation.class.getName());
 	
-	private final ConcurrentLinkedQueue<SystemEvent> eventBuffer;
-	private final AtomicLong eventsCollected;
+	private static final long DELIVERY_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	
+	private final EventRing<SystemEvent> eventBuffer;
+	private final AnomalyDetector anomalyDetector = new AnomalyDetector(this::onAlert);
 	private volatile boolean running = true;
 	
+	// push subscriptions are served by one dispatcher thread, started with the first of them
+	private final List<Subscription> pushSubscriptions = new CopyOnWriteArrayList<>();
+	private Thread dispatcher;
+	private volatile boolean dispatcherWaiting;
+	
 	public Observation() {
 		super("Observation-Thread");
-		this.eventBuffer = new ConcurrentLinkedQueue<>();
-		this.eventsCollected = new AtomicLong(0);
+		this.eventBuffer = new EventRing<>(ObservabilityConfiguration.INSTANCE.getEventBufferSize());
+		
+		MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+		// a tick must finish within the delay, and not every AGV can be busy
+		anomalyDetector.watch("clock.tick.last.micros", 1_000, () -> metrics.getGaugeValue("clock.delay.millis") * 1_000);
+		anomalyDetector.watch("tasks.queue.depth", 3, null);
+		anomalyDetector.watch("charging.queue.length", 2, null);
+		anomalyDetector.watch("fleet.utilization", 0.2, () -> 1.0);
 		
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Observation System initialized with empty event buffer");
+			LOGGER.debug("Observation System initialized with an event buffer of {} events", eventBuffer.getCapacity());
 		}
 	}
 	
@@ -56,12 +85,6 @@ public class Observation extends Thread implements ITickable {
 					}
 				}
 				
-				// Manage event buffer size
-				int eventsRemoved = manageEventBuffer(config.getEventBufferSize());
-				if (eventsRemoved > 0 && LOGGER.isDebugEnabled()) {
-					LOGGER.debug("Pruned {} old events from buffer (new size: {})", eventsRemoved, eventBuffer.size());
-				}
-				
 				Thread.sleep(config.getMetricsCollectionIntervalMillis());
 			}
 		} catch (InterruptedException e) {
@@ -75,20 +98,24 @@ public class Observation extends Thread implements ITickable {
 		if (LOGGER.isInfoEnabled()) {
 			double avgTime = collectionCycles > 0 ? (double)totalRuntime / collectionCycles : 0.0;
 			LOGGER.info("Observation System stopped after {} collection cycles in {}ms. Total events collected: {} (avg: {}ms per cycle)", 
-					collectionCycles, totalRuntime, eventsCollected.get(),
+					collectionCycles, totalRuntime, eventBuffer.getSequence(),
 					avgTime);
 		}
 	}
 	
 	@Override
 	public void onTick(int currentTick) {
+		if (ObservabilityConfiguration.INSTANCE.isAnomalyDetectionEnabled()) {
+			anomalyDetector.sample(currentTick);
+		}
+		
 		// Record tick event
 		if (currentTick % 50 == 0) {
 			recordEvent("TICK", "System tick: " + currentTick);
 			
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("Tick {} - Event buffer: {} events, Total collected: {}", 
-						currentTick, eventBuffer.size(), eventsCollected.get());
+						currentTick, eventBuffer.size(), eventBuffer.getSequence());
 			}
 		}
 		
@@ -98,32 +125,39 @@ public class Observation extends Thread implements ITickable {
 	}
 	
 	private void collectMetrics() {
-		// Collect basic system metrics
-		long activeThreads = Thread.getAllStackTraces().keySet().stream()
-				.filter(Thread::isAlive)
-				.count();
+		// MXBean gauges instead of Thread.getAllStackTraces(), which captures every stack
+		MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+		long activeThreads = (long) metrics.getGaugeValue("jvm.threads.live");
+		long heapUsedMb = (long) metrics.getGaugeValue("jvm.memory.heap.used.bytes") / (1024 * 1024);
+		MetricsRegistry.Histogram tickLatency = metrics.getHistograms().get("clock.tick.latency.micros");
+		long tickP99 = tickLatency != null ? tickLatency.getPercentile(99) : 0;
 		
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Metrics collected - Active threads: {}, Event buffer: {}, Total events: {}", 
-					activeThreads, eventBuffer.size(), eventsCollected.get());
+			LOGGER.debug("Metrics collected - Active threads: {}, Heap: {}MB, Tick p99: {}us, Event buffer: {}, Total events: {}", 
+					activeThreads, heapUsedMb, tickP99, eventBuffer.size(), eventBuffer.getSequence());
 		}
 		
 		// Record metrics as event
-		recordEvent("METRICS", String.format("Active threads: %d, Events: %d", activeThreads, eventBuffer.size()));
+		recordEvent("METRICS", String.format("Active threads: %d, Heap: %dMB, Tick p99: %dus, Events: %d",
+				activeThreads, heapUsedMb, tickP99, eventBuffer.size()));
 	}
 	
-	private int manageEventBuffer(int maxSize) {
-		int eventsRemoved = 0;
-		while (eventBuffer.size() > maxSize) {
-			eventBuffer.poll();
-			eventsRemoved++;
-		}
-		
-		if (eventsRemoved > 0 && LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Removed {} events to maintain buffer size limit of {}", eventsRemoved, maxSize);
+	private void onAlert(AnomalyDetector.Alert alert) {
+		if (alert.active()) {
+			recordEvent("ALERT", alert.toString());
+			if (LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Anomaly detected: {}", alert);
+			}
+		} else {
+			recordEvent("ALERT_CLEARED", alert.toString());
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("Anomaly cleared: {}", alert);
+			}
 		}
-		
-		return eventsRemoved;
+	}
+	
+	public AnomalyDetector getAnomalyDetector() {
+		return anomalyDetector;
 	}
 	
 	/**
@@ -141,39 +175,208 @@ public class Observation extends Thread implements ITickable {
 		
 		if (config.isEventTrackingEnabled()) {
 			SystemEvent event = new SystemEvent(System.currentTimeMillis(), eventType, details);
-			eventBuffer.offer(event);
-			long totalEvents = eventsCollected.incrementAndGet();
+			long sequence = eventBuffer.offer(event);
+			if (dispatcherWaiting) {
+				LockSupport.unpark(dispatcher);
+			}
 			
 			if (LOGGER.isTraceEnabled()) {
-				LOGGER.trace("Event recorded (total: {}): {}", totalEvents, event);
+				LOGGER.trace("Event recorded (total: {}): {}", sequence + 1, event);
 			}
 		} else if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("Event tracking disabled - event not recorded: {} - {}", eventType, details);
 		}
 	}
 	
-	public ConcurrentLinkedQueue<SystemEvent> getEventBuffer() {
+	/**
+	 * @return a copy of the buffered events, oldest first
+	 */
+	public List<SystemEvent> getEventBuffer() {
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("Event buffer requested - returning {} events", eventBuffer.size());
 		}
-		return new ConcurrentLinkedQueue<>(eventBuffer);
+		return eventBuffer.snapshot();
+	}
+	
+	/**
+	 * Pass the events recorded since the cursor to the consumer, oldest first.
+	 * Events overwritten before they were read are skipped.
+	 * 
+	 * @param cursor the value returned by the previous call, 0 for the first
+	 * @return the cursor for the next call
+	 */
+	public long readEvents(long cursor, Consumer<SystemEvent> consumer) {
+		return eventBuffer.read(cursor, consumer);
 	}
 	
 	public long getTotalEventsCollected() {
-		long total = eventsCollected.get();
+		long total = eventBuffer.getSequence();
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("Total events collected requested: {}", total);
 		}
 		return total;
 	}
 	
+	/**
+	 * Subscribe to new events for polling with {@link Subscription#poll(int)}.
+	 * 
+	 * @param eventTypes the event types to receive; empty for all
+	 */
+	public Subscription subscribe(Set<String> eventTypes) {
+		return new Subscription(eventTypes, 0, null);
+	}
+	
+	/**
+	 * Subscribe to new events, delivered in batches of at most {@code maxBatch}
+	 * events on the dispatcher thread. A subscriber that cannot keep up with
+	 * the event buffer loses the oldest events; they are counted in
+	 * {@link Subscription#getDroppedEvents()}.
+	 * 
+	 * @param eventTypes the event types to receive; empty for all
+	 */
+	public Subscription subscribe(Set<String> eventTypes, int maxBatch, Consumer<List<SystemEvent>> callback) {
+		if (maxBatch <= 0 || callback == null) {
+			throw new IllegalArgumentException("Push subscriptions need a positive batch size and a callback");
+		}
+		Subscription subscription = new Subscription(eventTypes, maxBatch, callback);
+		pushSubscriptions.add(subscription);
+		startDispatcher();
+		return subscription;
+	}
+	
+	private synchronized void startDispatcher() {
+		if (dispatcher != null) {
+			return;
+		}
+		dispatcher = new Thread(this::dispatch, "ObservationDispatch-Thread");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+	
+	private void dispatch() {
+		while (running) {
+			boolean delivered = false;
+			for (Subscription subscription : pushSubscriptions) {
+				delivered |= subscription.deliver();
+			}
+			if (!delivered) {
+				dispatcherWaiting = true;
+				if (pushSubscriptions.stream().noneMatch(Subscription::hasNewEvents)) {
+					LockSupport.parkNanos(DELIVERY_INTERVAL_NANOS);
+				}
+				dispatcherWaiting = false;
+			}
+		}
+	}
+	
 	public void stopSystem() {
 		if (LOGGER.isInfoEnabled()) {
 			LOGGER.info("Stopping Observation System gracefully (buffered events: {}, total collected: {})", 
-					eventBuffer.size(), eventsCollected.get());
+					eventBuffer.size(), eventBuffer.getSequence());
 		}
 		running = false;
 		interrupt();
+		synchronized (this) {
+			if (dispatcher != null) {
+				LockSupport.unpark(dispatcher);
+			}
+		}
+	}
+	
+	/**
+	 * A consumer of new events with its own cursor into the event buffer. It
+	 * starts with the events recorded after subscribing.
+	 */
+	public final class Subscription implements AutoCloseable {
+		private final Set<String> eventTypes;
+		private final int maxBatch;
+		private final Consumer<List<SystemEvent>> callback;
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong dropped = new AtomicLong();
+		private volatile long cursor;
+		private volatile boolean closed;
+		
+		private Subscription(Set<String> eventTypes, int maxBatch, Consumer<List<SystemEvent>> callback) {
+			this.eventTypes = eventTypes == null ? Set.of() : Set.copyOf(eventTypes);
+			this.maxBatch = maxBatch;
+			this.callback = callback;
+			this.cursor = eventBuffer.getSequence();
+		}
+		
+		/**
+		 * Take up to {@code max} new events of the subscribed types.
+		 * 
+		 * @return the events, oldest first; empty if there are none
+		 */
+		public synchronized List<SystemEvent> poll(int max) {
+			List<SystemEvent> batch = new ArrayList<>();
+			if (closed) {
+				return batch;
+			}
+			int[] seen = new int[1];
+			while (batch.size() < max) {
+				long from = cursor;
+				seen[0] = 0;
+				cursor = eventBuffer.read(from, max - batch.size(), event -> {
+					seen[0]++;
+					if (eventTypes.isEmpty() || eventTypes.contains(event.eventType())) {
+						batch.add(event);
+					}
+				});
+				// positions passed without an event were overwritten before this subscriber got to them
+				dropped.addAndGet(cursor - from - seen[0]);
+				if (cursor == from || seen[0] == 0) {
+					break;
+				}
+			}
+			delivered.addAndGet(batch.size());
+			return batch;
+		}
+		
+		private boolean deliver() {
+			if (closed) {
+				return false;
+			}
+			List<SystemEvent> batch = poll(maxBatch);
+			if (batch.isEmpty()) {
+				return false;
+			}
+			try {
+				callback.accept(batch);
+			} catch (RuntimeException e) {
+				if (LOGGER.isErrorEnabled()) {
+					LOGGER.error("Event subscriber failed on a batch of {} events: {}", batch.size(), e.getMessage(), e);
+				}
+			}
+			return true;
+		}
+		
+		private boolean hasNewEvents() {
+			return !closed && cursor < eventBuffer.getSequence();
+		}
+		
+		/**
+		 * @return the number of events handed to this subscriber
+		 */
+		public long getDeliveredEvents() {
+			return delivered.get();
+		}
+		
+		/**
+		 * @return the number of events overwritten before this subscriber read them
+		 */
+		public long getDroppedEvents() {
+			return dropped.get();
+		}
+		
+		/**
+		 * Stop receiving events.
+		 */
+		@Override
+		public void close() {
+			closed = true;
+			pushSubscriptions.remove(this);
+		}
 	}
 	
 	/**
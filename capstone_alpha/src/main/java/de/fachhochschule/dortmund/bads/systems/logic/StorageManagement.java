@@ -1,7 +1,8 @@
 package de.fachhochschule.dortmund.bads.systems.logic;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,8 +17,12 @@ import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
  */
 public class StorageManagement extends Thread implements ITickable {
 	private static final Logger LOGGER = LogManager.getLogger(StorageManagement.class.getName());
+	private static final StorageCell.Type[] STORAGE_TYPES = {
+			StorageCell.Type.AMBIENT, StorageCell.Type.REFRIGERATED, StorageCell.Type.BULK };
 	
-	private final Map<String, Storage> storages = new ConcurrentHashMap<>();
+	// copy-on-write: registration replaces the snapshot, readers share it without copying
+	private final Object registryLock = new Object();
+	private volatile Map<String, Storage> storages = Map.of();
 	private volatile boolean running = true;
 	
 	public StorageManagement() {
@@ -75,40 +80,16 @@ public class StorageManagement extends Thread implements ITickable {
 	}
 	
 	private double calculateUtilization(Storage storage) {
-		if (storage == null || storage.getAllStorages() == null) {
+		if (storage == null || storage.getNodeCount() == 0) {
 			return 0.0;
 		}
 		
-		// Get all cells from the storage
-		Map<de.fachhochschule.dortmund.bads.model.Area.Point, StorageCell> cells = 
-			storage.getAllStorages();
-		
-		if (cells.isEmpty()) {
-			return 0.0;
-		}
-		
-		// Calculate utilization based on occupied volume vs total available volume
+		// Utilization of the storage cells (not corridors or charging stations), from the running totals
 		long totalMaxVolume = 0;
 		long totalUsedVolume = 0;
-		int storageCellCount = 0;
-		
-		// Iterate through all storage cells (excluding corridors and charging stations)
-		for (StorageCell cell : cells.values()) {
-			// Only count actual storage cells (not corridors or charging stations)
-			if (cell.TYPE == StorageCell.Type.AMBIENT ||
-				cell.TYPE == StorageCell.Type.REFRIGERATED ||
-				cell.TYPE == StorageCell.Type.BULK) {
-				
-				storageCellCount++;
-				
-				// Calculate max volume for this cell
-				long maxVolume = (long) cell.MAX_LENGTH * cell.MAX_WIDTH * cell.MAX_HEIGHT;
-				totalMaxVolume += maxVolume;
-				
-				// Calculate actual used volume (sum of all box volumes)
-				long usedVolume = cell.getActualUsedVolume();
-				totalUsedVolume += usedVolume;
-			}
+		for (StorageCell.Type type : STORAGE_TYPES) {
+			totalMaxVolume += storage.getMaxVolume(type);
+			totalUsedVolume += storage.getUsedVolume(type);
 		}
 		
 		// Avoid division by zero
@@ -121,8 +102,8 @@ public class StorageManagement extends Thread implements ITickable {
 		double utilization = (double) totalUsedVolume / totalMaxVolume;
 		
 		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("Storage utilization: {:.2%} ({} / {} volume units across {} storage cells)", 
-					utilization, totalUsedVolume, totalMaxVolume, storageCellCount);
+			LOGGER.trace("Storage utilization: {:.2%} ({} / {} volume units)", 
+					utilization, totalUsedVolume, totalMaxVolume);
 		}
 		
 		return utilization;
@@ -134,11 +115,44 @@ public class StorageManagement extends Thread implements ITickable {
 			return;
 		}
 		
-		Storage previous = storages.put(id, storage);
+		Storage previous;
+		synchronized (registryLock) {
+			Map<String, Storage> next = new LinkedHashMap<>(storages);
+			previous = next.put(id, storage);
+			storages = Collections.unmodifiableMap(next);
+		}
+		removeMetrics(id);
+		registerMetrics(id, storage);
 		LOGGER.info("{} storage: {}. Total storages: {}", 
 				previous != null ? "Replaced" : "Registered", id, storages.size());
 	}
 	
+	/**
+	 * Gauges of one storage, labeled with its id so that storages do not
+	 * overwrite each other's readings.
+	 */
+	private static void registerMetrics(String id, Storage storage) {
+		MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+		for (StorageCell.Type type : StorageCell.Type.values()) {
+			if (Storage.isInventoryType(type) && storage.getMaxVolume(type) > 0) {
+				metrics.gauge(MetricsRegistry.labeled("storage.utilization", "storage", id, "type", type.name()),
+						storage, registered -> (double) registered.getUsedVolume(type) / registered.getMaxVolume(type));
+			}
+		}
+		metrics.gauge(MetricsRegistry.labeled("storage.units", "storage", id), storage, Storage::getTotalUnits);
+		metrics.gauge(MetricsRegistry.labeled("storage.beverages.low", "storage", id), storage,
+				registered -> registered.getLowStockBeverages().size());
+	}
+	
+	private static void removeMetrics(String id) {
+		MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+		for (StorageCell.Type type : StorageCell.Type.values()) {
+			metrics.removeGauge(MetricsRegistry.labeled("storage.utilization", "storage", id, "type", type.name()));
+		}
+		metrics.removeGauge(MetricsRegistry.labeled("storage.units", "storage", id));
+		metrics.removeGauge(MetricsRegistry.labeled("storage.beverages.low", "storage", id));
+	}
+	
 	public Storage getStorage(String id) {
 		return storages.get(id);
 	}
@@ -149,14 +163,27 @@ public class StorageManagement extends Thread implements ITickable {
 			return;
 		}
 		
-		Storage removed = storages.remove(id);
+		Storage removed;
+		synchronized (registryLock) {
+			Map<String, Storage> next = new LinkedHashMap<>(storages);
+			removed = next.remove(id);
+			if (removed != null) {
+				storages = Collections.unmodifiableMap(next);
+			}
+		}
 		if (removed != null) {
+			removeMetrics(id);
 			LOGGER.info("Unregistered storage: {}. Remaining storages: {}", id, storages.size());
 		}
 	}
 	
+	/**
+	 * Get an immutable snapshot of all registered storages in registration order.
+	 * The snapshot is shared between callers and is not affected by later
+	 * registrations.
+	 */
 	public Map<String, Storage> getAllStorages() {
-		return new ConcurrentHashMap<>(storages);
+		return storages;
 	}
 	
 	public void stopSystem() {
@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
@@ -32,6 +34,13 @@ public class TaskManagement extends Thread implements ITickable {
 	private final ReadWriteLock lock;
 	private volatile boolean running = true;
 	
+	// when each task was added, until it is started
+	private final Map<Task, Long> addedAtNanos = new ConcurrentHashMap<>();
+	private final MetricsRegistry.Counter addedCounter = MetricsRegistry.INSTANCE.counter("tasks.added");
+	private final MetricsRegistry.Counter startedCounter = MetricsRegistry.INSTANCE.counter("tasks.started");
+	private final MetricsRegistry.Histogram waitTime = MetricsRegistry.INSTANCE.histogram("tasks.wait.millis",
+			MetricsRegistry.WAIT_MILLIS);
+	
 	public TaskManagement() {
 		super("TaskManagement-Thread");
 		this.allTasks = new ArrayList<>();
@@ -42,6 +51,9 @@ public class TaskManagement extends Thread implements ITickable {
 			Comparator.comparingInt(Task::getTaskPriority).reversed()
 		);
 		
+		MetricsRegistry.INSTANCE.gauge("tasks.queue.depth", this, TaskManagement::getPendingTaskCount);
+		MetricsRegistry.INSTANCE.gauge("tasks.total", this, TaskManagement::getTasksCount);
+		
 		if (LOGGER.isInfoEnabled()) {
 			LOGGER.info("TaskManagement initialized with priority-based queue");
 		}
@@ -101,13 +113,11 @@ public class TaskManagement extends Thread implements ITickable {
 		}
 
 		// Log status periodically
-		if (currentTick % 10 == 0) {
+		if (currentTick % 10 == 0 && LOGGER.isInfoEnabled()) {
 			lock.readLock().lock();
 			try {
-				if (LOGGER.isInfoEnabled()) {
-					LOGGER.info("Tick {} - Task Status - Total: {}, Priority Queue: {}",
-							currentTick, allTasks.size(), priorityQueue.size());
-				}
+				LOGGER.info("Tick {} - Task Status - Total: {}, Priority Queue: {}",
+						currentTick, allTasks.size(), priorityQueue.size());
 			} finally {
 				lock.readLock().unlock();
 			}
@@ -135,6 +145,11 @@ public class TaskManagement extends Thread implements ITickable {
 			for (Task task : pendingTasks) {
 				try {
 					task.start();
+					startedCounter.increment();
+					Long addedAt = addedAtNanos.remove(task);
+					if (addedAt != null) {
+						waitTime.record((System.nanoTime() - addedAt) / 1_000_000);
+					}
 					if (LOGGER.isInfoEnabled()) {
 						LOGGER.info("Started task: {} with priority {}", task.getTaskId(), task.getTaskPriority());
 					}
@@ -195,6 +210,9 @@ public class TaskManagement extends Thread implements ITickable {
 			if (added && TaskManagementConfiguration.INSTANCE.isTaskPrioritizationEnabled()) {
 				priorityQueue.offer(task);
 			}
+			if (added) {
+				enqueued(task);
+			}
 			
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("Added task: {} - Total tasks: {}", task, allTasks.size());
@@ -224,6 +242,7 @@ public class TaskManagement extends Thread implements ITickable {
 					if (TaskManagementConfiguration.INSTANCE.isTaskPrioritizationEnabled()) {
 						priorityQueue.offer(task);
 					}
+					enqueued(task);
 					addedCount++;
 				}
 			}
@@ -237,6 +256,13 @@ public class TaskManagement extends Thread implements ITickable {
 		}
 	}
 	
+	private void enqueued(Task task) {
+		addedCounter.increment();
+		if (task.getState() == Thread.State.NEW) {
+			addedAtNanos.put(task, System.nanoTime());
+		}
+	}
+	
 	// ==================== READ Operations ====================
 	
 	/**
@@ -363,6 +389,25 @@ public class TaskManagement extends Thread implements ITickable {
 		}
 	}
 	
+	/**
+	 * Get the number of tasks that have not been started yet.
+	 * @return number of waiting tasks
+	 */
+	public int getPendingTaskCount() {
+		lock.readLock().lock();
+		try {
+			int pending = 0;
+			for (Task task : allTasks) {
+				if (task.getState() == Thread.State.NEW) {
+					pending++;
+				}
+			}
+			return pending;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
 	// ==================== UPDATE Operations ====================
 	
 	/**
@@ -462,6 +507,7 @@ public class TaskManagement extends Thread implements ITickable {
 			if (task != null) {
 				allTasks.remove(task);
 				priorityQueue.remove(task);
+				addedAtNanos.remove(task);
 				
 				if (LOGGER.isInfoEnabled()) {
 					LOGGER.info("Removed task by ID: {} - Remaining tasks: {}", taskId, allTasks.size());
@@ -495,6 +541,7 @@ public class TaskManagement extends Thread implements ITickable {
 			
 			Task removed = allTasks.remove(index);
 			priorityQueue.remove(removed);
+			addedAtNanos.remove(removed);
 			
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("Removed task at index {}: {} - Remaining: {}", index, removed, allTasks.size());
@@ -523,6 +570,7 @@ public class TaskManagement extends Thread implements ITickable {
 			boolean removed = allTasks.remove(task);
 			if (removed) {
 				priorityQueue.remove(task);
+				addedAtNanos.remove(task);
 				
 				if (LOGGER.isInfoEnabled()) {
 					LOGGER.info("Removed task: {} - Remaining: {}", task, allTasks.size());
@@ -554,6 +602,7 @@ public class TaskManagement extends Thread implements ITickable {
 			for (Task task : tasksToRemove) {
 				if (allTasks.remove(task)) {
 					priorityQueue.remove(task);
+					addedAtNanos.remove(task);
 					removedCount++;
 				}
 			}
@@ -578,6 +627,7 @@ public class TaskManagement extends Thread implements ITickable {
 			int count = allTasks.size();
 			allTasks.clear();
 			priorityQueue.clear();
+			addedAtNanos.clear();
 			
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("Cleared all tasks - {} tasks removed", count);
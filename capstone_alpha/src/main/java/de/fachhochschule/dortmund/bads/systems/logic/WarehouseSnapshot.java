@@ -0,0 +1,631 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.fachhochschule.dortmund.bads.exceptions.SystemException;
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.Task;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.resources.Truck;
+
+/**
+ * Binary snapshot of the whole simulation: city and warehouse graphs, the
+ * storage cells with their boxes, the AGV fleet and the trucks.
+ *
+ * A snapshot is an immutable copy taken in one epoch, ideally between two
+ * ticks via {@link #captureAsync}; encoding and writing happen afterwards on a
+ * background thread, so the tick loop only pays for the copy. Files are written
+ * through a {@link FileChannel} and read back by memory-mapping them.
+ *
+ * AGVs come back idle at their position with their battery and cargo, and
+ * trucks continue their route from the saved index. Routes an AGV was driving
+ * and the processes of queued tasks are not part of the snapshot, so queued
+ * tasks are not restored: without their processes they would complete without
+ * doing any work. The snapshot only keeps their number, and a restore
+ * reports how many were dropped.
+ */
+public final class WarehouseSnapshot {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private static final int MAGIC = 0x42414453; // "BADS"
+	private static final short VERSION = 2;
+
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "SnapshotWriter-Thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final int tick;
+	private final Graph city;
+	private final Graph warehouseArea;
+	private final Point cityPosition;
+	// warehouse cells in node id order, matching the nodes of warehouseArea
+	private final Cell[] cells;
+	private final Vehicle[] agvs;
+	private final Delivery[] trucks;
+	private final int queuedTasks;
+
+	private record Graph(int startX, int startY, Point[] nodes, int[][] neighbors) {
+	}
+
+	private record Box(BeveragesBox.Type type, String name, int width, int height, int length, int quantity) {
+	}
+
+	private record Cell(StorageCell.Type type, int length, int width, int height, Box[] boxes) {
+	}
+
+	private record Vehicle(Point position, int batteryLevel, int ticksPerMovement, double batteryLowThreshold,
+			int chargePerTick, int loseChargePerActionPerTick, Box[] cargo) {
+	}
+
+	private record Delivery(Point start, Point destination, int ticksPerPointInRoute, int currentLocationIdx,
+			boolean moving, Cell inventory) {
+	}
+
+	/**
+	 * Live objects rebuilt from a snapshot, and the number of queued tasks
+	 * that were dropped.
+	 */
+	public record Restored(int tick, Area city, Storage warehouse, List<AGV> agvFleet, List<Truck> trucks,
+			int droppedTasks) {
+	}
+
+	private WarehouseSnapshot(int tick, Graph city, Graph warehouseArea, Point cityPosition, Cell[] cells,
+			Vehicle[] agvs, Delivery[] trucks, int queuedTasks) {
+		this.tick = tick;
+		this.city = city;
+		this.warehouseArea = warehouseArea;
+		this.cityPosition = cityPosition;
+		this.cells = cells;
+		this.agvs = agvs;
+		this.trucks = trucks;
+		this.queuedTasks = queuedTasks;
+	}
+
+	/**
+	 * Copy the current state. Each cell is copied under its own lock; call this
+	 * between ticks (see {@link #captureAsync}) for a state that is consistent
+	 * across cells and vehicles.
+	 *
+	 * @param tick the tick the snapshot belongs to
+	 * @param cityArea the city graph, may be null
+	 * @param warehouse the warehouse storage
+	 * @param agvFleet the AGVs of the warehouse, may be null
+	 * @param trucks the trucks in the city, may be null
+	 * @param tasks the queued tasks, only counted; may be null
+	 */
+	public static WarehouseSnapshot capture(int tick, Area cityArea, Storage warehouse, List<AGV> agvFleet,
+			List<Truck> trucks, List<Task> tasks) {
+		if (warehouse == null) {
+			throw new IllegalArgumentException("Warehouse cannot be null");
+		}
+		long start = System.nanoTime();
+		Point[] nodes = new Point[warehouse.getNodeCount()];
+		Cell[] cells = new Cell[nodes.length];
+		for (int nodeId = 0; nodeId < nodes.length; nodeId++) {
+			nodes[nodeId] = warehouse.getPoint(nodeId);
+			cells[nodeId] = copyCell(warehouse.getCellByNodeId(nodeId));
+		}
+		Graph warehouseArea = copyGraph(warehouse.AREA, nodes);
+		Graph city = cityArea == null ? null : copyGraph(cityArea, cityArea.getAdjacencyMap().keySet().toArray(Point[]::new));
+
+		List<AGV> fleet = agvFleet == null ? List.of() : agvFleet;
+		Vehicle[] agvs = new Vehicle[fleet.size()];
+		for (int i = 0; i < agvs.length; i++) {
+			AGV agv = fleet.get(i);
+			agvs[i] = new Vehicle(agv.getCurrentPosition(), agv.getBatteryLevel(), agv.getTicksPerMovement(),
+					agv.getBatteryLowThreshold(), agv.getChargePerTick(), agv.getLoseChargePerActionPerTick(),
+					copyBoxes(agv.getInventoryCell()));
+		}
+
+		List<Truck> truckList = trucks == null ? List.of() : trucks;
+		Delivery[] deliveries = new Delivery[truckList.size()];
+		for (int i = 0; i < deliveries.length; i++) {
+			Truck truck = truckList.get(i);
+			deliveries[i] = new Delivery(truck.getStartPoint(), truck.getDestinationPoint(),
+					truck.getTicksPerPointInRoute(), truck.getCurrentLocationIdx(), truck.isMoving(),
+					truck.getInventoryCell() == null ? null : copyCell(truck.getInventoryCell()));
+		}
+
+		WarehouseSnapshot snapshot = new WarehouseSnapshot(tick, city, warehouseArea, warehouse.getCityPosition(),
+				cells, agvs, deliveries, tasks == null ? 0 : tasks.size());
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Captured snapshot of tick {} with {} cells, {} AGVs, {} trucks in {}us", tick, cells.length,
+					agvs.length, deliveries.length, (System.nanoTime() - start) / 1000);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Capture between two ticks of the clock and write the snapshot on a
+	 * background thread. The tick loop is held only while the state is copied.
+	 *
+	 * @return a future completed with the file once it has been written
+	 */
+	public static CompletableFuture<Path> captureAsync(ClockingSimulation clock, Path file, Area cityArea,
+			Storage warehouse, List<AGV> agvFleet, List<Truck> trucks, List<Task> tasks) {
+		CompletableFuture<Path> written = new CompletableFuture<>();
+		Runnable capture = () -> {
+			try {
+				WarehouseSnapshot snapshot = capture(clock == null ? 0 : clock.getCurrentTime(), cityArea, warehouse,
+						agvFleet, trucks, tasks);
+				WRITER.execute(() -> {
+					try {
+						snapshot.write(file);
+						written.complete(file);
+					} catch (IOException | RuntimeException e) {
+						written.completeExceptionally(e);
+					}
+				});
+			} catch (RuntimeException e) {
+				written.completeExceptionally(e);
+			}
+		};
+		if (clock == null) {
+			capture.run();
+		} else {
+			clock.runBetweenTicks(capture);
+		}
+		return written;
+	}
+
+	private static Graph copyGraph(Area area, Point[] nodes) {
+		Map<Point, Set<Point>> adjacency = area.getAdjacencyMap();
+		Map<Point, Integer> index = new HashMap<>();
+		for (int i = 0; i < nodes.length; i++) {
+			index.put(nodes[i], i);
+		}
+		int[][] neighbors = new int[nodes.length][];
+		for (int i = 0; i < nodes.length; i++) {
+			Set<Point> adjacent = adjacency.getOrDefault(nodes[i], Set.of());
+			int[] ids = new int[adjacent.size()];
+			int count = 0;
+			for (Point neighbor : adjacent) {
+				Integer id = index.get(neighbor);
+				if (id != null) {
+					ids[count++] = id;
+				}
+			}
+			neighbors[i] = count == ids.length ? ids : Arrays.copyOf(ids, count);
+		}
+		return new Graph(area.getStartX(), area.getStartY(), nodes, neighbors);
+	}
+
+	private static Cell copyCell(StorageCell cell) {
+		return new Cell(cell.TYPE, cell.MAX_LENGTH, cell.MAX_WIDTH, cell.MAX_HEIGHT, copyBoxes(cell));
+	}
+
+	private static Box[] copyBoxes(StorageCell cell) {
+		List<BeveragesBox> stored = cell.getStoredBoxes();
+		Box[] boxes = new Box[stored.size()];
+		for (int i = 0; i < boxes.length; i++) {
+			BeveragesBox box = stored.get(i);
+			boxes[i] = new Box(box.getType(), box.getBeverageName(), box.getWidth(), box.getHeight(), box.getLength(),
+					(int) box.getQuantity());
+		}
+		return boxes;
+	}
+
+	/**
+	 * @return the tick the snapshot was taken at
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * Write the snapshot to a file. The data goes to a temporary file next to
+	 * the target first, which then replaces the target, so a crash while writing
+	 * never leaves a half-written snapshot behind.
+	 */
+	public void write(Path file) throws IOException {
+		long start = System.nanoTime();
+		Encoder body = new Encoder();
+		writeGraph(body, city);
+		writeGraph(body, warehouseArea);
+		body.putBoolean(cityPosition != null);
+		if (cityPosition != null) {
+			body.putPoint(cityPosition);
+		}
+		for (Cell cell : cells) {
+			writeCell(body, cell);
+		}
+		body.putInt(agvs.length);
+		for (Vehicle agv : agvs) {
+			body.putNullablePoint(agv.position());
+			body.putInt(agv.batteryLevel());
+			body.putInt(agv.ticksPerMovement());
+			body.putDouble(agv.batteryLowThreshold());
+			body.putInt(agv.chargePerTick());
+			body.putInt(agv.loseChargePerActionPerTick());
+			writeBoxes(body, agv.cargo());
+		}
+		body.putInt(trucks.length);
+		for (Delivery truck : trucks) {
+			body.putNullablePoint(truck.start());
+			body.putNullablePoint(truck.destination());
+			body.putInt(truck.ticksPerPointInRoute());
+			body.putInt(truck.currentLocationIdx());
+			body.putBoolean(truck.moving());
+			body.putBoolean(truck.inventory() != null);
+			if (truck.inventory() != null) {
+				writeCell(body, truck.inventory());
+			}
+		}
+		body.putInt(queuedTasks);
+
+		// header and string table go first, the body refers to strings by index
+		Encoder header = new Encoder();
+		header.putInt(MAGIC);
+		header.putShort(VERSION);
+		header.putInt(tick);
+		header.putInt(body.strings.size());
+		for (String value : body.strings.keySet()) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			header.putInt(bytes.length);
+			header.put(bytes);
+		}
+
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		ByteBuffer[] buffers = { header.flip(), body.flip() };
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffers[1].hasRemaining()) {
+				channel.write(buffers);
+			}
+			channel.force(true);
+		}
+		try {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Snapshot of tick {} written to {} ({} bytes) in {}ms", tick, file,
+					buffers[0].limit() + buffers[1].limit(), (System.nanoTime() - start) / 1_000_000);
+		}
+	}
+
+	private static void writeGraph(Encoder out, Graph graph) {
+		out.putBoolean(graph != null);
+		if (graph == null) {
+			return;
+		}
+		out.putInt(graph.startX());
+		out.putInt(graph.startY());
+		out.putInt(graph.nodes().length);
+		for (Point node : graph.nodes()) {
+			out.putPoint(node);
+		}
+		for (int[] adjacent : graph.neighbors()) {
+			out.putInt(adjacent.length);
+			for (int id : adjacent) {
+				out.putInt(id);
+			}
+		}
+	}
+
+	private static void writeCell(Encoder out, Cell cell) {
+		out.put((byte) cell.type().ordinal());
+		out.putInt(cell.length());
+		out.putInt(cell.width());
+		out.putInt(cell.height());
+		writeBoxes(out, cell.boxes());
+	}
+
+	private static void writeBoxes(Encoder out, Box[] boxes) {
+		out.putInt(boxes.length);
+		for (Box box : boxes) {
+			out.put((byte) box.type().ordinal());
+			out.putString(box.name());
+			out.putInt(box.width());
+			out.putInt(box.height());
+			out.putInt(box.length());
+			out.putInt(box.quantity());
+		}
+	}
+
+	/**
+	 * Read a snapshot by memory-mapping the file.
+	 *
+	 * @throws IOException if the file cannot be read or is not a valid snapshot
+	 */
+	public static WarehouseSnapshot read(Path file) throws IOException {
+		long start = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (in.remaining() < 10 || in.getInt() != MAGIC) {
+				throw new IOException("Not a warehouse snapshot: " + file);
+			}
+			short version = in.getShort();
+			if (version != VERSION) {
+				throw new IOException("Unsupported snapshot version " + version + " in " + file);
+			}
+			int tick = in.getInt();
+			String[] strings = new String[in.getInt()];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			Graph city = readGraph(in);
+			Graph warehouseArea = readGraph(in);
+			if (warehouseArea == null) {
+				throw new IOException("Snapshot without warehouse: " + file);
+			}
+			Point cityPosition = in.get() != 0 ? readPoint(in) : null;
+			Cell[] cells = new Cell[warehouseArea.nodes().length];
+			for (int i = 0; i < cells.length; i++) {
+				cells[i] = readCell(in, strings);
+			}
+			Vehicle[] agvs = new Vehicle[in.getInt()];
+			for (int i = 0; i < agvs.length; i++) {
+				agvs[i] = new Vehicle(readNullablePoint(in), in.getInt(), in.getInt(), in.getDouble(), in.getInt(),
+						in.getInt(), readBoxes(in, strings));
+			}
+			Delivery[] trucks = new Delivery[in.getInt()];
+			for (int i = 0; i < trucks.length; i++) {
+				trucks[i] = new Delivery(readNullablePoint(in), readNullablePoint(in), in.getInt(), in.getInt(),
+						in.get() != 0, in.get() != 0 ? readCell(in, strings) : null);
+			}
+			int queuedTasks = in.getInt();
+
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("Snapshot of tick {} read from {} in {}ms", tick, file, (System.nanoTime() - start) / 1_000_000);
+			}
+			return new WarehouseSnapshot(tick, city, warehouseArea, cityPosition, cells, agvs, trucks, queuedTasks);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+			throw new IOException("Corrupt warehouse snapshot: " + file, e);
+		}
+	}
+
+	private static Graph readGraph(ByteBuffer in) {
+		if (in.get() == 0) {
+			return null;
+		}
+		int startX = in.getInt();
+		int startY = in.getInt();
+		Point[] nodes = new Point[in.getInt()];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = readPoint(in);
+		}
+		int[][] neighbors = new int[nodes.length][];
+		for (int i = 0; i < nodes.length; i++) {
+			neighbors[i] = new int[in.getInt()];
+			for (int j = 0; j < neighbors[i].length; j++) {
+				neighbors[i][j] = in.getInt();
+			}
+		}
+		return new Graph(startX, startY, nodes, neighbors);
+	}
+
+	private static Cell readCell(ByteBuffer in, String[] strings) {
+		StorageCell.Type type = StorageCell.Type.values()[in.get()];
+		return new Cell(type, in.getInt(), in.getInt(), in.getInt(), readBoxes(in, strings));
+	}
+
+	private static Box[] readBoxes(ByteBuffer in, String[] strings) {
+		Box[] boxes = new Box[in.getInt()];
+		for (int i = 0; i < boxes.length; i++) {
+			BeveragesBox.Type type = BeveragesBox.Type.values()[in.get()];
+			boxes[i] = new Box(type, strings[in.getInt()], in.getInt(), in.getInt(), in.getInt(), in.getInt());
+		}
+		return boxes;
+	}
+
+	private static Point readPoint(ByteBuffer in) {
+		return Storage.point(in.getInt(), in.getInt());
+	}
+
+	private static Point readNullablePoint(ByteBuffer in) {
+		return in.get() != 0 ? readPoint(in) : null;
+	}
+
+	/**
+	 * Build live objects from the snapshot. The warehouse cells are created with
+	 * the configured placement strategy and refilled in their saved order.
+	 */
+	public Restored restore() {
+		Area cityArea = city == null ? null : toArea(city);
+		Area area = toArea(warehouseArea);
+
+		// Storage pairs cells with places in the iteration order of the area graph
+		Map<Point, Integer> nodeIndex = new HashMap<>();
+		for (int i = 0; i < warehouseArea.nodes().length; i++) {
+			nodeIndex.put(warehouseArea.nodes()[i], i);
+		}
+		StorageCell[] storageCells = new StorageCell[cells.length];
+		int i = 0;
+		for (Point place : area.getAdjacencyMap().keySet()) {
+			storageCells[i++] = toCell(cells[nodeIndex.get(place)]);
+		}
+		Storage warehouse = new Storage(area, storageCells);
+		if (cityPosition != null) {
+			warehouse.setCityPosition(cityPosition);
+		}
+
+		List<AGV> fleet = new ArrayList<>(agvs.length);
+		for (Vehicle vehicle : agvs) {
+			AGV agv = new AGV();
+			agv.setTicksPerMovement(vehicle.ticksPerMovement());
+			agv.setBatteryLowThreshold(vehicle.batteryLowThreshold());
+			agv.setChargePerTick(vehicle.chargePerTick());
+			agv.setLoseChargePerActionPerTick(vehicle.loseChargePerActionPerTick());
+			agv.setBatteryLevel(vehicle.batteryLevel());
+			if (vehicle.position() != null) {
+				agv.executeProgram(new AGV.Statement<?>[] {
+					new AGV.Statement<>(AGV.Operand.SETUP, warehouse, vehicle.position())
+				});
+			}
+			for (Box box : vehicle.cargo()) {
+				agv.getInventoryCell().add(toBox(box));
+			}
+			fleet.add(agv);
+		}
+
+		List<Truck> truckList = new ArrayList<>(trucks.length);
+		for (Delivery delivery : trucks) {
+			Truck truck = new Truck(cityArea);
+			truck.setStartPoint(delivery.start());
+			truck.setDestinationPoint(delivery.destination());
+			truck.setTicksPerPointInRoute(delivery.ticksPerPointInRoute());
+			if (delivery.inventory() != null) {
+				truck.setInventoryCell(toCell(delivery.inventory()));
+			}
+			if (cityArea != null && delivery.start() != null && delivery.destination() != null) {
+				try {
+					truck.call();
+				} catch (Exception e) {
+					throw new SystemException("Cannot recalculate the route of a restored truck", e);
+				}
+				truck.setCurrentLocationIdx(delivery.currentLocationIdx());
+			}
+			truck.setMoving(delivery.moving());
+			truckList.add(truck);
+		}
+
+		if (queuedTasks > 0 && LOGGER.isWarnEnabled()) {
+			LOGGER.warn("Dropped {} queued tasks of the snapshot: their processes are not saved", queuedTasks);
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("Restored snapshot of tick {}: {} cells, {} AGVs, {} trucks", tick, cells.length,
+					fleet.size(), truckList.size());
+		}
+		return new Restored(tick, cityArea, warehouse, fleet, truckList, queuedTasks);
+	}
+
+	private static Area toArea(Graph graph) {
+		Map<Point, Set<Point>> adjacency = new LinkedHashMap<>();
+		for (int i = 0; i < graph.nodes().length; i++) {
+			Set<Point> neighbors = new HashSet<>();
+			for (int id : graph.neighbors()[i]) {
+				neighbors.add(graph.nodes()[id]);
+			}
+			adjacency.put(graph.nodes()[i], neighbors);
+		}
+		Area area = new Area();
+		area.setGraph(adjacency);
+		area.setStart(graph.startX(), graph.startY());
+		return area;
+	}
+
+	private static StorageCell toCell(Cell cell) {
+		StorageCell storageCell = new StorageCell(cell.type(), cell.length(), cell.width(), cell.height());
+		for (Box box : cell.boxes()) {
+			if (!storageCell.add(toBox(box)) && LOGGER.isWarnEnabled()) {
+				LOGGER.warn("Snapshot box {} no longer fits its {} cell", box.name(), cell.type());
+			}
+		}
+		return storageCell;
+	}
+
+	private static BeveragesBox toBox(Box box) {
+		return new BeveragesBox(box.type(), box.name(), box.width(), box.height(), box.length(), box.quantity());
+	}
+
+	/**
+	 * Growable big-endian buffer that interns strings into a table written
+	 * ahead of the body.
+	 */
+	private static final class Encoder {
+		private ByteBuffer buffer = ByteBuffer.allocate(4096);
+		private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+		private void ensure(int bytes) {
+			if (buffer.remaining() < bytes) {
+				ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+				buffer.flip();
+				grown.put(buffer);
+				buffer = grown;
+			}
+		}
+
+		void put(byte value) {
+			ensure(1);
+			buffer.put(value);
+		}
+
+		void put(byte[] values) {
+			ensure(values.length);
+			buffer.put(values);
+		}
+
+		void putBoolean(boolean value) {
+			put((byte) (value ? 1 : 0));
+		}
+
+		void putShort(short value) {
+			ensure(2);
+			buffer.putShort(value);
+		}
+
+		void putInt(int value) {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		void putDouble(double value) {
+			ensure(8);
+			buffer.putDouble(value);
+		}
+
+		void putPoint(Point point) {
+			putInt(point.x());
+			putInt(point.y());
+		}
+
+		void putNullablePoint(Point point) {
+			putBoolean(point != null);
+			if (point != null) {
+				putPoint(point);
+			}
+		}
+
+		void putString(String value) {
+			Integer index = strings.get(value);
+			if (index == null) {
+				index = strings.size();
+				strings.put(value, index);
+			}
+			putInt(index);
+		}
+
+		ByteBuffer flip() {
+			return buffer.flip();
+		}
+	}
+}
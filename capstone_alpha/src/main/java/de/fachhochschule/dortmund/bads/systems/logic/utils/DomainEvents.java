@@ -0,0 +1,150 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events of the simulation, so recordings show what the
+ * warehouse was doing next to GC pauses and CPU samples.
+ *
+ * All events are disabled unless a recording enables them, usually through
+ * the settings profile {@code src/main/resources/jfr/bads.jfc}:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording:settings=default,settings=src/main/resources/jfr/bads.jfc,filename=bads.jfr ...
+ * </pre>
+ *
+ * A disabled event costs an allocation the JIT removes and a check of a
+ * static flag. Call sites fill in fields that need work only after
+ * {@link Event#shouldCommit()} returned true.
+ */
+public final class DomainEvents {
+
+    public static final String PREFIX = "de.fachhochschule.dortmund.bads.";
+
+    private DomainEvents() {
+    }
+
+    @Name(PREFIX + "Tick")
+    @Label("Simulation Tick")
+    @Description("One tick of the clocking simulation over all registered tickables")
+    @Category({ "BADS", "Simulation" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Tick extends Event {
+        @Label("Tick")
+        public int tick;
+
+        @Label("Tickables")
+        public int tickables;
+
+        @Label("Failed Tickables")
+        public int failed;
+    }
+
+    @Name(PREFIX + "PathSearch")
+    @Label("Path Search")
+    @Description("Shortest path search in an area")
+    @Category({ "BADS", "Routing" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class PathSearch extends Event {
+        @Label("From")
+        public String from;
+
+        @Label("To")
+        public String to;
+
+        @Label("Nodes Visited")
+        public int visitedNodes;
+
+        @Label("Graph Size")
+        public int graphSize;
+
+        @Label("Path Length")
+        @Description("Number of points on the path including start and target, 0 if there is none")
+        public int pathLength;
+    }
+
+    @Name(PREFIX + "Dispatch")
+    @Label("Task Dispatch")
+    @Description("Assignment of a delivery task to an AGV")
+    @Category({ "BADS", "Dispatch" })
+    @Enabled(false)
+    public static final class Dispatch extends Event {
+        @Label("Task")
+        public int taskId;
+
+        @Label("Beverage")
+        public String beverage;
+
+        @Label("AGV")
+        @Description("The AGV the task went to, empty if none was available")
+        public String agv;
+
+        @Label("Assigned")
+        public boolean assigned;
+    }
+
+    @Name(PREFIX + "AGVStateChange")
+    @Label("AGV State Change")
+    @Category({ "BADS", "Fleet" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class AGVStateChange extends Event {
+        @Label("AGV")
+        public String agv;
+
+        @Label("From")
+        public String from;
+
+        @Label("To")
+        public String to;
+
+        @Label("Battery Level")
+        public int batteryLevel;
+    }
+
+    @Name(PREFIX + "StorageMutation")
+    @Label("Storage Mutation")
+    @Description("A box added to or removed from a storage cell, including the time spent in the cell lock")
+    @Category({ "BADS", "Storage" })
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class StorageMutation extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Cell Type")
+        public String cellType;
+
+        @Label("Beverage")
+        public String beverage;
+
+        @Label("Units")
+        public int units;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name(PREFIX + "ArchiveOperation")
+    @Label("Archive Operation")
+    @Category({ "BADS", "Archive" })
+    @Enabled(false)
+    public static final class ArchiveOperation extends Event {
+        @Label("Command")
+        public String command;
+
+        @Label("Argument")
+        public String argument;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+}
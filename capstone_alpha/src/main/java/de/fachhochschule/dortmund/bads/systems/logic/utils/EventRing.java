@@ -0,0 +1,112 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded ring of the most recent elements. Any number of threads may offer;
+ * when the ring is full the oldest element is overwritten. Every element gets
+ * a sequence number, and readers keep their own cursor into that sequence
+ * instead of taking elements out, so many readers see the same elements.
+ *
+ * Offering claims a sequence number with one atomic increment and publishes
+ * the element into its slot without locking.
+ */
+public class EventRing<E> {
+
+    private record Slot<E>(long sequence, E element) {
+    }
+
+    private final int capacity;
+    private final AtomicReferenceArray<Slot<E>> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    public EventRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Append an element, overwriting the oldest one if the ring is full.
+     *
+     * @return the sequence number of the element
+     */
+    public long offer(E element) {
+        long sequence = nextSequence.getAndIncrement();
+        int index = (int) (sequence % capacity);
+        Slot<E> slot = new Slot<>(sequence, element);
+        Slot<E> current = slots.get(index);
+        // a producer that lapped this one may already have published a newer element
+        while ((current == null || current.sequence() < sequence)
+                && !slots.compareAndSet(index, current, slot)) {
+            current = slots.get(index);
+        }
+        return sequence;
+    }
+
+    /**
+     * Pass the elements from the cursor on to the consumer, oldest first.
+     * Elements that were overwritten before they were read are skipped; the
+     * read stops at the first element whose producer has not published it yet.
+     *
+     * @param cursor the sequence number of the first element to read, 0 for the start
+     * @return the cursor for the next read
+     */
+    public long read(long cursor, Consumer<? super E> consumer) {
+        return read(cursor, Integer.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Like {@link #read(long, Consumer)}, but advances the cursor by at most
+     * {@code max} elements, so a reader can take the elements in batches.
+     */
+    public long read(long cursor, int max, Consumer<? super E> consumer) {
+        long next = nextSequence.get();
+        long sequence = Math.max(cursor, next - capacity);
+        long end = Math.min(next, sequence + max);
+        while (sequence < end) {
+            Slot<E> slot = slots.get((int) (sequence % capacity));
+            if (slot == null || slot.sequence() < sequence) {
+                break;
+            }
+            if (slot.sequence() == sequence) {
+                consumer.accept(slot.element());
+            }
+            sequence++;
+        }
+        return sequence;
+    }
+
+    /**
+     * @return the elements currently held, oldest first
+     */
+    public List<E> snapshot() {
+        List<E> elements = new ArrayList<>(size());
+        read(0, elements::add);
+        return elements;
+    }
+
+    /**
+     * @return the sequence number the next element will get, which is the number of elements offered so far
+     */
+    public long getSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * @return the number of elements held
+     */
+    public int size() {
+        return (int) Math.min(nextSequence.get(), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,18 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+
+/**
+ * Anything that queues at a charging scheduler for a charging station: a
+ * single AGV or an AGV simulated by a fleet engine.
+ */
+public interface IChargeable {
+	public String getAgvId();
+
+	public Point getCurrentPosition();
+
+	/**
+	 * Called once a station has been occupied for this AGV.
+	 */
+	public void assignChargingStation(Point station);
+}
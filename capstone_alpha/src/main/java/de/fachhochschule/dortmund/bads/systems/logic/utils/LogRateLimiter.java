@@ -0,0 +1,90 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits log messages per entity, e.g. at most five messages per AGV and
+ * second. Messages over the limit are counted instead of logged, and the
+ * count is handed to the next message that may be logged, so the log shows
+ * how much was left out:
+ *
+ * <pre>
+ * if (LOGGER.isInfoEnabled()) {
+ *     long suppressed = LOG_LIMITER.acquire(this);
+ *     if (suppressed >= 0) {
+ *         LOGGER.info("{} moved to {}{}", agvId, position, LogRateLimiter.suppressedNote(suppressed));
+ *     }
+ * }
+ * </pre>
+ *
+ * Check the log level first, so suppressed messages are only counted when
+ * they would have been logged. Entities are held weakly.
+ */
+public final class LogRateLimiter {
+
+    private static final class Window {
+        long start;
+        int used;
+        long suppressed;
+    }
+
+    private final int permitsPerSecond;
+    private final LongSupplier nanoClock;
+    private final Map<Object, Window> windows = new WeakHashMap<>();
+
+    public LogRateLimiter(int permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    LogRateLimiter(int permitsPerSecond, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Permits per second must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Take a permit to log a message about the entity.
+     *
+     * @return -1 if the entity used up its messages of the current second,
+     *         otherwise the number of messages suppressed since the last permit
+     */
+    public long acquire(Object entity) {
+        long now = nanoClock.getAsLong();
+        synchronized (windows) {
+            Window window = windows.computeIfAbsent(entity, key -> {
+                Window created = new Window();
+                created.start = now;
+                return created;
+            });
+            if (now - window.start >= TimeUnit.SECONDS.toNanos(1)) {
+                window.start = now;
+                window.used = 0;
+            }
+            if (window.used >= permitsPerSecond) {
+                window.suppressed++;
+                return -1;
+            }
+            window.used++;
+            long suppressed = window.suppressed;
+            window.suppressed = 0;
+            return suppressed;
+        }
+    }
+
+    /**
+     * @return the note for the last placeholder of a message, empty unless
+     *         messages were suppressed, so most messages build no string
+     */
+    public static String suppressedNote(long suppressed) {
+        return suppressed > 0 ? " (" + suppressed + " suppressed)" : "";
+    }
+
+    public int getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+}
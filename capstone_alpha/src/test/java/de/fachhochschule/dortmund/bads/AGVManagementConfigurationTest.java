@@ -15,6 +15,7 @@ class AGVManagementConfigurationTest {
 			.setChargeDurationMillis(5000)
 			.setMaxWaitForChargingMillis(10000)
 			.setBatteryLowThreshold(0.20)
+			.setChargeAfterRouteFactor(2.0)
 			.setAutoChargingEnabled(true);
 	}
 
@@ -57,6 +58,15 @@ class AGVManagementConfigurationTest {
 		assertEquals(0.30, AGVManagementConfiguration.INSTANCE.getBatteryLowThreshold(), 0.001);
 	}
 
+	@Test
+	void testSetChargeAfterRouteFactor() {
+		assertEquals(2.0, AGVManagementConfiguration.INSTANCE.getChargeAfterRouteFactor(), 0.001);
+		AGVManagementConfiguration.INSTANCE.setChargeAfterRouteFactor(1.5);
+		assertEquals(1.5, AGVManagementConfiguration.INSTANCE.getChargeAfterRouteFactor(), 0.001);
+		assertThrows(IllegalArgumentException.class,
+				() -> AGVManagementConfiguration.INSTANCE.setChargeAfterRouteFactor(-1));
+	}
+
 	@Test
 	void testSetEnableAutoCharging() {
 		AGVManagementConfiguration.INSTANCE.setAutoChargingEnabled(false);
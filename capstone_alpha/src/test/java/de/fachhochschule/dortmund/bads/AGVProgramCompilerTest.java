@@ -0,0 +1,158 @@
+package de.fachhochschule.dortmund.bads;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.exceptions.ProgramCompilationException;
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.Operand;
+import de.fachhochschule.dortmund.bads.resources.AGV.Statement;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram;
+import de.fachhochschule.dortmund.bads.resources.AGVProgramCompiler;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+class AGVProgramCompilerTest {
+
+	private Storage storage;
+
+	@BeforeEach
+	void setUp() {
+		Area area = new Area();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < 3; x++) {
+			for (int y = 0; y < 3; y++) {
+				Set<Point> neighbors = new HashSet<>();
+				if (x > 0) neighbors.add(new Point(x - 1, y));
+				if (x < 2) neighbors.add(new Point(x + 1, y));
+				if (y > 0) neighbors.add(new Point(x, y - 1));
+				if (y < 2) neighbors.add(new Point(x, y + 1));
+				graph.put(new Point(x, y), neighbors);
+			}
+		}
+		area.setGraph(graph);
+
+		StorageCell[] cells = new StorageCell[9];
+		for (int i = 0; i < 9; i++) {
+			cells[i] = new StorageCell(Type.ANY, 100, 100, 100);
+		}
+		storage = new Storage(area, cells);
+	}
+
+	@Test
+	void testCompileResolvesDestinations() {
+		AGVProgram program = AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, "2A"),
+			new Statement<>(Operand.MOVE),
+			new Statement<>(Operand.PUSH, "3C"),
+			new Statement<>(Operand.MOVE)
+		});
+
+		assertEquals(2, program.getDestinationCount());
+		assertEquals(new Point(1, 0), program.getDestination(0));
+		assertEquals(new Point(2, 2), program.getDestination(1));
+		assertEquals(0, program.getOperationCount());
+		assertFalse(program.hasSetup());
+	}
+
+	@Test
+	void testCompileTakeAndRelease() {
+		BeveragesBox box = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 5, 5, 6);
+		AGVProgram program = AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, box),
+			new Statement<>(Operand.PUSH, "1A"),
+			new Statement<>(Operand.TAKE),
+			new Statement<>(Operand.PUSH, box),
+			new Statement<>(Operand.PUSH, "2B"),
+			new Statement<>(Operand.RELEASE)
+		});
+
+		assertEquals(2, program.getOperationCount());
+		assertEquals(AGVProgram.Action.TAKE, program.getOperation(0).action());
+		assertSame(box, program.getOperation(0).box());
+		assertEquals(new Point(1, 1), program.getOperation(1).cell());
+	}
+
+	@Test
+	void testStopDiscardsQueuedWork() {
+		AGVProgram program = AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, "2A"),
+			new Statement<>(Operand.MOVE),
+			new Statement<>(Operand.STOP),
+			new Statement<>(Operand.PUSH, "3A"),
+			new Statement<>(Operand.MOVE)
+		});
+
+		assertTrue(program.isStop());
+		assertEquals(0, program.getDestinationCount());
+	}
+
+	@Test
+	void testInvalidProgramsAreRejected() {
+		assertThrows(ProgramCompilationException.class, () -> AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.MOVE)
+		}));
+		assertThrows(ProgramCompilationException.class, () -> AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, "1A"),
+			new Statement<>(Operand.TAKE)
+		}));
+		assertThrows(ProgramCompilationException.class, () -> AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, "not-a-cell"),
+			new Statement<>(Operand.MOVE)
+		}));
+		assertThrows(ProgramCompilationException.class, () -> AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.SETUP, "storage", new Point(0, 0))
+		}));
+	}
+
+	@Test
+	void testRouteCacheReturnsSharedPlan() {
+		AGVProgram first = AGVProgramCompiler.compileRoute("1A", "3C");
+		AGVProgram second = AGVProgramCompiler.compileRoute("1A", "3C");
+
+		assertSame(first, second);
+		assertEquals(2, first.getDestinationCount());
+		assertNotSame(first, AGVProgramCompiler.compileRoute("3C", "1A"));
+	}
+
+	@Test
+	void testRouteCacheIsBounded() {
+		AGVProgramCompiler.clearRouteCache();
+		AGVProgram kept = AGVProgramCompiler.compileRoute("1A", "1B");
+		for (int i = 1; i <= AGVProgramCompiler.MAX_CACHED_ROUTES + 10; i++) {
+			AGVProgramCompiler.compileRoute(i + "A", i + "C");
+			// recently used routes stay cached
+			AGVProgramCompiler.compileRoute("1A", "1B");
+		}
+
+		assertEquals(AGVProgramCompiler.MAX_CACHED_ROUTES, AGVProgramCompiler.getCachedRouteCount());
+		assertSame(kept, AGVProgramCompiler.compileRoute("1A", "1B"));
+	}
+
+	@Test
+	void testCompiledRouteDrivesAGV() {
+		AGV agv = new AGV();
+		agv.executeProgram(AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.SETUP, storage, new Point(0, 0))
+		}));
+		agv.executeProgram(AGVProgramCompiler.compileRoute("3A", "3C"));
+
+		for (int tick = 1; tick <= 20; tick++) {
+			agv.onTick(tick);
+		}
+
+		assertEquals(new Point(2, 2), agv.getCurrentPosition());
+		assertEquals(AGV.AGVState.IDLE, agv.getState());
+	}
+}
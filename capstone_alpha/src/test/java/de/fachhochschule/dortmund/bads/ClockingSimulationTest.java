@@ -2,6 +2,9 @@ package de.fachhochschule.dortmund.bads;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -84,4 +87,41 @@ class ClockingSimulationTest {
 			clockingSimulation.setDelay(2000);
 		});
 	}
-}
\ No newline at end of file
+	
+	@Test
+	void testRunBetweenTicks() throws InterruptedException {
+		// without a running clock the action runs right away
+		int[] runs = { 0 };
+		clockingSimulation.runBetweenTicks(() -> runs[0]++);
+		assertEquals(1, runs[0]);
+		
+		clockingSimulation.setDelay(10);
+		clockingSimulation.start();
+		CountDownLatch done = new CountDownLatch(1);
+		Thread[] runner = new Thread[1];
+		clockingSimulation.runBetweenTicks(() -> {
+			runner[0] = Thread.currentThread();
+			done.countDown();
+		});
+		assertTrue(done.await(2, TimeUnit.SECONDS));
+		assertSame(clockingSimulation, runner[0]);
+		clockingSimulation.stopSimulation();
+	}
+	
+	@Test
+	void testRunBetweenTicksWakesSleepingClock() throws InterruptedException {
+		clockingSimulation.setDelay(60_000);
+		clockingSimulation.start();
+		while (clockingSimulation.getCurrentTime() == 0) {
+			Thread.sleep(5);
+		}
+		// the clock now sleeps for a minute; the action must not wait for the next tick
+		CountDownLatch done = new CountDownLatch(1);
+		clockingSimulation.runBetweenTicks(done::countDown);
+		assertTrue(done.await(2, TimeUnit.SECONDS));
+		assertEquals(1, clockingSimulation.getCurrentTime());
+		clockingSimulation.stopSimulation();
+		clockingSimulation.join(2000);
+		assertFalse(clockingSimulation.isAlive());
+	}
+}
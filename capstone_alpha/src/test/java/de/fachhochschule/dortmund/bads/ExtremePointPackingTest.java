@@ -0,0 +1,125 @@
+package de.fachhochschule.dortmund.bads;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.CellPacker;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Reservation;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+class ExtremePointPackingTest {
+
+	private StorageCell cell(int length, int width, int height) {
+		return new StorageCell(Type.AMBIENT, length, width, height, CellPacker.EXTREME_POINT);
+	}
+
+	private BeveragesBox box(int length, int width, int height) {
+		return new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", width, height, length, 6);
+	}
+
+	@Test
+	void testFillsFloorBeforeStacking() {
+		StorageCell cell = cell(10, 10, 10);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(cell.add(box(5, 5, 5)));
+		}
+		assertEquals(5, cell.getCurrentHeight());
+		assertEquals(10, cell.getCurrentLength());
+		assertEquals(10, cell.getCurrentWidth());
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(cell.add(box(5, 5, 5)));
+		}
+		assertEquals(10, cell.getCurrentHeight());
+		assertEquals(100.0, cell.getSpaceEfficiency(), 0.001);
+		assertFalse(cell.add(box(1, 1, 1)));
+	}
+
+	@Test
+	void testBoxesAreTurnedToFit() {
+		StorageCell cell = cell(10, 6, 5);
+		BeveragesBox crosswise = box(6, 10, 5);
+		assertTrue(cell.isNewBoxCouldBeAdded(crosswise));
+		assertTrue(cell.add(crosswise));
+		assertEquals(6, cell.getCurrentWidth());
+
+		// bottles stay upright: a box taller than the cell never fits
+		assertFalse(cell(10, 10, 5).isNewBoxCouldBeAdded(box(5, 5, 6)));
+	}
+
+	@Test
+	void testBoxesNeedSupport() {
+		StorageCell cell = cell(10, 10, 10);
+		assertTrue(cell.add(box(5, 10, 8)));
+		// a 5x10x4 box cannot hang in the air next to the first one at height 8
+		assertTrue(cell.add(box(5, 10, 4)));
+		assertEquals(8, cell.getCurrentHeight());
+		assertFalse(cell.add(box(10, 10, 3)));
+		assertTrue(cell.add(box(5, 10, 2)));
+	}
+
+	@Test
+	void testRemovingFreesRealSpace() {
+		StorageCell cell = cell(10, 10, 10);
+		BeveragesBox[] columns = new BeveragesBox[4];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = box(5, 5, 10);
+			assertTrue(cell.add(columns[i]));
+		}
+		assertFalse(cell.isNewBoxCouldBeAdded(box(5, 5, 10)));
+
+		assertTrue(cell.remove(columns[2]));
+		assertTrue(cell.add(box(5, 5, 10)));
+		assertEquals(4, cell.getBoxCount());
+	}
+
+	@Test
+	void testReservationsHoldTheirPosition() {
+		StorageCell cell = cell(10, 10, 10);
+		Reservation reservation = cell.reserve(box(10, 10, 6));
+		assertNotNull(reservation);
+		assertFalse(cell.isNewBoxCouldBeAdded(box(10, 10, 5)));
+		assertTrue(cell.add(box(10, 10, 4)));
+
+		assertTrue(reservation.cancel());
+		assertTrue(cell.add(box(10, 10, 6)));
+	}
+
+	@Test
+	void testExtentsShrinkWithRemovedBoxes() {
+		StorageCell cell = cell(10, 10, 10);
+		BeveragesBox bottom = box(10, 10, 4);
+		BeveragesBox top = box(10, 10, 4);
+		assertTrue(cell.add(bottom));
+		assertTrue(cell.add(top));
+		assertEquals(8, cell.getCurrentHeight());
+
+		assertTrue(cell.remove(top));
+		assertEquals(4, cell.getCurrentHeight());
+		assertTrue(cell.remove(bottom));
+		assertEquals(0, cell.getCurrentHeight());
+		assertEquals(0, cell.getCurrentLength());
+		assertTrue(cell.add(box(10, 10, 10)));
+	}
+
+	@Test
+	void testRepeatedChurnKeepsCellUsable() {
+		StorageCell cell = cell(10, 10, 10);
+		BeveragesBox[] slots = new BeveragesBox[8];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = box(5, 5, 5);
+			assertTrue(cell.add(slots[i]));
+		}
+		for (int round = 0; round < 500; round++) {
+			int i = (round * 3) % slots.length;
+			assertTrue(cell.remove(slots[i]));
+			slots[i] = box(5, 5, 5);
+			assertTrue(cell.add(slots[i]), "round " + round);
+		}
+		assertEquals(8, cell.getBoxCount());
+		assertEquals(100.0, cell.getSpaceEfficiency(), 0.001);
+	}
+}
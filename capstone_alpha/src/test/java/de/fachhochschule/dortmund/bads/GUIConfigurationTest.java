@@ -39,4 +39,25 @@ class GUIConfigurationTest {
 	void testImplementsIConfiguration() {
 		assertTrue(GUIConfiguration.INSTANCE instanceof IConfiguration);
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testRefreshTicksFollowMultiplier() {
+		GUIConfiguration config = GUIConfiguration.INSTANCE;
+		try {
+			assertTrue(config.isRefreshTick(10, 5));
+			config.setRefreshMultiplier(4);
+			assertFalse(config.isRefreshTick(10, 5));
+			assertTrue(config.isRefreshTick(20, 5));
+		} finally {
+			config.setRefreshMultiplier(1);
+		}
+	}
+
+	@Test
+	void testRejectsInvalidAdaptiveSettings() {
+		GUIConfiguration config = GUIConfiguration.INSTANCE;
+		assertThrows(IllegalArgumentException.class, () -> config.setRefreshMultiplier(0));
+		assertThrows(IllegalArgumentException.class, () -> config.setEdtLagBudgetMillis(0));
+		assertThrows(IllegalArgumentException.class, () -> config.setTickBudgetFraction(1.5));
+	}
+}
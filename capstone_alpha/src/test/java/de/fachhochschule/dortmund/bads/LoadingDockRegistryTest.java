@@ -0,0 +1,147 @@
+package de.fachhochschule.dortmund.bads;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.LoadingDockRegistry;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.model.Task;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.Operand;
+import de.fachhochschule.dortmund.bads.resources.AGV.Statement;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.logic.AGVTaskDispatcher;
+
+class LoadingDockRegistryTest {
+	private static final int WIDTH = 7;
+	private static final int HEIGHT = 4;
+
+	/**
+	 * Build a WIDTH x HEIGHT grid; cells of the given dock count become
+	 * LOADING_DOCK cells, the rest are ANY.
+	 */
+	private Storage createStorage(int dockCount) {
+		Area area = new Area();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				Set<Point> neighbors = new HashSet<>();
+				if (x > 0) neighbors.add(new Point(x - 1, y));
+				if (x < WIDTH - 1) neighbors.add(new Point(x + 1, y));
+				if (y > 0) neighbors.add(new Point(x, y - 1));
+				if (y < HEIGHT - 1) neighbors.add(new Point(x, y + 1));
+				graph.put(new Point(x, y), neighbors);
+			}
+		}
+		area.setGraph(graph);
+
+		StorageCell[] cells = new StorageCell[WIDTH * HEIGHT];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new StorageCell(i < dockCount ? Type.LOADING_DOCK : Type.ANY, 200, 200, 200);
+		}
+		return new Storage(area, cells);
+	}
+
+	private AGV agvAt(Storage storage, Point position) {
+		AGV agv = new AGV();
+		agv.executeProgram(new Statement<?>[] { new Statement<>(Operand.SETUP, storage, position) });
+		return agv;
+	}
+
+	@Test
+	void testNodeIdsAreDenseAndRowMajor() {
+		Storage storage = createStorage(0);
+		assertEquals(WIDTH * HEIGHT, storage.getNodeCount());
+		assertEquals(0, storage.getNodeId(new Point(0, 0)));
+		assertEquals(WIDTH + 2, storage.getNodeId(new Point(2, 1)));
+		assertEquals(new Point(2, 1), storage.getPoint(WIDTH + 2));
+		assertSame(storage.getCellByPoint(new Point(2, 1)), storage.getCellByNodeId(WIDTH + 2));
+		assertEquals(-1, storage.getNodeId(new Point(WIDTH, 0)));
+		assertEquals(-1, storage.getNodeId(null));
+	}
+
+	@Test
+	void testDocksComeFromLoadingDockCells() {
+		Storage storage = createStorage(3);
+		LoadingDockRegistry docks = storage.getLoadingDocks();
+
+		assertEquals(3, docks.getDockCount());
+		for (int i = 0; i < docks.getDockCount(); i++) {
+			assertEquals(Type.LOADING_DOCK, storage.getCellByPoint(docks.getDock(i)).TYPE);
+			assertTrue(docks.isDock(docks.getDockNodeId(i)));
+		}
+		assertFalse(docks.isDock(-1));
+	}
+
+	@Test
+	void testLegacyLayoutFallsBackTo6DAnd7D() {
+		LoadingDockRegistry docks = createStorage(0).getLoadingDocks();
+
+		assertEquals(2, docks.getDockCount());
+		assertEquals(Storage.notationToPoint("6D"), docks.getDock(0));
+		assertEquals(Storage.notationToPoint("7D"), docks.getDock(1));
+	}
+
+	@Test
+	void testAssignmentBalancesQueues() {
+		Storage storage = createStorage(2);
+		LoadingDockRegistry docks = storage.getLoadingDocks();
+		AGV first = agvAt(storage, new Point(0, 0));
+		AGV second = agvAt(storage, new Point(0, 0));
+		AGV third = agvAt(storage, new Point(0, 0));
+
+		docks.assign(docks.leastLoadedDock(), first);
+		docks.assign(docks.leastLoadedDock(), second);
+		assertEquals(1, docks.getQueueLength(0));
+		assertEquals(1, docks.getQueueLength(1));
+		assertNotEquals(docks.getAssignedDock(first), docks.getAssignedDock(second));
+
+		int firstDock = docks.getAssignedDock(first);
+		assertTrue(docks.release(first));
+		assertFalse(docks.release(first));
+		assertEquals(firstDock, docks.leastLoadedDock());
+
+		docks.assign(docks.leastLoadedDock(), third);
+		assertEquals(List.of(third), docks.getQueue(firstDock));
+	}
+
+	@Test
+	void testDispatcherSpreadsTasksAcrossDocks() {
+		Storage storage = createStorage(2);
+		AGV first = agvAt(storage, new Point(0, 0));
+		AGV second = agvAt(storage, new Point(0, 1));
+		AGVTaskDispatcher dispatcher = new AGVTaskDispatcher(List.of(first, second), storage);
+		BeveragesBox box = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 5, 5, 6);
+
+		assertTrue(dispatcher.assignTaskToAGV(new Task(), box));
+		assertTrue(dispatcher.assignTaskToAGV(new Task(), box));
+
+		LoadingDockRegistry docks = storage.getLoadingDocks();
+		assertEquals(1, docks.getQueueLength(0));
+		assertEquals(1, docks.getQueueLength(1));
+	}
+
+	@Test
+	void testAGVDetectsDockArrival() {
+		Storage storage = createStorage(1);
+		Point dock = storage.getLoadingDocks().getDock(0);
+		AGV agv = agvAt(storage, dock);
+		assertTrue(agv.isAtLoadingDock());
+
+		Point elsewhere = storage.getAllStorages().keySet().stream()
+			.filter(p -> !p.equals(dock)).findFirst().orElseThrow();
+		assertFalse(agvAt(storage, elsewhere).isAtLoadingDock());
+		assertFalse(new AGV().isAtLoadingDock());
+	}
+}
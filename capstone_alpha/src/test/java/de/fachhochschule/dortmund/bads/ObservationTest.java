@@ -2,6 +2,14 @@ package de.fachhochschule.dortmund.bads;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -16,6 +24,11 @@ class ObservationTest {
 		observation = new Observation();
 	}
 	
+	@AfterEach
+	void tearDown() {
+		ObservabilityConfiguration.INSTANCE.setEventBufferSize(1000);
+	}
+	
 	@Test
 	void testObservationCreation() {
 		assertNotNull(observation);
@@ -51,4 +64,86 @@ class ObservationTest {
 		
 		assertFalse(t1.isAlive());
 	}
-}
+
+	@Test
+	void testEventBufferKeepsNewestEvents() {
+		ObservabilityConfiguration.INSTANCE.setEventBufferSize(5);
+		Observation small = new Observation();
+		for (int i = 0; i < 12; i++) {
+			small.recordEvent("TEST", "event " + i);
+		}
+		assertEquals(12, small.getTotalEventsCollected());
+		List<Observation.SystemEvent> events = small.getEventBuffer();
+		assertEquals(5, events.size());
+		assertEquals("event 7", events.get(0).details());
+		assertEquals("event 11", events.get(4).details());
+	}
+	
+	@Test
+	void testReadEventsFollowsCursor() {
+		List<String> seen = new ArrayList<>();
+		observation.recordEvent("TEST", "first");
+		long cursor = observation.readEvents(0, event -> seen.add(event.details()));
+		observation.recordEvent("TEST", "second");
+		observation.recordEvent("TEST", "third");
+		cursor = observation.readEvents(cursor, event -> seen.add(event.details()));
+		assertEquals(List.of("first", "second", "third"), seen);
+		assertEquals(cursor, observation.readEvents(cursor, event -> seen.add(event.details())));
+	}
+	
+	@Test
+	void testPollSubscriptionFiltersAndCountsDrops() {
+		ObservabilityConfiguration.INSTANCE.setEventBufferSize(4);
+		Observation small = new Observation();
+		small.recordEvent("TICK", "before subscribing");
+		Observation.Subscription alerts = small.subscribe(Set.of("ALERT"));
+		Observation.Subscription all = small.subscribe(Set.of());
+		
+		small.recordEvent("TICK", "tick");
+		small.recordEvent("ALERT", "first alert");
+		assertEquals(List.of("first alert"), alerts.poll(10).stream().map(Observation.SystemEvent::details).toList());
+		assertTrue(alerts.poll(10).isEmpty());
+		
+		for (int i = 0; i < 6; i++) {
+			small.recordEvent("ALERT", "alert " + i);
+		}
+		List<Observation.SystemEvent> late = all.poll(10);
+		assertEquals(4, late.size());
+		assertEquals("alert 2", late.get(0).details());
+		assertEquals(4, all.getDroppedEvents());
+		assertEquals(4, all.getDeliveredEvents());
+		
+		assertEquals(2, alerts.poll(2).size());
+		assertEquals(2, alerts.poll(10).size());
+		assertEquals(2, alerts.getDroppedEvents());
+		
+		alerts.close();
+		small.recordEvent("ALERT", "after close");
+		assertTrue(alerts.poll(10).isEmpty());
+	}
+	
+	@Test
+	void testPushSubscriptionDeliversBatches() throws InterruptedException {
+		List<List<Observation.SystemEvent>> batches = new CopyOnWriteArrayList<>();
+		CountDownLatch received = new CountDownLatch(5);
+		Observation.Subscription subscription = observation.subscribe(Set.of("ORDER"), 2, batch -> {
+			batches.add(batch);
+			batch.forEach(event -> received.countDown());
+		});
+		try {
+			for (int i = 0; i < 5; i++) {
+				observation.recordEvent("ORDER", "order " + i);
+				observation.recordEvent("TICK", "tick " + i);
+			}
+			assertTrue(received.await(5, TimeUnit.SECONDS));
+			assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+			assertEquals(List.of("order 0", "order 1", "order 2", "order 3", "order 4"),
+					batches.stream().flatMap(List::stream).map(Observation.SystemEvent::details).toList());
+			assertEquals(5, subscription.getDeliveredEvents());
+			assertEquals(0, subscription.getDroppedEvents());
+		} finally {
+			subscription.close();
+			observation.stopSystem();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package de.fachhochschule.dortmund.bads;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.CellPacker;
+import de.fachhochschule.dortmund.bads.model.OffHeapCellTable;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+class OffHeapCellTableTest {
+
+	@Test
+	void testTypeRulesMatchStorageCell() {
+		try (OffHeapCellTable table = new OffHeapCellTable(4, 4)) {
+			int ambient = table.addCell(Type.AMBIENT, 100, 100, 100);
+			int corridor = table.addCell(Type.CORRIDOR, 100, 100, 100);
+			int dock = table.addCell(Type.LOADING_DOCK, 10, 10, 10);
+
+			BeveragesBox milk = new BeveragesBox(BeveragesBox.Type.REFRIGERATED, "Milk", 10, 10, 10, 12);
+			assertEquals(-1, table.addBox(ambient, milk));
+			assertEquals(-1, table.addBox(corridor, milk));
+			// docks stage anything, even boxes larger than the dock
+			assertTrue(table.addBox(dock, new BeveragesBox(BeveragesBox.Type.BULK, "Keg", 60, 60, 60, 1)) >= 0);
+			assertEquals(-1, table.addBox(ambient, new BeveragesBox(BeveragesBox.Type.AMBIENT, "Huge", 10, 200, 10, 1)));
+			assertEquals(1, table.getBoxCount());
+		}
+	}
+
+	@Test
+	void testDimensionsFollowBoundingBoxPlacement() {
+		Random random = new Random(7);
+		StorageCell reference = new StorageCell(Type.AMBIENT, 100, 100, 100, CellPacker.BOUNDING_BOX);
+		List<BeveragesBox> referenceBoxes = new ArrayList<>();
+		List<Integer> ids = new ArrayList<>();
+		try (OffHeapCellTable table = new OffHeapCellTable(1, 2)) {
+			int cell = table.addCell(Type.AMBIENT, 100, 100, 100);
+			for (int step = 0; step < 300; step++) {
+				if (!ids.isEmpty() && random.nextInt(3) == 0) {
+					int index = random.nextInt(ids.size());
+					assertTrue(table.removeBox(ids.remove(index)));
+					assertTrue(reference.remove(referenceBoxes.remove(index)));
+				} else {
+					BeveragesBox box = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Box" + (step % 5),
+							5 + random.nextInt(30), 5 + random.nextInt(30), 5 + random.nextInt(30), 6);
+					int id = table.addBox(cell, box);
+					assertEquals(reference.add(box), id >= 0, "step " + step);
+					if (id >= 0) {
+						ids.add(id);
+						referenceBoxes.add(box);
+					}
+				}
+				assertEquals(reference.getBoxCount(), table.getBoxCount(cell));
+				assertEquals(reference.getCurrentLength(), table.getLength(cell));
+				assertEquals(reference.getCurrentWidth(), table.getWidth(cell));
+				assertEquals(reference.getCurrentHeight(), table.getHeight(cell));
+				assertEquals(reference.getActualUsedVolume(), table.getUsedVolume(cell));
+			}
+		}
+	}
+
+	@Test
+	void testRemovedBoxesAreReused() {
+		try (OffHeapCellTable table = new OffHeapCellTable(1, 2)) {
+			int cell = table.addCell(Type.ANY, 100, 100, 100);
+			Set<Integer> ids = new HashSet<>();
+			for (int i = 0; i < 1000; i++) {
+				ids.add(table.addBox(cell, BeveragesBox.Type.AMBIENT, "Water", 1, 1, 1, 24));
+			}
+			assertEquals(1000, ids.size());
+			assertEquals(1000, table.getBoxCount(cell));
+			assertEquals(24000, table.getUnits(cell));
+			long grown = table.getOffHeapBytes();
+
+			for (int id : ids) {
+				assertTrue(table.removeBox(id));
+			}
+			assertFalse(table.removeBox(ids.iterator().next()));
+			assertEquals(0, table.getBoxCount());
+			for (int i = 0; i < 1000; i++) {
+				assertTrue(ids.contains(table.addBox(cell, BeveragesBox.Type.BULK, "Keg", 2, 2, 2, 1)));
+			}
+			assertEquals(grown, table.getOffHeapBytes());
+
+			int id = ids.iterator().next();
+			assertEquals(cell, table.getCellOfBox(id));
+			BeveragesBox copy = table.toBox(id);
+			assertEquals("Keg", copy.getBeverageName());
+			assertEquals(BeveragesBox.Type.BULK, copy.getType());
+			assertEquals(1, copy.getQuantity());
+		}
+	}
+
+	@Test
+	void testStoreBoxContinuesInTheLastUsedCell() {
+		try (OffHeapCellTable table = new OffHeapCellTable(3, 16)) {
+			int small = table.addCell(Type.AMBIENT, 20, 20, 20);
+			table.addCell(Type.REFRIGERATED, 50, 50, 50);
+			int large = table.addCell(Type.AMBIENT, 50, 50, 50);
+
+			int first = table.storeBox(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Crate", 30, 30, 30, 6));
+			assertEquals(large, table.getCellOfBox(first));
+			int second = table.storeBox(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 10, 10, 10, 6));
+			assertEquals(large, table.getCellOfBox(second));
+			assertEquals(0, table.getBoxCount(small));
+			assertEquals(-1, table.storeBox(new BeveragesBox(BeveragesBox.Type.BULK, "Keg", 1, 1, 1, 1)));
+			assertEquals(-1, table.storeBox(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Pallet", 60, 60, 60, 1)));
+		}
+	}
+
+	@Test
+	void testCopyOfStorage() {
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		graph.put(new Point(0, 0), Set.of(new Point(1, 0)));
+		graph.put(new Point(1, 0), Set.of(new Point(0, 0)));
+		Area area = new Area();
+		area.setGraph(graph);
+		Storage storage = new Storage(area, new StorageCell[] {
+				new StorageCell(Type.AMBIENT, 100, 100, 100), new StorageCell(Type.REFRIGERATED, 100, 100, 100) });
+		assertTrue(storage.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 10, 10, 10, 24)));
+		assertTrue(storage.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.REFRIGERATED, "Milk", 10, 10, 10, 12)));
+		assertTrue(storage.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.REFRIGERATED, "Milk", 10, 10, 10, 12)));
+
+		try (OffHeapCellTable table = OffHeapCellTable.copyOf(storage)) {
+			assertEquals(storage.getNodeCount(), table.getCellCount());
+			int milk = storage.getNodeIdOfCell(storage.getBeverageLocations("Milk").stream()
+					.map(storage::getCellByPoint).findFirst().orElseThrow());
+			assertEquals(Type.REFRIGERATED, table.getType(milk));
+			assertEquals(2, table.getBoxCount(milk));
+			assertEquals(24, table.getUnits(milk));
+			List<String> names = new ArrayList<>();
+			table.forEachBox(milk, box -> names.add(table.toBox(box).getBeverageName()));
+			assertEquals(List.of("Milk", "Milk"), names);
+			assertEquals(3, table.getBoxCount());
+		}
+	}
+}
@@ -184,4 +184,62 @@ class StorageCellTest {
 		assertEquals(60, refrigeratedCell.MAX_WIDTH);
 		assertEquals(70, refrigeratedCell.MAX_HEIGHT);
 	}
-}
\ No newline at end of file
+	
+	@Test
+	void testRunningTotals() {
+		cell.add(box1);
+		cell.add(box2);
+		assertEquals(1000 + 1728, cell.getActualUsedVolume());
+		assertEquals(36, cell.getUnitCount());
+		
+		cell.remove(box1);
+		assertEquals(1728, cell.getActualUsedVolume());
+		assertEquals(12, cell.getUnitCount());
+	}
+	
+	@Test
+	void testStoredBoxesAreIndexed() {
+		BeveragesBox box3 = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 10, 10, 10, 24);
+		assertTrue(cell.add(box1));
+		assertTrue(cell.add(box2));
+		assertTrue(cell.add(box3));
+		assertEquals(2, cell.getBoxCount("Water"));
+		assertEquals(1, cell.getBoxCount("Juice"));
+		assertEquals(0, cell.getBoxCount("Cola"));
+		
+		// the same physical box cannot be stored twice
+		assertFalse(cell.add(box1));
+		assertEquals(3, cell.getBoxCount());
+		
+		assertTrue(cell.remove(box1));
+		assertFalse(cell.contains(box1));
+		assertTrue(cell.contains(box2));
+		assertTrue(cell.contains(box3));
+		assertEquals(1, cell.getBoxCount("Water"));
+		assertEquals(2, cell.getStoredBoxes().size());
+		assertFalse(cell.remove(box1));
+	}
+	
+	@Test
+	void testDimensionsAfterRemoval() {
+		BeveragesBox tall = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Cola", 20, 30, 15, 6);
+		cell.add(box1);
+		cell.add(tall);
+		cell.add(box2);
+		
+		// largest remaining footprint with all remaining boxes stacked
+		cell.remove(box1);
+		assertEquals(15, cell.getCurrentLength());
+		assertEquals(20, cell.getCurrentWidth());
+		assertEquals(30 + 12, cell.getCurrentHeight());
+		
+		cell.remove(tall);
+		assertEquals(12, cell.getCurrentLength());
+		assertEquals(12, cell.getCurrentWidth());
+		assertEquals(12, cell.getCurrentHeight());
+		
+		cell.remove(box2);
+		assertEquals(0, cell.getCurrentLength());
+		assertEquals(0, cell.getCurrentHeight());
+	}
+}
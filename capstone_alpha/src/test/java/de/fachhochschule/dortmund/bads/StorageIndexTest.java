@@ -0,0 +1,150 @@
+package de.fachhochschule.dortmund.bads;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+class StorageIndexTest {
+	private static final int WIDTH = 4;
+	private static final int HEIGHT = 2;
+
+	private Storage storage;
+
+	@BeforeEach
+	void setUp() {
+		Area area = new Area();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				Set<Point> neighbors = new HashSet<>();
+				if (x > 0) neighbors.add(new Point(x - 1, y));
+				if (x < WIDTH - 1) neighbors.add(new Point(x + 1, y));
+				if (y > 0) neighbors.add(new Point(x, y - 1));
+				if (y < HEIGHT - 1) neighbors.add(new Point(x, y + 1));
+				graph.put(new Point(x, y), neighbors);
+			}
+		}
+		area.setGraph(graph);
+
+		// 3 ambient, 2 refrigerated, 2 charging stations, 1 corridor
+		Type[] types = { Type.AMBIENT, Type.AMBIENT, Type.AMBIENT, Type.REFRIGERATED, Type.REFRIGERATED,
+				Type.CHARGING_STATION, Type.CHARGING_STATION, Type.CORRIDOR };
+		StorageCell[] cells = new StorageCell[types.length];
+		for (int i = 0; i < types.length; i++) {
+			cells[i] = new StorageCell(types[i], 10, 10, 10);
+		}
+		storage = new Storage(area, cells);
+	}
+
+	private BeveragesBox ambient(String name, int height) {
+		return new BeveragesBox(BeveragesBox.Type.AMBIENT, name, 10, 10, height, 6);
+	}
+
+	@Test
+	void testCellsAreIndexedByType() {
+		assertEquals(3, storage.getCellsOfType(Type.AMBIENT).size());
+		assertEquals(2, storage.getCellsOfType(Type.REFRIGERATED).size());
+		assertEquals(0, storage.getCellsOfType(Type.BULK).size());
+		assertEquals(2, storage.getChargingStationCount());
+		for (Point station : storage.getChargingStationLocations()) {
+			assertEquals(Type.CHARGING_STATION, storage.getCellByPoint(station).TYPE);
+		}
+	}
+
+	@Test
+	void testAvailableStationsFollowOccupation() {
+		Point station = storage.findAvailableChargingStation();
+		assertNotNull(station);
+		assertTrue(storage.occupyChargingStation(station, new AGV()));
+		assertEquals(1, storage.getAvailableChargingStationCount());
+		assertNotEquals(station, storage.findAvailableChargingStation());
+
+		assertTrue(storage.releaseChargingStation(station));
+		assertEquals(2, storage.getAvailableChargingStationCount());
+	}
+
+	@Test
+	void testPutAwayPrefersEmptiestCell() {
+		assertTrue(storage.addBeverageToStorage(ambient("Water", 5)));
+		assertTrue(storage.addBeverageToStorage(ambient("Cola", 5)));
+		assertTrue(storage.addBeverageToStorage(ambient("Juice", 5)));
+
+		// every ambient cell got one box before any cell gets a second
+		for (StorageCell cell : storage.getCellsOfType(Type.AMBIENT)) {
+			assertEquals(1, cell.getBoxCount());
+		}
+
+		assertTrue(storage.addBeverageToStorage(ambient("Water", 5)));
+		assertTrue(storage.addBeverageToStorage(ambient("Water", 5)));
+		assertTrue(storage.addBeverageToStorage(ambient("Water", 5)));
+		for (StorageCell cell : storage.getCellsOfType(Type.AMBIENT)) {
+			assertEquals(2, cell.getBoxCount());
+		}
+		assertEquals(3, storage.getBeverageLocations("Water").size());
+
+		// no cell has the volume left for a full-height box
+		assertFalse(storage.addBeverageToStorage(ambient("Cola", 10)));
+		assertNull(storage.reserveBeverageSpace(ambient("Cola", 10)));
+	}
+
+	@Test
+	void testBeverageIndexFollowsDirectCellChanges() {
+		assertTrue(storage.addBeverageToStorage(ambient("Water", 5)));
+		List<Point> locations = storage.getBeverageLocations("Water");
+		assertEquals(1, locations.size());
+		assertEquals(List.of("Water - Ambient"), storage.getAvailableBeverageTypes());
+
+		// boxes taken straight from the cell, as AGVs do, must leave the index too
+		StorageCell cell = storage.getCellByPoint(locations.get(0));
+		cell.remove(cell.getStoredBoxes().get(0));
+		assertTrue(storage.getBeverageLocations("Water").isEmpty());
+		assertTrue(storage.getAvailableBeverageTypes().isEmpty());
+
+		BeveragesBox cold = new BeveragesBox(BeveragesBox.Type.REFRIGERATED, "Milk", 5, 5, 5, 6);
+		assertTrue(storage.addBeverageToStorage(cold));
+		assertEquals(List.of("Milk - Refrigerated"), storage.getAvailableBeverageTypes());
+	}
+
+	@Test
+	void testAggregatesFollowAddAndRemove() {
+		assertEquals(3000, storage.getMaxVolume(Type.AMBIENT));
+		assertEquals(0, storage.getUsedVolume(Type.AMBIENT));
+
+		assertTrue(storage.addBeverageToStorage(ambient("Water", 5)));
+		assertTrue(storage.addBeverageToStorage(ambient("Water", 5)));
+		assertTrue(storage.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Cola", 10, 10, 5, 30)));
+
+		assertEquals(1500, storage.getUsedVolume(Type.AMBIENT));
+		assertEquals(42, storage.getTotalUnits());
+		assertEquals(12, storage.getUnits("Water"));
+		assertEquals(2, storage.getStockedBeverageCount());
+		assertEquals(Set.of("Water"), storage.getLowStockBeverages());
+
+		// taking the cola leaves only water behind
+		Point cola = storage.getBeverageLocations("Cola").get(0);
+		StorageCell cell = storage.getCellByPoint(cola);
+		BeveragesBox colaBox = cell.getStoredBoxes().stream()
+				.filter(box -> box.getBeverageName().equals("Cola")).findFirst().orElseThrow();
+		assertTrue(cell.remove(colaBox));
+
+		assertEquals(1000, storage.getUsedVolume(Type.AMBIENT));
+		assertEquals(12, storage.getTotalUnits());
+		assertEquals(0, storage.getUnits("Cola"));
+		assertEquals(1, storage.getStockedBeverageCount());
+	}
+}
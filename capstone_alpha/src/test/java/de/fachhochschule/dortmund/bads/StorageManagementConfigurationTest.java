@@ -5,6 +5,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import de.fachhochschule.dortmund.bads.model.CellPacker;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
 class StorageManagementConfigurationTest {
 
 	@BeforeEach
@@ -14,7 +18,8 @@ class StorageManagementConfigurationTest {
 			.setDefaultStorageCapacity(100)
 			.setAutoCompactionEnabled(true)
 			.setCompactionIntervalMillis(60000)
-			.setStorageUtilizationThreshold(0.85);
+			.setStorageUtilizationThreshold(0.85)
+			.setPlacementStrategy(CellPacker.BOUNDING_BOX);
 	}
 
 	@Test
@@ -84,4 +89,19 @@ class StorageManagementConfigurationTest {
 	void testImplementsIConfiguration() {
 		assertTrue(StorageManagementConfiguration.INSTANCE instanceof IConfiguration);
 	}
+
+	@Test
+	void testPlacementStrategyAppliesToNewCells() {
+		assertSame(CellPacker.BOUNDING_BOX, StorageManagementConfiguration.INSTANCE.getPlacementStrategy());
+		assertThrows(IllegalArgumentException.class,
+			() -> StorageManagementConfiguration.INSTANCE.setPlacementStrategy(null));
+
+		StorageManagementConfiguration.INSTANCE.setPlacementStrategy(CellPacker.EXTREME_POINT);
+		StorageCell cell = new StorageCell(StorageCell.Type.AMBIENT, 10, 10, 10);
+		// five 5x5 columns do not fit on a 10x10 floor
+		for (int i = 0; i < 4; i++) {
+			assertTrue(cell.add(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 10, 5, 6)));
+		}
+		assertFalse(cell.add(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 10, 5, 6)));
+	}
 }
@@ -2,12 +2,19 @@ package de.fachhochschule.dortmund.bads;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Map;
+import java.util.Set;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
 import de.fachhochschule.dortmund.bads.model.StorageCell;
 import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
 import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.logic.MetricsRegistry;
 import de.fachhochschule.dortmund.bads.systems.logic.StorageManagement;
 
 class StorageManagementTest {
@@ -131,4 +138,45 @@ class StorageManagementTest {
 		assertFalse(refrigeratedCell.add(bulkBox));
 		assertFalse(bulkCell.add(ambientBox));
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testStorageSnapshotIsSharedAndImmutable() {
+		Area area = new Area();
+		area.setGraph(Map.of(new Point(0, 0), Set.of()));
+		Storage first = new Storage(area, new StorageCell[] { cell1 });
+		Storage second = new Storage(area, new StorageCell[] { cell2 });
+		
+		storageManagement.registerStorage("first", first);
+		Map<String, Storage> snapshot = storageManagement.getAllStorages();
+		assertSame(snapshot, storageManagement.getAllStorages());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.put("other", second));
+		
+		// a later registration publishes a new snapshot and leaves the old one alone
+		storageManagement.registerStorage("second", second);
+		assertEquals(1, snapshot.size());
+		assertEquals(2, storageManagement.getAllStorages().size());
+		assertSame(first, storageManagement.getAllStorages().values().iterator().next());
+		
+		storageManagement.unregisterStorage("first");
+		assertEquals(Set.of("second"), storageManagement.getAllStorages().keySet());
+	}
+	
+	@Test
+	void testRegisteredStoragesReportSeparateGauges() {
+		Area area = new Area();
+		area.setGraph(Map.of(new Point(0, 0), Set.of()));
+		Storage first = new Storage(area, new StorageCell[] { cell1 });
+		Storage second = new Storage(area, new StorageCell[] { cell2 });
+		assertTrue(first.addBeverageToStorage(box1));
+		
+		storageManagement.registerStorage("first", first);
+		storageManagement.registerStorage("second", second);
+		MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+		assertEquals(24.0, metrics.getGaugeValue(MetricsRegistry.labeled("storage.units", "storage", "first")));
+		assertEquals(0.0, metrics.getGaugeValue(MetricsRegistry.labeled("storage.units", "storage", "second")));
+		
+		storageManagement.unregisterStorage("first");
+		assertFalse(metrics.getGaugeValues().containsKey(MetricsRegistry.labeled("storage.units", "storage", "first")));
+		storageManagement.unregisterStorage("second");
+	}
+}
@@ -0,0 +1,185 @@
+package de.fachhochschule.dortmund.bads;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Reservation;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.model.Task;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.AGVState;
+import de.fachhochschule.dortmund.bads.resources.AGV.Operand;
+import de.fachhochschule.dortmund.bads.resources.AGV.Statement;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.logic.AGVTaskDispatcher;
+
+class StorageReservationTest {
+
+	private BeveragesBox box(String name) {
+		return box(name, 50);
+	}
+
+	private BeveragesBox box(String name, int height) {
+		return new BeveragesBox(BeveragesBox.Type.AMBIENT, name, 10, height, 10, 6);
+	}
+
+	/**
+	 * A single row 1A..nA: the first cell is a loading dock, the rest ambient cells of 10x10x100.
+	 */
+	private Storage createRow(int length) {
+		Area area = new Area();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < length; x++) {
+			Set<Point> neighbors = new HashSet<>();
+			if (x > 0) neighbors.add(new Point(x - 1, 0));
+			if (x < length - 1) neighbors.add(new Point(x + 1, 0));
+			graph.put(new Point(x, 0), neighbors);
+		}
+		area.setGraph(graph);
+
+		StorageCell[] cells = new StorageCell[length];
+		cells[0] = new StorageCell(Type.LOADING_DOCK, 100, 100, 100);
+		for (int i = 1; i < length; i++) {
+			cells[i] = new StorageCell(Type.AMBIENT, 10, 10, 100);
+		}
+		return new Storage(area, cells);
+	}
+
+	@Test
+	void testReservedSpaceCountsInFitChecks() {
+		StorageCell cell = new StorageCell(Type.AMBIENT, 10, 10, 100);
+		BeveragesBox first = box("Water");
+		BeveragesBox tall = box("Cola", 60);
+		assertTrue(cell.isNewBoxCouldBeAdded(tall));
+
+		Reservation reservation = cell.reserve(first);
+		assertNotNull(reservation);
+		assertEquals(Reservation.State.PENDING, reservation.getState());
+		assertNull(cell.reserve(first));
+		assertEquals(0, cell.getBoxCount());
+		assertEquals(5000, cell.getFreeVolume());
+
+		// the reserved 50 units of height leave no room for 60 more
+		assertFalse(cell.isNewBoxCouldBeAdded(tall));
+		assertFalse(cell.add(tall));
+
+		assertTrue(reservation.commit());
+		assertFalse(reservation.commit());
+		assertEquals(Reservation.State.COMMITTED, reservation.getState());
+		assertEquals(1, cell.getBoxCount());
+		assertEquals(0, cell.getReservationCount());
+		assertEquals(5000, cell.getActualUsedVolume());
+	}
+
+	@Test
+	void testCancelGivesSpaceBack() {
+		StorageCell cell = new StorageCell(Type.AMBIENT, 10, 10, 100);
+		Reservation first = cell.reserve(box("Water"));
+		assertNull(cell.reserve(box("Cola", 60)));
+
+		assertTrue(first.cancel());
+		assertFalse(first.cancel());
+		assertEquals(Reservation.State.CANCELLED, first.getState());
+		assertFalse(cell.commit(first));
+		assertEquals(0, cell.getCurrentHeight());
+		assertEquals(1000 * 10, cell.getFreeVolume());
+
+		// adding the reserved box itself commits its reservation
+		Reservation second = cell.reserve(box("Cola", 60));
+		assertNotNull(second);
+		assertTrue(cell.add(second.getBox()));
+		assertEquals(Reservation.State.COMMITTED, second.getState());
+		assertEquals(60, cell.getCurrentHeight());
+	}
+
+	@Test
+	void testParallelPutAwayKeepsInventoryConsistent() throws Exception {
+		int cellCount = 8;
+		Storage storage = createRow(cellCount + 1);
+		int attempts = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < attempts; i++) {
+			BeveragesBox box = box("Box " + i, 10);
+			boolean reserveFirst = i % 2 == 0;
+			results.add(executor.submit(() -> {
+				start.await();
+				if (reserveFirst) {
+					Reservation reservation = storage.reserveBeverageSpace(box);
+					return reservation != null && reservation.commit();
+				}
+				return storage.addBeverageToStorage(box);
+			}));
+		}
+		start.countDown();
+		int stored = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(10, TimeUnit.SECONDS)) {
+				stored++;
+			}
+		}
+		executor.shutdown();
+
+		// no box was lost or counted twice, and no reservation was left behind
+		int boxes = 0;
+		for (StorageCell cell : storage.getCellsOfType(Type.AMBIENT)) {
+			boxes += cell.getBoxCount();
+			assertEquals(0, cell.getReservationCount());
+			assertEquals(cell.getBoxCount() * 1000, cell.getActualUsedVolume());
+		}
+		assertEquals(stored, boxes);
+		assertEquals(stored * 6L, storage.getTotalUnits());
+		assertEquals(stored * 1000L, storage.getUsedVolume(Type.AMBIENT));
+	}
+
+	@Test
+	void testPutAwayTaskReservesAtDispatch() {
+		Storage storage = createRow(3);
+		Point dock = storage.getLoadingDocks().getDock(0);
+		BeveragesBox box = box("Water");
+		assertTrue(storage.getCellByPoint(dock).add(box));
+
+		AGV agv = new AGV();
+		agv.executeProgram(new Statement<?>[] { new Statement<>(Operand.SETUP, storage, dock) });
+		AGVTaskDispatcher dispatcher = new AGVTaskDispatcher(List.of(agv), storage);
+
+		assertFalse(dispatcher.assignPutAwayTask(new Task(), box("Cola"), Storage.pointToNotation(dock)));
+		assertTrue(dispatcher.assignPutAwayTask(new Task(), box, Storage.pointToNotation(dock)));
+
+		int reserved = 0;
+		for (StorageCell cell : storage.getCellsOfType(Type.AMBIENT)) {
+			reserved += cell.getReservationCount();
+		}
+		assertEquals(1, reserved);
+
+		for (int tick = 1; tick <= 20 && storage.getBeverageLocations("Water").contains(dock); tick++) {
+			agv.onTick(tick);
+		}
+		for (int tick = 21; tick <= 40 && agv.getState() != AGVState.IDLE; tick++) {
+			agv.onTick(tick);
+		}
+
+		List<Point> locations = storage.getBeverageLocations("Water");
+		assertEquals(1, locations.size());
+		assertNotEquals(dock, locations.get(0));
+		assertEquals(0, storage.getCellByPoint(locations.get(0)).getReservationCount());
+	}
+}
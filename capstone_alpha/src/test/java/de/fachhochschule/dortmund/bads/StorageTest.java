@@ -10,6 +10,7 @@ import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import de.fachhochschule.dortmund.bads.exceptions.InvalidNotationException;
 import de.fachhochschule.dortmund.bads.model.Area;
 import de.fachhochschule.dortmund.bads.model.Area.Point;
 import de.fachhochschule.dortmund.bads.model.Storage;
@@ -171,4 +172,51 @@ class StorageTest {
 			}
 		}
 	}
-}
\ No newline at end of file
+	
+	@Test
+	void testReadOnlyCellViews() {
+		Map<Point, StorageCell> view = storage.getCellsView();
+		assertSame(view, storage.getCellsView());
+		assertEquals(9, view.size());
+		assertThrows(UnsupportedOperationException.class, () -> view.remove(new Point(0, 0)));
+		
+		int[] visited = { 0 };
+		storage.forEachCell((point, cell) -> {
+			assertSame(view.get(point), cell);
+			visited[0]++;
+		});
+		assertEquals(9, visited[0]);
+		
+		int[] anyCells = { 0 };
+		storage.forEachCell(Type.ANY, cell -> anyCells[0]++);
+		assertEquals(9, anyCells[0]);
+	}
+	
+	@Test
+	void testNotationTable() {
+		for (int nodeId = 0; nodeId < storage.getNodeCount(); nodeId++) {
+			String notation = storage.getNotation(nodeId);
+			assertEquals(Storage.pointToNotation(storage.getPoint(nodeId)), notation);
+			assertEquals(nodeId, storage.getNodeIdByNotation(notation));
+			assertSame(storage.getCellByNodeId(nodeId), storage.getCellByNotation(notation));
+			assertEquals(nodeId, storage.getNodeIdOfCell(storage.getCellByNodeId(nodeId)));
+		}
+		assertEquals(-1, storage.getNodeIdByNotation("9Z"));
+		assertEquals(-1, storage.getNodeIdByNotation(null));
+		assertEquals(-1, storage.getNodeIdOfCell(new StorageCell(Type.ANY, 1, 1, 1)));
+	}
+	
+	@Test
+	void testConvertedValuesAreShared() {
+		assertSame(Storage.notationToPoint("3B"), Storage.notationToPoint("3B"));
+		assertSame(Storage.pointToNotation(new Point(2, 1)), Storage.pointToNotation(new Point(2, 1)));
+		assertSame(Storage.point(4, 7), Storage.notationToPoint("5H"));
+		
+		// coordinates beyond the shared range still convert both ways
+		Point far = new Point(120, 700);
+		assertEquals(far, Storage.notationToPoint(Storage.pointToNotation(far)));
+		assertEquals("1BA", Storage.pointToNotation(new Point(0, 26)));
+		assertThrows(IllegalArgumentException.class, () -> Storage.notationToPoint("3b"));
+		assertThrows(InvalidNotationException.class, () -> Storage.notationToPoint("0A"));
+	}
+}
@@ -0,0 +1,226 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.AGVState;
+
+class AGVFleetEngineTest {
+	private static final int GRID = 10;
+
+	private Storage storage;
+
+	@BeforeEach
+	void setUp() {
+		ChargingScheduler.resetAll();
+		storage = newStorage();
+	}
+
+	private static Storage newStorage() {
+		Area area = new Area();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < GRID; x++) {
+			for (int y = 0; y < GRID; y++) {
+				Set<Point> neighbors = new HashSet<>();
+				if (x > 0) neighbors.add(new Point(x - 1, y));
+				if (x < GRID - 1) neighbors.add(new Point(x + 1, y));
+				if (y > 0) neighbors.add(new Point(x, y - 1));
+				if (y < GRID - 1) neighbors.add(new Point(x, y + 1));
+				graph.put(new Point(x, y), neighbors);
+			}
+		}
+		area.setGraph(graph);
+
+		StorageCell[] cells = new StorageCell[GRID * GRID];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new StorageCell(Type.ANY, 100, 100, 100);
+		}
+		// exactly one charging station
+		cells[cells.length - 1] = new StorageCell(Type.CHARGING_STATION, 100, 100, 100);
+		return new Storage(area, cells);
+	}
+
+	@Test
+	void testRouteIsFollowedOneStepPerTick() {
+		AGVFleetEngine engine = new AGVFleetEngine(storage);
+		AGVFleetEngine.View agv = engine.view(engine.addAGV(new Point(0, 0)));
+
+		assertTrue(agv.assignRoute(new Point(3, 0), new Point(3, 2)));
+		assertEquals(AGVState.BUSY, agv.getState());
+		assertEquals(5, agv.getRemainingPathLength());
+
+		for (int tick = 1; tick <= 5; tick++) {
+			engine.onTick(tick);
+		}
+
+		assertEquals(new Point(3, 2), agv.getCurrentPosition());
+		assertEquals(AGVState.IDLE, agv.getState());
+		assertEquals(75, agv.getBatteryLevel());
+	}
+
+	@Test
+	void testRegisterImportsAGVParameters() {
+		AGV source = new AGV();
+		source.executeProgram(new AGV.Statement<?>[] {
+			new AGV.Statement<>(AGV.Operand.SETUP, storage, new Point(2, 2))
+		});
+		source.setTicksPerMovement(2);
+
+		AGVFleetEngine engine = new AGVFleetEngine(storage);
+		AGVFleetEngine.View agv = engine.view(engine.register(source));
+		agv.assignRoute(new Point(2, 3));
+
+		engine.onTick(1);
+		assertEquals(new Point(2, 2), agv.getCurrentPosition());
+		engine.onTick(2);
+		assertEquals(new Point(2, 3), agv.getCurrentPosition());
+	}
+
+	@Test
+	void testLowBatteryQueuesForSingleStation() {
+		Point station = storage.getChargingStationLocations().get(0);
+		Point neighbor = storage.AREA.getAdjacencyMap().get(station).iterator().next();
+		AGV template = new AGV();
+		template.executeProgram(new AGV.Statement<?>[] {
+			new AGV.Statement<>(AGV.Operand.SETUP, storage, station)
+		});
+		template.setLoseChargePerActionPerTick(10);
+
+		AGVFleetEngine engine = new AGVFleetEngine(storage);
+		AGVFleetEngine.View first = engine.view(engine.register(template));
+		AGVFleetEngine.View second = engine.view(engine.register(template));
+		// drain both to the threshold: 8 moves at 10% each
+		Point[] shuttle = { neighbor, station, neighbor, station, neighbor, station, neighbor, station };
+		first.assignRoute(shuttle);
+		second.assignRoute(shuttle);
+
+		int tick = 0;
+		while (first.getState() == AGVState.BUSY || second.getState() == AGVState.BUSY) {
+			engine.onTick(++tick);
+		}
+		engine.onTick(++tick);
+
+		assertEquals(1, engine.getChargingQueueSize());
+		assertEquals(1, engine.countInState(AGVState.WAITING_FOR_CHARGE));
+
+		while (engine.countInState(AGVState.IDLE) < 2 && tick < 200) {
+			engine.onTick(++tick);
+		}
+		assertEquals(100, first.getBatteryLevel());
+		assertEquals(100, second.getBatteryLevel());
+		assertEquals(station, first.getCurrentPosition());
+		assertEquals(station, second.getCurrentPosition());
+		assertEquals(0, engine.getChargingQueueSize());
+	}
+
+	@Test
+	void testSharesChargingStationWithSingleAGVs() {
+		Point station = storage.getChargingStationLocations().get(0);
+		AGV single = new AGV();
+		single.executeProgram(new AGV.Statement<?>[] {
+			new AGV.Statement<>(AGV.Operand.SETUP, storage, new Point(0, 0))
+		});
+		single.setBatteryLevel(10);
+		single.requestCharging();
+		assertEquals(AGVState.MOVING_TO_CHARGE, single.getState());
+		assertSame(single, storage.getCellByPoint(station).getChargingAGV());
+
+		AGVFleetEngine engine = new AGVFleetEngine(storage);
+		AGVFleetEngine.View agv = engine.view(engine.addAGV(station));
+		// one long leg drains the fleet AGV to its threshold
+		assertTrue(agv.assignRoute(new Point(0, 0), station));
+		int tick = 0;
+		while (agv.getState() == AGVState.BUSY && tick < 100) {
+			engine.onTick(++tick);
+		}
+		engine.onTick(++tick);
+		assertEquals(AGVState.WAITING_FOR_CHARGE, agv.getState());
+		assertEquals(1, engine.getChargingQueueSize());
+		assertEquals(1, storage.getChargingScheduler().getQueueSize());
+
+		// the single AGV's release hands the station to the fleet AGV
+		ChargingScheduler.Handover handover = storage.getChargingScheduler().release(station);
+		assertNotNull(handover);
+		handover.assign();
+		assertEquals(0, engine.getChargingQueueSize());
+		assertNotSame(single, storage.getCellByPoint(station).getChargingAGV());
+		while (agv.getBatteryLevel() < 100 && tick < 200) {
+			engine.onTick(++tick);
+		}
+		assertEquals(100, agv.getBatteryLevel());
+		engine.onTick(++tick);
+		assertFalse(storage.getCellByPoint(station).isOccupiedByAGV());
+	}
+
+	@Test
+	void testLegCacheIsBounded() {
+		AGVFleetEngine engine = new AGVFleetEngine(storage);
+		int index = engine.addAGV(new Point(0, 0));
+		Point[] targets = new Point[GRID * GRID];
+		for (int i = 0; i < targets.length; i++) {
+			targets[i] = new Point(i % GRID, i / GRID);
+		}
+		// every ordered pair of distinct points is a leg of its own
+		for (Point from : targets) {
+			for (Point to : targets) {
+				if (!from.equals(to)) {
+					engine.assignRoute(index, from, to);
+				}
+			}
+		}
+		assertEquals(AGVFleetEngine.MAX_CACHED_LEGS, engine.getCachedLegCount());
+	}
+
+	@Test
+	void testParallelTickMatchesSerialTick() {
+		// engines on one storage share its charging station, so each gets its own
+		AGVFleetEngine serial = new AGVFleetEngine(storage);
+		AGVFleetEngine parallel = new AGVFleetEngine(newStorage());
+		serial.setParallelThreshold(Integer.MAX_VALUE);
+		parallel.setParallelThreshold(1);
+
+		for (int i = 0; i < 10_000; i++) {
+			Point start = new Point(i % GRID, (i / GRID) % GRID);
+			Point target = new Point((i * 7) % GRID, (i * 3) % GRID);
+			serial.assignRoute(serial.addAGV(start), target);
+			parallel.assignRoute(parallel.addAGV(start), target);
+		}
+
+		for (int tick = 1; tick <= 40; tick++) {
+			serial.onTick(tick);
+			parallel.onTick(tick);
+		}
+
+		assertEquals(10_000, parallel.size());
+		assertEquals(40, parallel.getTickCount());
+		for (AGVState agvState : AGVState.values()) {
+			assertEquals(serial.countInState(agvState), parallel.countInState(agvState), agvState.name());
+		}
+		for (int i = 0; i < 10_000; i += 97) {
+			assertEquals(serial.view(i).getCurrentPosition(), parallel.view(i).getCurrentPosition());
+			assertEquals(serial.view(i).getBatteryLevel(), parallel.view(i).getBatteryLevel());
+		}
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new AGVFleetEngine(null));
+		AGVFleetEngine engine = new AGVFleetEngine(storage);
+		assertThrows(IndexOutOfBoundsException.class, () -> engine.view(0));
+		assertThrows(IllegalArgumentException.class, () -> engine.setParallelThreshold(0));
+		assertThrows(IllegalArgumentException.class, () -> engine.register(new AGV()));
+	}
+}
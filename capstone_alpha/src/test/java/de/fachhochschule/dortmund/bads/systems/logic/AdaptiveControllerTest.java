@@ -0,0 +1,121 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.GUIConfiguration;
+
+class AdaptiveControllerTest {
+
+	private final ClockingSimulation clock = new ClockingSimulation();
+	private final Observation observation = new Observation();
+	private long tickMicros;
+	private double edtLagMicros;
+	private AdaptiveController controller;
+	private int tick;
+
+	@BeforeEach
+	void setUp() {
+		GUIConfiguration.INSTANCE.setRefreshMultiplier(1).setEdtLagBudgetMillis(100).setTickBudgetFraction(0.5);
+		MetricsRegistry.INSTANCE.gauge("gui.edt.lag.micros", () -> edtLagMicros);
+		clock.setDelay(100);
+		controller = new AdaptiveController(clock, observation, () -> tickMicros);
+	}
+
+	@AfterEach
+	void tearDown() {
+		MetricsRegistry.INSTANCE.removeGauge("gui.edt.lag.micros");
+		GUIConfiguration.INSTANCE.setRefreshMultiplier(1);
+	}
+
+	private void run(int evaluations) {
+		for (int i = 0; i < evaluations * AdaptiveController.EVALUATION_INTERVAL_TICKS; i++) {
+			controller.onTick(++tick);
+		}
+	}
+
+	private List<String> decisions() {
+		return observation.getEventBuffer().stream().filter(e -> e.eventType().equals("ADAPTIVE"))
+				.map(e -> e.details()).toList();
+	}
+
+	@Test
+	void testKeepsSettingsWithinBudget() {
+		tickMicros = 10_000;
+		edtLagMicros = 5_000;
+		run(20);
+		assertEquals(100, clock.getDelay());
+		assertEquals(1, GUIConfiguration.INSTANCE.getRefreshMultiplier());
+		assertTrue(decisions().isEmpty());
+	}
+
+	@Test
+	void testSlowsGuiBeforeRaisingDelay() {
+		tickMicros = 1_000;
+		edtLagMicros = 500_000;
+		run(1);
+		assertEquals(2, GUIConfiguration.INSTANCE.getRefreshMultiplier());
+		assertEquals(100, clock.getDelay());
+
+		run(3);
+		assertEquals(AdaptiveController.MAX_REFRESH_MULTIPLIER, GUIConfiguration.INSTANCE.getRefreshMultiplier());
+		assertEquals(100, clock.getDelay());
+
+		run(1);
+		assertTrue(clock.getDelay() > 100);
+		assertEquals(5, decisions().size());
+		assertTrue(decisions().get(4).startsWith("delay 100ms"), decisions().get(4));
+	}
+
+	@Test
+	void testRaisesDelayForSlowTicks() {
+		tickMicros = 80_000;
+		run(1);
+		// the tick gets half of the delay
+		assertEquals(160, clock.getDelay());
+		assertEquals(1, GUIConfiguration.INSTANCE.getRefreshMultiplier());
+		assertEquals(100, controller.getRequestedDelay());
+
+		run(5);
+		assertEquals(160, clock.getDelay());
+	}
+
+	@Test
+	void testRelaxesTowardsRequestedSettings() {
+		tickMicros = 80_000;
+		edtLagMicros = 500_000;
+		run(6);
+		assertTrue(clock.getDelay() > 100);
+		assertTrue(GUIConfiguration.INSTANCE.getRefreshMultiplier() > 1);
+
+		tickMicros = 1_000;
+		edtLagMicros = 1_000;
+		run(200);
+		assertEquals(100, clock.getDelay());
+		assertEquals(1, GUIConfiguration.INSTANCE.getRefreshMultiplier());
+		assertTrue(decisions().stream().anyMatch(d -> d.endsWith("load within budget")));
+	}
+
+	@Test
+	void testDelaySetByUserBecomesRequested() {
+		tickMicros = 80_000;
+		run(1);
+		assertEquals(160, clock.getDelay());
+
+		clock.setDelay(1000);
+		tickMicros = 1_000;
+		run(20);
+		assertEquals(1000, controller.getRequestedDelay());
+		assertEquals(1000, clock.getDelay());
+	}
+
+	@Test
+	void testRejectsMissingClock() {
+		assertThrows(IllegalArgumentException.class, () -> new AdaptiveController(null, observation));
+	}
+}
@@ -0,0 +1,114 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.systems.logic.AnomalyDetector.Alert;
+import de.fachhochschule.dortmund.bads.systems.logic.AnomalyDetector.Kind;
+
+class AnomalyDetectorTest {
+
+	private final List<Alert> alerts = new ArrayList<>();
+	private final AnomalyDetector detector = new AnomalyDetector(alerts::add);
+	private final Random random = new Random(3);
+	private int tick;
+
+	private void feed(String series, int samples, double mean, double noise) {
+		for (int i = 0; i < samples; i++) {
+			detector.record(++tick, series, mean + (random.nextDouble() - 0.5) * noise);
+		}
+	}
+
+	@Test
+	void testRaisesAndClearsDeviation() {
+		detector.watch("latency", 1, null);
+		feed("latency", 200, 100, 10);
+		assertTrue(alerts.isEmpty(), alerts.toString());
+
+		detector.record(++tick, "latency", 400);
+		assertEquals(1, alerts.size());
+		Alert alert = alerts.get(0);
+		assertEquals(Kind.DEVIATION, alert.kind());
+		assertTrue(alert.active());
+		assertEquals(400, alert.value());
+		assertEquals(100, alert.expected(), 5);
+		assertTrue(detector.isAlerting("latency", Kind.DEVIATION));
+
+		feed("latency", 2, 100, 10);
+		assertEquals(1, alerts.size());
+		feed("latency", 1, 100, 10);
+		assertEquals(2, alerts.size());
+		assertFalse(alerts.get(1).active());
+		assertFalse(detector.isAlerting("latency", Kind.DEVIATION));
+	}
+
+	@Test
+	void testIgnoresSmallChangesOfSteadySeries() {
+		detector.watch("queue", 3, null);
+		feed("queue", 100, 0, 0);
+		detector.record(++tick, "queue", 2);
+		assertTrue(alerts.isEmpty());
+		detector.record(++tick, "queue", 5);
+		assertEquals(1, alerts.size());
+	}
+
+	@Test
+	void testForecastsSaturationBeforeLimit() {
+		detector.watch("utilization", 0.2, () -> 1.0);
+		feed("utilization", 50, 0.3, 0.02);
+		assertTrue(alerts.isEmpty());
+
+		double value = 0.3;
+		while (alerts.isEmpty() && value < 1.0) {
+			value += 0.01;
+			detector.record(++tick, "utilization", value);
+		}
+		assertFalse(alerts.isEmpty());
+		Alert alert = alerts.get(0);
+		assertEquals(Kind.SATURATION, alert.kind());
+		assertTrue(alert.value() < 0.8, alert.toString());
+		assertTrue(alert.expected() >= 1.0);
+	}
+
+	@Test
+	void testSteadyHighLoadDoesNotSaturate() {
+		detector.watch("utilization", 0.2, () -> 1.0);
+		feed("utilization", 300, 0.9, 0.05);
+		assertFalse(detector.isAlerting("utilization", Kind.SATURATION));
+	}
+
+	@Test
+	void testBaselineFollowsSamples() {
+		detector.watch("latency", 1, null);
+		assertNull(detector.getBaseline("latency"));
+		feed("latency", 500, 100, 10);
+		AnomalyDetector.Baseline baseline = detector.getBaseline("latency");
+		assertEquals(500, baseline.samples());
+		assertEquals(100, baseline.mean(), 3);
+		assertEquals(104.5, baseline.p95(), 2);
+		assertTrue(baseline.standardDeviation() > 1 && baseline.standardDeviation() < 5);
+	}
+
+	@Test
+	void testRejectsUnwatchedSeries() {
+		assertThrows(IllegalArgumentException.class, () -> detector.record(1, "unknown", 1));
+	}
+
+	@Test
+	void testObservationRecordsAlertEvents() {
+		Observation observation = new Observation();
+		for (int i = 0; i < 100; i++) {
+			observation.getAnomalyDetector().record(i, "tasks.queue.depth", 1);
+		}
+		observation.getAnomalyDetector().record(100, "tasks.queue.depth", 40);
+
+		List<Observation.SystemEvent> events = observation.getEventBuffer();
+		assertEquals(1, events.stream().filter(event -> event.eventType().equals("ALERT")).count());
+		assertTrue(events.get(events.size() - 1).details().startsWith("series=tasks.queue.depth kind=DEVIATION state=RAISED"));
+	}
+}
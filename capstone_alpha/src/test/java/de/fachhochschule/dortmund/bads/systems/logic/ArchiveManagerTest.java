@@ -6,7 +6,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.AfterEach;
@@ -153,6 +155,46 @@ class ArchiveManagerTest {
 		assertTrue(totalMatches >= 1);
 	}
 
+	@Test
+	void testSearchInEventLogs() throws IOException {
+		try (EventLog eventLog = new EventLog(logsDir.resolve("observation" + ArchiveManager.EVENT_LOG_SUFFIX))) {
+			eventLog.append(new Observation.SystemEvent(1_000, "TICK", "System tick: 50"));
+			eventLog.append(new Observation.SystemEvent(2_000, "ALERT", "series=tasks.queue.depth kind=DEVIATION"));
+			eventLog.append(new Observation.SystemEvent(3_000, "ALERT", "series=fleet.utilization kind=SATURATION"));
+		}
+
+		List<SearchResult> results = archiveManager.searchInLogs(Pattern.compile("SATURATION"));
+		assertEquals(1, results.size());
+		assertEquals(3, results.get(0).getMatches().get(0).getLineNumber());
+
+		SearchResult alerts = archiveManager.searchEventLog(logsDir.resolve("observation.events"), 0, 2_500,
+				Set.of("ALERT"), Pattern.compile("series="));
+		assertEquals(1, alerts.getMatchCount());
+		assertTrue(alerts.getMatches().get(0).getContent().endsWith("ALERT series=tasks.queue.depth kind=DEVIATION"));
+	}
+
+	@Test
+	void testArchivesRotatedEventLogs() throws IOException {
+		Path file = logsDir.resolve("observation" + ArchiveManager.EVENT_LOG_SUFFIX);
+		LocalDate day = LocalDate.of(2024, 5, 1);
+		long noon = day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		try (EventLog eventLog = new EventLog(file)) {
+			eventLog.append(new Observation.SystemEvent(noon, "ALERT", "series=fleet.utilization kind=SATURATION"));
+			eventLog.flush();
+			// the next day starts a new file
+			eventLog.append(new Observation.SystemEvent(noon + 86_400_000L, "TICK", "System tick: 1"));
+		}
+
+		Path zipPath = archiveManager.archiveLogsByDate(day);
+		assertNotNull(zipPath);
+		assertFalse(Files.exists(EventLog.rotated(file, day, 1)));
+		assertTrue(Files.exists(file));
+		// the archived original is still searched
+		List<SearchResult> results = archiveManager.searchInLogs(Pattern.compile("SATURATION"));
+		assertEquals(1, results.size());
+		assertTrue(results.get(0).getLogFile().startsWith(archiveDir));
+	}
+
 	@Test
 	void testSearchInLogsNoMatches() throws IOException {
 		Path logFile = logsDir.resolve("app.log");
@@ -0,0 +1,237 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.AGVState;
+import de.fachhochschule.dortmund.bads.resources.AGV.Operand;
+import de.fachhochschule.dortmund.bads.resources.AGV.Statement;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.IChargeable;
+
+class ChargingSchedulerTest {
+	private static final int LENGTH = 6;
+
+	private Area area;
+	private Storage storage;
+	private ChargingScheduler scheduler;
+	private List<Point> stations;
+
+	@BeforeEach
+	void setUp() {
+		// a single corridor 1A..6A
+		area = new Area();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < LENGTH; x++) {
+			Set<Point> neighbors = new HashSet<>();
+			if (x > 0) neighbors.add(new Point(x - 1, 0));
+			if (x < LENGTH - 1) neighbors.add(new Point(x + 1, 0));
+			graph.put(new Point(x, 0), neighbors);
+		}
+		area.setGraph(graph);
+
+		storage = new Storage(area, cells());
+		scheduler = ChargingScheduler.forStorage(storage);
+		stations = storage.getChargingStationLocations();
+		stations.sort(Comparator.comparingInt(Point::x));
+	}
+
+	private static StorageCell[] cells() {
+		StorageCell[] cells = new StorageCell[LENGTH];
+		for (int i = 0; i < LENGTH; i++) {
+			cells[i] = new StorageCell(i < 2 ? Type.CHARGING_STATION : Type.ANY, 100, 100, 100);
+		}
+		return cells;
+	}
+
+	private AGV agvAt(int x) {
+		AGV agv = new AGV();
+		agv.executeProgram(new Statement<?>[] { new Statement<>(Operand.SETUP, storage, new Point(x, 0)) });
+		return agv;
+	}
+
+	@Test
+	void testSchedulerIsSharedPerStorage() {
+		assertSame(scheduler, ChargingScheduler.forStorage(storage));
+		assertEquals(2, scheduler.getStationCount());
+		assertEquals(2, scheduler.getFreeStationCount());
+		assertThrows(IllegalArgumentException.class, () -> ChargingScheduler.forStorage(null));
+	}
+
+	@Test
+	void testNearestFreeStationIsAssigned() {
+		AGV agv = agvAt(LENGTH - 1);
+		agv.requestCharging();
+
+		assertEquals(AGVState.MOVING_TO_CHARGE, agv.getState());
+		assertEquals(1, scheduler.getFreeStationCount());
+		assertSame(agv, storage.getCellByPoint(stations.get(1)).getChargingAGV());
+	}
+
+	@Test
+	void testWaitingAGVGetsReleasedStation() {
+		AGV first = agvAt(0);
+		AGV second = agvAt(1);
+		AGV third = agvAt(2);
+		first.requestCharging();
+		second.requestCharging();
+		third.requestCharging();
+		third.requestCharging();
+
+		assertEquals(0, scheduler.getFreeStationCount());
+		assertEquals(1, scheduler.getQueueSize());
+		assertTrue(scheduler.isQueued(third));
+		assertEquals(AGVState.WAITING_FOR_CHARGE, third.getState());
+
+		// first AGV reaches its station and charges to 100%
+		for (int tick = 1; tick <= 30 && third.getState() == AGVState.WAITING_FOR_CHARGE; tick++) {
+			first.onTick(tick);
+		}
+
+		assertEquals(AGVState.MOVING_TO_CHARGE, third.getState());
+		assertEquals(0, scheduler.getQueueSize());
+		assertFalse(scheduler.isQueued(third));
+	}
+
+	@Test
+	void testReleaseLeavesHandoverToCaller() {
+		AGV first = agvAt(0);
+		agvAt(1).requestCharging();
+		first.requestCharging();
+		AGV waiting = agvAt(2);
+		waiting.requestCharging();
+
+		ChargingScheduler.Handover handover = scheduler.release(stations.get(0));
+		assertNotNull(handover);
+		assertSame(waiting, handover.agv());
+		assertEquals(stations.get(0), handover.station());
+		assertSame(waiting, storage.getCellByPoint(stations.get(0)).getChargingAGV());
+		// the waiting AGV is only sent on its way by the caller
+		assertEquals(AGVState.WAITING_FOR_CHARGE, waiting.getState());
+		handover.assign();
+		assertEquals(AGVState.MOVING_TO_CHARGE, waiting.getState());
+
+		assertNull(scheduler.release(stations.get(1)));
+		assertEquals(1, scheduler.getFreeStationCount());
+	}
+
+	@Test
+	void testFailedHandoverKeepsQueue() {
+		boolean[] refuse = new boolean[1];
+		storage = new Storage(area, cells()) {
+			@Override
+			public boolean occupyChargingStation(Point location, IChargeable agv) {
+				return !refuse[0] && super.occupyChargingStation(location, agv);
+			}
+		};
+		scheduler = ChargingScheduler.forStorage(storage);
+		agvAt(0).requestCharging();
+		agvAt(1).requestCharging();
+		AGV first = agvAt(2);
+		AGV second = agvAt(3);
+		first.requestCharging();
+		second.requestCharging();
+		assertEquals(2, scheduler.getQueueSize());
+
+		// the released station is taken behind the scheduler's back
+		refuse[0] = true;
+		assertNull(scheduler.release(stations.get(0)));
+		assertTrue(scheduler.isQueued(first));
+		assertTrue(scheduler.isQueued(second));
+
+		refuse[0] = false;
+		ChargingScheduler.Handover handover = scheduler.release(stations.get(1));
+		assertNotNull(handover);
+		assertSame(first, handover.agv());
+		assertTrue(scheduler.isQueued(second));
+	}
+
+	@Test
+	void testCancelRemovesFromQueue() {
+		agvAt(0).requestCharging();
+		agvAt(1).requestCharging();
+		AGV waiting = agvAt(2);
+		waiting.requestCharging();
+
+		assertTrue(scheduler.cancel(waiting));
+		assertFalse(scheduler.cancel(waiting));
+		assertEquals(0, scheduler.getQueueSize());
+	}
+
+	@Test
+	void testIdleAGVChargesOpportunistically() {
+		AGV agv = agvAt(LENGTH - 1);
+		agv.setLoseChargePerActionPerTick(10);
+		// three moves and back drop the battery from 100% to 40%
+		agv.executeProgram(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, "3A"),
+			new Statement<>(Operand.MOVE),
+			new Statement<>(Operand.PUSH, "6A"),
+			new Statement<>(Operand.MOVE)
+		});
+
+		int tick = 0;
+		while (agv.getState() != AGVState.MOVING_TO_CHARGE && tick < 20) {
+			agv.onTick(++tick);
+		}
+
+		assertEquals(AGVState.MOVING_TO_CHARGE, agv.getState());
+		assertSame(agv, storage.getCellByPoint(stations.get(1)).getChargingAGV());
+	}
+
+	@Test
+	void testForecastCoversQueuedRoute() {
+		AGV agv = agvAt(0);
+		agv.executeProgram(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, "6A"),
+			new Statement<>(Operand.MOVE),
+			new Statement<>(Operand.PUSH, "4A"),
+			new Statement<>(Operand.MOVE)
+		});
+
+		// 5 moves out and 2 back at 5% each
+		assertEquals(65, agv.forecastBatteryLevel());
+	}
+
+	@Test
+	void testForecastFollowsPathAroundObstacles() {
+		// a U around a missing middle node: 1A to 3A is 2 apart but 4 moves
+		Area detour = new Area();
+		Point[] nodes = { new Point(0, 0), new Point(0, 1), new Point(1, 1), new Point(2, 1), new Point(2, 0) };
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int i = 0; i < nodes.length; i++) {
+			Set<Point> neighbors = new HashSet<>();
+			if (i > 0) neighbors.add(nodes[i - 1]);
+			if (i < nodes.length - 1) neighbors.add(nodes[i + 1]);
+			graph.put(nodes[i], neighbors);
+		}
+		detour.setGraph(graph);
+		StorageCell[] cells = new StorageCell[nodes.length];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new StorageCell(i == 0 ? Type.CHARGING_STATION : Type.ANY, 100, 100, 100);
+		}
+		Storage uShaped = new Storage(detour, cells);
+
+		AGV agv = new AGV();
+		agv.executeProgram(new Statement<?>[] {
+			new Statement<>(Operand.SETUP, uShaped, new Point(0, 0)),
+			new Statement<>(Operand.PUSH, "3A"),
+			new Statement<>(Operand.MOVE)
+		});
+		assertEquals(80, agv.forecastBatteryLevel());
+	}
+}
@@ -0,0 +1,217 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.Systems;
+
+class ControlServerTest {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private ClockingSimulation clock;
+	private TaskManagement taskManagement;
+	private AGV agv;
+	private ControlServer server;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		graph.put(new Point(0, 0), Set.of(new Point(1, 0)));
+		graph.put(new Point(1, 0), Set.of(new Point(0, 0)));
+		Area area = new Area();
+		area.setGraph(graph);
+		Storage warehouse = new Storage(area, new StorageCell[] {
+				new StorageCell(Type.AMBIENT, 100, 100, 100), new StorageCell(Type.REFRIGERATED, 100, 100, 100) });
+		assertTrue(warehouse.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 10, 10, 10, 24)));
+		assertTrue(warehouse.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.REFRIGERATED, "Milk", 10, 10, 10, 12)));
+
+		clock = new ClockingSimulation();
+		taskManagement = new TaskManagement();
+		agv = new AGV();
+		server = new ControlServer(new InetSocketAddress("127.0.0.1", 0), 50, clock, taskManagement, warehouse,
+				List.of(agv));
+		server.start();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		server.shutdown();
+		server.join(2000);
+	}
+
+	private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> post(String path) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(uri(path)).header(ControlServer.CONTROL_HEADER, "test")
+				.POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://127.0.0.1:" + server.getPort() + path);
+	}
+
+	@Test
+	void testMetricsInPrometheusFormat() throws Exception {
+		MetricsRegistry.INSTANCE.counter(MetricsRegistry.labeled("test.http.counter", "kind", "a")).add(3);
+		MetricsRegistry.INSTANCE.histogram("test.http.latency", 10, 100).record(42);
+		server.refreshSnapshot();
+
+		HttpResponse<String> response = get("/metrics");
+		assertEquals(200, response.statusCode());
+		assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+		String body = response.body();
+		assertTrue(body.contains("# TYPE test_http_counter_total counter\n"));
+		assertTrue(body.contains("test_http_counter_total{kind=\"a\"} 3\n"));
+		assertTrue(body.contains("test_http_latency_bucket{le=\"10\"} 0\n"));
+		assertTrue(body.contains("test_http_latency_bucket{le=\"100\"} 1\n"));
+		assertTrue(body.contains("test_http_latency_bucket{le=\"+Inf\"} 1\n"));
+		assertTrue(body.contains("test_http_latency_count 1\n"));
+		assertTrue(body.contains("# TYPE jvm_threads_live gauge\n"));
+		assertEquals(405, post("/metrics").statusCode());
+		assertEquals(404, get("/metrics/other").statusCode());
+	}
+
+	@Test
+	void testStateSnapshots() throws Exception {
+		agv.setBatteryLevel(55);
+		server.refreshSnapshot();
+
+		String inventory = get("/api/inventory").body();
+		assertTrue(inventory.contains("\"totalUnits\":36"));
+		assertTrue(inventory.contains("{\"name\":\"Milk\",\"type\":\"REFRIGERATED\",\"units\":12,\"locations\":[\"2A\"]}"));
+
+		String fleet = get("/api/fleet").body();
+		assertTrue(fleet.contains("\"id\":\"" + agv.getAgvId() + "\""));
+		assertTrue(fleet.contains("\"battery\":55"));
+
+		assertTrue(get("/api/tasks").body().contains("\"total\":0"));
+		assertEquals(404, get("/unknown").statusCode());
+	}
+
+	@Test
+	void testOrdersAreQueued() throws Exception {
+		// operations read their creation time from the clocking system
+		Systems.CLOCKING.build(Systems.SystemBuilder.INSTANCE.logic(clock));
+		HttpResponse<String> response = post("/api/orders?beverage=milk&quantity=6&priority=9");
+		assertEquals(201, response.statusCode());
+		assertTrue(response.body().contains("\"type\":\"REFRIGERATED\""));
+		assertEquals(1, taskManagement.getTasksCount());
+		assertEquals(9, taskManagement.getAllTasks().get(0).getTaskPriority());
+
+		HttpResponse<String> defaults = post("/api/orders?beverage=Water&quantity=2");
+		assertEquals(201, defaults.statusCode());
+		assertTrue(defaults.body().contains("\"priority\":7"));
+
+		assertEquals(404, post("/api/orders?beverage=Beer&quantity=1").statusCode());
+		assertEquals(400, post("/api/orders?beverage=Water&quantity=0").statusCode());
+		assertEquals(400, post("/api/orders?beverage=Water&quantity=1&priority=11").statusCode());
+		assertEquals(405, get("/api/orders").statusCode());
+		assertEquals(2, taskManagement.getTasksCount());
+
+		server.refreshSnapshot();
+		assertTrue(get("/api/tasks").body().contains("\"total\":2"));
+	}
+
+	@Test
+	void testClockControl() throws Exception {
+		assertEquals(200, post("/api/clock/pause").statusCode());
+		assertTrue(clock.isPaused());
+		assertTrue(get("/api/clock").body().contains("\"paused\":true"));
+
+		HttpResponse<String> delay = post("/api/clock/delay?millis=250");
+		assertEquals(200, delay.statusCode());
+		assertEquals(250, clock.getDelay());
+		assertTrue(delay.body().contains("\"delayMillis\":250"));
+		assertEquals(400, post("/api/clock/delay?millis=fast").statusCode());
+
+		assertEquals(200, post("/api/clock/resume").statusCode());
+		assertFalse(clock.isPaused());
+		assertEquals(405, get("/api/clock/pause").statusCode());
+		assertEquals(404, post("/api/clock/rewind").statusCode());
+	}
+
+	@Test
+	void testRefusesCrossSiteRequests() throws Exception {
+		// what a form on another site can send: a form body and no custom header
+		HttpResponse<String> form = client.send(HttpRequest.newBuilder(uri("/api/orders"))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString("beverage=Water&quantity=2")).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(415, form.statusCode());
+		HttpResponse<String> plain = client.send(HttpRequest.newBuilder(uri("/api/clock/pause"))
+				.header(ControlServer.CONTROL_HEADER, "test").header("Content-Type", "text/plain; charset=utf-8")
+				.POST(HttpRequest.BodyPublishers.ofString("x")).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(415, plain.statusCode());
+		HttpResponse<String> headerless = client.send(HttpRequest.newBuilder(uri("/api/clock/pause"))
+				.POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(403, headerless.statusCode());
+		HttpResponse<String> foreign = client.send(HttpRequest.newBuilder(uri("/api/clock/pause"))
+				.header(ControlServer.CONTROL_HEADER, "test").header("Origin", "https://example.com")
+				.POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(403, foreign.statusCode());
+		assertFalse(clock.isPaused());
+		assertEquals(0, taskManagement.getTasksCount());
+
+		HttpResponse<String> local = client.send(HttpRequest.newBuilder(uri("/api/clock/pause"))
+				.header(ControlServer.CONTROL_HEADER, "test").header("Origin", "http://localhost:8080")
+				.POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, local.statusCode());
+		assertTrue(clock.isPaused());
+	}
+
+	@Test
+	void testHistory(@TempDir Path directory) throws Exception {
+		assertEquals(404, get("/api/history").statusCode());
+
+		MetricsStore store = new MetricsStore(directory.resolve("metrics.tsdb"), 1000);
+		long start = 1_704_067_200_000L;
+		for (int i = 0; i < 120; i++) {
+			store.record("tasks.queue.depth", start + i * 1000L, i < 60 ? 1 : 3);
+		}
+		server.setHistory(store);
+
+		assertEquals("{\"series\":[\"tasks.queue.depth\"]}", get("/api/history").body());
+		HttpResponse<String> raw = get("/api/history?series=tasks.queue.depth&from=" + start + "&to=" + (start + 2000));
+		assertEquals(200, raw.statusCode());
+		assertTrue(raw.body().contains("\"resolution\":\"RAW\""), raw.body());
+		assertTrue(raw.body().endsWith("\"points\":[{\"t\":" + start + ",\"min\":1,\"max\":1,\"mean\":1,\"count\":1},"
+				+ "{\"t\":" + (start + 1000) + ",\"min\":1,\"max\":1,\"mean\":1,\"count\":1},"
+				+ "{\"t\":" + (start + 2000) + ",\"min\":1,\"max\":1,\"mean\":1,\"count\":1}]}"), raw.body());
+
+		HttpResponse<String> minutes = get("/api/history?series=tasks.queue.depth&from=" + start + "&to="
+				+ (start + 119_000) + "&points=10");
+		assertTrue(minutes.body().contains("\"resolution\":\"MINUTE\""), minutes.body());
+		assertTrue(minutes.body().contains("\"min\":3,\"max\":3,\"mean\":3,\"count\":60"), minutes.body());
+
+		assertEquals(400, get("/api/history?series=tasks.queue.depth&from=later").statusCode());
+		assertEquals(400, get("/api/history?series=tasks.queue.depth&points=many").statusCode());
+		assertEquals(400, get("/api/history?series=tasks.queue.depth&resolution=daily").statusCode());
+		assertEquals(405, post("/api/history").statusCode());
+		store.close();
+	}
+}
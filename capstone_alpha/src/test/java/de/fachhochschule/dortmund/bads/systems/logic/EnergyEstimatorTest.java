@@ -0,0 +1,161 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.model.Task;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.AGV.AGVState;
+import de.fachhochschule.dortmund.bads.resources.AGV.Operand;
+import de.fachhochschule.dortmund.bads.resources.AGV.Statement;
+import de.fachhochschule.dortmund.bads.resources.AGVProgram;
+import de.fachhochschule.dortmund.bads.resources.AGVProgramCompiler;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+class EnergyEstimatorTest {
+	private static final int WIDTH = 7;
+	private static final int HEIGHT = 4;
+
+	private Area area;
+	private Storage storage;
+
+	@BeforeEach
+	void setUp() {
+		area = new Area();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				Set<Point> neighbors = new HashSet<>();
+				if (x > 0) neighbors.add(new Point(x - 1, y));
+				if (x < WIDTH - 1) neighbors.add(new Point(x + 1, y));
+				if (y > 0) neighbors.add(new Point(x, y - 1));
+				if (y < HEIGHT - 1) neighbors.add(new Point(x, y + 1));
+				graph.put(new Point(x, y), neighbors);
+			}
+		}
+		area.setGraph(graph);
+
+		StorageCell[] cells = new StorageCell[WIDTH * HEIGHT];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new StorageCell(Type.ANY, 100, 100, 100);
+		}
+		storage = new Storage(area, cells);
+	}
+
+	private AGV agvAt(Point position) {
+		AGV agv = new AGV();
+		agv.executeProgram(new Statement<?>[] { new Statement<>(Operand.SETUP, storage, position) });
+		return agv;
+	}
+
+	@Test
+	void testPathLengthIsCachedUntilGraphChanges() {
+		Point from = new Point(0, 0);
+		Point to = new Point(6, 3);
+		assertEquals(9, area.getPathLength(from, to));
+		assertEquals(9, area.getPathLength(from, to));
+		assertEquals(0, area.getPathLength(to, to));
+		assertEquals(1, area.getCachedPathLengthCount());
+
+		// cut the area down to a single node: the cached length must not survive
+		area.setGraph(Map.of(from, Set.of()));
+		assertEquals(0, area.getCachedPathLengthCount());
+		assertEquals(-1, area.getPathLength(from, to));
+	}
+
+	@Test
+	void testEstimateCountsMovesAndOperations() {
+		AGV agv = agvAt(new Point(0, 0));
+		AGVProgram route = AGVProgramCompiler.compileRoute("4A", "6D");
+		// 3 moves to 4A, then 2 + 3 moves to 6D at 5% each
+		assertEquals(8, EnergyEstimator.estimateMoves(area, agv.getCurrentPosition(), route));
+		assertEquals(40, EnergyEstimator.estimateEnergy(agv, area, route));
+
+		BeveragesBox box = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 5, 5, 6);
+		AGVProgram withTake = AGVProgramCompiler.compile(new Statement<?>[] {
+			new Statement<>(Operand.PUSH, "2A"),
+			new Statement<>(Operand.MOVE),
+			new Statement<>(Operand.PUSH, box),
+			new Statement<>(Operand.PUSH, "2A"),
+			new Statement<>(Operand.TAKE)
+		});
+		assertEquals(10, EnergyEstimator.estimateEnergy(agv, area, withTake));
+		assertTrue(EnergyEstimator.canComplete(agv, area, route));
+	}
+
+	@Test
+	void testUnpositionedAGVIsNeverFeasible() {
+		AGV agv = new AGV();
+		AGVProgram route = AGVProgramCompiler.compileRoute("1A", "6D");
+		assertEquals(EnergyEstimator.UNREACHABLE, EnergyEstimator.estimateEnergy(agv, area, route));
+		assertFalse(EnergyEstimator.canComplete(agv, area, route));
+	}
+
+	@Test
+	void testDispatcherSkipsAGVThatWouldAbort() {
+		AGV weak = agvAt(new Point(0, 0));
+		weak.setLoseChargePerActionPerTick(15);
+		AGV strong = agvAt(new Point(0, 1));
+
+		AGVTaskDispatcher dispatcher = new AGVTaskDispatcher(List.of(weak, strong), storage);
+		Task task = new Task();
+		BeveragesBox box = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 5, 5, 6);
+
+		// 1A -> 6D is 8 moves: 120% for the weak AGV, 45% for the strong one next to 1A
+		assertTrue(dispatcher.assignTaskToAGV(task, box));
+		assertSame(task, strong.getCurrentTask());
+		assertNull(weak.getCurrentTask());
+		assertEquals(AGVState.IDLE, weak.getState());
+	}
+
+	@Test
+	void testSelectionDoesNotSendOtherAGVsToCharge() {
+		AGV weak = agvAt(new Point(0, 0));
+		weak.setLoseChargePerActionPerTick(15);
+		weak.setBatteryLevel(90);
+		AGV strong = agvAt(new Point(0, 1));
+
+		AGVTaskDispatcher dispatcher = new AGVTaskDispatcher(List.of(weak, strong), storage);
+		assertTrue(dispatcher.assignTaskToAGV(new Task(), new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 5, 5, 6)));
+		assertEquals(AGVState.IDLE, weak.getState());
+	}
+
+	@Test
+	void testOneAGVChargesWhenNoneIsFeasible() {
+		AGV weaker = agvAt(new Point(0, 0));
+		weaker.setLoseChargePerActionPerTick(15);
+		weaker.setBatteryLevel(80);
+		AGV weak = agvAt(new Point(0, 1));
+		weak.setLoseChargePerActionPerTick(15);
+		weak.setBatteryLevel(90);
+
+		AGVTaskDispatcher dispatcher = new AGVTaskDispatcher(List.of(weaker, weak), storage);
+		assertFalse(dispatcher.assignTaskToAGV(new Task(), new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 5, 5, 5, 6)));
+		assertEquals(AGVState.IDLE, weaker.getState());
+		assertNotEquals(AGVState.IDLE, weak.getState());
+	}
+
+	@Test
+	void testUtilizationOfEmptiedFleetIsZero() {
+		List<AGV> fleet = new ArrayList<>(List.of(agvAt(new Point(0, 0))));
+		AGVTaskDispatcher dispatcher = new AGVTaskDispatcher(fleet, storage);
+		fleet.clear();
+		assertEquals(0, dispatcher.getFleetUtilization());
+		// a NaN reading would have dropped the gauge
+		assertEquals(0, MetricsRegistry.INSTANCE.getGaugeValues().get("fleet.utilization"));
+	}
+}
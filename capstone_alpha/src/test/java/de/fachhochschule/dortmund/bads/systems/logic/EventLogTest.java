@@ -0,0 +1,156 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.fachhochschule.dortmund.bads.systems.logic.Observation.SystemEvent;
+
+class EventLogTest {
+
+	@TempDir
+	Path directory;
+
+	private static final String[] TYPES = { "TICK", "METRICS", "ALERT" };
+
+	private Path writeEvents(int count) throws IOException {
+		Path file = directory.resolve("observation.events");
+		try (EventLog eventLog = new EventLog(file)) {
+			for (int i = 0; i < count; i++) {
+				eventLog.append(new SystemEvent(1_000L * i, TYPES[i % 3], "event " + i));
+			}
+			assertEquals(count, eventLog.getAppendedEvents());
+		}
+		return file;
+	}
+
+	private static List<SystemEvent> read(Path file, long from, long to, Set<String> types) throws IOException {
+		List<SystemEvent> events = new ArrayList<>();
+		assertEquals(EventLog.read(file, from, to, types, events::add), events.size());
+		return events;
+	}
+
+	@Test
+	void testReadsEventsBack() throws IOException {
+		Path file = writeEvents(1000);
+		List<SystemEvent> events = read(file, Long.MIN_VALUE, Long.MAX_VALUE, null);
+		assertEquals(1000, events.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(new SystemEvent(1_000L * i, TYPES[i % 3], "event " + i), events.get(i));
+		}
+	}
+
+	@Test
+	void testFiltersByTimeAndType() throws IOException {
+		Path file = writeEvents(1000);
+		List<SystemEvent> alerts = read(file, 100_000, 399_000, Set.of("ALERT"));
+		assertEquals(100, alerts.size());
+		assertTrue(alerts.stream().allMatch(event -> event.eventType().equals("ALERT")));
+		assertEquals(101_000, alerts.get(0).timestamp());
+		assertEquals(398_000, alerts.get(99).timestamp());
+
+		assertEquals(2, read(file, 0, 1_000, Set.of()).size());
+		assertTrue(read(file, 0, Long.MAX_VALUE, Set.of("UNKNOWN")).isEmpty());
+	}
+
+	@Test
+	void testIsSmallerThanText() throws IOException {
+		Path file = writeEvents(1000);
+		Path text = directory.resolve("observation.log");
+		assertEquals(1000, EventLog.render(file, Long.MIN_VALUE, Long.MAX_VALUE, null, text));
+		List<String> lines = Files.readAllLines(text);
+		assertEquals(1000, lines.size());
+		assertTrue(lines.get(5).endsWith(" ALERT event 5"), lines.get(5));
+		assertTrue(Files.size(file) < Files.size(text) / 2, Files.size(file) + " vs " + Files.size(text));
+	}
+
+	@Test
+	void testAppendsAfterReopenAndDropsTornBlock() throws IOException {
+		Path file = writeEvents(EventLog.BLOCK_EVENTS + 10);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+		try (EventLog eventLog = new EventLog(file)) {
+			eventLog.append(new SystemEvent(5_000_000, "ALERT", "after restart"));
+			eventLog.append(new SystemEvent(5_000_001, "RESTORED", "new type"));
+		}
+
+		List<SystemEvent> events = read(file, Long.MIN_VALUE, Long.MAX_VALUE, null);
+		assertEquals(EventLog.BLOCK_EVENTS + 2, events.size());
+		assertEquals(new SystemEvent(5_000_000, "ALERT", "after restart"), events.get(EventLog.BLOCK_EVENTS));
+		assertEquals("RESTORED", events.get(EventLog.BLOCK_EVENTS + 1).eventType());
+	}
+
+	@Test
+	void testRecordsObservationEvents() throws Exception {
+		Path file = directory.resolve("observation.events");
+		Observation observation = new Observation();
+		try (EventLog eventLog = new EventLog(file)) {
+			eventLog.attach(observation);
+			observation.recordEvent("ALERT", "series=tasks.queue.depth");
+			observation.recordEvent("TICK", "System tick: 50");
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (eventLog.getAppendedEvents() < 2 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+		} finally {
+			observation.stopSystem();
+		}
+		List<SystemEvent> events = read(file, Long.MIN_VALUE, Long.MAX_VALUE, Set.of("ALERT"));
+		assertEquals(1, events.size());
+		assertEquals("series=tasks.queue.depth", events.get(0).details());
+	}
+
+	@Test
+	void testRotatesBySizeAndDay() throws IOException {
+		Path file = directory.resolve("observation.events");
+		LocalDate day = LocalDate.of(2024, 5, 1);
+		long noon = day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		try (EventLog eventLog = new EventLog(file, 4096)) {
+			for (int i = 0; i < 2000; i++) {
+				eventLog.append(new SystemEvent(noon + i, TYPES[i % 3], "event " + i));
+				if (i % 100 == 99) {
+					eventLog.flush();
+				}
+			}
+			eventLog.append(new SystemEvent(noon + 86_400_000L, "ALERT", "next day"));
+		}
+
+		// every rotated file is a complete log of the first day, and together they hold its events in order
+		List<SystemEvent> events = new ArrayList<>();
+		int rotated = 0;
+		while (Files.exists(EventLog.rotated(file, day, rotated + 1))) {
+			Path part = EventLog.rotated(file, day, ++rotated);
+			assertTrue(Files.size(part) < 4096 + 2048, "size " + Files.size(part));
+			events.addAll(read(part, Long.MIN_VALUE, Long.MAX_VALUE, null));
+		}
+		assertTrue(rotated > 1, "rotated files " + rotated);
+		assertEquals(2000, events.size());
+		for (int i = 0; i < 2000; i++) {
+			assertEquals(new SystemEvent(noon + i, TYPES[i % 3], "event " + i), events.get(i));
+		}
+		assertEquals(List.of(new SystemEvent(noon + 86_400_000L, "ALERT", "next day")),
+				read(file, Long.MIN_VALUE, Long.MAX_VALUE, null));
+	}
+
+	@Test
+	void testRejectsOtherFiles() throws IOException {
+		Path file = directory.resolve("other.events");
+		Files.writeString(file, "not an event log");
+		assertThrows(IOException.class, () -> new EventLog(file));
+		assertThrows(IOException.class, () -> EventLog.read(file, 0, 1, null, event -> {
+		}));
+	}
+}
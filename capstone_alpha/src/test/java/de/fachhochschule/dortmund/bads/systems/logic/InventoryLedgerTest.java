@@ -0,0 +1,205 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+
+class InventoryLedgerTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final AtomicInteger tick = new AtomicInteger();
+
+	private static BeveragesBox water() {
+		return new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 10, 10, 10, 24);
+	}
+
+	private static BeveragesBox milk() {
+		return new BeveragesBox(BeveragesBox.Type.REFRIGERATED, "Milk", 10, 10, 10, 12);
+	}
+
+	private static int count(Map<String, List<BeveragesBox>> inventory, String location, String beverage) {
+		return (int) inventory.getOrDefault(location, List.of()).stream()
+				.filter(box -> box.getBeverageName().equals(beverage)).count();
+	}
+
+	@Test
+	void testReconstructsInventoryAtEveryTick() throws Exception {
+		StorageCell shelf = new StorageCell(Type.ANY, 100, 100, 100);
+		StorageCell agv = new StorageCell(Type.ANY, 100, 100, 100);
+		BeveragesBox initial = water();
+		shelf.add(initial);
+
+		Path file = tempDir.resolve("inventory.ledger");
+		InventoryLedger ledger = new InventoryLedger(file, 3, tick::get);
+		ledger.attach("1A", shelf);
+		ledger.attach("AGV-1", agv);
+		ledger.start();
+		try {
+			tick.set(1);
+			BeveragesBox milk = milk();
+			shelf.add(milk);
+			shelf.add(water());
+			tick.set(2);
+			shelf.remove(initial);
+			agv.add(initial);
+			tick.set(3);
+			shelf.remove(milk);
+			tick.set(4);
+			agv.remove(initial);
+
+			assertTrue(ledger.flush());
+			assertEquals(7, ledger.getRecordedChanges());
+
+			Map<String, List<BeveragesBox>> start = ledger.reconstruct(0);
+			assertEquals(1, count(start, "1A", "Water"));
+			assertFalse(start.containsKey("AGV-1"));
+
+			Map<String, List<BeveragesBox>> second = ledger.reconstruct(1);
+			assertEquals(2, count(second, "1A", "Water"));
+			assertEquals(1, count(second, "1A", "Milk"));
+
+			Map<String, List<BeveragesBox>> moved = ledger.reconstruct(2);
+			assertEquals(1, count(moved, "1A", "Water"));
+			assertEquals(1, count(moved, "AGV-1", "Water"));
+			BeveragesBox copy = moved.get("AGV-1").get(0);
+			assertEquals(BeveragesBox.Type.AMBIENT, copy.getType());
+			assertEquals(24, copy.getQuantity());
+
+			Map<String, List<BeveragesBox>> end = ledger.reconstruct(10);
+			assertEquals(Map.of("1A", end.get("1A")), end);
+			assertEquals(1, end.get("1A").size());
+		} finally {
+			ledger.shutdown();
+			ledger.join(5000);
+		}
+		assertFalse(ledger.isAlive());
+		assertEquals(1, count(InventoryLedger.reconstruct(file, 2), "AGV-1", "Water"));
+	}
+
+	@Test
+	void testCutOffRecordIsIgnored() throws Exception {
+		StorageCell shelf = new StorageCell(Type.ANY, 100, 100, 100);
+		Path file = tempDir.resolve("torn.ledger");
+		InventoryLedger ledger = new InventoryLedger(file, 100, tick::get);
+		ledger.attach("2B", shelf);
+		ledger.start();
+		shelf.add(water());
+		tick.set(1);
+		shelf.add(milk());
+		ledger.shutdown();
+		ledger.join(5000);
+
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+		Map<String, List<BeveragesBox>> inventory = InventoryLedger.reconstruct(file, 1);
+		assertEquals(1, count(inventory, "2B", "Water"));
+		assertEquals(0, count(inventory, "2B", "Milk"));
+
+		// a new session cuts the torn record off and starts from the attached cells
+		InventoryLedger reopened = new InventoryLedger(file, 100, tick::get);
+		reopened.attach("2B", shelf);
+		reopened.start();
+		reopened.shutdown();
+		reopened.join(5000);
+		inventory = InventoryLedger.reconstruct(file, 1);
+		assertEquals(1, count(inventory, "2B", "Water"));
+		assertEquals(1, count(inventory, "2B", "Milk"));
+	}
+
+	@Test
+	void testRejectsForeignFiles() throws IOException {
+		Path file = tempDir.resolve("not-a-ledger");
+		Files.writeString(file, "hello world, this is text");
+		assertThrows(IOException.class, () -> InventoryLedger.reconstruct(file, 0));
+		assertThrows(IOException.class, () -> new InventoryLedger(file, 10, tick::get));
+	}
+
+	@Test
+	void testRotatedFileKeepsEarlierTicks() throws Exception {
+		StorageCell shelf = new StorageCell(Type.ANY, 100, 100, 100);
+		Path file = tempDir.resolve("rotating.ledger");
+		Path rotated = InventoryLedger.rotated(file);
+		InventoryLedger ledger = new InventoryLedger(file, 1000, 4096, tick::get);
+		ledger.attach("1A", shelf);
+		ledger.start();
+		try {
+			tick.set(1);
+			shelf.add(milk());
+			while (!Files.exists(rotated)) {
+				tick.incrementAndGet();
+				BeveragesBox water = water();
+				shelf.add(water);
+				shelf.remove(water);
+				assertTrue(ledger.flush());
+				assertTrue(tick.get() < 1000, "ledger was not rotated");
+			}
+			int rotatedAt = tick.get();
+			tick.incrementAndGet();
+			shelf.add(water());
+			assertTrue(ledger.flush());
+
+			assertTrue(Files.size(file) < 4096);
+			Map<String, List<BeveragesBox>> early = ledger.reconstruct(1);
+			assertEquals(1, count(early, "1A", "Milk"));
+			assertEquals(0, count(early, "1A", "Water"));
+			assertEquals(1, count(ledger.reconstruct(rotatedAt), "1A", "Milk"));
+			Map<String, List<BeveragesBox>> latest = ledger.reconstruct(tick.get());
+			assertEquals(1, count(latest, "1A", "Milk"));
+			assertEquals(1, count(latest, "1A", "Water"));
+		} finally {
+			ledger.shutdown();
+			ledger.join(5000);
+		}
+
+		// a large file is rotated on open
+		Files.move(rotated, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+		InventoryLedger reopened = new InventoryLedger(file, 1000, 4096, tick::get);
+		reopened.start();
+		reopened.shutdown();
+		reopened.join(5000);
+		assertTrue(Files.exists(rotated));
+		assertTrue(Files.size(file) < 100);
+	}
+
+	@Test
+	void testChangesOfOneCellAreRecordedInOrder() throws Exception {
+		StorageCell shelf = new StorageCell(Type.ANY, 100, 100, 100);
+		Path file = tempDir.resolve("ordered.ledger");
+		InventoryLedger ledger = new InventoryLedger(file, 1000, tick::get);
+		ledger.attach("1A", shelf);
+		ledger.start();
+		try {
+			for (int i = 0; i < 500; i++) {
+				BeveragesBox water = water();
+				Thread adder = new Thread(() -> shelf.add(water));
+				adder.start();
+				// remove the box as soon as it is stored, racing the adder's listener
+				while (shelf.getBoxCount("Water") == 0) {
+					Thread.onSpinWait();
+				}
+				assertTrue(shelf.remove(water));
+				adder.join();
+			}
+			assertTrue(ledger.flush());
+			assertEquals(Map.of(), ledger.reconstruct(0));
+		} finally {
+			ledger.shutdown();
+			ledger.join(5000);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.fachhochschule.dortmund.bads.model.Task;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+
+class MetricsRegistryTest {
+
+	private final MetricsRegistry metrics = MetricsRegistry.INSTANCE;
+
+	@Test
+	void testCountersFromManyThreads() throws InterruptedException {
+		MetricsRegistry.Counter counter = metrics.counter("test.counter.threads");
+		long before = counter.get();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					counter.increment();
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+		assertEquals(before + 40_000, counter.get());
+		assertSame(counter, metrics.counter("test.counter.threads"));
+		assertSame(counter, metrics.getCounters().get("test.counter.threads"));
+	}
+
+	@Test
+	void testHistogramBuckets() {
+		MetricsRegistry.Histogram histogram = metrics.histogram("test.histogram.buckets", 10, 100, 1000);
+		for (long value : new long[] { 1, 10, 11, 50, 99, 500, 5000 }) {
+			histogram.record(value);
+		}
+		assertArrayEquals(new long[] { 2, 3, 1, 1 }, histogram.getBucketCounts());
+		assertEquals(7, histogram.getCount());
+		assertEquals(5671, histogram.getSum());
+		assertEquals(10, histogram.getPercentile(20));
+		assertEquals(100, histogram.getPercentile(50));
+		assertEquals(1000, histogram.getPercentile(80));
+		assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+		assertThrows(IllegalArgumentException.class, () -> metrics.histogram("test.histogram.unsorted", 5, 5));
+	}
+
+	@Test
+	void testGaugesAndJvmStatistics() {
+		int[] value = { 3 };
+		metrics.gauge("test.gauge", () -> value[0]);
+		assertEquals(3.0, metrics.getGaugeValue("test.gauge"));
+		value[0] = 7;
+		assertEquals(7.0, metrics.getGaugeValues().get("test.gauge"));
+		metrics.removeGauge("test.gauge");
+		assertTrue(Double.isNaN(metrics.getGaugeValue("test.gauge")));
+
+		// an undefined reading of a live owner is reported and the gauge stays
+		int[] owner = { 0 };
+		metrics.gauge("test.gauge.ratio", owner, counts -> (double) counts[0] / counts[0]);
+		assertTrue(Double.isNaN(metrics.getGaugeValues().get("test.gauge.ratio")));
+		owner[0] = 2;
+		assertEquals(1.0, metrics.getGaugeValues().get("test.gauge.ratio"));
+		metrics.removeGauge("test.gauge.ratio");
+
+		assertTrue(metrics.getGaugeValue("jvm.threads.live") >= 1);
+		assertTrue(metrics.getGaugeValue("jvm.memory.heap.used.bytes") > 0);
+		assertTrue(metrics.getGaugeValues().containsKey("jvm.gc.collections"));
+	}
+
+	@Test
+	void testLabeledNames() {
+		assertEquals("agv.battery{agv=\"AGV-1\"}", MetricsRegistry.labeled("agv.battery", "agv", "AGV-1"));
+		assertEquals("x{name=\"a\\\"b\"}", MetricsRegistry.labeled("x", "name", "a\"b"));
+		assertEquals("storage.utilization{storage=\"main\",type=\"AMBIENT\"}",
+				MetricsRegistry.labeled("storage.utilization", "storage", "main", "type", "AMBIENT"));
+	}
+
+	@Test
+	void testSystemsReportMetrics() throws InterruptedException {
+		AGV agv = new AGV();
+		agv.setBatteryLevel(64);
+		assertEquals(64.0, metrics.getGaugeValue(MetricsRegistry.labeled("agv.battery", "agv", agv.getAgvId())));
+
+		long ticks = metrics.counter("clock.ticks").get();
+		ClockingSimulation clock = new ClockingSimulation();
+		clock.setDelay(5);
+		clock.start();
+		Thread.sleep(100);
+		clock.stopSimulation();
+		clock.join(1000);
+		assertTrue(metrics.counter("clock.ticks").get() > ticks);
+		assertTrue(metrics.getHistograms().get("clock.tick.latency.micros").getCount() > 0);
+
+		TaskManagement tasks = new TaskManagement();
+		long added = metrics.counter("tasks.added").get();
+		tasks.addTask(new Task(1));
+		assertEquals(added + 1, metrics.counter("tasks.added").get());
+		assertEquals(1.0, metrics.getGaugeValue("tasks.queue.depth"));
+	}
+}
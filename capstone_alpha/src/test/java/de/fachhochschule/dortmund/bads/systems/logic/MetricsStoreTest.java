@@ -0,0 +1,230 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.fachhochschule.dortmund.bads.systems.logic.MetricsStore.Point;
+import de.fachhochschule.dortmund.bads.systems.logic.MetricsStore.Resolution;
+
+class MetricsStoreTest {
+
+	// 2024-01-01T00:00:00Z, on a full hour
+	private static final long START = 1_704_067_200_000L;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testRawSamplesSurviveReopen() throws IOException {
+		Path file = directory.resolve("metrics.tsdb");
+		MetricsStore store = new MetricsStore(file, 1000);
+		for (int i = 0; i < 1000; i++) {
+			store.record("tasks.queue.depth", START + i * 1000L, i % 7);
+			store.record("fleet.utilization", START + i * 1000L, i / 1000.0);
+		}
+		store.close();
+
+		MetricsStore reopened = new MetricsStore(file, 1000);
+		assertEquals(List.of("fleet.utilization", "tasks.queue.depth"), reopened.getSeriesNames());
+		List<Point> points = reopened.query("tasks.queue.depth", START, START + 999_000, Resolution.RAW);
+		assertEquals(1000, points.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(START + i * 1000L, points.get(i).timestamp());
+			assertEquals(i % 7, points.get(i).min());
+			assertEquals(1, points.get(i).count());
+		}
+		assertEquals(0.5, reopened.query("fleet.utilization", START + 500_000, START + 500_000, Resolution.RAW).get(0).mean());
+		reopened.close();
+	}
+
+	@Test
+	void testRollsUpIntoMinutesAndHours() throws IOException {
+		MetricsStore store = new MetricsStore(directory.resolve("metrics.tsdb"), 10_000);
+		// three hours of samples every 10 seconds, counting up within each minute
+		for (int i = 0; i < 3 * 360; i++) {
+			store.record("clock.tick.last.micros", START + i * 10_000L, i % 6);
+		}
+
+		List<Point> minutes = store.query("clock.tick.last.micros", START, START + 3 * 3_600_000L, Resolution.MINUTE);
+		assertEquals(180, minutes.size());
+		Point minute = minutes.get(42);
+		assertEquals(START + 42 * 60_000L, minute.timestamp());
+		assertEquals(0, minute.min());
+		assertEquals(5, minute.max());
+		assertEquals(2.5, minute.mean());
+		assertEquals(6, minute.count());
+
+		List<Point> hours = store.query("clock.tick.last.micros", START, START + 3 * 3_600_000L, Resolution.HOUR);
+		assertEquals(3, hours.size());
+		assertEquals(START + 3_600_000L, hours.get(1).timestamp());
+		assertEquals(360, hours.get(1).count());
+		// the last hour is still open and includes its last minute
+		assertEquals(360, hours.get(2).count());
+		store.close();
+	}
+
+	@Test
+	void testRollupsOfAnInterruptedMinuteAreMerged() throws IOException {
+		Path file = directory.resolve("metrics.tsdb");
+		MetricsStore store = new MetricsStore(file, 1000);
+		store.record("storage.units", START, 10);
+		store.record("storage.units", START + 1000, 20);
+		store.close();
+		MetricsStore reopened = new MetricsStore(file, 1000);
+		reopened.record("storage.units", START + 2000, 30);
+
+		List<Point> minutes = reopened.query("storage.units", START, START + 60_000, Resolution.MINUTE);
+		assertEquals(1, minutes.size());
+		assertEquals(3, minutes.get(0).count());
+		assertEquals(20, minutes.get(0).mean());
+		reopened.close();
+	}
+
+	@Test
+	void testRegularSamplesAreCompact() throws IOException {
+		Path file = directory.resolve("metrics.tsdb");
+		MetricsStore store = new MetricsStore(file, 1000);
+		int samples = 10 * MetricsStore.CHUNK_POINTS;
+		for (int i = 0; i < samples; i++) {
+			store.record("storage.units", START + i * 1000L, 480 + (i / 100));
+		}
+		store.flush();
+		// one byte for the timestamp and at most a few for the value
+		Path segment = store.segmentPath(Resolution.RAW, 1);
+		assertTrue(Files.size(segment) < samples * 3L, "size " + Files.size(segment));
+		store.close();
+	}
+
+	@Test
+	void testTornChunkIsDropped() throws IOException {
+		Path file = directory.resolve("metrics.tsdb");
+		MetricsStore store = new MetricsStore(file, 1000);
+		for (int i = 0; i < MetricsStore.CHUNK_POINTS + 10; i++) {
+			store.record("storage.units", START + i * 1000L, i);
+		}
+		store.close();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		// closing wrote the raw, minute and hour chunks in that order; the hour chunk is cut off
+		MetricsStore reopened = new MetricsStore(file, 1000);
+		assertEquals(MetricsStore.CHUNK_POINTS + 10,
+				reopened.query("storage.units", START, Long.MAX_VALUE, Resolution.RAW).size());
+		assertEquals(5, reopened.query("storage.units", START, Long.MAX_VALUE, Resolution.MINUTE).size());
+		assertTrue(reopened.query("storage.units", START, Long.MAX_VALUE, Resolution.HOUR).isEmpty());
+		reopened.record("storage.units", START + 1_000_000, 1);
+		reopened.flush();
+		assertEquals(MetricsStore.CHUNK_POINTS + 11,
+				reopened.query("storage.units", START, Long.MAX_VALUE, Resolution.RAW).size());
+		reopened.close();
+	}
+
+	@Test
+	void testExpiresRawAndMinuteSegments() throws IOException {
+		Path file = directory.resolve("metrics.tsdb");
+		// twelve hours every ten seconds; raw samples are kept for an hour, minute rollups for three
+		MetricsStore store = new MetricsStore(file, 10_000, 3_600_000, 3 * 3_600_000, () -> START);
+		for (int i = 0; i < 12 * 360; i++) {
+			store.record("storage.units", START + i * 10_000L, i);
+		}
+		store.flush();
+
+		long newest = START + (12 * 360 - 1) * 10_000L;
+		List<Point> raw = store.query("storage.units", START, Long.MAX_VALUE, Resolution.RAW);
+		assertEquals(newest, raw.get(raw.size() - 1).timestamp());
+		// whole chunks expire, so up to one chunk more than the retention is left
+		assertTrue(raw.get(0).timestamp() >= newest - 3_600_000 - MetricsStore.CHUNK_POINTS * 10_000L,
+				"oldest raw point " + (newest - raw.get(0).timestamp()) + "ms back");
+		assertFalse(Files.exists(store.segmentPath(Resolution.RAW, 1)));
+		List<Point> minutes = store.query("storage.units", START, Long.MAX_VALUE, Resolution.MINUTE);
+		assertEquals(START + 2 * MetricsStore.CHUNK_POINTS * 60_000L, minutes.get(0).timestamp());
+		assertEquals(12 * 60 - 2 * MetricsStore.CHUNK_POINTS, minutes.size());
+		// the hour rollups are kept
+		assertEquals(12, store.query("storage.units", START, Long.MAX_VALUE, Resolution.HOUR).size());
+		store.close();
+
+		MetricsStore reopened = new MetricsStore(file, 10_000, 3_600_000, 3 * 3_600_000, () -> START);
+		assertEquals(raw.size(), reopened.query("storage.units", START, Long.MAX_VALUE, Resolution.RAW).size());
+		assertEquals(minutes.size(), reopened.query("storage.units", START, Long.MAX_VALUE, Resolution.MINUTE).size());
+		assertEquals(12, reopened.query("storage.units", START, Long.MAX_VALUE, Resolution.HOUR).size());
+		reopened.close();
+	}
+
+	@Test
+	void testRecordsOfUnknownSeriesOrResolutionAreDropped() throws IOException {
+		Path file = directory.resolve("metrics.tsdb");
+		MetricsStore store = new MetricsStore(file, 1000);
+		store.record("storage.units", START, 1);
+		store.close();
+		long intact = Files.size(file);
+
+		for (int[] bad : new int[][] { { 7, 2 }, { 0, 9 } }) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				ByteBuffer chunk = ByteBuffer.allocate(4 + 1 + 25);
+				chunk.putInt(1 + 25).put((byte) 1).putInt(bad[0]).put((byte) bad[1]).putInt(1).putLong(START)
+						.putLong(START).flip();
+				channel.write(chunk);
+			}
+			MetricsStore reopened = new MetricsStore(file, 1000);
+			assertEquals(List.of("storage.units"), reopened.getSeriesNames());
+			assertEquals(1, reopened.query("storage.units", START, START, Resolution.HOUR).size());
+			reopened.close();
+			assertEquals(intact, Files.size(file));
+		}
+	}
+
+	@Test
+	void testQueriesRangeAndPicksResolution() throws IOException {
+		MetricsStore store = new MetricsStore(directory.resolve("metrics.tsdb"), 1000);
+		for (int i = 0; i < 600; i++) {
+			store.record("storage.units", START + i * 1000L, i);
+		}
+		List<Point> points = store.query("storage.units", START + 100_000, START + 199_999, Resolution.RAW);
+		assertEquals(100, points.size());
+		assertEquals(100, points.get(0).min());
+		assertTrue(store.query("unknown", START, START + 600_000, Resolution.RAW).isEmpty());
+
+		assertEquals(Resolution.RAW, store.resolutionFor(START, START + 500_000, 500));
+		assertEquals(Resolution.MINUTE, store.resolutionFor(START, START + 86_400_000L, 1440));
+		assertEquals(Resolution.HOUR, store.resolutionFor(START, START + 7 * 86_400_000L, 500));
+		store.close();
+	}
+
+	@Test
+	void testSamplesRegistry() throws IOException {
+		AtomicLong now = new AtomicLong(START);
+		MetricsRegistry.INSTANCE.gauge("test.store.gauge", () -> 4.5);
+		MetricsRegistry.INSTANCE.counter("test.store.counter").add(2);
+		MetricsStore store = new MetricsStore(directory.resolve("metrics.tsdb"), 1000,
+				MetricsStore.DEFAULT_RAW_RETENTION_MILLIS, MetricsStore.DEFAULT_MINUTE_RETENTION_MILLIS, now::get);
+		store.sample();
+		now.addAndGet(1000);
+		store.sample();
+
+		List<Point> gauge = store.query("test.store.gauge", START, START + 1000, Resolution.RAW);
+		assertEquals(2, gauge.size());
+		assertEquals(4.5, gauge.get(1).mean());
+		assertTrue(store.query("test.store.counter", START, START, Resolution.RAW).get(0).mean() >= 2);
+		store.close();
+		MetricsRegistry.INSTANCE.removeGauge("test.store.gauge");
+	}
+
+	@Test
+	void testRejectsOtherFiles() throws IOException {
+		Path file = directory.resolve("other.bin");
+		Files.writeString(file, "not a metrics store");
+		assertThrows(IOException.class, () -> new MetricsStore(file, 1000));
+	}
+}
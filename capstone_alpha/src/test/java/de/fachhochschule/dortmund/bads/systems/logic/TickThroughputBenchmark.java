@@ -0,0 +1,139 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.resources.Truck;
+import de.fachhochschule.dortmund.bads.systems.logic.utils.ITickable;
+
+/**
+ * Measures simulation ticks per second under a workload that exercises the
+ * logging of the tick path: trucks moving through the city and re-routing,
+ * and storage cells taking and giving back boxes on every tick. The ticks
+ * run back to back on the main thread, so the tick rate is bounded by the
+ * work per tick.
+ *
+ * Not a unit test; run it with the logging configuration to measure, and
+ * send the log output away so the terminal is not measured:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:... \
+ *     de.fachhochschule.dortmund.bads.systems.logic.TickThroughputBenchmark [seconds] > /dev/null
+ * </pre>
+ *
+ * The result is printed to standard error. See LOGGING_PERFORMANCE.md.
+ */
+public class TickThroughputBenchmark {
+
+	private static final int TRUCKS = 20;
+	private static final int CELLS = 20;
+
+	public static void main(String[] args) {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		Area city = new Area();
+		city.setGraph(grid(10, 10));
+
+		List<ITickable> tickables = new ArrayList<>();
+		Random random = new Random(1);
+		for (int i = 0; i < TRUCKS; i++) {
+			Truck truck = new Truck(city);
+			truck.setMoving(true);
+			tickables.add(new Commuter(truck, random));
+		}
+		List<StorageCell> cells = new ArrayList<>();
+		for (int i = 0; i < CELLS; i++) {
+			cells.add(new StorageCell(StorageCell.Type.AMBIENT, 120, 120, 150));
+		}
+		tickables.add(tick -> {
+			for (StorageCell cell : cells) {
+				BeveragesBox box = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 40, 30, 25, 24);
+				cell.add(box);
+				cell.remove(box);
+			}
+		});
+
+		int tick = run(tickables, 0, 2);
+		long start = System.nanoTime();
+		int ticks = run(tickables, tick, seconds) - tick;
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		System.err.printf("%d ticks in %.1fs: %.0f ticks/s (%d trucks, %d cells)%n", ticks, elapsed, ticks / elapsed,
+				TRUCKS, CELLS);
+		LogManager.shutdown();
+	}
+
+	/**
+	 * Tick like the clock thread does, without the delay between ticks.
+	 *
+	 * @return the last tick
+	 */
+	private static int run(List<ITickable> tickables, int tick, int seconds) {
+		long end = System.nanoTime() + seconds * 1_000_000_000L;
+		while (System.nanoTime() < end) {
+			tick++;
+			for (ITickable tickable : tickables) {
+				tickable.onTick(tick);
+			}
+		}
+		return tick;
+	}
+
+	/**
+	 * Drives a truck between random points of the city, routing it anew on arrival.
+	 */
+	private static final class Commuter implements ITickable {
+		private final Truck truck;
+		private final Random random;
+
+		Commuter(Truck truck, Random random) {
+			this.truck = truck;
+			this.random = random;
+			route();
+		}
+
+		private void route() {
+			Point from = truck.getDestinationPoint() != null ? truck.getDestinationPoint() : new Point(0, 0);
+			truck.setStartPoint(from);
+			truck.setDestinationPoint(new Point(random.nextInt(10), random.nextInt(10)));
+			try {
+				truck.call();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public void onTick(int currentTick) {
+			truck.onTick(currentTick);
+			if (truck.hasReachedDestination()) {
+				route();
+			}
+		}
+	}
+
+	private static Map<Point, Set<Point>> grid(int width, int height) {
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				Set<Point> neighbors = new HashSet<>();
+				if (x > 0) neighbors.add(new Point(x - 1, y));
+				if (x < width - 1) neighbors.add(new Point(x + 1, y));
+				if (y > 0) neighbors.add(new Point(x, y - 1));
+				if (y < height - 1) neighbors.add(new Point(x, y + 1));
+				graph.put(new Point(x, y), neighbors);
+			}
+		}
+		return graph;
+	}
+}
@@ -0,0 +1,161 @@
+package de.fachhochschule.dortmund.bads.systems.logic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.Storage;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.model.StorageCell.Type;
+import de.fachhochschule.dortmund.bads.model.Task;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.resources.Truck;
+
+class WarehouseSnapshotTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Area grid(int width, int height) {
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				Set<Point> neighbors = new HashSet<>();
+				if (x > 0) neighbors.add(new Point(x - 1, y));
+				if (x < width - 1) neighbors.add(new Point(x + 1, y));
+				if (y > 0) neighbors.add(new Point(x, y - 1));
+				if (y < height - 1) neighbors.add(new Point(x, y + 1));
+				graph.put(new Point(x, y), neighbors);
+			}
+		}
+		Area area = new Area();
+		area.setGraph(graph);
+		return area;
+	}
+
+	private Storage warehouse() {
+		Area area = grid(3, 2);
+		Type[] types = { Type.AMBIENT, Type.REFRIGERATED, Type.CHARGING_STATION, Type.CORRIDOR, Type.LOADING_DOCK, Type.BULK };
+		StorageCell[] cells = new StorageCell[types.length];
+		for (int i = 0; i < types.length; i++) {
+			cells[i] = new StorageCell(types[i], 100, 100, 100);
+		}
+		Storage storage = new Storage(area, cells);
+		storage.setCityPosition(2, 2);
+		assertTrue(storage.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 10, 20, 30, 24)));
+		assertTrue(storage.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Wasser ß", 10, 20, 30, 6)));
+		assertTrue(storage.addBeverageToStorage(new BeveragesBox(BeveragesBox.Type.REFRIGERATED, "Milk", 15, 15, 15, 12)));
+		return storage;
+	}
+
+	@Test
+	void testRoundTripRestoresWarehouse() throws Exception {
+		Storage storage = warehouse();
+		Area city = grid(4, 4);
+
+		AGV agv = new AGV();
+		agv.executeProgram(new AGV.Statement<?>[] { new AGV.Statement<>(AGV.Operand.SETUP, storage, new Point(1, 1)) });
+		agv.setBatteryLevel(42);
+		agv.setTicksPerMovement(3);
+		agv.getInventoryCell().add(new BeveragesBox(BeveragesBox.Type.BULK, "Beer Keg", 60, 90, 60, 1));
+
+		Truck truck = new Truck(city);
+		truck.setStartPoint(new Point(0, 0));
+		truck.setDestinationPoint(new Point(3, 3));
+		truck.setInventoryCell(new StorageCell(Type.ANY, 200, 200, 200));
+		truck.getInventoryCell().add(new BeveragesBox(BeveragesBox.Type.AMBIENT, "Cola", 10, 10, 10, 24));
+		truck.call();
+		truck.setCurrentLocationIdx(3);
+		truck.setMoving(true);
+
+		Path file = tempDir.resolve("warehouse.snapshot");
+		WarehouseSnapshot.capture(17, city, storage, List.of(agv), List.of(truck), List.of(new Task(5), new Task(1)))
+				.write(file);
+		assertTrue(Files.size(file) > 0);
+		assertFalse(Files.exists(tempDir.resolve("warehouse.snapshot.tmp")));
+
+		WarehouseSnapshot.Restored restored = WarehouseSnapshot.read(file).restore();
+		assertEquals(17, restored.tick());
+
+		Storage copy = restored.warehouse();
+		assertEquals(new Point(2, 2), copy.getCityPosition());
+		assertEquals(storage.getNodeCount(), copy.getNodeCount());
+		for (int nodeId = 0; nodeId < storage.getNodeCount(); nodeId++) {
+			StorageCell original = storage.getCellByNodeId(nodeId);
+			StorageCell cell = copy.getCellByNodeId(nodeId);
+			assertEquals(storage.getPoint(nodeId), copy.getPoint(nodeId));
+			assertEquals(original.TYPE, cell.TYPE);
+			assertEquals(original.getBoxCount(), cell.getBoxCount());
+			assertEquals(original.getActualUsedVolume(), cell.getActualUsedVolume());
+		}
+		assertEquals(storage.getBeverageLocations("Water"), copy.getBeverageLocations("Water"));
+		assertEquals(storage.getBeverageLocations("Wasser ß"), copy.getBeverageLocations("Wasser ß"));
+		assertEquals(storage.getTotalUnits(), copy.getTotalUnits());
+		assertEquals(storage.AREA.getAdjacencyMap(), copy.AREA.getAdjacencyMap());
+		assertEquals(city.getAdjacencyMap(), restored.city().getAdjacencyMap());
+
+		AGV restoredAgv = restored.agvFleet().get(0);
+		assertEquals(new Point(1, 1), restoredAgv.getCurrentPosition());
+		assertEquals(42, restoredAgv.getBatteryLevel());
+		assertEquals(3, restoredAgv.getTicksPerMovement());
+		assertEquals(1, restoredAgv.getInventoryCell().getBoxCount("Beer Keg"));
+
+		Truck restoredTruck = restored.trucks().get(0);
+		assertEquals(truck.getRoute(), restoredTruck.getRoute());
+		assertEquals(3, restoredTruck.getCurrentLocationIdx());
+		assertTrue(restoredTruck.isMoving());
+		assertEquals(1, restoredTruck.getInventoryCell().getBoxCount("Cola"));
+
+		// tasks without their processes would complete without doing any work
+		assertEquals(2, restored.droppedTasks());
+	}
+
+	@Test
+	void testCaptureAsyncRunsBetweenTicks() throws Exception {
+		Storage storage = warehouse();
+		ClockingSimulation clock = new ClockingSimulation();
+		clock.setDelay(10);
+		clock.start();
+		try {
+			Path file = tempDir.resolve("async.snapshot");
+			Path written = WarehouseSnapshot.captureAsync(clock, file, null, storage, null, null, null)
+					.get(5, TimeUnit.SECONDS);
+			assertEquals(file, written);
+			WarehouseSnapshot snapshot = WarehouseSnapshot.read(file);
+			assertTrue(snapshot.getTick() > 0);
+			assertNull(snapshot.restore().city());
+		} finally {
+			clock.stopSimulation();
+			clock.join(1000);
+		}
+	}
+
+	@Test
+	void testRejectsForeignFiles() throws IOException {
+		Path file = tempDir.resolve("not-a-snapshot");
+		Files.writeString(file, "hello world, this is text");
+		assertThrows(IOException.class, () -> WarehouseSnapshot.read(file));
+
+		// a valid header followed by nothing is reported as corrupt, not as an unchecked exception
+		Path snapshot = tempDir.resolve("cut.snapshot");
+		WarehouseSnapshot.capture(1, null, warehouse(), null, null, null).write(snapshot);
+		byte[] bytes = Files.readAllBytes(snapshot);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+		assertThrows(IOException.class, () -> WarehouseSnapshot.read(file));
+	}
+}
@@ -0,0 +1,108 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.fachhochschule.dortmund.bads.model.Area;
+import de.fachhochschule.dortmund.bads.model.Area.Point;
+import de.fachhochschule.dortmund.bads.model.StorageCell;
+import de.fachhochschule.dortmund.bads.resources.AGV;
+import de.fachhochschule.dortmund.bads.resources.BeveragesBox;
+import de.fachhochschule.dortmund.bads.systems.logic.ClockingSimulation;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class DomainEventsTest {
+
+	@TempDir
+	Path directory;
+
+	private List<RecordedEvent> record(Recording recording, Path file) throws Exception {
+		recording.start();
+		Map<Point, Set<Point>> graph = new HashMap<>();
+		graph.put(new Point(0, 0), Set.of(new Point(1, 0)));
+		graph.put(new Point(1, 0), Set.of(new Point(0, 0)));
+		Area area = new Area();
+		area.setGraph(graph);
+		assertEquals(2, area.findPath(0, 0, 1, 0).size());
+
+		StorageCell cell = new StorageCell(StorageCell.Type.AMBIENT, 100, 100, 100);
+		BeveragesBox box = new BeveragesBox(BeveragesBox.Type.AMBIENT, "Water", 10, 10, 10, 24);
+		assertTrue(cell.add(box));
+		assertTrue(cell.remove(box));
+
+		new AGV().requestCharging();
+
+		ClockingSimulation clock = new ClockingSimulation();
+		clock.setDelay(5);
+		clock.start();
+		Thread.sleep(50);
+		clock.stopSimulation();
+		clock.join(1000);
+
+		recording.stop();
+		recording.dump(file);
+		return RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().startsWith(DomainEvents.PREFIX))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	void testProfileEnablesDomainEvents() throws Exception {
+		Configuration profile;
+		try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/jfr/bads.jfc"),
+				StandardCharsets.UTF_8)) {
+			profile = Configuration.create(reader);
+		}
+		Map<String, String> settings = new HashMap<>(profile.getSettings());
+		// record the short events as well
+		settings.replaceAll((key, value) -> key.endsWith("#threshold") ? "0 ms" : value);
+
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording(settings)) {
+			events = record(recording, directory.resolve("enabled.jfr"));
+		}
+		Set<String> names = events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toSet());
+		assertTrue(names.containsAll(Set.of(DomainEvents.PREFIX + "Tick", DomainEvents.PREFIX + "PathSearch",
+				DomainEvents.PREFIX + "StorageMutation", DomainEvents.PREFIX + "AGVStateChange")), names.toString());
+
+		RecordedEvent search = events.stream()
+				.filter(event -> event.getEventType().getName().endsWith("PathSearch")).findFirst().orElseThrow();
+		assertEquals("0,0", search.getString("from"));
+		assertEquals(2, search.getInt("pathLength"));
+		assertTrue(search.getInt("visitedNodes") >= 1);
+
+		List<String> mutations = events.stream()
+				.filter(event -> event.getEventType().getName().endsWith("StorageMutation"))
+				.map(event -> event.getString("operation")).collect(Collectors.toList());
+		assertEquals(List.of("ADD", "REMOVE"), mutations);
+
+		RecordedEvent state = events.stream()
+				.filter(event -> event.getEventType().getName().endsWith("AGVStateChange")).findFirst().orElseThrow();
+		assertEquals("IDLE", state.getString("from"));
+		assertEquals("WAITING_FOR_CHARGE", state.getString("to"));
+	}
+
+	@Test
+	void testEventsAreOffWithoutProfile() throws Exception {
+		try (Recording recording = new Recording()) {
+			assertTrue(record(recording, directory.resolve("disabled.jfr")).isEmpty());
+		}
+		assertTrue(Files.exists(directory.resolve("disabled.jfr")));
+	}
+}
@@ -0,0 +1,82 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class EventRingTest {
+
+	@Test
+	void testOverwritesOldestElements() {
+		EventRing<Integer> ring = new EventRing<>(3);
+		assertEquals(0, ring.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, ring.offer(i));
+		}
+		assertEquals(3, ring.size());
+		assertEquals(5, ring.getSequence());
+		assertEquals(List.of(2, 3, 4), ring.snapshot());
+		assertThrows(IllegalArgumentException.class, () -> new EventRing<>(0));
+	}
+
+	@Test
+	void testCursorReadsOnlyNewElements() {
+		EventRing<String> ring = new EventRing<>(4);
+		List<String> seen = new ArrayList<>();
+		long cursor = ring.read(0, seen::add);
+		assertEquals(0, cursor);
+
+		ring.offer("a");
+		ring.offer("b");
+		cursor = ring.read(cursor, seen::add);
+		assertEquals(List.of("a", "b"), seen);
+		assertEquals(2, cursor);
+		assertEquals(2, ring.read(cursor, seen::add));
+
+		// a reader that fell behind continues with the oldest element still held
+		for (char c = 'c'; c <= 'h'; c++) {
+			ring.offer(String.valueOf(c));
+		}
+		seen.clear();
+		cursor = ring.read(cursor, seen::add);
+		assertEquals(List.of("e", "f", "g", "h"), seen);
+		assertEquals(8, cursor);
+	}
+
+	@Test
+	void testConcurrentProducers() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 10_000;
+		EventRing<Integer> ring = new EventRing<>(1000);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					ring.offer(i);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		assertEquals(producers * perProducer, ring.getSequence());
+		assertEquals(1000, ring.size());
+		List<Integer> held = ring.snapshot();
+		assertEquals(1000, held.size());
+		assertEquals(producers * perProducer, ring.read(producers * perProducer - 1000, element -> {}));
+	}
+}
@@ -0,0 +1,59 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class LogRateLimiterTest {
+
+	private final AtomicLong now = new AtomicLong();
+	private final LogRateLimiter limiter = new LogRateLimiter(2, now::get);
+
+	@Test
+	void testLimitsMessagesPerSecond() {
+		Object agv = new Object();
+		assertEquals(0, limiter.acquire(agv));
+		assertEquals(0, limiter.acquire(agv));
+		assertEquals(-1, limiter.acquire(agv));
+		assertEquals(-1, limiter.acquire(agv));
+	}
+
+	@Test
+	void testReportsSuppressedMessagesAfterWindow() {
+		Object agv = new Object();
+		limiter.acquire(agv);
+		limiter.acquire(agv);
+		limiter.acquire(agv);
+		limiter.acquire(agv);
+		limiter.acquire(agv);
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(3, limiter.acquire(agv));
+		assertEquals(0, limiter.acquire(agv));
+		assertEquals(-1, limiter.acquire(agv));
+	}
+
+	@Test
+	void testNotesOnlySuppressedMessages() {
+		assertEquals("", LogRateLimiter.suppressedNote(0));
+		assertEquals(" (3 suppressed)", LogRateLimiter.suppressedNote(3));
+	}
+
+	@Test
+	void testEntitiesHaveSeparateWindows() {
+		Object first = new Object();
+		Object second = new Object();
+		limiter.acquire(first);
+		limiter.acquire(first);
+		assertEquals(-1, limiter.acquire(first));
+		assertEquals(0, limiter.acquire(second));
+	}
+
+	@Test
+	void testRejectsNonPositiveLimit() {
+		assertThrows(IllegalArgumentException.class, () -> new LogRateLimiter(0));
+	}
+}
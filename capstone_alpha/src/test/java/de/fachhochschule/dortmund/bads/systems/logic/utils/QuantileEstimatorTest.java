@@ -0,0 +1,48 @@
+package de.fachhochschule.dortmund.bads.systems.logic.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QuantileEstimatorTest {
+
+	@Test
+	void testEstimatesQuantileOfUniformSamples() {
+		QuantileEstimator estimator = new QuantileEstimator(0.95);
+		Random random = new Random(7);
+		for (int i = 0; i < 100_000; i++) {
+			estimator.add(random.nextDouble() * 1_000);
+		}
+		assertEquals(950, estimator.get(), 10);
+		assertEquals(100_000, estimator.getCount());
+	}
+
+	@Test
+	void testEstimatesMedianOfSkewedSamples() {
+		QuantileEstimator estimator = new QuantileEstimator(0.5);
+		Random random = new Random(7);
+		for (int i = 0; i < 100_000; i++) {
+			estimator.add(-Math.log(1 - random.nextDouble()));
+		}
+		// median of the exponential distribution
+		assertEquals(Math.log(2), estimator.get(), 0.02);
+	}
+
+	@Test
+	void testIsExactForFewSamples() {
+		QuantileEstimator estimator = new QuantileEstimator(0.5);
+		assertTrue(Double.isNaN(estimator.get()));
+		estimator.add(3);
+		estimator.add(1);
+		estimator.add(2);
+		assertEquals(2, estimator.get());
+	}
+
+	@Test
+	void testRejectsQuantileOutsideUnitInterval() {
+		assertThrows(IllegalArgumentException.class, () -> new QuantileEstimator(0));
+		assertThrows(IllegalArgumentException.class, () -> new QuantileEstimator(1));
+	}
+}